@@ -5,7 +5,6 @@
 package com.mopub.common;
 
 import android.graphics.Point;
-import android.net.Uri;
 import android.os.Build;
 import android.text.TextUtils;
 import android.view.DisplayCutout;
@@ -14,6 +13,7 @@ import android.view.WindowInsets;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.mopub.network.MoPubRequestParams;
 import com.mopub.network.Networking;
 import com.mopub.network.PlayServicesUrlRewriter;
 
@@ -32,7 +32,7 @@ public abstract class BaseUrlGenerator {
     /**
      * User ifa.
      */
-    protected static final String IFA_KEY = "ifa";
+    public static final String IFA_KEY = "ifa";
 
     /**
      * "Do not track." Equal to 1 when limit ad tracking is turned on. Equal to 0 otherwise.
@@ -48,7 +48,7 @@ public abstract class BaseUrlGenerator {
     /**
      * Always the mopub-generated identifier.
      */
-    protected static final String MOPUB_ID_KEY = "mid";
+    public static final String MOPUB_ID_KEY = "mid";
 
     /**
      * Bundle ID, as in package name.
@@ -144,7 +144,8 @@ public abstract class BaseUrlGenerator {
     private static final String WRAPPER_VERSION = "w_ver";
 
     private StringBuilder mStringBuilder;
-    private boolean mFirstParam;
+    private MoPubRequestParams mRequestParams;
+    @Nullable private String mFinalUrlString;
     private static AppEngineInfo mAppEngineInfo = null;
     private static String sWrapperVersion;
 
@@ -153,11 +154,27 @@ public abstract class BaseUrlGenerator {
     protected void initUrlString(String serverHostname, String handlerType) {
         mStringBuilder = new StringBuilder(Networking.getScheme()).append("://")
                 .append(serverHostname).append(handlerType);
-        mFirstParam = true;
+        mRequestParams = new MoPubRequestParams();
+        mFinalUrlString = null;
     }
 
     protected String getFinalUrlString() {
-        return mStringBuilder.toString();
+        mFinalUrlString = mRequestParams.appendQueryString(new StringBuilder(mStringBuilder))
+                .toString();
+        return mFinalUrlString;
+    }
+
+    /**
+     * @param url A url this generator returned.
+     * @return The parameters of {@code url}, if it is the latest url this generator returned,
+     * so that the request can send them without parsing {@code url}. Null otherwise.
+     */
+    @Nullable
+    public MoPubRequestParams getRequestParams(@Nullable final String url) {
+        if (mFinalUrlString == null || !mFinalUrlString.equals(url)) {
+            return null;
+        }
+        return mRequestParams;
     }
 
     protected void addParam(String key, String value) {
@@ -165,10 +182,7 @@ public abstract class BaseUrlGenerator {
             return;
         }
 
-        mStringBuilder.append(getParamDelimiter());
-        mStringBuilder.append(key);
-        mStringBuilder.append("=");
-        mStringBuilder.append(Uri.encode(value));
+        mRequestParams.add(key, value);
     }
 
     protected void addParam(String key, Boolean value) {
@@ -176,18 +190,7 @@ public abstract class BaseUrlGenerator {
             return;
         }
 
-        mStringBuilder.append(getParamDelimiter());
-        mStringBuilder.append(key);
-        mStringBuilder.append("=");
-        mStringBuilder.append(value ? "1" : "0");
-    }
-
-    private String getParamDelimiter() {
-        if (mFirstParam) {
-            mFirstParam = false;
-            return "?";
-        }
-        return "&";
+        mRequestParams.add(key, value ? "1" : "0");
     }
 
     protected void setApiVersion(String apiVersion) {
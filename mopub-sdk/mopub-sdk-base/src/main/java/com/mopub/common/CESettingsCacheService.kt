@@ -5,8 +5,11 @@
 package com.mopub.common
 
 import android.content.Context
+import android.os.Handler
+import android.os.Looper
 import androidx.annotation.AnyThread
 import androidx.annotation.WorkerThread
+import androidx.collection.LruCache
 
 import com.mopub.common.logging.MoPubLog
 import com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM
@@ -16,8 +19,18 @@ import kotlinx.coroutines.SupervisorJob
 
 object CESettingsCacheService : CacheService("mopub-ce-cache") {
 
+    private const val MAX_MEMORY_CACHE_ENTRIES = 32
+
     private val supervisorJob = SupervisorJob()
 
+    /**
+     * Parsed settings by ad unit id, written through on put and filled on disk reads, so that
+     * repeat lookups (such as every banner refresh) don't go to disk.
+     */
+    private val memoryCache = LruCache<String, CreativeExperienceSettings>(MAX_MEMORY_CACHE_ENTRIES)
+
+    private val mainHandler = Handler(Looper.getMainLooper())
+
     /**
      * Interface for CE Settings cache related callbacks
      */
@@ -33,7 +46,8 @@ object CESettingsCacheService : CacheService("mopub-ce-cache") {
 
     /**
      * Get the CE Settings hash for an ad unit from the CE Settings cache and pass the hash
-     * retrieved to the provided listener.
+     * retrieved to the provided listener. Settings in memory are passed on without reading the
+     * disk, but still on the main thread after this returns, like settings read from disk.
      *
      * @param adUnitId the ad unit id for which to fetch the CE Settings hash for.
      * @param listener the listener to pass the retrieved hash to.
@@ -46,6 +60,11 @@ object CESettingsCacheService : CacheService("mopub-ce-cache") {
         listener: CESettingsCacheListener,
         context: Context?
     ) {
+        memoryCache.get(adUnitId)?.let {
+            mainHandler.post { listener.onHashReceived(it.hash) }
+            return
+        }
+
         if (context == null) {
             MoPubLog.log(CUSTOM, "Context cannot be null.")
             listener.onHashReceived("0")
@@ -57,7 +76,7 @@ object CESettingsCacheService : CacheService("mopub-ce-cache") {
                 if (key != adUnitId) {
                     return
                 }
-                val settingsFromCache = CreativeExperienceSettings.fromByteArray(content)
+                val settingsFromCache = addToMemoryCache(adUnitId, content)
                 listener.onHashReceived(settingsFromCache?.hash ?: "0")
             }
         }
@@ -72,7 +91,8 @@ object CESettingsCacheService : CacheService("mopub-ce-cache") {
 
     /**
      * Get CE Settings for an ad unit from the CE Settings cache and pass the settings retrieved to
-     * the provided listener.
+     * the provided listener. Settings in memory are passed on without reading the disk, but still
+     * on the main thread after this returns, like settings read from disk.
      *
      * @param adUnitId the ad unit id for which to fetch CE Settings for.
      * @param listener the listener to pass the retrieved settings to.
@@ -85,6 +105,11 @@ object CESettingsCacheService : CacheService("mopub-ce-cache") {
         listener: CESettingsCacheListener,
         context: Context?
     ) {
+        memoryCache.get(adUnitId)?.let {
+            mainHandler.post { listener.onSettingsReceived(it) }
+            return
+        }
+
         if (context == null) {
             MoPubLog.log(CUSTOM, "Context cannot be null.")
             listener.onSettingsReceived(null)
@@ -97,7 +122,7 @@ object CESettingsCacheService : CacheService("mopub-ce-cache") {
                     return
                 }
 
-                val settingsFromCache = CreativeExperienceSettings.fromByteArray(content)
+                val settingsFromCache = addToMemoryCache(adUnitId, content)
                 listener.onSettingsReceived(settingsFromCache)
             }
         }
@@ -111,7 +136,8 @@ object CESettingsCacheService : CacheService("mopub-ce-cache") {
     }
 
     /**
-     * Fire and forget call to cache CE Settings for an ad unit.
+     * Fire and forget call to cache CE Settings for an ad unit. The settings are available from
+     * memory right away and written to disk in the background.
      *
      * @param adUnitId the ad unit id for which to cache CE Settings for (key).
      * @param ceSettings the creative experience settings to cache (value).
@@ -124,6 +150,8 @@ object CESettingsCacheService : CacheService("mopub-ce-cache") {
         ceSettings: CreativeExperienceSettings,
         context: Context?
     ) {
+        memoryCache.put(adUnitId, ceSettings)
+
         if (context == null) {
             MoPubLog.log(CUSTOM, "Context cannot be null.")
             return
@@ -138,9 +166,27 @@ object CESettingsCacheService : CacheService("mopub-ce-cache") {
         )
     }
 
+    /**
+     * Keeps settings read from disk in memory, unless a put has stored newer ones for the ad unit
+     * while the read was in progress.
+     *
+     * @return the settings now in memory for the ad unit, or null if there are none.
+     */
+    private fun addToMemoryCache(adUnitId: String, content: ByteArray?): CreativeExperienceSettings? {
+        val settingsFromCache = CreativeExperienceSettings.fromByteArray(content)
+        synchronized(memoryCache) {
+            memoryCache.get(adUnitId)?.let { return it }
+            settingsFromCache?.let { memoryCache.put(adUnitId, it) }
+        }
+        return settingsFromCache
+    }
+
     // Testing
     @JvmStatic
     @WorkerThread
     @VisibleForTesting
-    fun clearCESettingsCache() = clearAndNullCache()
+    fun clearCESettingsCache() {
+        memoryCache.evictAll()
+        clearAndNullCache()
+    }
 }
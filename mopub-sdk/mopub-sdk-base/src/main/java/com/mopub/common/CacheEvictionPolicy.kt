@@ -0,0 +1,129 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common
+
+import androidx.annotation.AnyThread
+
+/**
+ * Eviction for a [CacheService] that keeps what is asked for again and what is about to be used.
+ *
+ * - Every lookup of a key counts towards its frequency. When over size, the entry with the lowest
+ *   frequency goes first, so a burst of one-off entries evicts each other before anything that
+ *   has been asked for twice. Frequencies are halved every [sampleSize] lookups so that old
+ *   favorites eventually make room.
+ * - Pinned entries are never evicted. A pin is released by [unpin] or after [pinTtlMillis], so
+ *   that a pin that is never released doesn't hold on to an entry forever.
+ * - Entries not looked up for [ttlMillis] are removed even when the cache has room.
+ *
+ * Keys are the cache's own keys, from [CacheService.createValidDiskCacheKey].
+ *
+ * @param ttlMillis How long an entry lives after it was last written or looked up. 0 for forever.
+ * @param pinTtlMillis How long a pin lasts.
+ */
+open class CacheEvictionPolicy @JvmOverloads constructor(
+    private val ttlMillis: Long,
+    private val pinTtlMillis: Long,
+    private val sampleSize: Int = DEFAULT_SAMPLE_SIZE
+) : DiskLruCache.EvictionPolicy {
+
+    companion object {
+        private const val DEFAULT_SAMPLE_SIZE = 512
+        private const val MAX_FREQUENCY = 15
+    }
+
+    private class Usage(var frequency: Int, var lastAccessMillis: Long)
+
+    private class Pin(var count: Int, var expiresAtMillis: Long)
+
+    private val usages = HashMap<String, Usage>()
+    private val pins = HashMap<String, Pin>()
+    private var accessCount = 0
+
+    /**
+     * Counts a lookup of [key], whether or not it is in the cache.
+     */
+    @AnyThread
+    @Synchronized
+    open fun recordAccess(key: String) {
+        val now = System.currentTimeMillis()
+        val usage = usages.getOrPut(key) { Usage(0, now) }
+        usage.frequency = minOf(usage.frequency + 1, MAX_FREQUENCY)
+        usage.lastAccessMillis = now
+        if (++accessCount >= sampleSize) {
+            age()
+        }
+    }
+
+    /**
+     * Keeps [key] from being evicted until a matching [unpin] or until the pin expires. Pinning
+     * again extends the pin.
+     */
+    @AnyThread
+    @Synchronized
+    fun pin(key: String) {
+        val expiresAtMillis = System.currentTimeMillis() + pinTtlMillis
+        val pin = pins[key]
+        if (pin == null || pin.expiresAtMillis <= System.currentTimeMillis()) {
+            pins[key] = Pin(1, expiresAtMillis)
+        } else {
+            pin.count++
+            pin.expiresAtMillis = expiresAtMillis
+        }
+    }
+
+    @AnyThread
+    @Synchronized
+    fun unpin(key: String) {
+        val pin = pins[key] ?: return
+        if (--pin.count <= 0) {
+            pins.remove(key)
+        }
+    }
+
+    @Synchronized
+    override fun isPinned(key: String): Boolean {
+        val pin = pins[key] ?: return false
+        if (pin.expiresAtMillis <= System.currentTimeMillis()) {
+            pins.remove(key)
+            return false
+        }
+        return true
+    }
+
+    @Synchronized
+    override fun getPriority(key: String): Int = usages[key]?.frequency ?: 0
+
+    @Synchronized
+    override fun isExpired(key: String, lastModifiedMillis: Long): Boolean {
+        if (ttlMillis <= 0) {
+            return false
+        }
+        val lastUsedMillis = maxOf(lastModifiedMillis, usages[key]?.lastAccessMillis ?: 0)
+        return System.currentTimeMillis() - lastUsedMillis > ttlMillis
+    }
+
+    override fun onEvicted(key: String) {
+        // Frequency outlives the entry so that an entry asked for again comes back with it
+    }
+
+    @Synchronized
+    fun clear() {
+        usages.clear()
+        pins.clear()
+        accessCount = 0
+    }
+
+    private fun age() {
+        accessCount = 0
+        val iterator = usages.values.iterator()
+        while (iterator.hasNext()) {
+            val usage = iterator.next()
+            usage.frequency /= 2
+            if (usage.frequency == 0) {
+                iterator.remove()
+            }
+        }
+    }
+}
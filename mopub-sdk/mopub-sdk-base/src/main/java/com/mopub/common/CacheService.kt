@@ -7,6 +7,7 @@ package com.mopub.common
 import android.content.Context
 import androidx.annotation.AnyThread
 import androidx.annotation.WorkerThread
+import androidx.collection.LruCache
 
 import com.mopub.common.logging.MoPubLog
 import com.mopub.common.logging.MoPubLog.SdkLogEvent
@@ -17,13 +18,26 @@ import com.mopub.common.util.Utils
 import kotlinx.coroutines.*
 
 import java.io.*
+import java.util.concurrent.atomic.AtomicLong
 
-abstract class CacheService(private val uniqueCacheName: String) {
+/**
+ * @param evictionPolicy Chooses what to evict instead of plain LRU, and is told about every lookup.
+ */
+abstract class CacheService @JvmOverloads constructor(
+    private val uniqueCacheName: String,
+    protected val evictionPolicy: CacheEvictionPolicy? = null
+) {
 
     companion object {
         private const val APP_VERSION = 1
         private const val DISK_CACHE_INDEX = 0
         private const val VALUE_COUNT = 1  // Number of values per cache entry. Must be positive.
+        /**
+         * How long a put can sit in the journal's buffer. Losing the last second of puts to a
+         * crash only costs downloading them again.
+         */
+        private const val JOURNAL_FLUSH_INTERVAL_MILLIS = 1000L
+        private const val MAX_MEMOIZED_KEYS = 64
     }
 
     @Volatile
@@ -31,6 +45,81 @@ abstract class CacheService(private val uniqueCacheName: String) {
     var diskLruCache: DiskLruCache? = null
         protected set
 
+    private val initLock = Any()
+
+    /**
+     * Hashes of recently used keys. The same URL is usually checked, stored and located in quick
+     * succession.
+     */
+    private val validKeys = LruCache<String, String>(MAX_MEMOIZED_KEYS)
+
+    /**
+     * Time spent waiting for the [DiskLruCache] lock. Writing an entry's data never holds it; the
+     * lock is held longest by trimming, journal rebuilds and index writes on the cache's cleanup
+     * thread. This only measures contention, it doesn't reduce it.
+     */
+    val lockWaitStats = LockWaitStats()
+
+    class LockWaitStats internal constructor() {
+        private val count = AtomicLong()
+        private val totalWaitNanos = AtomicLong()
+        private val maxWaitNanos = AtomicLong()
+
+        val acquisitionCount: Long
+            get() = count.get()
+
+        val averageWaitMicros: Long
+            get() = count.get().let { if (it == 0L) 0 else totalWaitNanos.get() / it / 1000 }
+
+        val maxWaitMicros: Long
+            get() = maxWaitNanos.get() / 1000
+
+        internal fun record(waitNanos: Long) {
+            count.incrementAndGet()
+            totalWaitNanos.addAndGet(waitNanos)
+            var max = maxWaitNanos.get()
+            while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos)) {
+                max = maxWaitNanos.get()
+            }
+        }
+    }
+
+    /**
+     * Lookups and removals, for tuning the cache size and eviction policy.
+     */
+    val cacheStats = CacheStats()
+
+    inner class CacheStats internal constructor() {
+        private val hits = AtomicLong()
+        private val misses = AtomicLong()
+
+        val hitCount: Long
+            get() = hits.get()
+
+        val missCount: Long
+            get() = misses.get()
+
+        val hitRatio: Double
+            get() = (hits.get() + misses.get()).let { if (it == 0L) 0.0 else hits.get().toDouble() / it }
+
+        /**
+         * Entries removed to make room.
+         */
+        val evictionCount: Long
+            get() = diskLruCache?.evictionCount ?: 0L
+
+        /**
+         * Entries removed by the eviction policy's TTL.
+         */
+        val expirationCount: Long
+            get() = diskLruCache?.expirationCount ?: 0L
+
+        internal fun recordLookup(validKey: String, hit: Boolean) {
+            (if (hit) hits else misses).incrementAndGet()
+            evictionPolicy?.recordAccess(validKey)
+        }
+    }
+
     /**
      * Interface for async get and put operation listeners
      */
@@ -49,18 +138,21 @@ abstract class CacheService(private val uniqueCacheName: String) {
         if (context == null) {
             return false
         }
-        // Double-checked locking to initialize.
-        diskLruCache ?: synchronized(CacheService::class) {
+        // Double-checked locking to initialize. Each cache service initializes independently.
+        diskLruCache ?: synchronized(initLock) {
             diskLruCache ?: run {
                 val cacheDirectory = getDiskCacheDirectory(context) ?: return false
                 val diskCacheSizeBytes = DeviceUtils.diskCacheSizeBytes(cacheDirectory)
                 try {
-                    diskLruCache = DiskLruCache.open(
+                    val cache = DiskLruCache.open(
                         cacheDirectory,
                         APP_VERSION,
                         VALUE_COUNT,
                         diskCacheSizeBytes
                     )
+                    cache.setJournalFlushInterval(JOURNAL_FLUSH_INTERVAL_MILLIS)
+                    evictionPolicy?.let { cache.setEvictionPolicy(it) }
+                    diskLruCache = cache
                 } catch (e: IOException) {
                     MoPubLog.log(SdkLogEvent.CUSTOM, "Unable to create DiskLruCache", e)
                     return false
@@ -70,6 +162,18 @@ abstract class CacheService(private val uniqueCacheName: String) {
         return true
     }
 
+    /**
+     * Takes the cache's own lock around a single operation to record how long it waited for it.
+     * The cache's synchronized methods then re-enter the lock without waiting.
+     */
+    private inline fun <T> withLock(cache: DiskLruCache, operation: () -> T): T {
+        val start = System.nanoTime()
+        synchronized(cache) {
+            lockWaitStats.record(System.nanoTime() - start)
+            return operation()
+        }
+    }
+
     @WorkerThread
     fun initialize(context: Context?) {
         initializeDiskCache(context)
@@ -83,17 +187,23 @@ abstract class CacheService(private val uniqueCacheName: String) {
     }
 
     @AnyThread
-    fun createValidDiskCacheKey(key: String?): String = Utils.sha1(key)
+    fun createValidDiskCacheKey(key: String?): String {
+        if (key == null) {
+            return Utils.sha1(key)
+        }
+        return validKeys.get(key) ?: Utils.sha1(key).also { validKeys.put(key, it) }
+    }
 
-    @WorkerThread
+    /**
+     * Checks the cache's in-memory index, without touching the disk or waiting for the cache.
+     */
+    @AnyThread
     fun containsKeyDiskCache(key: String?): Boolean {
-        return diskLruCache?.let {
-            try {
-                it.get(createValidDiskCacheKey(key))
-            } catch (e: IOException) {
-                null
-            }
-        } != null
+        val validKey = createValidDiskCacheKey(key)
+        val cache = diskLruCache ?: return false
+        val contains = cache.contains(validKey)
+        cacheStats.recordLookup(validKey, contains)
+        return contains
     }
 
     @AnyThread
@@ -101,39 +211,57 @@ abstract class CacheService(private val uniqueCacheName: String) {
         if (key == null) {
             return null
         }
+        val validKey = createValidDiskCacheKey(key)
         return diskLruCache?.let {
             // This violates encapsulation but there is no convenience method to get a filename from
             // DiskLruCache. Filename was derived from private class method Entry#getCleanFile
             // in DiskLruCache.java
-            "${it.directory}${File.separator}${createValidDiskCacheKey(key)}.$DISK_CACHE_INDEX"
+            "${it.directory}${File.separator}$validKey.$DISK_CACHE_INDEX"
         }
     }
 
     @WorkerThread
     fun putToDiskCache(key: String?, content: ByteArray?): Boolean {
-        if (key == null || content == null) {
+        if (content == null) {
             return false
         }
-        return putToDiskCache(key, ByteArrayInputStream(content))
+        return putToDiskCache(key) { it.set(DISK_CACHE_INDEX, content) }
     }
 
     @WorkerThread
     fun putToDiskCache(key: String?, content: InputStream?): Boolean {
-        if (diskLruCache == null || key.isNullOrEmpty() || content == null) {
+        if (content == null) {
             return false
         }
+        return putToDiskCache(key) { it.copyFrom(DISK_CACHE_INDEX, content) }
+    }
+
+    /**
+     * Moves [content] into the cache instead of copying it, when it is on the same file system.
+     */
+    @WorkerThread
+    fun putToDiskCache(key: String?, content: File?): Boolean {
+        if (content == null) {
+            return false
+        }
+        return putToDiskCache(key) { it.moveFrom(DISK_CACHE_INDEX, content) }
+    }
+
+    private inline fun putToDiskCache(key: String?, write: (DiskLruCache.Editor) -> Unit): Boolean {
+        val cache = diskLruCache
+        if (cache == null || key.isNullOrEmpty()) {
+            return false
+        }
+        val validKey = createValidDiskCacheKey(key)
         var editor: DiskLruCache.Editor? = null
         try {
-            editor = diskLruCache?.edit(createValidDiskCacheKey(key)) ?:
+            editor = withLock(cache) { cache.edit(validKey) } ?:
                     // another edit is in progress
                     return false
-            BufferedOutputStream(editor.newOutputStream(DISK_CACHE_INDEX)).apply {
-                Streams.copyContent(content, this)
-                flush()
-                close()
-            }
-            diskLruCache?.flush()
-            editor.commit()
+            // DiskLruCache never locks around an editor's writes
+            write(editor)
+            // Trimming and the journal flush happen later, on the cache's own schedule
+            withLock(cache) { editor.commit() }
         } catch (e: IOException) {
             MoPubLog.log(SdkLogEvent.CUSTOM, "Unable to put to DiskLruCache", e)
             try {
@@ -179,13 +307,23 @@ abstract class CacheService(private val uniqueCacheName: String) {
 
     @WorkerThread
     fun getFromDiskCache(key: String?): ByteArray? {
-        if (diskLruCache == null || key.isNullOrEmpty()) {
+        val cache = diskLruCache
+        if (cache == null || key.isNullOrEmpty()) {
+            return null
+        }
+        val validKey = createValidDiskCacheKey(key)
+        if (!cache.contains(validKey)) {
+            cacheStats.recordLookup(validKey, false)
             return null
         }
         var bytes: ByteArray? = null
         var snapshot: DiskLruCache.Snapshot? = null
         try {
-            snapshot = diskLruCache?.get(createValidDiskCacheKey(key)) ?: return null
+            snapshot = withLock(cache) { cache.get(validKey) }
+            if (snapshot == null) {
+                cacheStats.recordLookup(validKey, false)
+                return null
+            }
             val inStream = snapshot.getInputStream(DISK_CACHE_INDEX)
             inStream?.let {
                 bytes = ByteArray(snapshot.getLength(0).toInt())
@@ -202,6 +340,7 @@ abstract class CacheService(private val uniqueCacheName: String) {
         } finally {
             snapshot?.close()
         }
+        cacheStats.recordLookup(validKey, bytes != null)
         return bytes
     }
 
@@ -246,5 +385,6 @@ abstract class CacheService(private val uniqueCacheName: String) {
                 null
             }
         }
+        evictionPolicy?.clear()
     }
 }
@@ -18,8 +18,12 @@ package com.mopub.common;
 
 import androidx.annotation.NonNull;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
@@ -32,12 +36,19 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
@@ -91,6 +102,14 @@ public final class DiskLruCache implements Closeable {
   static final String JOURNAL_FILE = "journal";
   static final String JOURNAL_FILE_TEMP = "journal.tmp";
   static final String JOURNAL_FILE_BACKUP = "journal.bkp";
+  static final String INDEX_FILE = "journal.idx";
+  static final String INDEX_FILE_TEMP = "journal.idx.tmp";
+  static final int INDEX_MAGIC = 0x4d504443;
+  static final int INDEX_VERSION = 1;
+  /** Journal lines after which the cleanup thread writes a new index. */
+  static final int INDEX_LINE_THRESHOLD = 500;
+  private static final int INDEX_FLAG_READABLE = 1;
+  private static final int INDEX_FLAG_DIRTY = 2;
   static final String MAGIC = "libcore.io.DiskLruCache";
   static final String VERSION_1 = "1";
   static final long ANY_SEQUENCE_NUMBER = -1;
@@ -99,6 +118,10 @@ public final class DiskLruCache implements Closeable {
   private static final String DIRTY = "DIRTY";
   private static final String REMOVE = "REMOVE";
   private static final String READ = "READ";
+  private static final long TRANSFER_CHUNK_BYTES = 1024 * 1024;
+  private static final int COPY_BUFFER_BYTES = 64 * 1024;
+  /** How often a completed edit queues a cleanup just to remove expired entries. */
+  private static final long EXPIRATION_CHECK_INTERVAL_MILLIS = 60 * 60 * 1000L;
 
     /*
      * This cache uses a journal file named "journal". A typical journal file
@@ -138,12 +161,25 @@ public final class DiskLruCache implements Closeable {
      * occasionally be compacted by dropping redundant lines. A temporary file named
      * "journal.tmp" will be used during compaction; that file should be deleted if
      * it exists when the cache is opened.
+     *
+     * The index file "journal.idx" is a binary snapshot of the entries as
+     * replaying the first bytes of the journal would leave them. It is written
+     * on close, on compaction and every few hundred journal lines, so that
+     * opening the cache only replays the lines written after it:
+     *     int magic, int index version, int app version, int value count,
+     *     long journal length, int redundant op count, int entry count,
+     *     then per entry, least recently used first:
+     *     UTF key, byte flags (1 readable, 2 dirty), long length per value
+     * An index that doesn't match the journal is ignored and the whole journal
+     * replayed. Compaction deletes the index before replacing the journal.
      */
 
   private final File directory;
   private final File journalFile;
   private final File journalFileTmp;
   private final File journalFileBackup;
+  private final File indexFile;
+  private final File indexFileTmp;
   private final int appVersion;
   private long maxSize;
   private final int valueCount;
@@ -151,7 +187,20 @@ public final class DiskLruCache implements Closeable {
   private Writer journalWriter;
   private final LinkedHashMap<String, Entry> lruEntries =
       new LinkedHashMap<String, Entry>(0, 0.75f, true);
+  /**
+   * The total length of every readable entry, updated with {@link #lruEntries}
+   * but readable without the cache's lock.
+   */
+  private final ConcurrentHashMap<String, Long> readableLengths =
+      new ConcurrentHashMap<String, Long>();
   private int redundantOpCount;
+  private int journalLinesSinceIndex;
+  private EvictionPolicy evictionPolicy;
+  private long journalFlushIntervalMillis;
+  private boolean journalFlushScheduled;
+  private long evictionCount;
+  private long expirationCount;
+  private long nextExpirationCheckMillis;
 
   /**
    * To differentiate between old and current snapshots, each entry is given
@@ -169,22 +218,61 @@ public final class DiskLruCache implements Closeable {
         if (journalWriter == null) {
           return null; // Closed.
         }
+        removeExpired();
         trimToSize();
         if (journalRebuildRequired()) {
           rebuildJournal();
           redundantOpCount = 0;
+        } else if (indexRequired()) {
+          journalWriter.flush();
+          writeIndex();
         }
       }
       return null;
     }
   };
 
+  /** Flushes journals for every cache whose flushes are deferred. */
+  private static final ScheduledThreadPoolExecutor journalFlushExecutor;
+
+  static {
+    journalFlushExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+      private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+      public Thread newThread(Runnable runnable) {
+        Thread thread = defaultFactory.newThread(runnable);
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    journalFlushExecutor.setKeepAliveTime(60L, TimeUnit.SECONDS);
+    journalFlushExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  private final Runnable journalFlushRunnable = new Runnable() {
+    public void run() {
+      synchronized (DiskLruCache.this) {
+        journalFlushScheduled = false;
+        if (journalWriter == null) {
+          return; // Closed, which flushed.
+        }
+        try {
+          journalWriter.flush();
+        } catch (IOException ignored) {
+          // The next flush or close will try again.
+        }
+      }
+    }
+  };
+
   private DiskLruCache(File directory, int appVersion, int valueCount, long maxSize) {
     this.directory = directory;
     this.appVersion = appVersion;
     this.journalFile = new File(directory, JOURNAL_FILE);
     this.journalFileTmp = new File(directory, JOURNAL_FILE_TEMP);
     this.journalFileBackup = new File(directory, JOURNAL_FILE_BACKUP);
+    this.indexFile = new File(directory, INDEX_FILE);
+    this.indexFileTmp = new File(directory, INDEX_FILE_TEMP);
     this.valueCount = valueCount;
     this.maxSize = maxSize;
   }
@@ -216,6 +304,8 @@ public final class DiskLruCache implements Closeable {
         backupFile.delete();
       } else {
         renameTo(backupFile, journalFile, false);
+        // The index, if any, was written for the journal that didn't make it.
+        new File(directory, INDEX_FILE).delete();
       }
     }
 
@@ -223,7 +313,7 @@ public final class DiskLruCache implements Closeable {
     DiskLruCache cache = new DiskLruCache(directory, appVersion, valueCount, maxSize);
     if (cache.journalFile.exists()) {
       try {
-        cache.readJournal();
+        cache.readJournal(cache.readIndex());
         cache.processJournal();
         cache.journalWriter = new BufferedWriter(
             new OutputStreamWriter(new FileOutputStream(cache.journalFile, true), DiskLruCacheUtil.US_ASCII));
@@ -246,7 +336,98 @@ public final class DiskLruCache implements Closeable {
     return cache;
   }
 
-  private void readJournal() throws IOException {
+  /**
+   * Loads the entries from the index, if it matches the journal.
+   *
+   * @return how many bytes of the journal the index covers, or 0 if the whole
+   * journal needs to be replayed.
+   */
+  private long readIndex() {
+    if (!indexFile.exists()) {
+      return 0;
+    }
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+      if (in.readInt() != INDEX_MAGIC
+          || in.readInt() != INDEX_VERSION
+          || in.readInt() != appVersion
+          || in.readInt() != valueCount) {
+        return 0;
+      }
+      long journalLength = in.readLong();
+      if (journalLength <= 0 || journalLength > journalFile.length()) {
+        return 0; // The index is for another journal.
+      }
+      int indexedRedundantOpCount = in.readInt();
+      int entryCount = in.readInt();
+      for (int i = 0; i < entryCount; i++) {
+        Entry entry = new Entry(in.readUTF());
+        int flags = in.readByte();
+        for (int t = 0; t < valueCount; t++) {
+          entry.lengths[t] = in.readLong();
+        }
+        entry.readable = (flags & INDEX_FLAG_READABLE) != 0;
+        if ((flags & INDEX_FLAG_DIRTY) != 0) {
+          entry.currentEditor = new Editor(entry);
+        }
+        lruEntries.put(entry.key, entry);
+      }
+      // As if the journal had one line per entry plus the redundant ones
+      redundantOpCount = indexedRedundantOpCount;
+      return journalLength;
+    } catch (IOException e) {
+      lruEntries.clear();
+      redundantOpCount = 0;
+      return 0;
+    } finally {
+      DiskLruCacheUtil.closeQuietly(in);
+    }
+  }
+
+  /**
+   * Writes the index for the journal as it is on disk. Callers flush the
+   * journal first. Without an index, opening the cache is only slower, so
+   * errors are ignored.
+   */
+  private void writeIndex() {
+    journalLinesSinceIndex = 0;
+    DataOutputStream out = null;
+    try {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFileTmp)));
+      out.writeInt(INDEX_MAGIC);
+      out.writeInt(INDEX_VERSION);
+      out.writeInt(appVersion);
+      out.writeInt(valueCount);
+      out.writeLong(journalFile.length());
+      out.writeInt(redundantOpCount);
+      out.writeInt(lruEntries.size());
+      for (Entry entry : lruEntries.values()) {
+        out.writeUTF(entry.key);
+        out.writeByte((entry.readable ? INDEX_FLAG_READABLE : 0)
+            | (entry.currentEditor != null ? INDEX_FLAG_DIRTY : 0));
+        for (int t = 0; t < valueCount; t++) {
+          out.writeLong(entry.lengths[t]);
+        }
+      }
+      out.close();
+      out = null;
+      renameTo(indexFileTmp, indexFile, true);
+    } catch (IOException e) {
+      DiskLruCacheUtil.closeQuietly(out);
+      indexFileTmp.delete();
+    }
+  }
+
+  private boolean indexRequired() {
+    return journalLinesSinceIndex >= INDEX_LINE_THRESHOLD;
+  }
+
+  /**
+   * Replays the journal, skipping the first {@code indexedLength} bytes that
+   * the index already covers.
+   */
+  private void readJournal(long indexedLength) throws IOException {
     DiskLruCacheStrictLineReader reader = new DiskLruCacheStrictLineReader(new FileInputStream(journalFile), DiskLruCacheUtil.US_ASCII);
     try {
       String magic = reader.readLine();
@@ -264,6 +445,13 @@ public final class DiskLruCache implements Closeable {
       }
 
       int lineCount = 0;
+      if (indexedLength > 0) {
+        DiskLruCacheUtil.closeQuietly(reader);
+        FileInputStream in = new FileInputStream(journalFile);
+        reader = new DiskLruCacheStrictLineReader(in, DiskLruCacheUtil.US_ASCII);
+        in.getChannel().position(indexedLength);
+        lineCount = redundantOpCount + lruEntries.size();
+      }
       while (true) {
         try {
           readJournalLine(reader.readLine());
@@ -323,13 +511,21 @@ public final class DiskLruCache implements Closeable {
    */
   private void processJournal() throws IOException {
     deleteIfExists(journalFileTmp);
+    Set<String> existingFiles = deleteUnknownFiles();
     for (Iterator<Entry> i = lruEntries.values().iterator(); i.hasNext(); ) {
       Entry entry = i.next();
-      if (entry.currentEditor == null) {
+      if (entry.currentEditor == null && (!entry.readable || hasCleanFiles(entry, existingFiles))) {
         for (int t = 0; t < valueCount; t++) {
           size += entry.lengths[t];
         }
+        if (entry.readable) {
+          readableLengths.put(entry.key, entry.getTotalLength());
+        }
       } else {
+        if (entry.currentEditor == null) {
+          // The journal says it's readable, but something deleted its files
+          redundantOpCount++;
+        }
         entry.currentEditor = null;
         for (int t = 0; t < valueCount; t++) {
           deleteIfExists(entry.getCleanFile(t));
@@ -340,6 +536,50 @@ public final class DiskLruCache implements Closeable {
     }
   }
 
+  private boolean hasCleanFiles(Entry entry, Set<String> existingFiles) {
+    for (int t = 0; t < valueCount; t++) {
+      if (!existingFiles.contains(entry.getCleanFile(t).getName())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Deletes value files that the journal doesn't know about. A crash before a
+   * deferred journal flush can leave them behind.
+   *
+   * @return the names of the files left in the directory.
+   */
+  private Set<String> deleteUnknownFiles() {
+    Set<String> existingFiles = new HashSet<String>();
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return existingFiles;
+    }
+    Set<String> knownFiles = new HashSet<String>();
+    knownFiles.add(JOURNAL_FILE_BACKUP);
+    knownFiles.add(INDEX_FILE);
+    knownFiles.add(INDEX_FILE_TEMP);
+    for (Entry entry : lruEntries.values()) {
+      for (int t = 0; t < valueCount; t++) {
+        knownFiles.add(entry.getCleanFile(t).getName());
+        knownFiles.add(entry.getDirtyFile(t).getName());
+      }
+    }
+    for (File file : files) {
+      String name = file.getName();
+      int dot = name.indexOf('.');
+      if (file.isFile() && dot > 0 && !knownFiles.contains(name)
+          && LEGAL_KEY_PATTERN.matcher(name.substring(0, dot)).matches()) {
+        file.delete();
+      } else {
+        existingFiles.add(name);
+      }
+    }
+    return existingFiles;
+  }
+
   /**
    * Creates a new journal that omits redundant information. This replaces the
    * current journal if it exists.
@@ -373,6 +613,8 @@ public final class DiskLruCache implements Closeable {
       writer.close();
     }
 
+    // The index must never outlive the journal it was written for.
+    deleteIfExists(indexFile);
     if (journalFile.exists()) {
       renameTo(journalFile, journalFileBackup, true);
     }
@@ -381,6 +623,8 @@ public final class DiskLruCache implements Closeable {
 
     journalWriter = new BufferedWriter(
         new OutputStreamWriter(new FileOutputStream(journalFile, true), DiskLruCacheUtil.US_ASCII));
+    redundantOpCount = 0;
+    writeIndex();
   }
 
   private static void deleteIfExists(File file) throws IOException {
@@ -425,6 +669,7 @@ public final class DiskLruCache implements Closeable {
       }
     } catch (FileNotFoundException e) {
       // A file must have been deleted manually!
+      readableLengths.remove(key);
       for (int i = 0; i < valueCount; i++) {
         if (ins[i] != null) {
           DiskLruCacheUtil.closeQuietly(ins[i]);
@@ -436,14 +681,35 @@ public final class DiskLruCache implements Closeable {
     }
 
     redundantOpCount++;
+    journalLinesSinceIndex++;
     journalWriter.append(READ + ' ' + key + '\n');
-    if (journalRebuildRequired()) {
+    if (journalRebuildRequired() || indexRequired()) {
       executorService.submit(cleanupCallable);
     }
 
     return new Snapshot(key, entry.sequenceNumber, ins, entry.lengths);
   }
 
+  /**
+   * Returns true if a snapshot of the entry named {@code key} can be read.
+   * Unlike {@link #get}, this touches neither the disk nor the cache's lock
+   * and doesn't move the entry in the LRU queue. Entries whose files are gone
+   * when the cache is opened, or when {@link #get} finds them missing, are
+   * not reported.
+   */
+  public boolean contains(String key) {
+    return readableLengths.containsKey(key);
+  }
+
+  /**
+   * Returns the total length of the values of the entry named {@code key}, or
+   * -1 if it can't be read. Like {@link #contains}, this doesn't block.
+   */
+  public long getLength(String key) {
+    Long length = readableLengths.get(key);
+    return length != null ? length : -1;
+  }
+
   /**
    * Returns an editor for the entry named {@code key}, or null if another
    * edit is in progress.
@@ -470,9 +736,11 @@ public final class DiskLruCache implements Closeable {
     Editor editor = new Editor(entry);
     entry.currentEditor = editor;
 
-    // Flush the journal before creating files to prevent file leaks.
+    // Flush the journal before creating files to prevent file leaks. When
+    // flushes are deferred, opening the cache deletes files leaked by a crash.
     journalWriter.write(DIRTY + ' ' + key + '\n');
-    journalWriter.flush();
+    journalLinesSinceIndex++;
+    flushJournal();
     return editor;
   }
 
@@ -498,6 +766,45 @@ public final class DiskLruCache implements Closeable {
     executorService.submit(cleanupCallable);
   }
 
+  /**
+   * Defers journal flushes after edits by up to {@code intervalMillis}, so
+   * that a burst of edits shares one write. A crash loses at most the edits
+   * of the last interval, whose files are deleted when the cache is opened
+   * again. With 0, the default, every edit flushes the journal.
+   */
+  public synchronized void setJournalFlushInterval(long intervalMillis) {
+    this.journalFlushIntervalMillis = intervalMillis;
+  }
+
+  private void flushJournal() throws IOException {
+    if (journalFlushIntervalMillis <= 0) {
+      journalWriter.flush();
+    } else if (!journalFlushScheduled) {
+      journalFlushScheduled = true;
+      journalFlushExecutor.schedule(journalFlushRunnable, journalFlushIntervalMillis,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Changes how entries are chosen for eviction and queues a job to apply it.
+   * With no policy, entries are evicted in LRU order.
+   */
+  public synchronized void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+    this.evictionPolicy = evictionPolicy;
+    executorService.submit(cleanupCallable);
+  }
+
+  /** Returns the number of entries removed to keep the cache under its max size. */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /** Returns the number of entries removed because the eviction policy expired them. */
+  public synchronized long getExpirationCount() {
+    return expirationCount;
+  }
+
   /**
    * Returns the number of bytes currently being used to store the values in
    * this cache. This may be greater than the max size if a background
@@ -544,20 +851,23 @@ public final class DiskLruCache implements Closeable {
     }
 
     redundantOpCount++;
+    journalLinesSinceIndex++;
     entry.currentEditor = null;
     if (entry.readable | success) {
       entry.readable = true;
+      readableLengths.put(entry.key, entry.getTotalLength());
       journalWriter.write(CLEAN + ' ' + entry.key + entry.getLengths() + '\n');
       if (success) {
         entry.sequenceNumber = nextSequenceNumber++;
+        entry.lastModifiedMillis = System.currentTimeMillis();
       }
     } else {
       lruEntries.remove(entry.key);
       journalWriter.write(REMOVE + ' ' + entry.key + '\n');
     }
-    journalWriter.flush();
+    flushJournal();
 
-    if (size > maxSize || journalRebuildRequired()) {
+    if (size > maxSize || journalRebuildRequired() || indexRequired() || expirationCheckDue()) {
       executorService.submit(cleanupCallable);
     }
   }
@@ -586,6 +896,7 @@ public final class DiskLruCache implements Closeable {
       return false;
     }
 
+    readableLengths.remove(key);
     for (int i = 0; i < valueCount; i++) {
       File file = entry.getCleanFile(i);
       if (file.exists() && !file.delete()) {
@@ -596,10 +907,11 @@ public final class DiskLruCache implements Closeable {
     }
 
     redundantOpCount++;
+    journalLinesSinceIndex++;
     journalWriter.append(REMOVE + ' ' + key + '\n');
     lruEntries.remove(key);
 
-    if (journalRebuildRequired()) {
+    if (journalRebuildRequired() || indexRequired()) {
       executorService.submit(cleanupCallable);
     }
 
@@ -637,12 +949,76 @@ public final class DiskLruCache implements Closeable {
     trimToSize();
     journalWriter.close();
     journalWriter = null;
+    readableLengths.clear();
+    if (journalLinesSinceIndex > 0) {
+      writeIndex();
+    }
   }
 
+  /**
+   * Evicts entries until the cache fits in its max size. Entries being edited
+   * and entries pinned by the eviction policy are skipped, so the cache stays
+   * over its max size if only those are left.
+   */
   private void trimToSize() throws IOException {
     while (size > maxSize) {
-      Map.Entry<String, Entry> toEvict = lruEntries.entrySet().iterator().next();
-      remove(toEvict.getKey());
+      String toEvict = null;
+      int lowestPriority = Integer.MAX_VALUE;
+      // Least recently used first, so that ties go to the least recently used entry.
+      for (Entry entry : lruEntries.values()) {
+        if (entry.currentEditor != null) {
+          continue;
+        }
+        if (evictionPolicy == null) {
+          toEvict = entry.key;
+          break;
+        }
+        if (evictionPolicy.isPinned(entry.key)) {
+          continue;
+        }
+        int priority = evictionPolicy.getPriority(entry.key);
+        if (priority < lowestPriority) {
+          toEvict = entry.key;
+          lowestPriority = priority;
+        }
+      }
+      if (toEvict == null || !remove(toEvict)) {
+        return;
+      }
+      evictionCount++;
+      if (evictionPolicy != null) {
+        evictionPolicy.onEvicted(toEvict);
+      }
+    }
+  }
+
+  private boolean expirationCheckDue() {
+    return evictionPolicy != null && System.currentTimeMillis() >= nextExpirationCheckMillis;
+  }
+
+  /**
+   * Removes the entries that the eviction policy has expired, even when under
+   * the max size. Write times are kept in memory; only entries read from the
+   * journal have their file's modification time looked up, once.
+   */
+  private void removeExpired() throws IOException {
+    if (evictionPolicy == null) {
+      return;
+    }
+    nextExpirationCheckMillis = System.currentTimeMillis() + EXPIRATION_CHECK_INTERVAL_MILLIS;
+    for (Entry entry : new ArrayList<Entry>(lruEntries.values())) {
+      if (entry.currentEditor != null || !entry.readable
+          || evictionPolicy.isPinned(entry.key)) {
+        continue;
+      }
+      if (entry.lastModifiedMillis == 0) {
+        entry.lastModifiedMillis = entry.getCleanFile(0).lastModified();
+      }
+      if (evictionPolicy.isExpired(entry.key, entry.lastModifiedMillis)
+          && remove(entry.key)) {
+        expirationCount++;
+        evictionPolicy.onEvicted(entry.key);
+      }
     }
   }
 
@@ -667,6 +1043,30 @@ public final class DiskLruCache implements Closeable {
     return DiskLruCacheUtil.readFully(new InputStreamReader(in, DiskLruCacheUtil.UTF_8));
   }
 
+  /**
+   * Decides which entries the cache removes. Called with the cache's lock
+   * held, on the cache's background thread or a thread that flushes it.
+   */
+  public interface EvictionPolicy {
+    /** Returns true if {@code key} must not be evicted or expired. */
+    boolean isPinned(String key);
+
+    /**
+     * Returns how much {@code key} is worth keeping. When over the max size,
+     * the cache evicts the entry with the lowest priority first.
+     */
+    int getPriority(String key);
+
+    /**
+     * Returns true if {@code key}, last written at {@code lastModifiedMillis},
+     * should be removed even though the cache has room for it.
+     */
+    boolean isExpired(String key, long lastModifiedMillis);
+
+    /** Called after {@code key} has been evicted or expired. */
+    void onEvicted(String key);
+  }
+
   /** A snapshot of the values for an entry. */
   public final class Snapshot implements Closeable {
     private final String key;
@@ -793,6 +1193,114 @@ public final class DiskLruCache implements Closeable {
       }
     }
 
+    /**
+     * Sets the value at {@code index} to {@code value}, writing it with a
+     * single channel write. Unlike {@link #newOutputStream}, errors are thrown.
+     */
+    public void set(int index, byte[] value) throws IOException {
+      FileOutputStream outputStream = newFileOutputStream(index);
+      try {
+        FileChannel channel = outputStream.getChannel();
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      } finally {
+        DiskLruCacheUtil.closeQuietly(outputStream);
+      }
+    }
+
+    /**
+     * Sets the value at {@code index} to the rest of {@code in}. A file
+     * stream is transferred channel to channel, which the platform can do
+     * without copying through the Java heap. Other streams are read into one
+     * buffer that is written straight to the file channel, without an output
+     * stream buffer in between. Unlike {@link #newOutputStream}, errors are
+     * thrown.
+     *
+     * @return the number of bytes copied.
+     */
+    public long copyFrom(int index, InputStream in) throws IOException {
+      FileOutputStream outputStream = newFileOutputStream(index);
+      try {
+        FileChannel channel = outputStream.getChannel();
+        long position = 0;
+        if (in instanceof FileInputStream) {
+          FileChannel source = ((FileInputStream) in).getChannel();
+          long count;
+          while ((count = channel.transferFrom(source, position, TRANSFER_CHUNK_BYTES)) > 0) {
+            position += count;
+          }
+          return position;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_BYTES);
+        int count;
+        while ((count = in.read(buffer.array())) != -1) {
+          buffer.limit(count);
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+          buffer.clear();
+          position += count;
+        }
+        return position;
+      } finally {
+        DiskLruCacheUtil.closeQuietly(outputStream);
+      }
+    }
+
+    /**
+     * Sets the value at {@code index} to the contents of {@code source}, which
+     * is moved into the cache when it is on the same file system and copied
+     * and then deleted otherwise. Unlike {@link #newOutputStream}, errors are
+     * thrown.
+     *
+     * @return the number of bytes in the value.
+     */
+    public long moveFrom(int index, File source) throws IOException {
+      File dirtyFile;
+      synchronized (DiskLruCache.this) {
+        if (entry.currentEditor != this) {
+          throw new IllegalStateException();
+        }
+        if (!entry.readable) {
+          written[index] = true;
+        }
+        dirtyFile = entry.getDirtyFile(index);
+      }
+      if (source.renameTo(dirtyFile)) {
+        return dirtyFile.length();
+      }
+      long length;
+      FileInputStream in = new FileInputStream(source);
+      try {
+        length = copyFrom(index, in);
+      } finally {
+        DiskLruCacheUtil.closeQuietly(in);
+      }
+      deleteIfExists(source);
+      return length;
+    }
+
+    private FileOutputStream newFileOutputStream(int index) throws IOException {
+      synchronized (DiskLruCache.this) {
+        if (entry.currentEditor != this) {
+          throw new IllegalStateException();
+        }
+        if (!entry.readable) {
+          written[index] = true;
+        }
+        File dirtyFile = entry.getDirtyFile(index);
+        try {
+          return new FileOutputStream(dirtyFile);
+        } catch (FileNotFoundException e) {
+          // Attempt to recreate the cache directory.
+          directory.mkdirs();
+          return new FileOutputStream(dirtyFile);
+        }
+      }
+    }
+
     /** Sets the value at {@code index} to {@code value}. */
     public void set(int index, String value) throws IOException {
       Writer writer = null;
@@ -889,11 +1397,25 @@ public final class DiskLruCache implements Closeable {
     /** The sequence number of the most recently committed edit to this entry. */
     private long sequenceNumber;
 
+    /**
+     * When this entry was last committed, or 0 if it was read from the journal
+     * and hasn't been looked up yet.
+     */
+    private long lastModifiedMillis;
+
     private Entry(String key) {
       this.key = key;
       this.lengths = new long[valueCount];
     }
 
+    private long getTotalLength() {
+      long totalLength = 0;
+      for (long length : lengths) {
+        totalLength += length;
+      }
+      return totalLength;
+    }
+
     public String getLengths() throws IOException {
       StringBuilder result = new StringBuilder();
       for (long size : lengths) {
@@ -18,8 +18,11 @@ import androidx.annotation.UiThread;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.privacy.PersonalInfoManager;
 import com.mopub.common.util.Reflection;
+import com.mopub.mobileads.VideoDownloader;
+import com.mopub.network.AdLoader;
 import com.mopub.network.Networking;
 import com.mopub.network.PlayServicesUrlRewriter;
+import com.mopub.network.RequestRateTracker;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -231,6 +234,19 @@ public class MoPub {
         // Guarantees initialization of the request queue on the main thread.
         Networking.setUrlRewriter(new PlayServicesUrlRewriter());
         Networking.getRequestQueue(context);
+        MemoryTrimmer.register(context);
+        if (sdkConfiguration.getPreconnectEnabled()) {
+            Networking.preconnect(context, Constants.HOST);
+        }
+        AdLoader.setWaterfallPrefetchEnabled(sdkConfiguration.getWaterfallPrefetchEnabled());
+        VideoDownloader.setProgressiveBufferBytes(sdkConfiguration.getProgressiveVideoBufferBytes());
+
+        final RequestRateTracker requestRateTracker = RequestRateTracker.getInstance();
+        requestRateTracker.setAdUnitRequestLimit(sdkConfiguration.getAdUnitRequestLimitCapacity(),
+                sdkConfiguration.getAdUnitRequestLimitRefillIntervalMs());
+        requestRateTracker.setGlobalRequestLimit(sdkConfiguration.getGlobalRequestLimitCapacity(),
+                sdkConfiguration.getGlobalRequestLimitRefillIntervalMs());
+        requestRateTracker.setMaxRefreshJitterMs(sdkConfiguration.getMaxRefreshJitterMs());
 
         final InternalSdkInitializationListener internalSdkInitializationListener =
                 new InternalSdkInitializationListener(sdkInitializationListener);
@@ -17,6 +17,9 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLDecoder;
 
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 
 public abstract class MoPubHttpUrlConnection extends HttpURLConnection {
@@ -48,6 +51,11 @@ public abstract class MoPubHttpUrlConnection extends HttpURLConnection {
 
         final HttpURLConnection urlConnection =
                 (HttpURLConnection) new URL(getUrl).openConnection();
+        // Share TLS sessions and pooled connections with the request queue
+        final SSLSocketFactory sslSocketFactory = Networking.getSslSocketFactory();
+        if (sslSocketFactory != null && urlConnection instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) urlConnection).setSSLSocketFactory(sslSocketFactory);
+        }
         urlConnection.setRequestProperty("user-agent", Networking.getCachedUserAgent());
         urlConnection.setConnectTimeout(CONNECT_TIMEOUT);
         urlConnection.setReadTimeout(READ_TIMEOUT);
@@ -0,0 +1,148 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Lets blocking fetches of the same key share one network transaction. The first caller for a
+ * key runs the fetch on its own thread, and callers arriving while it is in flight wait for and
+ * receive the same result or exception. Once the fetch finishes the key is released, so later
+ * callers fetch again. A fetch may also {@link #publishProgress(String)} once, which is passed on
+ * to every caller waiting on it.
+ *
+ * @param <V> The result type of the fetch.
+ */
+public class RequestCoalescer<V> {
+    @NonNull private final ConcurrentHashMap<String, InFlightFetch<V>> mInFlight =
+            new ConcurrentHashMap<>();
+
+    private static class InFlightFetch<V> {
+        @NonNull final FutureTask<V> task;
+        // Guarded by this
+        @NonNull private final List<Runnable> progressListeners = new ArrayList<>();
+        private boolean progressPublished;
+
+        InFlightFetch(@NonNull final FutureTask<V> task) {
+            this.task = task;
+        }
+
+        void addProgressListener(@Nullable final Runnable listener) {
+            if (listener == null) {
+                return;
+            }
+            synchronized (this) {
+                if (!progressPublished) {
+                    progressListeners.add(listener);
+                    return;
+                }
+            }
+            // Joined after the progress was published
+            listener.run();
+        }
+
+        void publishProgress() {
+            final List<Runnable> listeners;
+            synchronized (this) {
+                if (progressPublished) {
+                    return;
+                }
+                progressPublished = true;
+                listeners = new ArrayList<>(progressListeners);
+                progressListeners.clear();
+            }
+            for (final Runnable listener : listeners) {
+                listener.run();
+            }
+        }
+    }
+
+    /**
+     * Runs the fetch, or waits for an identical one that is already in flight.
+     *
+     * @param key   Identifies the fetch, usually the url.
+     * @param fetch Performs the network transaction. Only called if no fetch for the key is in
+     *              flight.
+     * @return The result of whichever fetch ran.
+     * @throws Exception The exception thrown by the fetch, or InterruptedException if the caller
+     *                   was interrupted while waiting.
+     */
+    public V execute(@NonNull final String key, @NonNull final Callable<V> fetch) throws Exception {
+        return execute(key, fetch, null);
+    }
+
+    /**
+     * Like {@link #execute(String, Callable)}, but also tells this caller when the fetch it ends
+     * up waiting on calls {@link #publishProgress(String)}.
+     *
+     * @param onProgress Run at most once, on the fetching thread, or on this thread if the
+     *                   progress was published before this caller joined.
+     */
+    public V execute(@NonNull final String key, @NonNull final Callable<V> fetch,
+            @Nullable final Runnable onProgress) throws Exception {
+        Preconditions.checkNotNull(key);
+        Preconditions.checkNotNull(fetch);
+
+        final InFlightFetch<V> fetchEntry = new InFlightFetch<>(new FutureTask<>(fetch));
+        fetchEntry.addProgressListener(onProgress);
+        final InFlightFetch<V> inFlightFetch = mInFlight.putIfAbsent(key, fetchEntry);
+        if (inFlightFetch != null) {
+            inFlightFetch.addProgressListener(onProgress);
+            return getResult(inFlightFetch.task);
+        }
+
+        try {
+            fetchEntry.task.run();
+        } finally {
+            mInFlight.remove(key, fetchEntry);
+        }
+        return getResult(fetchEntry.task);
+    }
+
+    /**
+     * Called from a fetch to tell every caller waiting on it that it made progress, for example
+     * that enough of a download is buffered. Only the first call for a fetch is passed on.
+     *
+     * @param key The key the fetch was started with.
+     */
+    public void publishProgress(@NonNull final String key) {
+        Preconditions.checkNotNull(key);
+
+        final InFlightFetch<V> inFlightFetch = mInFlight.get(key);
+        if (inFlightFetch != null) {
+            inFlightFetch.publishProgress();
+        }
+    }
+
+    /**
+     * @return The number of fetches currently in flight.
+     */
+    public int getInFlightCount() {
+        return mInFlight.size();
+    }
+
+    private static <V> V getResult(@NonNull final FutureTask<V> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
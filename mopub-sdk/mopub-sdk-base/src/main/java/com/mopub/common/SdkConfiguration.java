@@ -61,6 +61,35 @@ public class SdkConfiguration {
      */
     private final boolean mLegitimateInterestAllowed;
 
+    /**
+     * Whether or not the next page of a client side waterfall is fetched while the last ad of the
+     * current page is loading.
+     */
+    private final boolean mWaterfallPrefetchEnabled;
+
+    /**
+     * Client side ad request limits. A capacity of 0 means no limit.
+     */
+    private final int mAdUnitRequestLimitCapacity;
+    private final int mAdUnitRequestLimitRefillIntervalMs;
+    private final int mGlobalRequestLimitCapacity;
+    private final int mGlobalRequestLimitRefillIntervalMs;
+
+    /**
+     * The maximum random delay added to each refresh.
+     */
+    private final int mMaxRefreshJitterMs;
+
+    /**
+     * Whether or not a connection to the ad server is opened during initialization.
+     */
+    private final boolean mPreconnectEnabled;
+
+    /**
+     * How much of a video has to be downloaded before the ad is ready. 0 means the whole file.
+     */
+    private final int mProgressiveVideoBufferBytes;
+
     /**
      * Holds data for SDK initialization. Do not call this constructor directly; use the Builder.
      */
@@ -70,7 +99,15 @@ public class SdkConfiguration {
             @NonNull final LogLevel logLevel,
             @NonNull final Map<String, Map<String, String>> mediatedNetworkConfigurations,
             @NonNull final Map<String, Map<String, String>> moPubRequestOptions,
-            final boolean legitimateInterestAllowed) {
+            final boolean legitimateInterestAllowed,
+            final boolean waterfallPrefetchEnabled,
+            final int adUnitRequestLimitCapacity,
+            final int adUnitRequestLimitRefillIntervalMs,
+            final int globalRequestLimitCapacity,
+            final int globalRequestLimitRefillIntervalMs,
+            final int maxRefreshJitterMs,
+            final boolean preconnectEnabled,
+            final int progressiveVideoBufferBytes) {
         Preconditions.checkNotNull(adUnitId);
         Preconditions.checkNotNull(adapterConfigurationClasses);
         Preconditions.checkNotNull(mediatedNetworkConfigurations);
@@ -83,6 +120,14 @@ public class SdkConfiguration {
         mMediatedNetworkConfigurations = mediatedNetworkConfigurations;
         mMoPubRequestOptions = moPubRequestOptions;
         mLegitimateInterestAllowed = legitimateInterestAllowed;
+        mWaterfallPrefetchEnabled = waterfallPrefetchEnabled;
+        mAdUnitRequestLimitCapacity = adUnitRequestLimitCapacity;
+        mAdUnitRequestLimitRefillIntervalMs = adUnitRequestLimitRefillIntervalMs;
+        mGlobalRequestLimitCapacity = globalRequestLimitCapacity;
+        mGlobalRequestLimitRefillIntervalMs = globalRequestLimitRefillIntervalMs;
+        mMaxRefreshJitterMs = maxRefreshJitterMs;
+        mPreconnectEnabled = preconnectEnabled;
+        mProgressiveVideoBufferBytes = progressiveVideoBufferBytes;
     }
 
     @NonNull
@@ -118,6 +163,38 @@ public class SdkConfiguration {
         return mLegitimateInterestAllowed;
     }
 
+    public boolean getWaterfallPrefetchEnabled() {
+        return mWaterfallPrefetchEnabled;
+    }
+
+    public int getAdUnitRequestLimitCapacity() {
+        return mAdUnitRequestLimitCapacity;
+    }
+
+    public int getAdUnitRequestLimitRefillIntervalMs() {
+        return mAdUnitRequestLimitRefillIntervalMs;
+    }
+
+    public int getGlobalRequestLimitCapacity() {
+        return mGlobalRequestLimitCapacity;
+    }
+
+    public int getGlobalRequestLimitRefillIntervalMs() {
+        return mGlobalRequestLimitRefillIntervalMs;
+    }
+
+    public int getMaxRefreshJitterMs() {
+        return mMaxRefreshJitterMs;
+    }
+
+    public boolean getPreconnectEnabled() {
+        return mPreconnectEnabled;
+    }
+
+    public int getProgressiveVideoBufferBytes() {
+        return mProgressiveVideoBufferBytes;
+    }
+
     public static class Builder {
         @NonNull private String adUnitId;
         @NonNull private final Set<String> adapterConfigurations;
@@ -126,6 +203,14 @@ public class SdkConfiguration {
         @NonNull private final Map<String, Map<String, String>> mediatedNetworkConfigurations;
         @NonNull private final Map<String, Map<String, String>> moPubRequestOptions;
         private boolean legitimateInterestAllowed;
+        private boolean waterfallPrefetchEnabled;
+        private int adUnitRequestLimitCapacity;
+        private int adUnitRequestLimitRefillIntervalMs;
+        private int globalRequestLimitCapacity;
+        private int globalRequestLimitRefillIntervalMs;
+        private int maxRefreshJitterMs;
+        private boolean preconnectEnabled;
+        private int progressiveVideoBufferBytes;
 
         /**
          * Use this builder instead of creating a new SdkConfiguration. This Builder needs any ad
@@ -150,6 +235,7 @@ public class SdkConfiguration {
             mediatedNetworkConfigurations = new HashMap<>();
             moPubRequestOptions = new HashMap<>();
             legitimateInterestAllowed = false;
+            waterfallPrefetchEnabled = false;
         }
 
         /**
@@ -242,9 +328,95 @@ public class SdkConfiguration {
             return this;
         }
 
+        /**
+         * Sets whether or not the next page of the waterfall is requested in the background once
+         * the last ad of the current page starts loading. This saves a round trip per page when
+         * ads don't fill, at the cost of a discarded request when the last ad does fill.
+         * Disabled by default.
+         *
+         * @param waterfallPrefetchEnabled should be true to prefetch the next waterfall page.
+         * @return The builder.
+         */
+        public Builder withWaterfallPrefetchEnabled(final boolean waterfallPrefetchEnabled) {
+            this.waterfallPrefetchEnabled = waterfallPrefetchEnabled;
+            return this;
+        }
+
+        /**
+         * Limits how many ad requests each ad unit can make, on top of any limit the server asks
+         * for. Each ad unit may send up to {@code capacity} requests at once, and regains one
+         * every {@code refillIntervalMs}. Requests over the limit fail with
+         * {@code TOO_MANY_REQUESTS}. No limit by default.
+         *
+         * @param capacity         the largest burst of requests, or 0 for no limit.
+         * @param refillIntervalMs the time it takes to regain one request.
+         * @return The builder.
+         */
+        public Builder withAdUnitRequestLimit(final int capacity, final int refillIntervalMs) {
+            this.adUnitRequestLimitCapacity = capacity;
+            this.adUnitRequestLimitRefillIntervalMs = refillIntervalMs;
+            return this;
+        }
+
+        /**
+         * Limits how many ad requests all ad units together can make. Works like
+         * {@link #withAdUnitRequestLimit(int, int)}, and both limits apply when both are set.
+         *
+         * @param capacity         the largest burst of requests, or 0 for no limit.
+         * @param refillIntervalMs the time it takes to regain one request.
+         * @return The builder.
+         */
+        public Builder withGlobalRequestLimit(final int capacity, final int refillIntervalMs) {
+            this.globalRequestLimitCapacity = capacity;
+            this.globalRequestLimitRefillIntervalMs = refillIntervalMs;
+            return this;
+        }
+
+        /**
+         * Delays each banner refresh by a random amount up to this value, so that ad views
+         * created at the same time don't keep refreshing at the same time. Refreshes are on time
+         * by default.
+         *
+         * @param maxRefreshJitterMs the longest delay, in milliseconds.
+         * @return The builder.
+         */
+        public Builder withMaxRefreshJitterMs(final int maxRefreshJitterMs) {
+            this.maxRefreshJitterMs = maxRefreshJitterMs;
+            return this;
+        }
+
+        /**
+         * Sets whether or not the SDK opens a connection to the ad server while it initializes,
+         * so that the first ad request doesn't wait for the TCP and TLS handshakes. Disabled by
+         * default.
+         *
+         * @param preconnectEnabled should be true to connect during initialization.
+         * @return The builder.
+         */
+        public Builder withPreconnectEnabled(final boolean preconnectEnabled) {
+            this.preconnectEnabled = preconnectEnabled;
+            return this;
+        }
+
+        /**
+         * Makes video ads ready once this much of the video is downloaded, and plays the video
+         * while the rest downloads. Ads wait for the whole video by default.
+         *
+         * @param progressiveVideoBufferBytes the amount to download first, in bytes, or 0 to
+         *                                    download the whole video first.
+         * @return The builder.
+         */
+        public Builder withProgressiveVideoBufferBytes(final int progressiveVideoBufferBytes) {
+            this.progressiveVideoBufferBytes = progressiveVideoBufferBytes;
+            return this;
+        }
+
         public SdkConfiguration build() {
             return new SdkConfiguration(adUnitId, adapterConfigurations, mediationSettings,
-                    logLevel, mediatedNetworkConfigurations, moPubRequestOptions, legitimateInterestAllowed);
+                    logLevel, mediatedNetworkConfigurations, moPubRequestOptions, legitimateInterestAllowed,
+                    waterfallPrefetchEnabled, adUnitRequestLimitCapacity, adUnitRequestLimitRefillIntervalMs,
+                    globalRequestLimitCapacity, globalRequestLimitRefillIntervalMs, maxRefreshJitterMs,
+                    preconnectEnabled, progressiveVideoBufferBytes);
         }
     }
 }
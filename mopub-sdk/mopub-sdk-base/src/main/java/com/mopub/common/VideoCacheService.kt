@@ -8,16 +8,33 @@ import android.content.Context
 import androidx.annotation.AnyThread
 import androidx.annotation.WorkerThread
 
+import java.io.File
 import java.io.InputStream
+import java.util.concurrent.TimeUnit
 
-object VideoCacheService : CacheService("mopub-video-cache") {
+/**
+ * Videos not played or asked for again within this long are removed.
+ */
+private val VIDEO_TTL_MILLIS = TimeUnit.DAYS.toMillis(3)
+
+/**
+ * Videos for ads that have loaded stay pinned at most as long as the ads can be shown.
+ */
+private val VIDEO_PIN_TTL_MILLIS = Constants.AD_EXPIRATION_DELAY.toLong()
+
+object VideoCacheService : CacheService(
+    "mopub-video-cache",
+    CacheEvictionPolicy(VIDEO_TTL_MILLIS, VIDEO_PIN_TTL_MILLIS)
+) {
+
+    private const val PARTIAL_DIRECTORY_NAME = "mopub-video-partial"
 
     @JvmStatic
     @WorkerThread
     fun initializeCache(context: Context?) = initializeDiskCache(context)
 
     @JvmStatic
-    @WorkerThread
+    @AnyThread
     fun containsKey(key: String?) = containsKeyDiskCache(key)
 
     @JvmStatic
@@ -28,6 +45,46 @@ object VideoCacheService : CacheService("mopub-video-cache") {
     @AnyThread
     fun getFilePath(key: String?): String? = getFilePathDiskCache(key)
 
+    /**
+     * Where a download of [key] can keep what it has written so far. The file is next to the
+     * cache directory rather than in it, so that the cache doesn't mistake it for one of its own.
+     *
+     * @return the file, or null if the cache hasn't been initialized.
+     */
+    @JvmStatic
+    @AnyThread
+    fun getPartialFile(key: String?): File? {
+        if (key == null) {
+            return null
+        }
+        val cacheDirectory = diskLruCache?.directory ?: return null
+        return File(File(cacheDirectory.parentFile, PARTIAL_DIRECTORY_NAME), createValidDiskCacheKey(key))
+    }
+
+    /**
+     * Keeps the video for [key] from being evicted while an ad that plays it is waiting to be
+     * shown. Every pin should be matched by an [unpin]; pins also run out when the ad expires.
+     */
+    @JvmStatic
+    @AnyThread
+    fun pin(key: String?) {
+        if (!key.isNullOrEmpty()) {
+            evictionPolicy?.pin(createValidDiskCacheKey(key))
+        }
+    }
+
+    @JvmStatic
+    @AnyThread
+    fun unpin(key: String?) {
+        if (!key.isNullOrEmpty()) {
+            evictionPolicy?.unpin(createValidDiskCacheKey(key))
+        }
+    }
+
+    @JvmStatic
+    @AnyThread
+    fun getStats() = cacheStats
+
     @JvmStatic
     @WorkerThread
     fun put(key: String?, content: InputStream?): Boolean =
@@ -38,6 +95,11 @@ object VideoCacheService : CacheService("mopub-video-cache") {
     fun put(key: String?, content: ByteArray?): Boolean =
         putToDiskCache(key, content)
 
+    @JvmStatic
+    @WorkerThread
+    fun put(key: String?, content: File?): Boolean =
+        putToDiskCache(key, content)
+
     // Testing
     @JvmStatic
     @VisibleForTesting
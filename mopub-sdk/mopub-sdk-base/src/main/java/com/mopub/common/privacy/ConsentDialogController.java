@@ -108,14 +108,16 @@ public class ConsentDialogController implements ConsentDialogRequest.Listener {
         mExtListener = listener;
         mRequestInFlight = true;
 
-        ConsentDialogRequest consentDialogRequest = new ConsentDialogRequest(mAppContext,
-                new ConsentDialogUrlGenerator(mAppContext, personalInfoData.getAdUnitId(),
-                        personalInfoData.getConsentStatus().getValue())
-                        .withGdprApplies(gdprApplies)
-                        .withConsentedPrivacyPolicyVersion(personalInfoData.getConsentedPrivacyPolicyVersion())
-                        .withConsentedVendorListVersion(personalInfoData.getConsentedVendorListVersion())
-                        .withForceGdprApplies(personalInfoData.isForceGdprApplies())
-                        .generateUrlString(Constants.HOST), this);
+        final ConsentDialogUrlGenerator urlGenerator = new ConsentDialogUrlGenerator(mAppContext,
+                personalInfoData.getAdUnitId(), personalInfoData.getConsentStatus().getValue())
+                .withGdprApplies(gdprApplies)
+                .withConsentedPrivacyPolicyVersion(personalInfoData.getConsentedPrivacyPolicyVersion())
+                .withConsentedVendorListVersion(personalInfoData.getConsentedVendorListVersion())
+                .withForceGdprApplies(personalInfoData.isForceGdprApplies());
+        final String url = urlGenerator.generateUrlString(Constants.HOST);
+        ConsentDialogRequest consentDialogRequest = new ConsentDialogRequest(mAppContext, url,
+                this);
+        consentDialogRequest.setRequestParams(urlGenerator.getRequestParams(url));
         Networking.getRequestQueue(mAppContext).add(consentDialogRequest);
     }
 
@@ -466,9 +466,10 @@ public class PersonalInfoManager {
             syncUrlGenerator.withForceGdprAppliesChanged(true);
         }
 
-        final SyncRequest syncRequest = new SyncRequest(mAppContext,
-                syncUrlGenerator.generateUrlString(
-                        Constants.HOST), mSyncRequestListener);
+        final String syncUrl = syncUrlGenerator.generateUrlString(Constants.HOST);
+        final SyncRequest syncRequest = new SyncRequest(mAppContext, syncUrl,
+                mSyncRequestListener);
+        syncRequest.setRequestParams(syncUrlGenerator.getRequestParams(syncUrl));
         Networking.getRequestQueue(mAppContext).add(syncRequest);
     }
 
@@ -34,6 +34,7 @@ data class AdData(
     var customerId: String?,
     var viewabilityVendors: Set<ViewabilityVendor>?,
     var creativeExperienceSettings: CreativeExperienceSettings,
+    var vastVideoConfigByteArray: ByteArray? = null,
 ) : Parcelable {
     companion object {
         const val MILLIS_IN_SECOND: Int = 1_000
@@ -67,9 +68,66 @@ data class AdData(
         builder.fullAdType,
         builder.customerId,
         builder.viewabilityVendors,
-        builder.creativeExperienceSettings
+        builder.creativeExperienceSettings,
+        builder.vastVideoConfigByteArray
     )
 
+    /**
+     * Written out because the generated equals and hashCode compare [vastVideoConfigByteArray] by
+     * identity.
+     */
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is AdData) return false
+
+        return vastVideoConfigString == other.vastVideoConfigString &&
+                orientation == other.orientation &&
+                broadcastIdentifier == other.broadcastIdentifier &&
+                timeoutDelayMillis == other.timeoutDelayMillis &&
+                impressionMinVisibleDips == other.impressionMinVisibleDips &&
+                impressionMinVisibleMs == other.impressionMinVisibleMs &&
+                dspCreativeId == other.dspCreativeId &&
+                adPayload == other.adPayload &&
+                extras == other.extras &&
+                isRewarded == other.isRewarded &&
+                currencyName == other.currencyName &&
+                currencyAmount == other.currencyAmount &&
+                adWidth == other.adWidth &&
+                adHeight == other.adHeight &&
+                adUnit == other.adUnit &&
+                adType == other.adType &&
+                fullAdType == other.fullAdType &&
+                customerId == other.customerId &&
+                viewabilityVendors == other.viewabilityVendors &&
+                creativeExperienceSettings == other.creativeExperienceSettings &&
+                vastVideoConfigByteArray.contentEquals(other.vastVideoConfigByteArray)
+    }
+
+    override fun hashCode(): Int {
+        var result = vastVideoConfigString?.hashCode() ?: 0
+        result = 31 * result + (orientation?.hashCode() ?: 0)
+        result = 31 * result + broadcastIdentifier.hashCode()
+        result = 31 * result + timeoutDelayMillis
+        result = 31 * result + (impressionMinVisibleDips?.hashCode() ?: 0)
+        result = 31 * result + (impressionMinVisibleMs?.hashCode() ?: 0)
+        result = 31 * result + (dspCreativeId?.hashCode() ?: 0)
+        result = 31 * result + adPayload.hashCode()
+        result = 31 * result + extras.hashCode()
+        result = 31 * result + isRewarded.hashCode()
+        result = 31 * result + (currencyName?.hashCode() ?: 0)
+        result = 31 * result + currencyAmount
+        result = 31 * result + (adWidth ?: 0)
+        result = 31 * result + (adHeight ?: 0)
+        result = 31 * result + (adUnit?.hashCode() ?: 0)
+        result = 31 * result + (adType?.hashCode() ?: 0)
+        result = 31 * result + (fullAdType?.hashCode() ?: 0)
+        result = 31 * result + (customerId?.hashCode() ?: 0)
+        result = 31 * result + (viewabilityVendors?.hashCode() ?: 0)
+        result = 31 * result + creativeExperienceSettings.hashCode()
+        result = 31 * result + vastVideoConfigByteArray.contentHashCode()
+        return result
+    }
+
     class Builder {
         var vastVideoConfigString: String? = null
             private set
@@ -112,6 +170,8 @@ data class AdData(
         var creativeExperienceSettings: CreativeExperienceSettings =
             CreativeExperienceSettings.getDefaultSettings(false)
             private set
+        var vastVideoConfigByteArray: ByteArray? = null
+            private set
 
         fun vastVideoConfig(vastVideoConfigString: String?) =
             apply { this.vastVideoConfigString = vastVideoConfigString }
@@ -168,6 +228,12 @@ data class AdData(
         fun creativeExperienceSettings(creativeExperienceSettings: CreativeExperienceSettings) =
             apply { this.creativeExperienceSettings = creativeExperienceSettings }
 
+        /**
+         * Takes precedence over [vastVideoConfig] when the video controller reads the config.
+         */
+        fun vastVideoConfigByteArray(vastVideoConfigByteArray: ByteArray?) =
+            apply { this.vastVideoConfigByteArray = vastVideoConfigByteArray }
+
         fun build() = AdData(this)
 
         fun fromAdData(adData: AdData) = apply {
@@ -191,6 +257,7 @@ data class AdData(
             this.customerId = adData.customerId
             this.viewabilityVendors = adData.viewabilityVendors
             this.creativeExperienceSettings = adData.creativeExperienceSettings
+            this.vastVideoConfigByteArray = adData.vastVideoConfigByteArray
         }
     }
 }
@@ -41,6 +41,8 @@ import com.mopub.network.AdResponse;
 import com.mopub.network.MoPubNetworkError;
 import com.mopub.network.MoPubNetworkResponse;
 import com.mopub.network.MoPubRequest;
+import com.mopub.network.MoPubRequestParams;
+import com.mopub.network.RequestRateTracker;
 import com.mopub.network.SingleImpression;
 import com.mopub.network.TrackingRequest;
 
@@ -401,7 +403,10 @@ public class AdViewController implements AdLifecycleListener.LoadListener, AdLif
             }
             mActiveRequest = null;
         }
-        mAdLoader = null;
+        if (mAdLoader != null) {
+            mAdLoader.destroy();
+            mAdLoader = null;
+        }
     }
 
 
@@ -618,7 +623,11 @@ public class AdViewController implements AdLifecycleListener.LoadListener, AdLif
 
         synchronized (this) {
             if (mAdLoader == null || !mAdLoader.hasMoreAds()) {
-                mAdLoader = new AdLoader(url, moPubAd.getAdFormat(), mAdUnitId, mContext, mAdListener);
+                final MoPubRequestParams requestParams = mUrlGenerator == null
+                        ? null
+                        : mUrlGenerator.getRequestParams(url);
+                mAdLoader = new AdLoader(url, requestParams, moPubAd.getAdFormat(), mAdUnitId,
+                        mContext, mAdListener);
             }
         }
         mActiveRequest = mAdLoader.loadNextAd(moPubError);
@@ -683,6 +692,7 @@ public class AdViewController implements AdLifecycleListener.LoadListener, AdLif
             if (currentExpectedRefreshTimeMillis < 0) {
                 currentExpectedRefreshTimeMillis = maxExpectedRefreshTimeMillis;
             }
+            currentExpectedRefreshTimeMillis += RequestRateTracker.getInstance().getRefreshJitterMs();
 
             mHandler.postDelayed(mRefreshRunnable, currentExpectedRefreshTimeMillis);
         }
@@ -0,0 +1,468 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media2.common.DataSourceCallback;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.VideoCacheService;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.common.util.Streams;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR_WITH_THROWABLE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A media file that is being downloaded into {@link VideoCacheService}. Everything read from the
+ * network is written once, to a partial file that is moved into the cache when it is complete.
+ * Until then the partial file serves two purposes:
+ * <ul>
+ *     <li>A player can read it back through {@link #createDataSourceCallback()} while the rest
+ *     downloads, waiting whenever playback gets ahead of the download.</li>
+ *     <li>When a download fails, the partial file is kept along with the server's validator, so
+ *     that the next attempt can ask for only the missing bytes with a {@code Range} request.</li>
+ * </ul>
+ */
+public class ProgressiveVideoDownload {
+    /**
+     * How long a read waits for the download to catch up before playback fails.
+     */
+    private static final long READ_TIMEOUT_MS = 30000;
+    /**
+     * Partial files left alone for this long are deleted instead of resumed.
+     */
+    private static final long MAX_PARTIAL_FILE_AGE_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static final int DOWNLOAD_BUFFER_BYTES = 16 * 1024;
+
+    private static final String METADATA_FILE_SUFFIX = ".meta";
+    private static final String VALIDATOR_KEY = "validator";
+    private static final String CONTENT_LENGTH_KEY = "content_length";
+
+    @NonNull
+    private static final ConcurrentHashMap<String, ProgressiveVideoDownload> sDownloads =
+            new ConcurrentHashMap<>();
+
+    @NonNull private final String mUrl;
+    @NonNull private final File mPartialFile;
+    @NonNull private final File mMetadataFile;
+    @Nullable private final String mResumeValidator;
+    private final long mResumeOffset;
+    @Nullable private FileOutputStream mPartialFileStream;
+    private boolean mResumable;
+
+    // Guarded by this
+    private long mBytesWritten;
+    private long mContentLength;
+    private boolean mFinished;
+    private boolean mSucceeded;
+
+    private ProgressiveVideoDownload(@NonNull final String url, @NonNull final File partialFile) {
+        mUrl = url;
+        mPartialFile = partialFile;
+        mMetadataFile = new File(partialFile.getPath() + METADATA_FILE_SUFFIX);
+
+        final JSONObject metadata = readMetadata(mMetadataFile);
+        final String validator = metadata == null ? null : metadata.optString(VALIDATOR_KEY, null);
+        if (validator != null && mPartialFile.length() > 0) {
+            mResumeValidator = validator;
+            mResumeOffset = mPartialFile.length();
+            mContentLength = metadata.optLong(CONTENT_LENGTH_KEY, -1);
+            mResumable = true;
+        } else {
+            mResumeValidator = null;
+            mResumeOffset = 0;
+            mContentLength = -1;
+            deleteFiles();
+        }
+        mBytesWritten = mResumeOffset;
+    }
+
+    /**
+     * Picks up the partial file left by an earlier attempt at this url, if there is one, and
+     * makes the download visible to {@link #get(String)}.
+     *
+     * @return the download, or null if there is nowhere to keep the partial file.
+     */
+    @Nullable
+    static synchronized ProgressiveVideoDownload start(@NonNull final String url) {
+        Preconditions.checkNotNull(url);
+
+        final File partialFile = VideoCacheService.getPartialFile(url);
+        if (partialFile == null) {
+            return null;
+        }
+
+        final File partialDirectory = partialFile.getParentFile();
+        if (sDownloads.isEmpty()) {
+            deleteStaleFiles(partialDirectory);
+        }
+        if (!partialDirectory.isDirectory() && !partialDirectory.mkdirs()) {
+            MoPubLog.log(CUSTOM, "Unable to create directory for partial video downloads.");
+            return null;
+        }
+
+        final ProgressiveVideoDownload download = new ProgressiveVideoDownload(url, partialFile);
+        sDownloads.put(url, download);
+        return download;
+    }
+
+    /**
+     * @return the download in progress for this media url, or null if there is none.
+     */
+    @Nullable
+    public static ProgressiveVideoDownload get(@Nullable final String url) {
+        return url == null ? null : sDownloads.get(url);
+    }
+
+    /**
+     * @return how many bytes an earlier attempt left in the partial file, or 0 to start over.
+     */
+    long getResumeOffset() {
+        return mResumeOffset;
+    }
+
+    /**
+     * @return the ETag or Last-Modified value the partial file was downloaded with, for
+     * {@code If-Range}, or null to start over.
+     */
+    @Nullable
+    String getResumeValidator() {
+        return mResumeValidator;
+    }
+
+    /**
+     * Opens the partial file once the response headers are in, and records how to resume it.
+     *
+     * @param resumed       true if the response continues from {@link #getResumeOffset()},
+     *                      false if it starts over.
+     * @param validator     the ETag or Last-Modified value of the response, or null if the
+     *                      download can't be resumed.
+     * @param contentLength the size of the whole media file, or -1 if the server didn't say.
+     */
+    void begin(final boolean resumed, @Nullable final String validator,
+            final long contentLength) throws IOException {
+        synchronized (this) {
+            if (!resumed) {
+                mBytesWritten = 0;
+            }
+            mContentLength = contentLength;
+        }
+        mPartialFileStream = new FileOutputStream(mPartialFile, resumed);
+        mResumable = validator != null && writeMetadata(validator, contentLength);
+        if (!mResumable && !mMetadataFile.delete() && mMetadataFile.exists()) {
+            MoPubLog.log(CUSTOM, "Unable to delete partial video metadata.");
+        }
+    }
+
+    /**
+     * Stops a later attempt from resuming from the partial file, because it doesn't match what
+     * the server sends.
+     */
+    void discard() {
+        mResumable = false;
+    }
+
+    /**
+     * Appends the rest of the network stream to the partial file.
+     *
+     * @param bufferedBytes how much has to be written before {@code onBuffered} runs.
+     * @param onBuffered    runs once, on this thread, or null if nobody is waiting to play the
+     *                      video.
+     */
+    void download(@NonNull final InputStream networkStream, final long bufferedBytes,
+            @Nullable final Runnable onBuffered) throws IOException {
+        final InputStream stream = writeThrough(networkStream, bufferedBytes, onBuffered);
+        final byte[] buffer = new byte[DOWNLOAD_BUFFER_BYTES];
+        while (stream.read(buffer) != -1) {
+            // Everything read has been written
+        }
+    }
+
+    /**
+     * Wraps the network stream so that everything read from it is appended to the partial file.
+     *
+     * @see #download(InputStream, long, Runnable)
+     */
+    @VisibleForTesting
+    @NonNull
+    InputStream writeThrough(@NonNull final InputStream networkStream, final long bufferedBytes,
+            @Nullable final Runnable onBuffered) throws IOException {
+        Preconditions.checkNotNull(networkStream);
+
+        final FileOutputStream partialFileStream = mPartialFileStream;
+        if (partialFileStream == null) {
+            throw new IOException("Partial video download was not started.");
+        }
+
+        final long resumedBytes;
+        synchronized (this) {
+            resumedBytes = mBytesWritten;
+        }
+        final boolean buffered = onBuffered == null || resumedBytes >= bufferedBytes;
+        if (onBuffered != null && buffered) {
+            onBuffered.run();
+        }
+
+        return new FilterInputStream(networkStream) {
+            private boolean mBuffered = buffered;
+
+            @Override
+            public int read() throws IOException {
+                final byte[] single = new byte[1];
+                return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+            }
+
+            @Override
+            public int read(@NonNull final byte[] buffer, final int offset, final int length)
+                    throws IOException {
+                final int count = super.read(buffer, offset, length);
+                if (count == -1) {
+                    checkComplete();
+                }
+                if (count > 0) {
+                    partialFileStream.write(buffer, offset, count);
+                    final long written = onBytesWritten(count);
+                    if (!mBuffered && written >= bufferedBytes) {
+                        mBuffered = true;
+                        onBuffered.run();
+                    }
+                }
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Moves the completed partial file into {@link VideoCacheService}. Readers that already
+     * opened it keep reading it.
+     *
+     * @return whether the media file is now in the cache.
+     */
+    boolean moveToCache() throws IOException {
+        final FileOutputStream partialFileStream = mPartialFileStream;
+        if (partialFileStream == null) {
+            throw new IOException("Partial video download was not started.");
+        }
+        partialFileStream.close();
+        return VideoCacheService.put(mUrl, mPartialFile);
+    }
+
+    /**
+     * Wakes up waiting readers. The partial file is removed if the whole media file is now in the
+     * cache or if the download can't be resumed, and kept for the next attempt otherwise. Readers
+     * that already opened it keep reading it either way.
+     *
+     * @param success whether the whole media file is now in the cache.
+     */
+    void finish(final boolean success) {
+        Streams.closeStream(mPartialFileStream);
+        synchronized (this) {
+            mFinished = true;
+            mSucceeded = success;
+            notifyAll();
+        }
+        sDownloads.remove(mUrl, this);
+        if (success || !mResumable) {
+            deleteFiles();
+        }
+    }
+
+    /**
+     * Creates a source for a media item that plays the media file while it downloads.
+     *
+     * @return the source, or null if the download failed before the file could be opened.
+     */
+    @Nullable
+    public DataSourceCallback createDataSourceCallback() {
+        RandomAccessFile file;
+        try {
+            file = new RandomAccessFile(mPartialFile, "r");
+        } catch (FileNotFoundException e) {
+            // The download finished in the meantime
+            final String cachedFilePath = VideoCacheService.getFilePath(mUrl);
+            try {
+                file = cachedFilePath == null ? null : new RandomAccessFile(cachedFilePath, "r");
+            } catch (FileNotFoundException fileNotFoundException) {
+                file = null;
+            }
+        }
+        if (file == null) {
+            MoPubLog.log(CUSTOM, "Unable to open downloaded video.");
+            return null;
+        }
+
+        final RandomAccessFile videoFile = file;
+        return new DataSourceCallback() {
+            @Override
+            public int readAt(final long position, @NonNull final byte[] buffer, final int offset,
+                    final int size) throws IOException {
+                final long available = awaitBytes(position);
+                if (available <= 0) {
+                    return -1;
+                }
+                if (size == 0) {
+                    return 0;
+                }
+                videoFile.seek(position);
+                return videoFile.read(buffer, offset, (int) Math.min(size, available));
+            }
+
+            @Override
+            public long getSize() {
+                return getContentLength();
+            }
+
+            @Override
+            public void close() throws IOException {
+                videoFile.close();
+            }
+        };
+    }
+
+    /**
+     * @return the size of the media file, or -1 while it is unknown.
+     */
+    synchronized long getContentLength() {
+        if (mContentLength > 0) {
+            return mContentLength;
+        }
+        return mFinished && mSucceeded ? mBytesWritten : -1;
+    }
+
+    /**
+     * Not every connection reports a dropped transfer as an error, so a response shorter than its
+     * declared length is turned into one here, before it can reach the cache.
+     */
+    private synchronized void checkComplete() throws IOException {
+        if (mContentLength > 0 && mBytesWritten < mContentLength) {
+            throw new IOException("Video download ended after " + mBytesWritten + " of "
+                    + mContentLength + " bytes.");
+        }
+    }
+
+    private synchronized long onBytesWritten(final int count) {
+        mBytesWritten += count;
+        notifyAll();
+        return mBytesWritten;
+    }
+
+    /**
+     * Blocks until the byte at {@code position} has been written or the download has finished.
+     *
+     * @return how many bytes can be read from {@code position}, or 0 at the end of the file.
+     * @throws IOException if the download failed or stalled before reaching {@code position}.
+     */
+    @VisibleForTesting
+    synchronized long awaitBytes(final long position) throws IOException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(READ_TIMEOUT_MS);
+        while (mBytesWritten <= position && !mFinished) {
+            final long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                throw new IOException("Timed out waiting for video download.");
+            }
+            try {
+                wait(remainingMs);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("Interrupted waiting for video download.");
+            }
+        }
+
+        if (mBytesWritten > position) {
+            return mBytesWritten - position;
+        }
+        if (!mSucceeded) {
+            throw new IOException("Video download failed.");
+        }
+        return 0;
+    }
+
+    private boolean writeMetadata(@NonNull final String validator, final long contentLength) {
+        FileOutputStream metadataStream = null;
+        try {
+            final JSONObject metadata = new JSONObject()
+                    .put(VALIDATOR_KEY, validator)
+                    .put(CONTENT_LENGTH_KEY, contentLength);
+            metadataStream = new FileOutputStream(mMetadataFile);
+            metadataStream.write(metadata.toString().getBytes(UTF_8));
+            return true;
+        } catch (IOException | JSONException e) {
+            MoPubLog.log(ERROR_WITH_THROWABLE, "Unable to write partial video metadata.", e);
+            return false;
+        } finally {
+            Streams.closeStream(metadataStream);
+        }
+    }
+
+    @Nullable
+    private static JSONObject readMetadata(@NonNull final File metadataFile) {
+        if (!metadataFile.isFile()) {
+            return null;
+        }
+        FileInputStream metadataStream = null;
+        try {
+            metadataStream = new FileInputStream(metadataFile);
+            final byte[] bytes = new byte[(int) metadataFile.length()];
+            Streams.readStream(metadataStream, bytes);
+            return new JSONObject(new String(bytes, UTF_8));
+        } catch (IOException | JSONException e) {
+            MoPubLog.log(CUSTOM, "Unable to read partial video metadata.");
+            return null;
+        } finally {
+            Streams.closeStream(metadataStream);
+        }
+    }
+
+    private void deleteFiles() {
+        if (!mPartialFile.delete() && mPartialFile.exists()) {
+            MoPubLog.log(CUSTOM, "Unable to delete partial video file.");
+        }
+        if (!mMetadataFile.delete() && mMetadataFile.exists()) {
+            MoPubLog.log(CUSTOM, "Unable to delete partial video metadata.");
+        }
+    }
+
+    /**
+     * Deletes partial files too old to be worth resuming, including any left by a process that
+     * died before it could write their metadata.
+     */
+    private static void deleteStaleFiles(@Nullable final File directory) {
+        final File[] files = directory == null ? null : directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        final long staleBefore = System.currentTimeMillis() - MAX_PARTIAL_FILE_AGE_MS;
+        for (final File file : files) {
+            if (file.lastModified() < staleBefore && !file.delete()) {
+                MoPubLog.log(CUSTOM, "Unable to delete partial video file.");
+            }
+        }
+    }
+
+    @Deprecated
+    @VisibleForTesting
+    static void clearDownloads() {
+        sDownloads.clear();
+    }
+}
@@ -19,7 +19,7 @@ import org.w3c.dom.Node;
  * Wrapper as children. However, our implementation handles the case of having both an InLine
  * and a Wrapper.
  */
-class VastAdXmlManager {
+class VastAdXmlManager implements VastXml.Ad {
 
     // Element names
     private static final String INLINE = "InLine";
@@ -40,8 +40,9 @@ class VastAdXmlManager {
      *
      * @return The {@link VastInLineXmlManager} or {@code null} if there is no InLine child node.
      */
+    @Override
     @Nullable
-    VastInLineXmlManager getInLineXmlManager() {
+    public VastInLineXmlManager getInLineXmlManager() {
         Node inLineNode = XmlUtils.getFirstMatchingChildNode(mAdNode, INLINE);
         VastInLineXmlManager vastInLineXmlManager = null;
         if (inLineNode != null) {
@@ -55,8 +56,9 @@ class VastAdXmlManager {
      *
      * @return The {@link VastWrapperXmlManager} or {@code null} if there is no Wrapper child node.
      */
+    @Override
     @Nullable
-    VastWrapperXmlManager getWrapperXmlManager() {
+    public VastWrapperXmlManager getWrapperXmlManager() {
         Node wrapperNode = XmlUtils.getFirstMatchingChildNode(mAdNode, WRAPPER);
         VastWrapperXmlManager vastWrapperXmlManager = null;
         if (wrapperNode != null) {
@@ -70,8 +72,9 @@ class VastAdXmlManager {
      *
      * @return The sequence number
      */
+    @Override
     @Nullable
-    String getSequence() {
+    public String getSequence() {
         return XmlUtils.getAttributeValue(mAdNode, SEQUENCE);
     }
 }
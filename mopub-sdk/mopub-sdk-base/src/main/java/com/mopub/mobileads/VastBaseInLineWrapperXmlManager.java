@@ -9,14 +9,16 @@ import androidx.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.mopub.common.Preconditions;
+import com.mopub.common.ViewabilityVendor;
 import com.mopub.mobileads.util.XmlUtils;
 
 import org.w3c.dom.Node;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
-abstract class VastBaseInLineWrapperXmlManager {
+abstract class VastBaseInLineWrapperXmlManager implements VastXml.InLineWrapper {
 
     // Element Names
     private static final String IMPRESSION_TRACKER = "Impression";
@@ -41,8 +43,9 @@ abstract class VastBaseInLineWrapperXmlManager {
      *
      * @return List of URLs of impression trackers
      */
+    @Override
     @NonNull
-    List<VastTracker> getImpressionTrackers() {
+    public List<VastTracker> getImpressionTrackers() {
         final List<Node> impressionNodes = XmlUtils.getMatchingChildNodes(mNode, IMPRESSION_TRACKER);
 
         List<VastTracker> impressionTrackers = new ArrayList<VastTracker>();
@@ -61,8 +64,9 @@ abstract class VastBaseInLineWrapperXmlManager {
      *
      * @return The URL of the error tracker.
      */
+    @Override
     @NonNull
-    List<VastTracker> getErrorTrackers() {
+    public List<VastTracker> getErrorTrackers() {
         final List<VastTracker> errorTrackers = new ArrayList<VastTracker>();
         final List<Node> errorNodes = XmlUtils.getMatchingChildNodes(mNode, ERROR);
         if (errorNodes == null) {
@@ -83,8 +87,9 @@ abstract class VastBaseInLineWrapperXmlManager {
      *
      * @return The {@link VastLinearXmlManager}s or an empty list if there is no Linear child node.
      */
+    @Override
     @NonNull
-    List<VastLinearXmlManager> getLinearXmlManagers() {
+    public List<VastLinearXmlManager> getLinearXmlManagers() {
         final List<VastLinearXmlManager> linearXmlManagers = new ArrayList<VastLinearXmlManager>();
         final Node creativesNode = XmlUtils.getFirstMatchingChildNode(mNode, CREATIVES);
         if (creativesNode == null) {
@@ -114,8 +119,9 @@ abstract class VastBaseInLineWrapperXmlManager {
      * @return The {@link VastCompanionAdXmlManager}s or an empty list if there are no
      * CompanionAds or Companion child node.
      */
+    @Override
     @NonNull
-    List<VastCompanionAdXmlManager> getCompanionAdXmlManagers() {
+    public List<VastCompanionAdXmlManager> getCompanionAdXmlManagers() {
         final List<VastCompanionAdXmlManager> companionAdXmlManagers = new
                 ArrayList<VastCompanionAdXmlManager>();
         final Node creativesNode = XmlUtils.getFirstMatchingChildNode(mNode, CREATIVES);
@@ -153,8 +159,9 @@ abstract class VastBaseInLineWrapperXmlManager {
      * @return The {@link VastExtensionParentXmlManager} or null if there are no Extensions or
      * Extension child nodes.
      */
+    @Override
     @Nullable
-    VastExtensionParentXmlManager getVastExtensionParentXmlManager() {
+    public VastExtensionParentXmlManager getVastExtensionParentXmlManager() {
         Node vastExtensionsNode = XmlUtils.getFirstMatchingChildNode(mNode, EXTENSIONS);
         if (vastExtensionsNode == null) {
             return null;
@@ -162,4 +169,10 @@ abstract class VastBaseInLineWrapperXmlManager {
 
         return new VastExtensionParentXmlManager(vastExtensionsNode);
     }
+
+    @Override
+    @NonNull
+    public Set<ViewabilityVendor> getViewabilityVendors() {
+        return new VastAdVerificationsParser(mNode).getViewabilityVendors();
+    }
 }
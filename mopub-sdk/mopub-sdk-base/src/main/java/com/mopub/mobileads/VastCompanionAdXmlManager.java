@@ -20,7 +20,7 @@ import java.util.List;
 /**
  * This XML manager handles companion ads.
  */
-class VastCompanionAdXmlManager {
+class VastCompanionAdXmlManager implements VastXml.CompanionAd {
 
     // Element names
     private static final String VIDEO_TRACKER = "Tracking";
@@ -52,8 +52,9 @@ class VastCompanionAdXmlManager {
      *
      * @return Integer width attribute or {@code null}.
      */
+    @Override
     @Nullable
-    Integer getWidth() {
+    public Integer getWidth() {
         return XmlUtils.getAttributeValueAsInt(mCompanionNode, WIDTH);
     }
 
@@ -63,8 +64,9 @@ class VastCompanionAdXmlManager {
      *
      * @return Integer height attribute or {@code null}.
      */
+    @Override
     @Nullable
-    Integer getHeight() {
+    public Integer getHeight() {
         return XmlUtils.getAttributeValueAsInt(mCompanionNode, HEIGHT);
     }
 
@@ -78,8 +80,9 @@ class VastCompanionAdXmlManager {
         return XmlUtils.getAttributeValue(mCompanionNode, AD_SLOT_ID);
     }
 
+    @Override
     @NonNull
-    VastResourceXmlManager getResourceXmlManager() {
+    public VastResourceXmlManager getResourceXmlManager() {
         return mResourceXmlManager;
     }
 
@@ -88,8 +91,9 @@ class VastCompanionAdXmlManager {
      *
      * @return The String clickthrough URL or {@code null}
      */
+    @Override
     @Nullable
-    String getClickThroughUrl() {
+    public String getClickThroughUrl() {
         final Node node = XmlUtils.getFirstMatchingChildNode(
                 mCompanionNode,
                 COMPANION_CLICK_THROUGH
@@ -103,8 +107,9 @@ class VastCompanionAdXmlManager {
      *
      * @return List of click tracker URLs or an empty list.
      */
+    @Override
     @NonNull
-    List<VastTracker> getClickTrackers() {
+    public List<VastTracker> getClickTrackers() {
         final List<VastTracker> companionAdClickTrackers = new ArrayList<VastTracker>();
         final List<Node> trackerNodes = XmlUtils.getMatchingChildNodes(mCompanionNode, COMPANION_CLICK_TRACKING);
         if (trackerNodes == null) {
@@ -126,8 +131,9 @@ class VastCompanionAdXmlManager {
      *
      * @return List of creative view URLs or an empty list.
      */
+    @Override
     @NonNull
-    List<VastTracker> getCompanionCreativeViewTrackers() {
+    public List<VastTracker> getCompanionCreativeViewTrackers() {
         final List<VastTracker> companionCreativeViewTrackers = new ArrayList<VastTracker>();
         final Node node = XmlUtils.getFirstMatchingChildNode(
                 mCompanionNode,
@@ -155,7 +161,8 @@ class VastCompanionAdXmlManager {
         return companionCreativeViewTrackers;
     }
 
-    boolean hasResources() {
+    @Override
+    public boolean hasResources() {
         return !TextUtils.isEmpty(mResourceXmlManager.getStaticResource()) ||
                 !TextUtils.isEmpty(mResourceXmlManager.getHTMLResource()) ||
                 !TextUtils.isEmpty(mResourceXmlManager.getIFrameResource());
@@ -17,7 +17,7 @@ import java.util.List;
 /**
  * This XML manager handles Extensions nodes, which may in turn contain Extension nodes.
  */
-public class VastExtensionParentXmlManager {
+public class VastExtensionParentXmlManager implements VastXml.ExtensionParent {
 
     private static final String EXTENSION = "Extension";
     @NonNull private final Node mVastExtensionParentNode;
@@ -34,8 +34,9 @@ public class VastExtensionParentXmlManager {
      * @return The {@link VastExtensionXmlManager}s or an empty list if there are no Extension
      * nodes.
      */
+    @Override
     @NonNull
-    List<VastExtensionXmlManager> getVastExtensionXmlManagers() {
+    public List<VastExtensionXmlManager> getVastExtensionXmlManagers() {
         final List<VastExtensionXmlManager> vastExtensionXmlManagers = new
                 ArrayList<VastExtensionXmlManager>();
 
@@ -9,6 +9,7 @@ import androidx.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.mopub.common.Preconditions;
+import com.mopub.common.ViewabilityVendor;
 import com.mopub.mobileads.util.XmlUtils;
 
 import org.w3c.dom.Node;
@@ -21,7 +22,7 @@ import java.util.Set;
 /**
  * This XML manager handles Extension nodes.
  */
-public class VastExtensionXmlManager {
+public class VastExtensionXmlManager implements VastXml.Extension {
     // Elements
     public static final String VIDEO_VIEWABILITY_TRACKER = "MoPubViewabilityTracker";
 
@@ -43,8 +44,9 @@ public class VastExtensionXmlManager {
      * @return The {@link VideoViewabilityTracker} parsed from the given node or null if missing or
      * invalid.
      */
+    @Override
     @Nullable
-    VideoViewabilityTracker getVideoViewabilityTracker() {
+    public VideoViewabilityTracker getVideoViewabilityTracker() {
         Node videoViewabilityTrackerNode =
                 XmlUtils.getFirstMatchingChildNode(mExtensionNode, VIDEO_VIEWABILITY_TRACKER);
         if (videoViewabilityTrackerNode == null) {
@@ -74,8 +76,15 @@ public class VastExtensionXmlManager {
      *
      * @return A String with the value of the "type" attribute or null if missing.
      */
+    @Override
     @Nullable
-    String getType() {
+    public String getType() {
         return XmlUtils.getAttributeValue(mExtensionNode, TYPE);
     }
+
+    @Override
+    @NonNull
+    public Set<ViewabilityVendor> getViewabilityVendors() {
+        return new VastAdVerificationsParser(mExtensionNode).getViewabilityVendors();
+    }
 }
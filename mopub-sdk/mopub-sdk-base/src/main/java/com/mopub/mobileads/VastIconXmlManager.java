@@ -21,7 +21,7 @@ import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 /**
  * This XML manager handles Vast 3.0 icons.
  */
-public class VastIconXmlManager {
+public class VastIconXmlManager implements VastXml.Icon {
 
     // Element names
     public static final String ICON_CLICKS = "IconClicks";
@@ -50,8 +50,9 @@ public class VastIconXmlManager {
      *
      * @return Integer width attribute or {@code null}.
      */
+    @Override
     @Nullable
-    Integer getWidth() {
+    public Integer getWidth() {
         return XmlUtils.getAttributeValueAsInt(mIconNode, WIDTH);
     }
 
@@ -61,8 +62,9 @@ public class VastIconXmlManager {
      *
      * @return Integer height attribute or {@code null}.
      */
+    @Override
     @Nullable
-    Integer getHeight() {
+    public Integer getHeight() {
         return XmlUtils.getAttributeValueAsInt(mIconNode, HEIGHT);
     }
 
@@ -74,8 +76,9 @@ public class VastIconXmlManager {
      *
      * @return Integer offset in milliseconds attribute or {@code null}.
      */
+    @Override
     @Nullable
-    Integer getOffsetMS() {
+    public Integer getOffsetMS() {
         String iconOffsetStr = XmlUtils.getAttributeValue(mIconNode, OFFSET);
         Integer iconOffset = null;
         try {
@@ -94,8 +97,9 @@ public class VastIconXmlManager {
      *
      * @return Integer duration in milliseconds attribute or {@code null}.
      */
+    @Override
     @Nullable
-    Integer getDurationMS() {
+    public Integer getDurationMS() {
         String iconDurationStr = XmlUtils.getAttributeValue(mIconNode, DURATION);
         Integer iconDuration = null;
         try {
@@ -106,13 +110,15 @@ public class VastIconXmlManager {
         return iconDuration;
     }
 
+    @Override
     @NonNull
-    VastResourceXmlManager getResourceXmlManager() {
+    public VastResourceXmlManager getResourceXmlManager() {
         return mResourceXmlManager;
     }
 
+    @Override
     @NonNull
-    List<VastTracker> getClickTrackingUris() {
+    public List<VastTracker> getClickTrackingUris() {
         Node iconClicksNode = XmlUtils.getFirstMatchingChildNode(mIconNode, ICON_CLICKS);
         List<VastTracker> iconClickTrackingUris = new ArrayList<VastTracker>();
         if (iconClicksNode == null) {
@@ -130,8 +136,9 @@ public class VastIconXmlManager {
         return iconClickTrackingUris;
     }
 
+    @Override
     @Nullable
-    String getClickThroughUri() {
+    public String getClickThroughUri() {
         Node iconClicksNode = XmlUtils.getFirstMatchingChildNode(mIconNode, ICON_CLICKS);
         if (iconClicksNode == null) {
             return null;
@@ -142,8 +149,9 @@ public class VastIconXmlManager {
         return XmlUtils.getNodeValue(iconClickThroughNode);
     }
 
+    @Override
     @NonNull
-    List<VastTracker> getViewTrackingUris() {
+    public List<VastTracker> getViewTrackingUris() {
         List<Node> iconViewTrackingNodes =
                 XmlUtils.getMatchingChildNodes(mIconNode, ICON_VIEW_TRACKING);
         List<VastTracker> iconViewTrackingUris = new ArrayList<VastTracker>();
@@ -23,7 +23,7 @@ import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
  * This XML manager handles the meta data around the video file. This includes video progress
  * trackers and click trackers. This also houses the manager for the actual media file.
  */
-class VastLinearXmlManager {
+class VastLinearXmlManager implements VastXml.Linear {
 
     // Element names
     private static final String TRACKING_EVENTS = "TrackingEvents";
@@ -87,8 +87,9 @@ class VastLinearXmlManager {
      * </Tracking>
      * }
      */
+    @Override
     @NonNull
-    List<VastFractionalProgressTracker> getFractionalProgressTrackers() {
+    public List<VastFractionalProgressTracker> getFractionalProgressTrackers() {
         // Add all the quartile trackers from VAST 2.0:
         List<VastFractionalProgressTracker> percentTrackers = new ArrayList<VastFractionalProgressTracker>();
 
@@ -147,8 +148,9 @@ class VastLinearXmlManager {
      * </Tracking>
      * }
      */
+    @Override
     @NonNull
-    List<VastAbsoluteProgressTracker> getAbsoluteProgressTrackers() {
+    public List<VastAbsoluteProgressTracker> getAbsoluteProgressTrackers() {
         List<VastAbsoluteProgressTracker> trackers = new ArrayList<>();
 
         // Start trackers are treated as absolute trackers set at 0 seconds
@@ -209,8 +211,9 @@ class VastLinearXmlManager {
      *
      * @return List of String URLs of video complete trackers.
      */
+    @Override
     @NonNull
-    List<VastTracker> getVideoCompleteTrackers() {
+    public List<VastTracker> getVideoCompleteTrackers() {
         return getVideoTrackersByAttributeAsVastTrackers(COMPLETE);
     }
 
@@ -219,8 +222,9 @@ class VastLinearXmlManager {
      *
      * @return List of String URLs of pause trackers.
      */
+    @Override
     @NonNull
-    List<VastTracker> getPauseTrackers() {
+    public List<VastTracker> getPauseTrackers() {
         List<String> trackers = getVideoTrackersByAttribute(PAUSE);
         List<VastTracker> vastRepeatableTrackers = new ArrayList<VastTracker>();
         for (String tracker : trackers) {
@@ -234,8 +238,9 @@ class VastLinearXmlManager {
      *
      * @return List of String URLs of resume trackers.
      */
+    @Override
     @NonNull
-    List<VastTracker> getResumeTrackers() {
+    public List<VastTracker> getResumeTrackers() {
         List<String> trackers = getVideoTrackersByAttribute(RESUME);
         List<VastTracker> vastRepeatableTrackers = new ArrayList<VastTracker>();
         for (String tracker : trackers) {
@@ -249,8 +254,9 @@ class VastLinearXmlManager {
      *
      * @return List of String URLs of video closes.
      */
+    @Override
     @NonNull
-    List<VastTracker> getVideoCloseTrackers() {
+    public List<VastTracker> getVideoCloseTrackers() {
         List<VastTracker> closeTrackers = getVideoTrackersByAttributeAsVastTrackers(CLOSE);
         closeTrackers.addAll(getVideoTrackersByAttributeAsVastTrackers(CLOSE_LINEAR));
         return closeTrackers;
@@ -261,8 +267,9 @@ class VastLinearXmlManager {
      *
      * @return List of String URLs of video skip trackers.
      */
+    @Override
     @NonNull
-    List<VastTracker> getVideoSkipTrackers() {
+    public List<VastTracker> getVideoSkipTrackers() {
         return getVideoTrackersByAttributeAsVastTrackers(SKIP);
     }
 
@@ -271,8 +278,9 @@ class VastLinearXmlManager {
      *
      * @return The clickthrough URL or {@code null} if there isn't one.
      */
+    @Override
     @Nullable
-    String getClickThroughUrl() {
+    public String getClickThroughUrl() {
         final Node videoClicks = XmlUtils.getFirstMatchingChildNode(mLinearNode, VIDEO_CLICKS);
         if (videoClicks == null) {
             return null;
@@ -285,8 +293,9 @@ class VastLinearXmlManager {
      *
      * @return List of String URLs of click trackers.
      */
+    @Override
     @NonNull
-    List<VastTracker> getClickTrackers() {
+    public List<VastTracker> getClickTrackers() {
         List<VastTracker> clickTrackers = new ArrayList<VastTracker>();
 
         final Node videoClicks = XmlUtils.getFirstMatchingChildNode(mLinearNode, VIDEO_CLICKS);
@@ -335,8 +344,9 @@ class VastLinearXmlManager {
      * @return The {@link VastMediaXmlManager}
      * or an empty list if there is no Media child node.
      */
+    @Override
     @NonNull
-    List<VastMediaXmlManager> getMediaXmlManagers() {
+    public List<VastMediaXmlManager> getMediaXmlManagers() {
         final List<VastMediaXmlManager> mediaXmlManagers = new ArrayList<VastMediaXmlManager>();
 
         final Node mediaFiles = XmlUtils.getFirstMatchingChildNode(mLinearNode, MEDIA_FILES);
@@ -352,8 +362,9 @@ class VastLinearXmlManager {
         return mediaXmlManagers;
     }
 
+    @Override
     @NonNull
-    List<VastIconXmlManager> getIconXmlManagers() {
+    public List<VastIconXmlManager> getIconXmlManagers() {
         final List<VastIconXmlManager> iconXmlManagers = new ArrayList<VastIconXmlManager>();
 
         final Node icons = XmlUtils.getFirstMatchingChildNode(mLinearNode, ICONS);
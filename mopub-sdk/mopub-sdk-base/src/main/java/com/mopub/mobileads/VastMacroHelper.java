@@ -15,10 +15,8 @@ import com.mopub.common.logging.MoPubLog;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR_WITH_THROWABLE;
@@ -27,37 +25,54 @@ import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR_WITH_THROWABLE
  * Handles macro substitution with actual data.
  */
 public class VastMacroHelper {
+    private static final int MACRO_COUNT = VastMacro.values().length;
 
-    @NonNull private final List<String> mOriginalUris;
-    @NonNull private final Map<VastMacro, String> mMacroDataMap;
+    @NonNull private final List<VastMacroTemplate> mTemplates;
+    /**
+     * Indexed by {@link VastMacro#ordinal()}.
+     */
+    @NonNull private final String[] mMacroValues;
 
     public VastMacroHelper(@NonNull final List<String> uris) {
+        this();
         Preconditions.checkNotNull(uris, "uris cannot be null");
-        mOriginalUris = uris;
-        mMacroDataMap = new HashMap<VastMacro, String>();
-        mMacroDataMap.put(VastMacro.CACHEBUSTING, getCachebustingString());
+
+        for (final String uri : uris) {
+            if (!TextUtils.isEmpty(uri)) {
+                mTemplates.add(VastMacroTemplate.compile(uri));
+            }
+        }
     }
 
+    private VastMacroHelper() {
+        mTemplates = new ArrayList<>();
+        mMacroValues = new String[MACRO_COUNT];
+        mMacroValues[VastMacro.CACHEBUSTING.ordinal()] = getCachebustingString();
+    }
+
+    /**
+     * Uses the templates the trackers have already compiled, instead of compiling their content.
+     */
     @NonNull
-    public List<String> getUris() {
-        List<String> modifiedUris = new ArrayList<String>();
+    public static VastMacroHelper fromTrackers(@NonNull final List<? extends VastTracker> trackers) {
+        Preconditions.checkNotNull(trackers, "trackers cannot be null");
 
-        for(final String originalUri : mOriginalUris) {
-            String modifiedUri = originalUri;
-            if (TextUtils.isEmpty(modifiedUri)) {
-                continue;
-            }
-            for (final VastMacro vastMacro : VastMacro.values()) {
-                String value = mMacroDataMap.get(vastMacro);
-                if (value == null) {
-                    value = "";
-                }
-
-                modifiedUri = modifiedUri.replaceAll("\\[" + vastMacro.name() + "\\]",
-                        value);
+        final VastMacroHelper vastMacroHelper = new VastMacroHelper();
+        for (final VastTracker tracker : trackers) {
+            if (!TextUtils.isEmpty(tracker.getContent())) {
+                vastMacroHelper.mTemplates.add(tracker.getContentTemplate());
             }
+        }
+        return vastMacroHelper;
+    }
+
+    @NonNull
+    public List<String> getUris() {
+        final List<String> modifiedUris = new ArrayList<>(mTemplates.size());
+        final StringBuilder builder = new StringBuilder();
 
-            modifiedUris.add(modifiedUri);
+        for (final VastMacroTemplate template : mTemplates) {
+            modifiedUris.add(template.render(mMacroValues, builder));
         }
 
         return modifiedUris;
@@ -66,7 +81,7 @@ public class VastMacroHelper {
     @NonNull
     public VastMacroHelper withErrorCode(@Nullable final VastErrorCode errorCode) {
         if (errorCode != null) {
-            mMacroDataMap.put(VastMacro.ERRORCODE, errorCode.getErrorCode());
+            mMacroValues[VastMacro.ERRORCODE.ordinal()] = errorCode.getErrorCode();
         }
         return this;
     }
@@ -76,7 +91,7 @@ public class VastMacroHelper {
         if (contentPlayHeadMS != null) {
             String contentPlayHeadMSStr = formatContentPlayHead(contentPlayHeadMS);
             if (!TextUtils.isEmpty(contentPlayHeadMSStr)) {
-                mMacroDataMap.put(VastMacro.CONTENTPLAYHEAD, contentPlayHeadMSStr);
+                mMacroValues[VastMacro.CONTENTPLAYHEAD.ordinal()] = contentPlayHeadMSStr;
             }
         }
         return this;
@@ -91,7 +106,7 @@ public class VastMacroHelper {
             } catch (UnsupportedEncodingException e) {
                 MoPubLog.log(ERROR_WITH_THROWABLE, "Failed to encode url", e);
             }
-            mMacroDataMap.put(VastMacro.ASSETURI, assetUri);
+            mMacroValues[VastMacro.ASSETURI.ordinal()] = assetUri;
         }
         return this;
     }
@@ -0,0 +1,135 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A tracker uri split around its {@link VastMacro}s, so that it can be filled in with a single
+ * pass instead of searching the uri for every macro each time it fires.
+ */
+public class VastMacroTemplate {
+    private static final char MACRO_START = '[';
+    private static final char MACRO_END = ']';
+    private static final VastMacro[] NO_MACROS = new VastMacro[0];
+    @NonNull private static final Map<String, VastMacro> MACROS_BY_NAME = new HashMap<>();
+
+    static {
+        for (final VastMacro vastMacro : VastMacro.values()) {
+            MACROS_BY_NAME.put(vastMacro.name(), vastMacro);
+        }
+    }
+
+    @NonNull private final String mUri;
+    /**
+     * The text between the macros, one more than there are macros.
+     */
+    @NonNull private final String[] mLiterals;
+    @NonNull private final VastMacro[] mMacros;
+    private final int mLiteralsLength;
+
+    private VastMacroTemplate(@NonNull final String uri, @NonNull final String[] literals,
+            @NonNull final VastMacro[] macros) {
+        mUri = uri;
+        mLiterals = literals;
+        mMacros = macros;
+        int literalsLength = 0;
+        for (final String literal : literals) {
+            literalsLength += literal.length();
+        }
+        mLiteralsLength = literalsLength;
+    }
+
+    /**
+     * Finds the macros in the uri. Only the names in {@link VastMacro} count as macros; any other
+     * text in square brackets is kept as is.
+     */
+    @NonNull
+    public static VastMacroTemplate compile(@NonNull final String uri) {
+        Preconditions.checkNotNull(uri);
+
+        List<String> literals = null;
+        List<VastMacro> macros = null;
+        int literalStart = 0;
+        int macroStart = uri.indexOf(MACRO_START);
+        while (macroStart >= 0) {
+            final int macroEnd = uri.indexOf(MACRO_END, macroStart + 1);
+            if (macroEnd < 0) {
+                break;
+            }
+            final VastMacro vastMacro = getMacro(uri, macroStart + 1, macroEnd);
+            if (vastMacro == null) {
+                // Another bracket may still start a macro before this one closes
+                macroStart = uri.indexOf(MACRO_START, macroStart + 1);
+                continue;
+            }
+            if (literals == null) {
+                literals = new ArrayList<>();
+                macros = new ArrayList<>();
+            }
+            literals.add(uri.substring(literalStart, macroStart));
+            macros.add(vastMacro);
+            literalStart = macroEnd + 1;
+            macroStart = uri.indexOf(MACRO_START, literalStart);
+        }
+
+        if (literals == null) {
+            return new VastMacroTemplate(uri, new String[]{uri}, NO_MACROS);
+        }
+        literals.add(uri.substring(literalStart));
+        return new VastMacroTemplate(uri, literals.toArray(new String[0]),
+                macros.toArray(new VastMacro[0]));
+    }
+
+    @Nullable
+    private static VastMacro getMacro(@NonNull final String uri, final int start, final int end) {
+        if (end - start <= 0) {
+            return null;
+        }
+        return MACROS_BY_NAME.get(uri.substring(start, end));
+    }
+
+    /**
+     * @param macroValues The value of each macro, by {@link VastMacro#ordinal()}. Null values are
+     *                    filled in as empty.
+     * @param builder     Reused between calls. Its contents are replaced.
+     * @return The uri with its macros filled in.
+     */
+    @NonNull
+    public String render(@NonNull final String[] macroValues, @NonNull final StringBuilder builder) {
+        if (mMacros.length == 0) {
+            return mUri;
+        }
+
+        builder.setLength(0);
+        builder.ensureCapacity(mLiteralsLength + 16 * mMacros.length);
+        builder.append(mLiterals[0]);
+        for (int i = 0; i < mMacros.length; i++) {
+            final String value = macroValues[mMacros[i].ordinal()];
+            if (value != null) {
+                builder.append(value);
+            }
+            builder.append(mLiterals[i + 1]);
+        }
+        return builder.toString();
+    }
+
+    @NonNull
+    public String getUri() {
+        return mUri;
+    }
+
+    public boolean hasMacros() {
+        return mMacros.length > 0;
+    }
+}
@@ -43,6 +43,16 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
          *                        video or {@code null} if the VAST document is invalid.
          */
         void onVastVideoConfigurationPrepared(@Nullable final VastVideoConfig vastVideoConfig);
+
+        /**
+         * Called when a video that was passed to {@link #onVastVideoConfigurationPrepared} while
+         * it was still downloading failed to finish downloading. It can no longer be shown.
+         * Does nothing unless overridden.
+         *
+         * @param vastVideoConfig The configuration that was prepared.
+         */
+        default void onVastVideoDownloadFailed(@NonNull final VastVideoConfig vastVideoConfig) {
+        }
     }
 
     @Nullable
@@ -51,6 +61,8 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
     private VastXmlManagerAggregator mVastXmlManagerAggregator;
     @Nullable
     private String mDspCreativeId;
+    @Nullable
+    private String mPinnedVideoUrl;
     private double mScreenAspectRatio;
     private int mScreenWidthDp;
 
@@ -93,13 +105,29 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
     }
 
     /**
-     * Stops the VAST aggregator from continuing to follow wrapper redirects.
+     * Stops the VAST aggregator from continuing to follow wrapper redirects, and releases the
+     * video pin unless it was taken with {@link #takePinnedVideoUrl()}.
      */
     public void cancel() {
         if (mVastXmlManagerAggregator != null) {
             mVastXmlManagerAggregator.cancel(true);
             mVastXmlManagerAggregator = null;
         }
+        releasePinnedVideo();
+    }
+
+    /**
+     * The video is pinned in {@link VideoCacheService} as soon as it is picked, so that it can't be
+     * evicted between being cached and the ad being shown. This hands that pin to the caller,
+     * who then has to {@link VideoCacheService#unpin(String)} it.
+     *
+     * @return The url of the pinned video, or null if there is no pin to take.
+     */
+    @Nullable
+    public String takePinnedVideoUrl() {
+        final String pinnedVideoUrl = mPinnedVideoUrl;
+        mPinnedVideoUrl = null;
+        return pinnedVideoUrl;
     }
 
     @Override
@@ -119,6 +147,8 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
             vastVideoConfig.setDspCreativeId(mDspCreativeId);
         }
 
+        pinVideo(vastVideoConfig.getNetworkMediaFileUrl());
+
         // Return immediately if we already have a cached video or if video precache is not required.
         if (!mShouldPreCacheVideo || updateDiskMediaFileUrl(vastVideoConfig)) {
             mVastManagerListener.onVastVideoConfigurationPrepared(vastVideoConfig);
@@ -126,12 +156,32 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
         }
 
         final VideoDownloaderListener videoDownloaderListener = new VideoDownloaderListener() {
+            private boolean mPrepared;
+
+            @Override
+            public void onBuffered() {
+                // The video plays from the partial download until it reaches the cache
+                mPrepared = true;
+                vastVideoConfig.setDiskMediaFileUrl(
+                        VideoCacheService.getFilePath(vastVideoConfig.getNetworkMediaFileUrl()));
+                mVastManagerListener.onVastVideoConfigurationPrepared(vastVideoConfig);
+            }
+
             @Override
             public void onComplete(boolean success) {
+                if (mPrepared) {
+                    if (!success) {
+                        MoPubLog.log(CUSTOM, "Failed to finish downloading VAST video.");
+                        mVastManagerListener.onVastVideoDownloadFailed(vastVideoConfig);
+                    }
+                    return;
+                }
+
                 if (success && updateDiskMediaFileUrl(vastVideoConfig)) {
                     mVastManagerListener.onVastVideoConfigurationPrepared(vastVideoConfig);
                 } else {
                     MoPubLog.log(CUSTOM, "Failed to download VAST video.");
+                    releasePinnedVideo();
                     mVastManagerListener.onVastVideoConfigurationPrepared(null);
                 }
             }
@@ -161,6 +211,17 @@ public class VastManager implements VastXmlManagerAggregator.VastXmlManagerAggre
         return false;
     }
 
+    private void pinVideo(@Nullable final String networkMediaFileUrl) {
+        releasePinnedVideo();
+        mPinnedVideoUrl = networkMediaFileUrl;
+        VideoCacheService.pin(mPinnedVideoUrl);
+    }
+
+    private void releasePinnedVideo() {
+        VideoCacheService.unpin(mPinnedVideoUrl);
+        mPinnedVideoUrl = null;
+    }
+
     private void initializeScreenDimensions(@NonNull final Context context) {
         Preconditions.checkNotNull(context, "context cannot be null");
         final Display display = ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay();
@@ -138,7 +138,7 @@ class VastResource(
 
         /**
          * Helper method that tries to create a {@link VastResource} by accessing all resource types on
-         * the {@link VastResourceXmlManager} in order of priority defined by the {@link Type} enum.
+         * the {@link VastXml.Resource} in order of priority defined by the {@link Type} enum.
          *
          * @param resourceXmlManager the manager used to populate the {@link VastResource}
          * @param width              the expected width of the resource. This only affects IFrames.
@@ -147,7 +147,7 @@ class VastResource(
          */
         @JvmStatic
         fun fromVastResourceXmlManager(
-            resourceXmlManager: VastResourceXmlManager,
+            resourceXmlManager: VastXml.Resource,
             width: Int,
             height: Int
         ): VastResource? {
@@ -163,7 +163,7 @@ class VastResource(
 
         /**
          * Tries to create a {@link VastResource} by accessing a specific resource {@link Type} on the
-         * {@link VastResourceXmlManager}.
+         * {@link VastXml.Resource}.
          *
          * @param resourceXmlManager the manager used to populate the {@link VastResource}
          * @param type the resource {@link Type} to try to access
@@ -173,7 +173,7 @@ class VastResource(
          */
         @JvmStatic
         fun fromVastResourceXmlManager(
-            resourceXmlManager: VastResourceXmlManager,
+            resourceXmlManager: VastXml.Resource,
             type: Type,
             width: Int,
             height: Int
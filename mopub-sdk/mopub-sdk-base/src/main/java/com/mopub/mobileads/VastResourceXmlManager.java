@@ -12,7 +12,7 @@ import com.mopub.mobileads.util.XmlUtils;
 
 import org.w3c.dom.Node;
 
-public class VastResourceXmlManager {
+public class VastResourceXmlManager implements VastXml.Resource {
 
     // Element names
     public static final String STATIC_RESOURCE = "StaticResource";
@@ -35,8 +35,9 @@ public class VastResourceXmlManager {
      *
      * @return The static resource data or {@code null}
      */
+    @Override
     @Nullable
-    String getStaticResource() {
+    public String getStaticResource() {
         return XmlUtils.getNodeValue(XmlUtils.getFirstMatchingChildNode(mResourceNode, STATIC_RESOURCE));
     }
 
@@ -46,8 +47,9 @@ public class VastResourceXmlManager {
      *
      * @return The static resource type or {@code null}
      */
+    @Override
     @Nullable
-    String getStaticResourceType() {
+    public String getStaticResourceType() {
         Node staticResource = XmlUtils.getFirstMatchingChildNode(mResourceNode, STATIC_RESOURCE);
         String attribute = XmlUtils.getAttributeValue(staticResource, CREATIVE_TYPE);
         if (attribute != null) {
@@ -62,8 +64,9 @@ public class VastResourceXmlManager {
      *
      * @return The iframe resource data or {@code null}
      */
+    @Override
     @Nullable
-    String getIFrameResource() {
+    public String getIFrameResource() {
         return XmlUtils.getNodeValue(XmlUtils.getFirstMatchingChildNode(mResourceNode, IFRAME_RESOURCE));
     }
 
@@ -73,8 +76,9 @@ public class VastResourceXmlManager {
      *
      * @return The HTML resource data or {@code null}
      */
+    @Override
     @Nullable
-    String getHTMLResource() {
+    public String getHTMLResource() {
         return XmlUtils.getNodeValue(XmlUtils.getFirstMatchingChildNode(mResourceNode, HTML_RESOURCE));
     }
 }
@@ -30,6 +30,16 @@ open class VastTracker(
     var isTracked: Boolean = false
         private set
 
+    @Transient
+    private var compiledContent: VastMacroTemplate? = null
+
+    /**
+     * [content] split around its macros. Compiled the first time it is asked for and kept with
+     * the tracker, so a repeatable tracker isn't searched for macros each time it fires.
+     */
+    val contentTemplate: VastMacroTemplate
+        get() = compiledContent ?: VastMacroTemplate.compile(content).also { compiledContent = it }
+
     enum class MessageType {
         TRACKING_URL,
         QUARTILE_EVENT;
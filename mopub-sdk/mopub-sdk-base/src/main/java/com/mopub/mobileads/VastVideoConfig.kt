@@ -47,6 +47,14 @@ class VastVideoConfig : Serializable {
                 .create()
             return gson.fromJson(input, VastVideoConfig::class.java)
         }
+
+        /**
+         * Reads a VastVideoConfig written by [toByteArray].
+         */
+        @Throws(IOException::class)
+        fun fromByteArray(input: ByteArray): VastVideoConfig {
+            return VastVideoConfigCodec.decode(input)
+        }
     }
 
     @Expose
@@ -129,6 +137,19 @@ class VastVideoConfig : Serializable {
             return ArrayList(_absoluteTrackers)
         }
 
+    /**
+     * The progress of [_absoluteTrackers] and [_fractionalTrackers], in the same sorted order.
+     * Every tracker before a cursor has been tracked, so progress checks start from there.
+     */
+    @Transient
+    private var absoluteTrackingMillis: IntArray? = null
+    @Transient
+    private var absoluteTrackerCursor = 0
+    @Transient
+    private var fractionalTrackingFractions: FloatArray? = null
+    @Transient
+    private var fractionalTrackerCursor = 0
+
     @Expose @SerializedName(Constants.VIEWABILITY_VERIFICATION_RESOURCES)
     private val _viewabilityVendors = mutableSetOf<ViewabilityVendor>()
     val viewabilityVendors: Set<ViewabilityVendor>
@@ -221,11 +242,13 @@ class VastVideoConfig : Serializable {
     fun addFractionalTrackers(fractionalTrackers: List<VastFractionalProgressTracker>) {
         _fractionalTrackers.addAll(fractionalTrackers)
         _fractionalTrackers.sort()
+        fractionalTrackingFractions = null
     }
 
     fun addAbsoluteTrackers(absoluteTrackers: List<VastAbsoluteProgressTracker>) {
         _absoluteTrackers.addAll(absoluteTrackers)
         _absoluteTrackers.sort()
+        absoluteTrackingMillis = null
     }
 
     fun addCompleteTrackers(completeTrackers: List<VastTracker>) {
@@ -534,6 +557,8 @@ class VastVideoConfig : Serializable {
 
     /**
      * Returns untriggered VAST progress trackers with a progress before the provided position.
+     * Only the trackers from the first untracked one up to the position are looked at, and
+     * nothing is allocated unless some are found.
      *
      * @param currentPositionMillis the current video position in milliseconds.
      * @param videoLengthMillis the total video length.
@@ -546,28 +571,26 @@ class VastVideoConfig : Serializable {
             return emptyList()
         }
 
-        return ArrayList<VastTracker>().also {
-            val absoluteTest = VastAbsoluteProgressTracker.Builder(
-                "", currentPositionMillis
-            ).build()
-
-            _absoluteTrackers.forEach { tracker ->
-                if (tracker <= absoluteTest && !tracker.isTracked) {
-                    it.add(tracker)
-                }
-            }
+        var untriggeredTrackers: MutableList<VastTracker>? = null
 
-            val fractionalTest = VastFractionalProgressTracker.Builder(
-                "",
-                currentPositionMillis / videoLengthMillis.toFloat()
-            ).build()
+        val trackingMillis = getAbsoluteTrackingMillis()
+        absoluteTrackerCursor = skipTracked(_absoluteTrackers, absoluteTrackerCursor)
+        var i = absoluteTrackerCursor
+        while (i < trackingMillis.size && trackingMillis[i] <= currentPositionMillis) {
+            untriggeredTrackers = addUntracked(untriggeredTrackers, _absoluteTrackers[i])
+            i++
+        }
 
-            _fractionalTrackers.forEach { tracker ->
-                if (tracker <= fractionalTest && !tracker.isTracked) {
-                    it.add(tracker)
-                }
-            }
+        val currentFraction = currentPositionMillis / videoLengthMillis.toFloat()
+        val trackingFractions = getFractionalTrackingFractions()
+        fractionalTrackerCursor = skipTracked(_fractionalTrackers, fractionalTrackerCursor)
+        i = fractionalTrackerCursor
+        while (i < trackingFractions.size && trackingFractions[i] <= currentFraction) {
+            untriggeredTrackers = addUntracked(untriggeredTrackers, _fractionalTrackers[i])
+            i++
         }
+
+        return untriggeredTrackers ?: emptyList()
     }
 
     /**
@@ -576,7 +599,59 @@ class VastVideoConfig : Serializable {
      * @return Integer count >= 0 of the remaining progress trackers.
      */
     val remainingProgressTrackerCount: Int
-        get() = getUntriggeredTrackersBefore(Int.MAX_VALUE, Int.MAX_VALUE).size
+        get() {
+            getAbsoluteTrackingMillis()
+            getFractionalTrackingFractions()
+            absoluteTrackerCursor = skipTracked(_absoluteTrackers, absoluteTrackerCursor)
+            fractionalTrackerCursor = skipTracked(_fractionalTrackers, fractionalTrackerCursor)
+            return countUntracked(_absoluteTrackers, absoluteTrackerCursor) +
+                    countUntracked(_fractionalTrackers, fractionalTrackerCursor)
+        }
+
+    /**
+     * Rebuilt, and the cursor reset, whenever the trackers change.
+     */
+    private fun getAbsoluteTrackingMillis(): IntArray {
+        absoluteTrackingMillis?.takeIf { it.size == _absoluteTrackers.size }?.let { return it }
+        absoluteTrackerCursor = 0
+        return IntArray(_absoluteTrackers.size) { _absoluteTrackers[it].trackingMilliseconds }
+            .also { absoluteTrackingMillis = it }
+    }
+
+    private fun getFractionalTrackingFractions(): FloatArray {
+        fractionalTrackingFractions?.takeIf { it.size == _fractionalTrackers.size }?.let { return it }
+        fractionalTrackerCursor = 0
+        return FloatArray(_fractionalTrackers.size) { _fractionalTrackers[it].trackingFraction }
+            .also { fractionalTrackingFractions = it }
+    }
+
+    private fun skipTracked(trackers: List<VastTracker>, cursor: Int): Int {
+        var i = cursor
+        while (i < trackers.size && trackers[i].isTracked) {
+            i++
+        }
+        return i
+    }
+
+    private fun countUntracked(trackers: List<VastTracker>, cursor: Int): Int {
+        var count = 0
+        for (i in cursor until trackers.size) {
+            if (!trackers[i].isTracked) {
+                count++
+            }
+        }
+        return count
+    }
+
+    private fun addUntracked(
+        trackers: MutableList<VastTracker>?,
+        tracker: VastTracker
+    ): MutableList<VastTracker>? {
+        if (tracker.isTracked) {
+            return trackers
+        }
+        return (trackers ?: ArrayList()).apply { add(tracker) }
+    }
 
     /**
      * Converts this VastVideoConfig to a String (for parcelization).
@@ -590,6 +665,14 @@ class VastVideoConfig : Serializable {
         return gson.toJson(this@VastVideoConfig)
     }
 
+    /**
+     * Converts this VastVideoConfig to compact bytes (for parcelization and saved instance state).
+     * Unlike [toJsonString], no reflection is involved.
+     *
+     * @return the bytes for [fromByteArray].
+     */
+    fun toByteArray(): ByteArray = VastVideoConfigCodec.encode(this)
+
     private fun hydrateUrls(event: String?, urls: JSONArray): List<String>? {
         if (event == null) {
             return null
@@ -0,0 +1,424 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads
+
+import com.mopub.common.ViewabilityVendor
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.IOException
+
+/**
+ * Writes a [VastVideoConfig] as compact bytes and reads it back, for handing the config to the
+ * fullscreen activity and keeping it across activity recreation.
+ *
+ * The bytes start with [MAGIC] and [VERSION]. Counts, sizes and enum ordinals are varints, and
+ * strings are length prefixed UTF-8. Everything the Gson form carries is written, including
+ * whether trackers have been tracked, and trackers keep their subclass.
+ *
+ * Enums are written by ordinal and fields by position, so any change to them, or to the fields
+ * written, needs a new [VERSION].
+ */
+internal object VastVideoConfigCodec {
+    private const val MAGIC = 0x5643
+    private const val VERSION = 1
+    private const val INITIAL_BUFFER_SIZE = 4096
+
+    private const val TRACKER = 0
+    private const val ABSOLUTE_PROGRESS_TRACKER = 1
+    private const val FRACTIONAL_PROGRESS_TRACKER = 2
+    private const val VIDEO_VIEWABILITY_TRACKER = 3
+
+    private const val TRACKER_REPEATABLE = 1
+    private const val TRACKER_TRACKED = 1 shl 1
+
+    private const val CONFIG_REWARDED = 1
+    private const val CONFIG_CLICK_EXPERIMENT = 1 shl 1
+
+    private val MESSAGE_TYPES = VastTracker.MessageType.values()
+    private val RESOURCE_TYPES = VastResource.Type.values()
+    private val CREATIVE_TYPES = VastResource.CreativeType.values()
+
+    fun encode(vastVideoConfig: VastVideoConfig): ByteArray {
+        val bytes = ByteArrayOutputStream(INITIAL_BUFFER_SIZE)
+        DataOutputStream(bytes).use { output ->
+            output.writeShort(MAGIC)
+            output.writeByte(VERSION)
+            output.writeConfig(vastVideoConfig)
+        }
+        return bytes.toByteArray()
+    }
+
+    @Throws(IOException::class)
+    fun decode(bytes: ByteArray): VastVideoConfig {
+        DataInputStream(ByteArrayInputStream(bytes)).use { input ->
+            try {
+                if (input.readUnsignedShort() != MAGIC) {
+                    throw IOException("Not an encoded VastVideoConfig")
+                }
+                val version = input.readUnsignedByte()
+                if (version != VERSION) {
+                    throw IOException("Unsupported VastVideoConfig encoding version $version")
+                }
+                return input.readConfig()
+            } catch (e: EOFException) {
+                throw IOException("Truncated VastVideoConfig encoding", e)
+            }
+        }
+    }
+
+    private fun DataOutputStream.writeConfig(config: VastVideoConfig) {
+        writeTrackers(config.impressionTrackers)
+        writeTrackers(config.pauseTrackers)
+        writeTrackers(config.resumeTrackers)
+        writeTrackers(config.completeTrackers)
+        writeTrackers(config.closeTrackers)
+        writeTrackers(config.skipTrackers)
+        writeTrackers(config.clickTrackers)
+        writeTrackers(config.errorTrackers)
+        writeTrackers(config.fractionalTrackers)
+        writeTrackers(config.absoluteTrackers)
+
+        val viewabilityVendors = config.viewabilityVendors
+        writeVarInt(viewabilityVendors.size)
+        viewabilityVendors.forEach { writeViewabilityVendor(it) }
+
+        writeString(config.clickThroughUrl)
+        writeString(config.networkMediaFileUrl)
+        writeString(config.diskMediaFileUrl)
+
+        writeVarInt(config.vastCompanionAdConfigs.size)
+        config.vastCompanionAdConfigs.forEach { writeCompanionAdConfig(it) }
+
+        val vastIconConfig = config.vastIconConfig
+        writeBoolean(vastIconConfig != null)
+        vastIconConfig?.let { writeIconConfig(it) }
+
+        var flags = 0
+        if (config.isRewarded) {
+            flags = flags or CONFIG_REWARDED
+        }
+        if (config.enableClickExperiment) {
+            flags = flags or CONFIG_CLICK_EXPERIMENT
+        }
+        writeByte(flags)
+
+        writeString(config.customCtaText)
+        writeString(config.customSkipText)
+        writeString(config.customCloseIconUrl)
+
+        val videoViewabilityTracker = config.videoViewabilityTracker
+        writeBoolean(videoViewabilityTracker != null)
+        videoViewabilityTracker?.let { writeTracker(it) }
+
+        writeString(config.dspCreativeId)
+        writeString(config.privacyInformationIconImageUrl)
+        writeString(config.privacyInformationIconClickthroughUrl)
+    }
+
+    private fun DataInputStream.readConfig(): VastVideoConfig {
+        return VastVideoConfig().apply {
+            addImpressionTrackers(readTrackers())
+            addPauseTrackers(readTrackers())
+            addResumeTrackers(readTrackers())
+            addCompleteTrackers(readTrackers())
+            addCloseTrackers(readTrackers())
+            addSkipTrackers(readTrackers())
+            addClickTrackers(readTrackers())
+            addErrorTrackers(readTrackers())
+            addFractionalTrackers(readTrackers())
+            addAbsoluteTrackers(readTrackers())
+
+            addViewabilityVendors(HashSet<ViewabilityVendor>().also { vendors ->
+                repeat(readCount()) { readViewabilityVendor()?.let { vendors.add(it) } }
+            })
+
+            clickThroughUrl = readString()
+            networkMediaFileUrl = readString()
+            diskMediaFileUrl = readString()
+
+            repeat(readCount()) { addVastCompanionAdConfig(readCompanionAdConfig()) }
+
+            if (readBoolean()) {
+                vastIconConfig = readIconConfig()
+            }
+
+            val flags = readUnsignedByte()
+            isRewarded = flags and CONFIG_REWARDED != 0
+            enableClickExperiment = flags and CONFIG_CLICK_EXPERIMENT != 0
+
+            customCtaText = readString()
+            customSkipText = readString()
+            customCloseIconUrl = readString()
+
+            if (readBoolean()) {
+                videoViewabilityTracker = readTracker() as? VideoViewabilityTracker
+                    ?: throw IOException("Expected a VideoViewabilityTracker")
+            }
+
+            dspCreativeId = readString()
+            privacyInformationIconImageUrl = readString()
+            privacyInformationIconClickthroughUrl = readString()
+        }
+    }
+
+    private fun DataOutputStream.writeTrackers(trackers: List<VastTracker>) {
+        writeVarInt(trackers.size)
+        trackers.forEach { writeTracker(it) }
+    }
+
+    private inline fun <reified T : VastTracker> DataInputStream.readTrackers(): MutableList<T> {
+        val count = readCount()
+        val trackers = ArrayList<T>(minOf(count, available()))
+        repeat(count) {
+            trackers.add(readTracker() as? T
+                ?: throw IOException("Expected a ${T::class.java.simpleName}"))
+        }
+        return trackers
+    }
+
+    private fun DataOutputStream.writeTracker(tracker: VastTracker) {
+        when (tracker) {
+            is VastAbsoluteProgressTracker -> {
+                writeByte(ABSOLUTE_PROGRESS_TRACKER)
+                writeSignedVarInt(tracker.trackingMilliseconds)
+            }
+            is VastFractionalProgressTracker -> {
+                writeByte(FRACTIONAL_PROGRESS_TRACKER)
+                writeFloat(tracker.trackingFraction)
+            }
+            is VideoViewabilityTracker -> {
+                writeByte(VIDEO_VIEWABILITY_TRACKER)
+                writeSignedVarInt(tracker.viewablePlaytimeMS)
+                writeSignedVarInt(tracker.percentViewable)
+            }
+            else -> writeByte(TRACKER)
+        }
+        writeString(tracker.content)
+        writeVarInt(tracker.messageType.ordinal)
+        var flags = 0
+        if (tracker.isRepeatable) {
+            flags = flags or TRACKER_REPEATABLE
+        }
+        if (tracker.isTracked) {
+            flags = flags or TRACKER_TRACKED
+        }
+        writeByte(flags)
+    }
+
+    private fun DataInputStream.readTracker(): VastTracker {
+        val type = readUnsignedByte()
+        var trackingMilliseconds = 0
+        var trackingFraction = 0f
+        var viewablePlaytimeMS = 0
+        var percentViewable = 0
+        when (type) {
+            ABSOLUTE_PROGRESS_TRACKER -> trackingMilliseconds = readSignedVarInt()
+            FRACTIONAL_PROGRESS_TRACKER -> trackingFraction = readFloat()
+            VIDEO_VIEWABILITY_TRACKER -> {
+                viewablePlaytimeMS = readSignedVarInt()
+                percentViewable = readSignedVarInt()
+            }
+            TRACKER -> Unit
+            else -> throw IOException("Unknown tracker type $type")
+        }
+        val content = readNonNullString()
+        val messageType = readEnum(MESSAGE_TYPES)
+        val flags = readUnsignedByte()
+        val isRepeatable = flags and TRACKER_REPEATABLE != 0
+
+        val tracker = when (type) {
+            ABSOLUTE_PROGRESS_TRACKER -> VastAbsoluteProgressTracker(trackingMilliseconds,
+                content, messageType, isRepeatable)
+            FRACTIONAL_PROGRESS_TRACKER -> VastFractionalProgressTracker(trackingFraction,
+                content, messageType, isRepeatable)
+            VIDEO_VIEWABILITY_TRACKER -> VideoViewabilityTracker(viewablePlaytimeMS,
+                percentViewable, content, messageType, isRepeatable)
+            else -> VastTracker(content, messageType, isRepeatable)
+        }
+        if (flags and TRACKER_TRACKED != 0) {
+            tracker.setTracked()
+        }
+        return tracker
+    }
+
+    private fun DataOutputStream.writeResource(vastResource: VastResource) {
+        writeString(vastResource.resource)
+        writeVarInt(vastResource.type.ordinal)
+        writeVarInt(vastResource.creativeType.ordinal)
+        writeSignedVarInt(vastResource.width)
+        writeSignedVarInt(vastResource.height)
+    }
+
+    private fun DataInputStream.readResource(): VastResource {
+        return VastResource(
+            readNonNullString(),
+            readEnum(RESOURCE_TYPES),
+            readEnum(CREATIVE_TYPES),
+            readSignedVarInt(),
+            readSignedVarInt()
+        )
+    }
+
+    private fun DataOutputStream.writeCompanionAdConfig(companionAdConfig: VastCompanionAdConfig) {
+        writeSignedVarInt(companionAdConfig.width)
+        writeSignedVarInt(companionAdConfig.height)
+        writeResource(companionAdConfig.vastResource)
+        writeString(companionAdConfig.clickThroughUrl)
+        writeTrackers(companionAdConfig.clickTrackers)
+        writeTrackers(companionAdConfig.creativeViewTrackers)
+        writeString(companionAdConfig.customCtaText)
+    }
+
+    private fun DataInputStream.readCompanionAdConfig(): VastCompanionAdConfig {
+        return VastCompanionAdConfig(
+            readSignedVarInt(),
+            readSignedVarInt(),
+            readResource(),
+            readString(),
+            readTrackers(),
+            readTrackers(),
+            readString()
+        )
+    }
+
+    private fun DataOutputStream.writeIconConfig(iconConfig: VastIconConfig) {
+        writeSignedVarInt(iconConfig.width)
+        writeSignedVarInt(iconConfig.height)
+        writeSignedVarInt(iconConfig.offsetMS)
+        val durationMS = iconConfig.durationMS
+        writeBoolean(durationMS != null)
+        durationMS?.let { writeSignedVarInt(it) }
+        writeResource(iconConfig.vastResource)
+        writeTrackers(iconConfig.clickTrackingUris)
+        writeString(iconConfig.clickThroughUri)
+        writeTrackers(iconConfig.viewTrackingUris)
+    }
+
+    private fun DataInputStream.readIconConfig(): VastIconConfig {
+        val width = readSignedVarInt()
+        val height = readSignedVarInt()
+        val offsetMS = readSignedVarInt()
+        val durationMS = if (readBoolean()) readSignedVarInt() else null
+        return VastIconConfig(
+            width,
+            height,
+            offsetMS,
+            durationMS,
+            readResource(),
+            readTrackers(),
+            readString(),
+            readTrackers()
+        )
+    }
+
+    private fun DataOutputStream.writeViewabilityVendor(vendor: ViewabilityVendor) {
+        writeString(vendor.vendorKey)
+        writeString(vendor.javascriptResourceUrl.toString())
+        writeString(vendor.verificationParameters)
+        writeString(vendor.verificationNotExecuted)
+    }
+
+    /**
+     * @return the vendor, or null if it no longer builds.
+     */
+    private fun DataInputStream.readViewabilityVendor(): ViewabilityVendor? {
+        val vendorKey = readString()
+        val javascriptResourceUrl = readNonNullString()
+        val verificationParameters = readString()
+        val verificationNotExecuted = readString()
+        return ViewabilityVendor.Builder(javascriptResourceUrl)
+            .withVendorKey(vendorKey)
+            .withVerificationParameters(verificationParameters)
+            .withVerificationNotExecuted(verificationNotExecuted)
+            .build()
+    }
+
+    /**
+     * Written as its UTF-8 length plus one, so that 0 can stand for null.
+     */
+    private fun DataOutputStream.writeString(value: String?) {
+        if (value == null) {
+            writeVarInt(0)
+            return
+        }
+        val utf8 = value.toByteArray(Charsets.UTF_8)
+        writeVarInt(utf8.size + 1)
+        write(utf8)
+    }
+
+    private fun DataInputStream.readString(): String? {
+        val length = readCount() - 1
+        if (length < 0) {
+            return null
+        }
+        if (length > available()) {
+            throw IOException("String of $length bytes is longer than the encoding")
+        }
+        val utf8 = ByteArray(length)
+        readFully(utf8)
+        return String(utf8, Charsets.UTF_8)
+    }
+
+    private fun DataInputStream.readNonNullString(): String {
+        return readString() ?: throw IOException("Unexpected null string")
+    }
+
+    private fun <E : Enum<E>> DataInputStream.readEnum(values: Array<E>): E {
+        val ordinal = readCount()
+        if (ordinal >= values.size) {
+            throw IOException("Unknown ${values[0].javaClass.simpleName} ordinal $ordinal")
+        }
+        return values[ordinal]
+    }
+
+    private fun DataOutputStream.writeVarInt(value: Int) {
+        var remaining = value
+        while (remaining and 0x7F.inv() != 0) {
+            writeByte(remaining and 0x7F or 0x80)
+            remaining = remaining ushr 7
+        }
+        writeByte(remaining)
+    }
+
+    private fun DataInputStream.readVarInt(): Int {
+        var value = 0
+        var shift = 0
+        while (shift < 35) {
+            val byte = readUnsignedByte()
+            value = value or (byte and 0x7F shl shift)
+            if (byte and 0x80 == 0) {
+                return value
+            }
+            shift += 7
+        }
+        throw IOException("Malformed varint")
+    }
+
+    /**
+     * A count or ordinal, which can't be negative.
+     */
+    private fun DataInputStream.readCount(): Int {
+        val count = readVarInt()
+        if (count < 0) {
+            throw IOException("Negative count $count")
+        }
+        return count
+    }
+
+    /**
+     * Zigzag encoded, so that small negative values such as MATCH_PARENT stay short.
+     */
+    private fun DataOutputStream.writeSignedVarInt(value: Int) {
+        writeVarInt(value shl 1 xor (value shr 31))
+    }
+
+    private fun DataInputStream.readSignedVarInt(): Int {
+        val value = readVarInt()
+        return value ushr 1 xor -(value and 1)
+    }
+}
@@ -28,6 +28,8 @@ import androidx.annotation.RequiresApi
 import androidx.core.content.ContextCompat
 import androidx.core.view.isVisible
 import androidx.media.AudioAttributesCompat
+import androidx.media2.common.CallbackMediaItem
+import androidx.media2.common.MediaItem
 import androidx.media2.common.SessionPlayer
 import androidx.media2.common.SessionPlayer.*
 import androidx.media2.common.UriMediaItem
@@ -49,6 +51,7 @@ import com.mopub.mobileads.resource.DrawableConstants.PrivacyInfoIcon.LEFT_MARGI
 import com.mopub.mobileads.resource.DrawableConstants.PrivacyInfoIcon.TOP_MARGIN_DIPS
 import com.mopub.network.TrackingRequest.makeVastTrackingHttpRequest
 
+import java.io.IOException
 import java.util.*
 import java.util.concurrent.ExecutorService
 
@@ -130,11 +133,15 @@ class VastVideoViewController(
     lateinit var creativeExperienceSettings: CreativeExperienceSettings
 
     init {
-        val resumed =
-            (savedInstanceState?.getSerializable(RESUMED_VAST_CONFIG) as? VastVideoConfig)
+        val resumed = savedInstanceState?.let { getResumedVastVideoConfig(it) }
 
         val adData = extras.getParcelable<AdData>(DataKeys.AD_DATA_KEY)
         vastVideoConfig = resumed
+            ?: requireNotNull(adData) {
+                "AdData is invalid"
+            }.vastVideoConfigByteArray?.let {
+                decodeVastVideoConfig(it)
+            }
             ?: requireNotNull(
                 VastVideoConfig.fromVastVideoConfigString(
                     requireNotNull(
@@ -358,9 +365,7 @@ class VastVideoViewController(
         tempVideoView.setOnTouchListener(clickThroughListener)
 
         mediaPlayer.run {
-            setMediaItem(
-                UriMediaItem.Builder(Uri.parse(vastVideoConfig.diskMediaFileUrl)).build()
-            )
+            setMediaItem(createMediaItem())
             prepare().addListener(
                 Runnable {
                     // Called when media source is ready for playback
@@ -398,6 +403,16 @@ class VastVideoViewController(
         return tempVideoView
     }
 
+    /**
+     * Plays the video from the cache, or from the partial file if it is still downloading.
+     */
+    private fun createMediaItem(): MediaItem {
+        ProgressiveVideoDownload.get(vastVideoConfig.networkMediaFileUrl)
+            ?.createDataSourceCallback()
+            ?.let { return CallbackMediaItem.Builder(it).build() }
+        return UriMediaItem.Builder(Uri.parse(vastVideoConfig.diskMediaFileUrl)).build()
+    }
+
     private fun selectVastCompanionAd(): VastCompanionAdConfig? {
         val displayMetrics: DisplayMetrics = activity.resources.displayMetrics
         val widthPixels = displayMetrics.widthPixels
@@ -491,7 +506,35 @@ class VastVideoViewController(
 
     override fun onSaveInstanceState(outState: Bundle) {
         outState.putInt(CURRENT_POSITION, seekerPositionOnPause)
-        outState.putSerializable(RESUMED_VAST_CONFIG, vastVideoConfig)
+        outState.putByteArray(RESUMED_VAST_CONFIG, vastVideoConfig.toByteArray())
+    }
+
+    /**
+     * Configs used to be saved as Serializable, so those are still read.
+     */
+    private fun getResumedVastVideoConfig(savedInstanceState: Bundle): VastVideoConfig? {
+        savedInstanceState.getByteArray(RESUMED_VAST_CONFIG)?.let {
+            try {
+                return VastVideoConfig.fromByteArray(it)
+            } catch (e: IOException) {
+                MoPubLog.log(CUSTOM_WITH_THROWABLE, "Unable to read the saved VastVideoConfig", e)
+                return null
+            }
+        }
+        return savedInstanceState.getSerializable(RESUMED_VAST_CONFIG) as? VastVideoConfig
+    }
+
+    /**
+     * @return the config in [vastVideoConfigByteArray], or null if it can't be read, in which case
+     * the caller falls back to [AdData.vastVideoConfigString].
+     */
+    private fun decodeVastVideoConfig(vastVideoConfigByteArray: ByteArray): VastVideoConfig? {
+        return try {
+            VastVideoConfig.fromByteArray(vastVideoConfigByteArray)
+        } catch (e: IOException) {
+            MoPubLog.log(CUSTOM_WITH_THROWABLE, "Unable to read the VastVideoConfig bytes", e)
+            null
+        }
     }
 
     override fun onConfigurationChanged(newConfig: Configuration) {
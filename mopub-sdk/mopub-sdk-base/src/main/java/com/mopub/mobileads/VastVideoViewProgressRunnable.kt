@@ -30,26 +30,28 @@ class VastVideoViewProgressRunnable(
             return
         }
 
-        vastVideoConfig.getUntriggeredTrackersBefore(currentPosition, videoLength).mapNotNull {
-            it.setTracked()
-            when (it.messageType) {
-                VastTracker.MessageType.TRACKING_URL -> {
-                    it.content
-                }
-                VastTracker.MessageType.QUARTILE_EVENT -> {
-                    videoViewController.handleViewabilityQuartileEvent(it.content)
-                    null
+        vastVideoConfig.getUntriggeredTrackersBefore(currentPosition, videoLength)
+            .takeIf { it.isNotEmpty() }
+            ?.mapNotNull {
+                it.setTracked()
+                when (it.messageType) {
+                    VastTracker.MessageType.TRACKING_URL -> {
+                        it
+                    }
+                    VastTracker.MessageType.QUARTILE_EVENT -> {
+                        videoViewController.handleViewabilityQuartileEvent(it.content)
+                        null
+                    }
                 }
+            }?.takeIf { it.isNotEmpty() }?.also {
+                TrackingRequest.makeTrackingHttpRequest(
+                    VastMacroHelper.fromTrackers(it)
+                        .withAssetUri(videoViewController.networkMediaFileUrl)
+                        .withContentPlayHead(currentPosition)
+                        .uris,
+                    videoViewController.context
+                )
             }
-        }.takeIf { it.isNotEmpty() }?.also {
-            TrackingRequest.makeTrackingHttpRequest(
-                VastMacroHelper(it)
-                    .withAssetUri(videoViewController.networkMediaFileUrl)
-                    .withContentPlayHead(currentPosition)
-                    .uris,
-                videoViewController.context
-            )
-        }
 
         videoViewController.handleIconDisplay(currentPosition)
     }
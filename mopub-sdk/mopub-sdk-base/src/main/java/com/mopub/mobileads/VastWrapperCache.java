@@ -0,0 +1,158 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.MemoryTrimmer;
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.mopub.common.Constants.FIFTEEN_MINUTES_MILLIS;
+
+/**
+ * Holds VAST wrapper responses in memory, keyed by url, so that wrappers several ads point at
+ * aren't fetched again while they are fresh.
+ * <p/>
+ * A response is only kept as long as its Cache-Control max-age allows, up to
+ * {@link #MAX_TTL_MILLIS}. Responses without a max-age aren't kept at all, since a wrapper
+ * usually carries impression trackers for the one request it answered.
+ */
+class VastWrapperCache {
+    static final String CACHE_CONTROL_HEADER = "Cache-Control";
+
+    @VisibleForTesting
+    static final int MAX_ENTRIES = 32;
+    @VisibleForTesting
+    static final long MAX_TTL_MILLIS = FIFTEEN_MINUTES_MILLIS;
+
+    private static final String NO_STORE = "no-store";
+    private static final String NO_CACHE = "no-cache";
+    private static final String MAX_AGE = "max-age=";
+    private static final String MEMORY_TRIMMER_CACHE_NAME = "vast-wrappers";
+
+    private static class Entry {
+        @NonNull final String xml;
+        final long expiresAtMillis;
+
+        Entry(@NonNull final String xml, final long expiresAtMillis) {
+            this.xml = xml;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * In access order, so that the least recently used entry is evicted first.
+     */
+    @NonNull
+    private static final LinkedHashMap<String, Entry> sEntries =
+            new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+
+    @NonNull
+    private static final MemoryTrimmer.Trimmable sMemoryTrimmable = VastWrapperCache::trimMemory;
+
+    private VastWrapperCache() {
+    }
+
+    /**
+     * @return The response for the url, or null if there is none or it has expired.
+     */
+    @Nullable
+    static synchronized String get(@NonNull final String url) {
+        Preconditions.checkNotNull(url);
+
+        final Entry entry = sEntries.get(url);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis <= SystemClock.elapsedRealtime()) {
+            sEntries.remove(url);
+            return null;
+        }
+        return entry.xml;
+    }
+
+    /**
+     * Keeps the response for {@code ttlMillis}. Does nothing if that is not positive.
+     */
+    static synchronized void put(@NonNull final String url, @NonNull final String xml,
+            final long ttlMillis) {
+        Preconditions.checkNotNull(url);
+        Preconditions.checkNotNull(xml);
+
+        if (ttlMillis <= 0) {
+            return;
+        }
+        sEntries.put(url, new Entry(xml, SystemClock.elapsedRealtime() + ttlMillis));
+        MemoryTrimmer.addCache(MEMORY_TRIMMER_CACHE_NAME, sMemoryTrimmable);
+    }
+
+    /**
+     * @param cacheControl The Cache-Control header of the response.
+     * @return How long the response may be kept, or 0 if it shouldn't be.
+     */
+    static long getTtlMillis(@Nullable final String cacheControl) {
+        if (cacheControl == null) {
+            return 0;
+        }
+
+        long maxAgeSeconds = 0;
+        for (final String directive : cacheControl.toLowerCase(Locale.US).split(",")) {
+            final String trimmedDirective = directive.trim();
+            if (NO_STORE.equals(trimmedDirective) || NO_CACHE.equals(trimmedDirective)) {
+                return 0;
+            }
+            if (trimmedDirective.startsWith(MAX_AGE)) {
+                try {
+                    maxAgeSeconds = Long.parseLong(trimmedDirective.substring(MAX_AGE.length()).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return Math.min(Math.max(maxAgeSeconds, 0) * 1000, MAX_TTL_MILLIS);
+    }
+
+    /**
+     * Drops the least recently used {@code fraction} of the responses.
+     *
+     * @return Roughly how many bytes were released.
+     */
+    @VisibleForTesting
+    static synchronized long trimMemory(final float fraction) {
+        final int trimCount = MemoryTrimmer.getTrimCount(sEntries.size(), fraction);
+        long bytesReleased = 0;
+        final Iterator<Entry> iterator = sEntries.values().iterator();
+        for (int i = 0; i < trimCount && iterator.hasNext(); i++) {
+            bytesReleased += 2L * iterator.next().xml.length();
+            iterator.remove();
+        }
+        return bytesReleased;
+    }
+
+    @VisibleForTesting
+    static synchronized int size() {
+        return sEntries.size();
+    }
+
+    @Deprecated
+    @VisibleForTesting
+    static synchronized void clear() {
+        sEntries.clear();
+    }
+}
@@ -17,7 +17,7 @@ import org.w3c.dom.Node;
  * in turn redirect to more wrappers). Wrappers can also contain impression trackers,
  * trackers for a video ad, and companion ads.
  */
-class VastWrapperXmlManager extends VastBaseInLineWrapperXmlManager {
+class VastWrapperXmlManager extends VastBaseInLineWrapperXmlManager implements VastXml.Wrapper {
 
     // Element names
     private static final String VAST_AD_TAG = "VASTAdTagURI";
@@ -32,8 +32,9 @@ class VastWrapperXmlManager extends VastBaseInLineWrapperXmlManager {
      *
      * @return The redirect URI or {@code null} if there isn't one.
      */
+    @Override
     @Nullable
-    String getVastAdTagURI() {
+    public String getVastAdTagURI() {
         Node vastAdTagURINode = XmlUtils.getFirstMatchingChildNode(mNode, VAST_AD_TAG);
         return XmlUtils.getNodeValue(vastAdTagURINode);
     }
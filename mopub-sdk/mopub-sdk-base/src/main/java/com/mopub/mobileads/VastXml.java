@@ -0,0 +1,219 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.ViewabilityVendor;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What {@link VastXmlManagerAggregator} reads from a VAST document. {@link VastXmlPullParser}
+ * reads a document into these in one pass; the DOM based {@link VastXmlManager} and its XML
+ * managers implement them as well.
+ */
+public interface VastXml {
+
+    interface Document {
+        @NonNull
+        List<? extends Ad> getAdXmlManagers();
+
+        @Nullable
+        VastTracker getErrorTracker();
+
+        @NonNull
+        List<VastTracker> getMoPubImpressionTrackers();
+
+        @Nullable
+        String getCustomCtaText();
+
+        @Nullable
+        String getCustomSkipText();
+
+        @Nullable
+        String getCustomCloseIconUrl();
+    }
+
+    interface Ad {
+        @Nullable
+        InLineWrapper getInLineXmlManager();
+
+        @Nullable
+        Wrapper getWrapperXmlManager();
+
+        @Nullable
+        String getSequence();
+    }
+
+    /**
+     * An InLine or Wrapper element.
+     */
+    interface InLineWrapper {
+        @NonNull
+        List<VastTracker> getImpressionTrackers();
+
+        @NonNull
+        List<VastTracker> getErrorTrackers();
+
+        @NonNull
+        List<? extends Linear> getLinearXmlManagers();
+
+        @NonNull
+        List<? extends CompanionAd> getCompanionAdXmlManagers();
+
+        @Nullable
+        ExtensionParent getVastExtensionParentXmlManager();
+
+        /**
+         * @return the vendors from the AdVerifications element, or an empty set if there is none.
+         */
+        @NonNull
+        Set<ViewabilityVendor> getViewabilityVendors();
+    }
+
+    interface Wrapper extends InLineWrapper {
+        @Nullable
+        String getVastAdTagURI();
+    }
+
+    interface Linear {
+        @NonNull
+        List<VastFractionalProgressTracker> getFractionalProgressTrackers();
+
+        @NonNull
+        List<VastAbsoluteProgressTracker> getAbsoluteProgressTrackers();
+
+        @NonNull
+        List<VastTracker> getVideoCompleteTrackers();
+
+        @NonNull
+        List<VastTracker> getPauseTrackers();
+
+        @NonNull
+        List<VastTracker> getResumeTrackers();
+
+        @NonNull
+        List<VastTracker> getVideoCloseTrackers();
+
+        @NonNull
+        List<VastTracker> getVideoSkipTrackers();
+
+        @Nullable
+        String getClickThroughUrl();
+
+        @NonNull
+        List<VastTracker> getClickTrackers();
+
+        @NonNull
+        List<? extends MediaFile> getMediaXmlManagers();
+
+        @NonNull
+        List<? extends Icon> getIconXmlManagers();
+    }
+
+    interface MediaFile {
+        @Nullable
+        Integer getWidth();
+
+        @Nullable
+        Integer getHeight();
+
+        @Nullable
+        String getType();
+
+        @Nullable
+        String getMediaUrl();
+
+        @Nullable
+        Integer getBitrate();
+    }
+
+    interface Icon {
+        @Nullable
+        Integer getWidth();
+
+        @Nullable
+        Integer getHeight();
+
+        @Nullable
+        Integer getOffsetMS();
+
+        @Nullable
+        Integer getDurationMS();
+
+        @NonNull
+        Resource getResourceXmlManager();
+
+        @NonNull
+        List<VastTracker> getClickTrackingUris();
+
+        @Nullable
+        String getClickThroughUri();
+
+        @NonNull
+        List<VastTracker> getViewTrackingUris();
+    }
+
+    interface CompanionAd {
+        @Nullable
+        Integer getWidth();
+
+        @Nullable
+        Integer getHeight();
+
+        @NonNull
+        Resource getResourceXmlManager();
+
+        @Nullable
+        String getClickThroughUrl();
+
+        @NonNull
+        List<VastTracker> getClickTrackers();
+
+        @NonNull
+        List<VastTracker> getCompanionCreativeViewTrackers();
+
+        boolean hasResources();
+    }
+
+    /**
+     * The StaticResource, IFrameResource and HTMLResource of an icon or companion ad.
+     */
+    interface Resource {
+        @Nullable
+        String getStaticResource();
+
+        @Nullable
+        String getStaticResourceType();
+
+        @Nullable
+        String getIFrameResource();
+
+        @Nullable
+        String getHTMLResource();
+    }
+
+    interface ExtensionParent {
+        @NonNull
+        List<? extends Extension> getVastExtensionXmlManagers();
+    }
+
+    interface Extension {
+        @Nullable
+        String getType();
+
+        @Nullable
+        VideoViewabilityTracker getVideoViewabilityTracker();
+
+        /**
+         * @return the vendors from the AdVerifications element, or an empty set if there is none.
+         */
+        @NonNull
+        Set<ViewabilityVendor> getViewabilityVendors();
+    }
+}
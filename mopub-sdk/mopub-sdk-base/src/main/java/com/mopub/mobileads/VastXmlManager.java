@@ -29,7 +29,7 @@ import javax.xml.parsers.ParserConfigurationException;
  * Parses the VAST XML to spec. See www.iab.net for details.
  * Currently using the VAST 3.0 spec found here: https://www.iab.net/media/file/VASTv3.0.pdf.
  */
-class VastXmlManager {
+class VastXmlManager implements VastXml.Document {
     private static final String ROOT_TAG = "MPMoVideoXMLDocRoot";
     private static final String ROOT_TAG_OPEN = "<" + ROOT_TAG + ">";
     private static final String ROOT_TAG_CLOSE = "</" + ROOT_TAG + ">";
@@ -88,8 +88,9 @@ class VastXmlManager {
      * empty list if there is no Ad child node.
      */
 
+    @Override
     @NonNull
-    List<VastAdXmlManager> getAdXmlManagers() {
+    public List<VastAdXmlManager> getAdXmlManagers() {
         List<VastAdXmlManager> vastAdXmlManagers = new ArrayList<VastAdXmlManager>();
         if (mVastDoc == null) {
             return vastAdXmlManagers;
@@ -107,8 +108,9 @@ class VastXmlManager {
      *
      * @return The URL of the error tracker or null if it does not exist.
      */
+    @Override
     @Nullable
-    VastTracker getErrorTracker() {
+    public VastTracker getErrorTracker() {
         if (mVastDoc == null) {
             return null;
         }
@@ -124,8 +126,9 @@ class VastXmlManager {
      *
      * @return List of URL impression trackers or an empty list if none present.
      */
+    @Override
     @NonNull
-    List<VastTracker> getMoPubImpressionTrackers() {
+    public List<VastTracker> getMoPubImpressionTrackers() {
         List<String> trackers = XmlUtils.getStringDataAsList(mVastDoc, MP_IMPRESSION_TRACKER);
         List<VastTracker> vastTrackers = new ArrayList<VastTracker>(trackers.size());
         for (String tracker : trackers) {
@@ -139,8 +142,9 @@ class VastXmlManager {
      *
      * @return String cta or {@code null}
      */
+    @Override
     @Nullable
-    String getCustomCtaText() {
+    public String getCustomCtaText() {
         String customCtaText = XmlUtils.getFirstMatchingStringData(mVastDoc, CUSTOM_CTA_TEXT);
         if (customCtaText != null && customCtaText.length() <= MAX_CTA_TEXT_LENGTH) {
             return customCtaText;
@@ -154,8 +158,9 @@ class VastXmlManager {
      *
      * @return String skip text or {@code null}
      */
+    @Override
     @Nullable
-    String getCustomSkipText() {
+    public String getCustomSkipText() {
         String customSkipText = XmlUtils.getFirstMatchingStringData(mVastDoc, CUSTOM_SKIP_TEXT);
         if (customSkipText != null && customSkipText.length() <= MAX_SKIP_TEXT_LENGTH) {
             return customSkipText;
@@ -169,8 +174,9 @@ class VastXmlManager {
      *
      * @return String URL of the custom icon or {@code null}
      */
+    @Override
     @Nullable
-    String getCustomCloseIconUrl() {
+    public String getCustomCloseIconUrl() {
         return XmlUtils.getFirstMatchingStringData(mVastDoc, CUSTOM_CLOSE_ICON);
     }
 }
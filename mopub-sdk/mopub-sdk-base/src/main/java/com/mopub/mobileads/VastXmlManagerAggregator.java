@@ -7,6 +7,7 @@ package com.mopub.mobileads;
 import android.content.Context;
 import android.graphics.Point;
 import android.os.AsyncTask;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.view.Display;
 import android.view.WindowManager;
@@ -16,7 +17,7 @@ import androidx.annotation.Nullable;
 
 import com.mopub.common.MoPubHttpUrlConnection;
 import com.mopub.common.Preconditions;
-import com.mopub.common.ViewabilityVendor;
+import com.mopub.common.RequestCoalescer;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.util.Dips;
@@ -24,8 +25,6 @@ import com.mopub.common.util.Streams;
 import com.mopub.common.util.Strings;
 import com.mopub.network.Networking;
 
-import org.w3c.dom.Node;
-
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -34,11 +33,22 @@ import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR_WITH_THROWABLE;
 import static com.mopub.network.TrackingRequest.makeVastTrackingHttpRequest;
 
@@ -85,6 +95,93 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
     private static final int MINIMUM_COMPANION_AD_HEIGHT = 250;
     private static final int BITRATE_THRESHOLD_HIGH = 1500;
     private static final int BITRATE_THRESHOLD_LOW = 700;
+    /**
+     * How long the wrappers of sibling Ads, fetched at the same time, may take before an Ad whose
+     * wrapper hasn't been fetched yet is skipped.
+     */
+    @VisibleForTesting
+    static final long PARALLEL_WRAPPER_DEADLINE_MILLIS = 10000;
+    private static final int MAX_PARALLEL_WRAPPER_FETCHES = 4;
+    private static final RequestCoalescer<VastWrapperResponse> sRedirectFetches =
+            new RequestCoalescer<>();
+    @NonNull
+    private static final ThreadPoolExecutor sWrapperFetchExecutor = new ThreadPoolExecutor(
+            MAX_PARALLEL_WRAPPER_FETCHES, MAX_PARALLEL_WRAPPER_FETCHES, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>());
+
+    static {
+        sWrapperFetchExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * How one wrapper redirect was resolved.
+     */
+    static class WrapperHop {
+        /**
+         * 1 for the first redirect followed, 2 for the next, and so on.
+         */
+        final int hop;
+        @NonNull final String url;
+        /**
+         * How long evaluation waited for the response.
+         */
+        final long latencyMillis;
+        final boolean cached;
+        /**
+         * Whether it was fetched alongside the wrappers of sibling Ads.
+         */
+        final boolean prefetched;
+
+        WrapperHop(final int hop, @NonNull final String url, final long latencyMillis,
+                final boolean cached, final boolean prefetched) {
+            this.hop = hop;
+            this.url = url;
+            this.latencyMillis = latencyMillis;
+            this.cached = cached;
+            this.prefetched = prefetched;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "VAST wrapper hop %d took %d ms%s%s: %s", hop,
+                    latencyMillis, cached ? " (cached)" : "", prefetched ? " (prefetched)" : "",
+                    url);
+        }
+    }
+
+    private static class VastWrapperResponse {
+        @NonNull final String xml;
+        final boolean cached;
+
+        VastWrapperResponse(@NonNull final String xml, final boolean cached) {
+            this.xml = xml;
+            this.cached = cached;
+        }
+    }
+
+    /**
+     * Wrapper redirects of one document's Ads, fetched at the same time.
+     */
+    private static class WrapperPrefetch {
+        static final WrapperPrefetch NONE = new WrapperPrefetch(
+                Collections.<String, Future<VastWrapperResponse>>emptyMap(), 0);
+
+        @NonNull final Map<String, Future<VastWrapperResponse>> fetches;
+        final long deadlineMillis;
+
+        WrapperPrefetch(@NonNull final Map<String, Future<VastWrapperResponse>> fetches,
+                final long deadlineMillis) {
+            this.fetches = fetches;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        void cancel() {
+            for (final Future<VastWrapperResponse> fetch : fetches.values()) {
+                fetch.cancel(true);
+            }
+        }
+    }
 
     @NonNull private final WeakReference<VastXmlManagerAggregatorListener> mVastXmlManagerAggregatorListener;
     private final double mScreenAspectRatio;
@@ -97,6 +194,18 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
      */
     private int mTimesFollowedVastRedirect;
 
+    /**
+     * The wrapper redirects followed so far, in order. Only accessed on the background thread.
+     */
+    @NonNull
+    private final List<WrapperHop> mWrapperHops = new ArrayList<>();
+
+    /**
+     * Reads VAST documents with the DOM based {@link VastXmlManager} instead of
+     * {@link VastXmlPullParser}. Only used to compare the two.
+     */
+    private boolean mUseDomParser;
+
     VastXmlManagerAggregator(@NonNull final VastXmlManagerAggregatorListener vastXmlManagerAggregatorListener,
                              final double screenAspectRatio,
                              final int screenWidthDp,
@@ -175,9 +284,9 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
         Preconditions.checkNotNull(vastXml, "vastXml cannot be null");
         Preconditions.checkNotNull(errorTrackers, "errorTrackers cannot be null");
 
-        final VastXmlManager xmlManager = new VastXmlManager();
+        final VastXml.Document xmlManager;
         try {
-            xmlManager.parseVastXml(vastXml);
+            xmlManager = parseVastXml(vastXml);
         } catch (Exception e) {
             MoPubLog.log(ERROR_WITH_THROWABLE, "Failed to parse VAST XML", e);
             makeVastTrackingHttpRequest(errorTrackers, VastErrorCode.XML_PARSING_ERROR, null,
@@ -185,20 +294,40 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
             return null;
         }
 
-        final List<VastAdXmlManager> vastAdXmlManagers = xmlManager.getAdXmlManagers();
+        final List<? extends VastXml.Ad> vastAdXmlManagers = xmlManager.getAdXmlManagers();
 
         // If there are no ads, fire the error trackers
         if (fireErrorTrackerIfNoAds(vastAdXmlManagers, xmlManager, mContext)) {
             return null;
         }
 
-        for (VastAdXmlManager vastAdXmlManager : vastAdXmlManagers) {
+        final WrapperPrefetch wrapperPrefetch = prefetchWrapperRedirects(vastAdXmlManagers);
+        try {
+            return evaluateAdXmlManagers(xmlManager, vastAdXmlManagers, errorTrackers,
+                    wrapperPrefetch);
+        } finally {
+            // Whatever wasn't used by the Ad that was picked isn't needed
+            wrapperPrefetch.cancel();
+        }
+    }
+
+    /**
+     * Evaluates the Ad elements of a document in order.
+     *
+     * @see #evaluateVastXmlManager(String, List)
+     */
+    @Nullable
+    private VastVideoConfig evaluateAdXmlManagers(@NonNull final VastXml.Document xmlManager,
+            @NonNull final List<? extends VastXml.Ad> vastAdXmlManagers,
+            @NonNull final List<VastTracker> errorTrackers,
+            @NonNull final WrapperPrefetch wrapperPrefetch) {
+        for (VastXml.Ad vastAdXmlManager : vastAdXmlManagers) {
             if (!isValidSequenceNumber(vastAdXmlManager.getSequence())) {
                 continue;
             }
 
             // InLine evaluation
-            final VastInLineXmlManager vastInLineXmlManager =
+            final VastXml.InLineWrapper vastInLineXmlManager =
                     vastAdXmlManager.getInLineXmlManager();
             if (vastInLineXmlManager != null) {
                 final VastVideoConfig vastVideoConfig = evaluateInLineXmlManager(
@@ -211,13 +340,13 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
             }
 
             // Wrapper evaluation
-            final VastWrapperXmlManager vastWrapperXmlManager
+            final VastXml.Wrapper vastWrapperXmlManager
                     = vastAdXmlManager.getWrapperXmlManager();
             if (vastWrapperXmlManager != null) {
                 final List<VastTracker> wrapperErrorTrackers = new ArrayList<VastTracker>(errorTrackers);
                 wrapperErrorTrackers.addAll(vastWrapperXmlManager.getErrorTrackers());
                 final String vastRedirectXml = evaluateWrapperRedirect(vastWrapperXmlManager,
-                        wrapperErrorTrackers);
+                        wrapperErrorTrackers, wrapperPrefetch);
                 if (vastRedirectXml == null) {
                     continue;
                 }
@@ -237,16 +366,16 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
                 // in one of Wrapper redirects. Therefore, aggregate all trackers in the wrapper
                 vastVideoConfig.addImpressionTrackers(
                         vastWrapperXmlManager.getImpressionTrackers());
-                final List<VastLinearXmlManager> linearXmlManagers =
+                final List<? extends VastXml.Linear> linearXmlManagers =
                         vastWrapperXmlManager.getLinearXmlManagers();
-                for (VastLinearXmlManager linearXmlManager : linearXmlManagers) {
+                for (VastXml.Linear linearXmlManager : linearXmlManagers) {
                     populateLinearTrackersAndIcon(linearXmlManager, vastVideoConfig);
                 }
                 populateVideoViewabilityTracker(vastWrapperXmlManager, vastVideoConfig);
                 populateViewabilityMetadata(vastWrapperXmlManager, vastVideoConfig);
-                populateAdVerificationsOmid(vastWrapperXmlManager.mNode, vastVideoConfig);
+                vastVideoConfig.addViewabilityVendors(vastWrapperXmlManager.getViewabilityVendors());
 
-                final List<VastCompanionAdXmlManager> companionAdXmlManagers =
+                final List<? extends VastXml.CompanionAd> companionAdXmlManagers =
                         vastWrapperXmlManager.getCompanionAdXmlManagers();
                 // Only populate a companion ad if we don't already have one from one of the
                 // redirects
@@ -257,7 +386,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
                     // Otherwise append the companion trackers if it doesn't have resources
                     final Set<VastCompanionAdConfig> companionAds = vastVideoConfig.getVastCompanionAdConfigs();
                     for (VastCompanionAdConfig vastCompanionAdConfig : companionAds) {
-                        for (final VastCompanionAdXmlManager companionAdXmlManager : companionAdXmlManagers) {
+                        for (final VastXml.CompanionAd companionAdXmlManager : companionAdXmlManagers) {
                             if (!companionAdXmlManager.hasResources()) {
                                 vastCompanionAdConfig.addClickTrackers(
                                         companionAdXmlManager.getClickTrackers());
@@ -290,15 +419,15 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
      */
     @Nullable
     private VastVideoConfig evaluateInLineXmlManager(
-            @NonNull final VastInLineXmlManager vastInLineXmlManager,
+            @NonNull final VastXml.InLineWrapper vastInLineXmlManager,
             @NonNull final List<VastTracker> errorTrackers) {
         Preconditions.checkNotNull(vastInLineXmlManager);
         Preconditions.checkNotNull(errorTrackers);
 
-        final List<VastLinearXmlManager> linearXmlManagers
+        final List<? extends VastXml.Linear> linearXmlManagers
                 = vastInLineXmlManager.getLinearXmlManagers();
 
-        for (VastLinearXmlManager linearXmlManager : linearXmlManagers) {
+        for (VastXml.Linear linearXmlManager : linearXmlManagers) {
             String bestMediaFileUrl = getBestMediaFileUrl(linearXmlManager.getMediaXmlManagers());
             if (bestMediaFileUrl != null) {
                 // Create vast video configuration and populate initial trackers
@@ -312,7 +441,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
                 vastVideoConfig.setClickThroughUrl(linearXmlManager.getClickThroughUrl());
                 vastVideoConfig.setNetworkMediaFileUrl(bestMediaFileUrl);
 
-                final List<VastCompanionAdXmlManager> companionAdXmlManagers =
+                final List<? extends VastXml.CompanionAd> companionAdXmlManagers =
                         vastInLineXmlManager.getCompanionAdXmlManagers();
 
                 vastVideoConfig.addVastCompanionAdConfigs(getAllCompanionAds(companionAdXmlManagers));
@@ -320,7 +449,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
                 vastVideoConfig.addErrorTrackers(errorTrackers);
                 populateVideoViewabilityTracker(vastInLineXmlManager, vastVideoConfig);
                 populateViewabilityMetadata(vastInLineXmlManager, vastVideoConfig);
-                populateAdVerificationsOmid(vastInLineXmlManager.mNode, vastVideoConfig);
+                vastVideoConfig.addViewabilityVendors(vastInLineXmlManager.getViewabilityVendors());
 
                 return vastVideoConfig;
             }
@@ -330,7 +459,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
     }
 
     private void populateVideoViewabilityTracker(
-            @NonNull final VastBaseInLineWrapperXmlManager vastInLineXmlManager,
+            @NonNull final VastXml.InLineWrapper vastInLineXmlManager,
             @NonNull VastVideoConfig vastVideoConfig) {
         Preconditions.checkNotNull(vastInLineXmlManager);
         Preconditions.checkNotNull(vastVideoConfig);
@@ -339,12 +468,12 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
             return;
         }
 
-        final VastExtensionParentXmlManager vastExtensionParentXmlManager =
+        final VastXml.ExtensionParent vastExtensionParentXmlManager =
                 vastInLineXmlManager.getVastExtensionParentXmlManager();
         if (vastExtensionParentXmlManager != null) {
-            final List<VastExtensionXmlManager> vastExtensionXmlManagers =
+            final List<? extends VastXml.Extension> vastExtensionXmlManagers =
                     vastExtensionParentXmlManager.getVastExtensionXmlManagers();
-            for (VastExtensionXmlManager vastExtensionXmlManager : vastExtensionXmlManagers) {
+            for (VastXml.Extension vastExtensionXmlManager : vastExtensionXmlManagers) {
                 if (MOPUB.equals(vastExtensionXmlManager.getType())) {
                     vastVideoConfig.setVideoViewabilityTracker(vastExtensionXmlManager
                             .getVideoViewabilityTracker());
@@ -355,38 +484,33 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
     }
 
     private void populateViewabilityMetadata(
-            @NonNull final VastBaseInLineWrapperXmlManager vastInLineXmlManager,
+            @NonNull final VastXml.InLineWrapper vastInLineXmlManager,
             @NonNull VastVideoConfig vastVideoConfig) {
-        final VastExtensionParentXmlManager vastExtensionParentXmlManager =
+        final VastXml.ExtensionParent vastExtensionParentXmlManager =
                 vastInLineXmlManager.getVastExtensionParentXmlManager();
         if (vastExtensionParentXmlManager != null) {
-            final List<VastExtensionXmlManager> vastExtensionXmlManagers =
+            final List<? extends VastXml.Extension> vastExtensionXmlManagers =
                     vastExtensionParentXmlManager.getVastExtensionXmlManagers();
-            for (VastExtensionXmlManager vastExtensionXmlManager : vastExtensionXmlManagers) {
+            for (VastXml.Extension vastExtensionXmlManager : vastExtensionXmlManagers) {
                 if (vastExtensionXmlManager != null) {
-                    populateAdVerificationsOmid(vastExtensionXmlManager.mExtensionNode, vastVideoConfig);
+                    vastVideoConfig.addViewabilityVendors(vastExtensionXmlManager.getViewabilityVendors());
                 }
             }
         }
     }
 
-    private void populateAdVerificationsOmid(@NonNull final Node adVerificationsParent,
-                                             @NonNull VastVideoConfig vastVideoConfig) {
-        final VastAdVerificationsParser adVerificationNodes = new VastAdVerificationsParser(adVerificationsParent);
-        final Set<ViewabilityVendor> vendors = adVerificationNodes.getViewabilityVendors();
-        vastVideoConfig.addViewabilityVendors(vendors);
-    }
-
     /**
      * Retrieves the Wrapper's redirect uri and follows it to return the next VAST xml String.
      *
      * @param vastWrapperXmlManager used to get the redirect uri
      * @param wrapperErrorTrackers  Error trackers to hit if something goes wrong
+     * @param wrapperPrefetch       Redirects of sibling Ads that are already being fetched
      * @return the next VAST xml String or {@code null} if it could not be resolved
      */
     @Nullable
-    private String evaluateWrapperRedirect(@NonNull VastWrapperXmlManager vastWrapperXmlManager,
-            @NonNull List<VastTracker> wrapperErrorTrackers) {
+    private String evaluateWrapperRedirect(@NonNull VastXml.Wrapper vastWrapperXmlManager,
+            @NonNull List<VastTracker> wrapperErrorTrackers,
+            @NonNull WrapperPrefetch wrapperPrefetch) {
         final String vastAdTagUri = vastWrapperXmlManager.getVastAdTagURI();
         if (vastAdTagUri == null) {
             return null;
@@ -394,7 +518,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
 
         String vastRedirectXml = null;
         try {
-            vastRedirectXml = followVastRedirect(vastAdTagUri);
+            vastRedirectXml = followVastRedirect(vastAdTagUri, wrapperPrefetch);
         } catch (Exception e) {
             MoPubLog.log(ERROR_WITH_THROWABLE, "Failed to follow VAST redirect", e);
             if (!wrapperErrorTrackers.isEmpty()) {
@@ -414,7 +538,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
      * @param linearXmlManager used to retrieve trackers, and assets
      * @param vastVideoConfig modified in this method to store trackers and assets
      */
-    private void populateLinearTrackersAndIcon(@NonNull final VastLinearXmlManager linearXmlManager,
+    private void populateLinearTrackersAndIcon(@NonNull final VastXml.Linear linearXmlManager,
             @NonNull final VastVideoConfig vastVideoConfig) {
         Preconditions.checkNotNull(linearXmlManager, "linearXmlManager cannot be null");
         Preconditions.checkNotNull(vastVideoConfig, "vastVideoConfig cannot be null");
@@ -444,7 +568,7 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
      * @param vastVideoConfig modified in this method to store custom extensions and
      *                               impression trackers
      */
-    private void populateMoPubCustomElements(@NonNull final VastXmlManager xmlManager,
+    private void populateMoPubCustomElements(@NonNull final VastXml.Document xmlManager,
             @NonNull final VastVideoConfig vastVideoConfig) {
         Preconditions.checkNotNull(xmlManager, "xmlManager cannot be null");
         Preconditions.checkNotNull(vastVideoConfig, "vastVideoConfig cannot be null");
@@ -470,14 +594,14 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
      *
      * @param vastAdXmlManagers The List of AdXmlManagers to determine if there are any ads
      *                          available
-     * @param xmlManager        The current VastXmlManager that's used to get the new error tracker
+     * @param xmlManager        The current document that's used to get the new error tracker
      * @param context           Used to send an http request
      * @return {@code true} if the error tracker was fired, {@code false} if the error tracker was
      * not fired.
      */
     private boolean fireErrorTrackerIfNoAds(
-            @NonNull final List<VastAdXmlManager> vastAdXmlManagers,
-            @NonNull final VastXmlManager xmlManager, @NonNull Context context) {
+            @NonNull final List<? extends VastXml.Ad> vastAdXmlManagers,
+            @NonNull final VastXml.Document xmlManager, @NonNull Context context) {
         // When there is no <Ad> tag and when there is an error tracker
         if (vastAdXmlManagers.isEmpty() && xmlManager.getErrorTracker() != null ) {
             // Only use NO_ADS_VAST_RESPONSE if we've followed one or more wrappers
@@ -494,15 +618,15 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
 
     @VisibleForTesting
     @Nullable
-    String getBestMediaFileUrl(@NonNull final List<VastMediaXmlManager> managers) {
+    String getBestMediaFileUrl(@NonNull final List<? extends VastXml.MediaFile> managers) {
         Preconditions.checkNotNull(managers, "managers cannot be null");
-        final List<VastMediaXmlManager> mediaXmlManagers = new ArrayList<VastMediaXmlManager>(managers);
+        final List<VastXml.MediaFile> mediaXmlManagers = new ArrayList<VastXml.MediaFile>(managers);
         double bestMediaFitness = Double.NEGATIVE_INFINITY;
         String bestMediaFileUrl = null;
 
-        final Iterator<VastMediaXmlManager> xmlManagerIterator = mediaXmlManagers.iterator();
+        final Iterator<VastXml.MediaFile> xmlManagerIterator = mediaXmlManagers.iterator();
         while (xmlManagerIterator.hasNext()) {
-            final VastMediaXmlManager mediaXmlManager = xmlManagerIterator.next();
+            final VastXml.MediaFile mediaXmlManager = xmlManagerIterator.next();
 
             final String mediaType = mediaXmlManager.getType();
             final String mediaUrl = mediaXmlManager.getMediaUrl();
@@ -534,14 +658,14 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
     @VisibleForTesting
     @NonNull
     Set<VastCompanionAdConfig> getAllCompanionAds(
-            @NonNull final List<VastCompanionAdXmlManager> managers) {
+            @NonNull final List<? extends VastXml.CompanionAd> managers) {
         Preconditions.checkNotNull(managers, "managers cannot be null");
 
         final Set<VastCompanionAdConfig> vastCompanionAdConfigs = new HashSet<>();
-        final List<VastCompanionAdXmlManager> companionXmlManagers = new ArrayList<>(managers);
+        final List<VastXml.CompanionAd> companionXmlManagers = new ArrayList<>(managers);
 
         for (VastResource.Type type : VastResource.Type.values()) {
-            for (VastCompanionAdXmlManager companionXmlManager : companionXmlManagers) {
+            for (VastXml.CompanionAd companionXmlManager : companionXmlManagers) {
                 final Integer width = companionXmlManager.getWidth();
                 final Integer height = companionXmlManager.getHeight();
                 if (width == null || width < MINIMUM_COMPANION_AD_WIDTH ||
@@ -635,15 +759,15 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
 
     @VisibleForTesting
     @Nullable
-    VastIconConfig getBestIcon(@NonNull final List<VastIconXmlManager> managers) {
+    VastIconConfig getBestIcon(@NonNull final List<? extends VastXml.Icon> managers) {
         Preconditions.checkNotNull(managers, "managers cannot be null");
-        final List<VastIconXmlManager> iconXmlManagers = new ArrayList<VastIconXmlManager>(managers);
+        final List<VastXml.Icon> iconXmlManagers = new ArrayList<VastXml.Icon>(managers);
 
         // Look for the best icon in order of prioritized resource types
         for (VastResource.Type type : VastResource.Type.values()) {
-            final Iterator<VastIconXmlManager> xmlManagerIterator = iconXmlManagers.iterator();
+            final Iterator<VastXml.Icon> xmlManagerIterator = iconXmlManagers.iterator();
             while (xmlManagerIterator.hasNext()) {
-                final VastIconXmlManager iconXmlManager = xmlManagerIterator.next();
+                final VastXml.Icon iconXmlManager = xmlManagerIterator.next();
 
                 final Integer width = iconXmlManager.getWidth();
                 final Integer height = iconXmlManager.getHeight();
@@ -783,34 +907,171 @@ public class VastXmlManagerAggregator extends AsyncTask<String, Void, VastVideoC
         }
     }
 
+    @NonNull
+    private VastXml.Document parseVastXml(@NonNull final String vastXml) throws Exception {
+        if (mUseDomParser) {
+            final VastXmlManager xmlManager = new VastXmlManager();
+            xmlManager.parseVastXml(vastXml);
+            return xmlManager;
+        }
+        return VastXmlPullParser.parse(vastXml);
+    }
+
+    /**
+     * Starts fetching the wrapper redirects of the Ads in a document at the same time, since any
+     * of them may end up being the one that plays. A document with a single wrapper is left to
+     * fetch its redirect when it is reached.
+     */
+    @NonNull
+    private WrapperPrefetch prefetchWrapperRedirects(
+            @NonNull final List<? extends VastXml.Ad> vastAdXmlManagers) {
+        final List<String> redirectUrls = new ArrayList<>();
+        for (final VastXml.Ad vastAdXmlManager : vastAdXmlManagers) {
+            final VastXml.Wrapper vastWrapperXmlManager = vastAdXmlManager.getWrapperXmlManager();
+            if (vastWrapperXmlManager != null
+                    && vastWrapperXmlManager.getVastAdTagURI() != null
+                    && isValidSequenceNumber(vastAdXmlManager.getSequence())) {
+                redirectUrls.add(vastWrapperXmlManager.getVastAdTagURI());
+            }
+        }
+        if (redirectUrls.size() < 2) {
+            return WrapperPrefetch.NONE;
+        }
+
+        // Siblings pointing at the same url share one fetch
+        final Map<String, Future<VastWrapperResponse>> fetches = new HashMap<>();
+        final int redirectsLeft = MAX_TIMES_TO_FOLLOW_VAST_REDIRECT - mTimesFollowedVastRedirect;
+        for (final String redirectUrl : redirectUrls) {
+            if (fetches.size() >= redirectsLeft) {
+                break;
+            }
+            if (!fetches.containsKey(redirectUrl)) {
+                fetches.put(redirectUrl, sWrapperFetchExecutor.submit(
+                        new Callable<VastWrapperResponse>() {
+                            @Override
+                            public VastWrapperResponse call() throws IOException {
+                                return fetchVastRedirect(redirectUrl);
+                            }
+                        }));
+            }
+        }
+        return new WrapperPrefetch(fetches,
+                SystemClock.elapsedRealtime() + PARALLEL_WRAPPER_DEADLINE_MILLIS);
+    }
+
     @Nullable
-    private String followVastRedirect(@NonNull final String redirectUrl) throws IOException {
+    private String followVastRedirect(@NonNull final String redirectUrl,
+            @NonNull final WrapperPrefetch wrapperPrefetch) throws IOException {
         Preconditions.checkNotNull(redirectUrl);
+        Preconditions.checkNotNull(wrapperPrefetch);
 
         if (mTimesFollowedVastRedirect < MAX_TIMES_TO_FOLLOW_VAST_REDIRECT) {
             mTimesFollowedVastRedirect++;
 
-            HttpURLConnection urlConnection = null;
-            InputStream inputStream = null;
-            try {
-                urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(redirectUrl);
-                inputStream = new BufferedInputStream(urlConnection.getInputStream());
-
-                return Strings.fromStream(inputStream);
-            } finally {
-                Streams.closeStream(inputStream);
-                if (urlConnection != null) {
-                    urlConnection.disconnect();
-                }
-            }
+            final long startMillis = SystemClock.elapsedRealtime();
+            final Future<VastWrapperResponse> prefetchedResponse =
+                    wrapperPrefetch.fetches.get(redirectUrl);
+            final VastWrapperResponse response = prefetchedResponse != null
+                    ? getPrefetchedResponse(prefetchedResponse, wrapperPrefetch.deadlineMillis)
+                    : fetchVastRedirect(redirectUrl);
+
+            final WrapperHop wrapperHop = new WrapperHop(mTimesFollowedVastRedirect, redirectUrl,
+                    SystemClock.elapsedRealtime() - startMillis, response.cached,
+                    prefetchedResponse != null);
+            mWrapperHops.add(wrapperHop);
+            MoPubLog.log(CUSTOM, wrapperHop.toString());
+            return response.xml;
         }
 
         return null;
     }
 
+    @NonNull
+    private static VastWrapperResponse getPrefetchedResponse(
+            @NonNull final Future<VastWrapperResponse> prefetchedResponse,
+            final long deadlineMillis) throws IOException {
+        try {
+            return prefetchedResponse.get(
+                    Math.max(deadlineMillis - SystemClock.elapsedRealtime(), 0),
+                    TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException | TimeoutException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @NonNull
+    private static VastWrapperResponse fetchVastRedirect(@NonNull final String redirectUrl)
+            throws IOException {
+        final String cachedXml = VastWrapperCache.get(redirectUrl);
+        if (cachedXml != null) {
+            return new VastWrapperResponse(cachedXml, true);
+        }
+
+        try {
+            // Wrappers served to several ads at once often point at the same tag
+            return sRedirectFetches.execute(redirectUrl, new Callable<VastWrapperResponse>() {
+                @Override
+                public VastWrapperResponse call() throws IOException {
+                    return new VastWrapperResponse(downloadVastRedirect(redirectUrl), false);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    @NonNull
+    private static String downloadVastRedirect(@NonNull final String redirectUrl)
+            throws IOException {
+        HttpURLConnection urlConnection = null;
+        InputStream inputStream = null;
+        boolean readFully = false;
+        try {
+            urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(redirectUrl);
+            inputStream = new BufferedInputStream(urlConnection.getInputStream());
+
+            final String vastXml = Strings.fromStream(inputStream);
+            readFully = true;
+            VastWrapperCache.put(redirectUrl, vastXml, VastWrapperCache.getTtlMillis(
+                    urlConnection.getHeaderField(VastWrapperCache.CACHE_CONTROL_HEADER)));
+            return vastXml;
+        } finally {
+            Streams.closeStream(inputStream);
+            // Closing a fully read response returns its connection to the keep-alive pool, so
+            // only a connection that failed part way is dropped
+            if (urlConnection != null && !readFully) {
+                urlConnection.disconnect();
+            }
+        }
+    }
+
     @VisibleForTesting
     @Deprecated
     void setTimesFollowedVastRedirect(final int timesFollowedVastRedirect) {
         mTimesFollowedVastRedirect = timesFollowedVastRedirect;
     }
+
+    @VisibleForTesting
+    @Deprecated
+    void setUseDomParser(final boolean useDomParser) {
+        mUseDomParser = useDomParser;
+    }
+
+    @VisibleForTesting
+    @Deprecated
+    @NonNull
+    List<WrapperHop> getWrapperHops() {
+        return mWrapperHops;
+    }
 }
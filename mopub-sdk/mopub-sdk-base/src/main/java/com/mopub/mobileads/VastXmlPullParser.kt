@@ -0,0 +1,922 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads
+
+import android.text.TextUtils
+import android.util.Xml
+
+import com.mopub.common.ViewabilityVendor
+import com.mopub.common.VisibleForTesting
+import com.mopub.common.logging.MoPubLog
+import com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM
+
+import org.xmlpull.v1.XmlPullParser
+import org.xmlpull.v1.XmlPullParserException
+
+import java.io.IOException
+import java.io.Reader
+
+/**
+ * Reads a VAST document into the [VastXml] model in a single pass of an [XmlPullParser], without
+ * building a DOM first.
+ *
+ * It reads the same document [VastXmlManager] does: values are the trimmed text of an element up
+ * to its first child element, as [com.mopub.mobileads.util.XmlUtils.getNodeValue] reads them, only
+ * the first of an element that [VastXmlManager] looks up with `getFirstMatchingChildNode` counts,
+ * and Ad, Error and the MoPub elements are found anywhere in the document, including next to the
+ * VAST element.
+ */
+internal object VastXmlPullParser {
+    // Wraps the document, since the ad server may add elements next to VAST
+    private const val ROOT_TAG = "MPMoVideoXMLDocRoot"
+    private const val ROOT_TAG_OPEN = "<$ROOT_TAG>"
+    private const val ROOT_TAG_CLOSE = "</$ROOT_TAG>"
+    private const val XML_DECLARATION_OPEN = "<?xml"
+    private const val XML_DECLARATION_CLOSE = "?>"
+    private const val BYTE_ORDER_MARK = '\uFEFF'
+
+    // Element names
+    private const val AD = "Ad"
+    private const val INLINE = "InLine"
+    private const val WRAPPER = "Wrapper"
+    private const val VAST_AD_TAG_URI = "VASTAdTagURI"
+    private const val IMPRESSION = "Impression"
+    private const val ERROR = "Error"
+    private const val CREATIVES = "Creatives"
+    private const val CREATIVE = "Creative"
+    private const val LINEAR = "Linear"
+    private const val COMPANION_ADS = "CompanionAds"
+    private const val COMPANION = "Companion"
+    private const val TRACKING_EVENTS = "TrackingEvents"
+    private const val TRACKING = "Tracking"
+    private const val VIDEO_CLICKS = "VideoClicks"
+    private const val CLICK_THROUGH = "ClickThrough"
+    private const val CLICK_TRACKING = "ClickTracking"
+    private const val MEDIA_FILES = "MediaFiles"
+    private const val MEDIA_FILE = "MediaFile"
+    private const val ICONS = "Icons"
+    private const val ICON = "Icon"
+    private const val ICON_CLICKS = "IconClicks"
+    private const val ICON_CLICK_THROUGH = "IconClickThrough"
+    private const val ICON_CLICK_TRACKING = "IconClickTracking"
+    private const val ICON_VIEW_TRACKING = "IconViewTracking"
+    private const val COMPANION_CLICK_THROUGH = "CompanionClickThrough"
+    private const val COMPANION_CLICK_TRACKING = "CompanionClickTracking"
+    private const val STATIC_RESOURCE = "StaticResource"
+    private const val IFRAME_RESOURCE = "IFrameResource"
+    private const val HTML_RESOURCE = "HTMLResource"
+    private const val EXTENSIONS = "Extensions"
+    private const val EXTENSION = "Extension"
+    private const val VIDEO_VIEWABILITY_TRACKER = "MoPubViewabilityTracker"
+    private const val AD_VERIFICATIONS = "AdVerifications"
+    private const val VERIFICATION = "Verification"
+    private const val JAVASCRIPT_RESOURCE = "JavaScriptResource"
+    private const val VERIFICATION_PARAMETERS = "VerificationParameters"
+
+    // MoPub elements
+    private const val MP_IMPRESSION_TRACKER = "MP_TRACKING_URL"
+    private const val CUSTOM_CTA_TEXT = "MoPubCtaText"
+    private const val CUSTOM_SKIP_TEXT = "MoPubSkipText"
+    private const val CUSTOM_CLOSE_ICON = "MoPubCloseIcon"
+
+    // Attribute names
+    private const val SEQUENCE = "sequence"
+    private const val EVENT = "event"
+    private const val OFFSET = "offset"
+    private const val WIDTH = "width"
+    private const val HEIGHT = "height"
+    private const val TYPE = "type"
+    private const val BITRATE = "bitrate"
+    private const val MIN_BITRATE = "minBitrate"
+    private const val MAX_BITRATE = "maxBitrate"
+    private const val DURATION = "duration"
+    private const val CREATIVE_TYPE = "creativeType"
+    private const val VENDOR = "vendor"
+    private const val API_FRAMEWORK = "apiFramework"
+
+    // Attribute values
+    private const val CREATIVE_VIEW = "creativeView"
+    private const val START = "start"
+    private const val FIRST_QUARTILE = "firstQuartile"
+    private const val MIDPOINT = "midpoint"
+    private const val THIRD_QUARTILE = "thirdQuartile"
+    private const val PROGRESS = "progress"
+    private const val COMPLETE = "complete"
+    private const val PAUSE = "pause"
+    private const val RESUME = "resume"
+    private const val CLOSE = "close"
+    private const val CLOSE_LINEAR = "closeLinear"
+    private const val SKIP = "skip"
+    private const val OMID = "omid"
+    private const val VERIFICATION_NOT_EXECUTED = "verificationNotExecuted"
+
+    private const val MAX_CTA_TEXT_LENGTH = 15
+    private const val MAX_SKIP_TEXT_LENGTH = 8
+
+    /**
+     * @throws XmlPullParserException if the XML is poorly formatted
+     */
+    @JvmStatic
+    @Throws(XmlPullParserException::class, IOException::class)
+    fun parse(xml: String): VastXml.Document {
+        val parser = Xml.newPullParser()
+        parser.setInput(RootTagReader(xml, getDocumentStart(xml)))
+        return DocumentReader(parser).read()
+    }
+
+    /**
+     * @return where [xml] starts after its XML declaration, if it has one. The declaration can't
+     * be read inside the root element the document is wrapped in.
+     */
+    @VisibleForTesting
+    @JvmStatic
+    fun getDocumentStart(xml: String): Int {
+        var start = 0
+        while (start < xml.length && (xml[start].isWhitespace() || xml[start] == BYTE_ORDER_MARK)) {
+            start++
+        }
+        if (!xml.startsWith(XML_DECLARATION_OPEN, start)) {
+            return 0
+        }
+        val end = xml.indexOf(XML_DECLARATION_CLOSE, start)
+        return if (end < 0) 0 else end + XML_DECLARATION_CLOSE.length
+    }
+
+    /**
+     * Reads [xml] from [start] wrapped in the root element, without copying it.
+     */
+    private class RootTagReader(xml: String, start: Int) : Reader() {
+        private val parts = arrayOf(ROOT_TAG_OPEN, xml, ROOT_TAG_CLOSE)
+        private val starts = intArrayOf(0, start, 0)
+        private var part = 0
+        private var position = 0
+
+        override fun read(buffer: CharArray, offset: Int, length: Int): Int {
+            while (part < parts.size && position == parts[part].length) {
+                part++
+                position = if (part < parts.size) starts[part] else 0
+            }
+            if (part == parts.size) {
+                return -1
+            }
+            val count = minOf(length, parts[part].length - position)
+            parts[part].toCharArray(buffer, offset, position, position + count)
+            position += count
+            return count
+        }
+
+        override fun close() {}
+    }
+
+    private class DocumentReader(private val parser: XmlPullParser) {
+        private val document = PulledDocument()
+
+        fun read(): PulledDocument {
+            parser.nextTag()
+            readElement { false }
+            return document
+        }
+
+        /**
+         * Reads the element the parser is on up to its end tag. [readChild] reads the child
+         * element the parser is on up to its end tag and returns true, or returns false to have
+         * it read as an element this doesn't know.
+         *
+         * @return the trimmed text up to the first child element, or null if there is none.
+         */
+        private inline fun readElement(readChild: (name: String) -> Boolean): String? {
+            val name = parser.name
+            var text: String? = null
+            var valueRead = false
+            var value: String? = null
+            while (true) {
+                when (parser.next()) {
+                    XmlPullParser.TEXT -> if (!valueRead) {
+                        text = text?.plus(parser.text) ?: parser.text
+                    }
+                    XmlPullParser.START_TAG -> {
+                        if (!valueRead) {
+                            valueRead = true
+                            value = text?.trim { it <= ' ' }
+                            onValue(name, value)
+                        }
+                        val childName = parser.name
+                        if (!readChild(childName)) {
+                            readUnknownElement(childName)
+                        }
+                    }
+                    XmlPullParser.END_TAG -> {
+                        if (!valueRead) {
+                            value = text?.trim { it <= ' ' }
+                            onValue(name, value)
+                        }
+                        return value
+                    }
+                    XmlPullParser.END_DOCUMENT ->
+                        throw XmlPullParserException("Unexpected end of document", parser, null)
+                }
+            }
+        }
+
+        private fun readValue(): String? = readElement { false }
+
+        private fun readUnknownElement(name: String) {
+            if (name == AD) {
+                readAd()
+            } else {
+                readElement { false }
+            }
+        }
+
+        /**
+         * Keeps the values [VastXmlManager] looks up anywhere in the document.
+         */
+        private fun onValue(name: String, value: String?) {
+            value ?: return
+            when (name) {
+                ERROR -> document.errorUrl = document.errorUrl ?: value
+                MP_IMPRESSION_TRACKER -> document.moPubImpressionUrls.add(value)
+                CUSTOM_CTA_TEXT -> document.ctaText = document.ctaText ?: value
+                CUSTOM_SKIP_TEXT -> document.skipText = document.skipText ?: value
+                CUSTOM_CLOSE_ICON -> document.closeIconUrl = document.closeIconUrl ?: value
+            }
+        }
+
+        private fun attribute(name: String): String? = parser.getAttributeValue(null, name)
+
+        private fun intAttribute(name: String): Int? = try {
+            Integer.parseInt(attribute(name))
+        } catch (e: NumberFormatException) {
+            null
+        }
+
+        private fun offsetAttribute(name: String): Int? {
+            val offset = attribute(name)
+            return try {
+                VastAbsoluteProgressTracker.parseAbsoluteOffset(offset)
+            } catch (e: NumberFormatException) {
+                MoPubLog.log(CUSTOM, "Invalid VAST icon $name format: $offset:")
+                null
+            }
+        }
+
+        private fun readAd() {
+            val ad = PulledAd(attribute(SEQUENCE))
+            // In document order, like getElementsByTagName, even if an Ad holds another
+            document.ads.add(ad)
+            readElement { name ->
+                when {
+                    name == INLINE && ad.inLine == null -> {
+                        ad.inLine = readInLineWrapper(PulledInLineWrapper())
+                        true
+                    }
+                    name == WRAPPER && ad.wrapper == null -> {
+                        ad.wrapper = readInLineWrapper(PulledWrapper())
+                        true
+                    }
+                    else -> false
+                }
+            }
+        }
+
+        private fun <T : PulledInLineWrapper> readInLineWrapper(inLineWrapper: T): T {
+            var creatives = false
+            var adVerifications = false
+            var vastAdTagUri = false
+            readElement { name ->
+                when {
+                    name == IMPRESSION -> {
+                        addIfNotEmpty(inLineWrapper.impressionUrls, readValue())
+                        true
+                    }
+                    name == ERROR -> {
+                        addIfNotEmpty(inLineWrapper.errorUrls, readValue())
+                        true
+                    }
+                    name == CREATIVES && !creatives -> {
+                        creatives = true
+                        readCreatives(inLineWrapper)
+                        true
+                    }
+                    name == EXTENSIONS && inLineWrapper.extensionParent == null -> {
+                        inLineWrapper.extensionParent = PulledExtensionParent(readExtensions())
+                        true
+                    }
+                    name == AD_VERIFICATIONS && !adVerifications -> {
+                        adVerifications = true
+                        readAdVerifications(inLineWrapper.vendors)
+                        true
+                    }
+                    name == VAST_AD_TAG_URI && inLineWrapper is PulledWrapper && !vastAdTagUri -> {
+                        vastAdTagUri = true
+                        inLineWrapper.vastAdTagUri = readValue()
+                        true
+                    }
+                    else -> false
+                }
+            }
+            return inLineWrapper
+        }
+
+        private fun readCreatives(inLineWrapper: PulledInLineWrapper) {
+            readElement { name ->
+                if (name == CREATIVE) {
+                    readCreative(inLineWrapper)
+                    true
+                } else {
+                    false
+                }
+            }
+        }
+
+        private fun readCreative(inLineWrapper: PulledInLineWrapper) {
+            // There is only one Linear or CompanionAds per Creative
+            var linear = false
+            var companionAds = false
+            readElement { name ->
+                when {
+                    name == LINEAR && !linear -> {
+                        linear = true
+                        inLineWrapper.linears.add(readLinear())
+                        true
+                    }
+                    name == COMPANION_ADS && !companionAds -> {
+                        companionAds = true
+                        readCompanionAds(inLineWrapper.companionAds)
+                        true
+                    }
+                    else -> false
+                }
+            }
+        }
+
+        private fun readLinear(): PulledLinear {
+            val linear = PulledLinear()
+            var trackingEvents = false
+            var videoClicks = false
+            var mediaFiles = false
+            var icons = false
+            readElement { name ->
+                when {
+                    name == TRACKING_EVENTS && !trackingEvents -> {
+                        trackingEvents = true
+                        readTrackingEvents(linear.trackingEvents)
+                        true
+                    }
+                    name == VIDEO_CLICKS && !videoClicks -> {
+                        videoClicks = true
+                        readVideoClicks(linear)
+                        true
+                    }
+                    name == MEDIA_FILES && !mediaFiles -> {
+                        mediaFiles = true
+                        readMediaFiles(linear.mediaFiles)
+                        true
+                    }
+                    name == ICONS && !icons -> {
+                        icons = true
+                        readIcons(linear.icons)
+                        true
+                    }
+                    else -> false
+                }
+            }
+            return linear
+        }
+
+        private fun readTrackingEvents(trackingEvents: MutableList<TrackingEvent>) {
+            readElement { name ->
+                if (name == TRACKING) {
+                    val event = attribute(EVENT)
+                    val offset = attribute(OFFSET)
+                    trackingEvents.add(TrackingEvent(event, offset, readValue()))
+                    true
+                } else {
+                    false
+                }
+            }
+        }
+
+        private fun readVideoClicks(linear: PulledLinear) {
+            var clickThrough = false
+            readElement { name ->
+                when {
+                    name == CLICK_THROUGH && !clickThrough -> {
+                        clickThrough = true
+                        linear.clickThrough = readValue()
+                        true
+                    }
+                    name == CLICK_TRACKING -> {
+                        readValue()?.let { linear.clickTrackerUrls.add(it) }
+                        true
+                    }
+                    else -> false
+                }
+            }
+        }
+
+        private fun readMediaFiles(mediaFiles: MutableList<PulledMediaFile>) {
+            readElement { name ->
+                if (name == MEDIA_FILE) {
+                    val mediaFile = PulledMediaFile(
+                        attribute(TYPE),
+                        intAttribute(WIDTH),
+                        intAttribute(HEIGHT),
+                        intAttribute(BITRATE),
+                        intAttribute(MIN_BITRATE),
+                        intAttribute(MAX_BITRATE)
+                    )
+                    mediaFile.url = readValue()
+                    mediaFiles.add(mediaFile)
+                    true
+                } else {
+                    false
+                }
+            }
+        }
+
+        private fun readIcons(icons: MutableList<PulledIcon>) {
+            readElement { name ->
+                if (name == ICON) {
+                    icons.add(readIcon())
+                    true
+                } else {
+                    false
+                }
+            }
+        }
+
+        private fun readIcon(): PulledIcon {
+            val icon = PulledIcon(
+                intAttribute(WIDTH),
+                intAttribute(HEIGHT),
+                offsetAttribute(OFFSET),
+                offsetAttribute(DURATION)
+            )
+            var iconClicks = false
+            readElement { name ->
+                when {
+                    readResource(name, icon.resource) -> true
+                    name == ICON_CLICKS && !iconClicks -> {
+                        iconClicks = true
+                        readIconClicks(icon)
+                        true
+                    }
+                    name == ICON_VIEW_TRACKING -> {
+                        readValue()?.let { icon.viewTrackingUrls.add(it) }
+                        true
+                    }
+                    else -> false
+                }
+            }
+            return icon
+        }
+
+        private fun readIconClicks(icon: PulledIcon) {
+            var clickThrough = false
+            readElement { name ->
+                when {
+                    name == ICON_CLICK_THROUGH && !clickThrough -> {
+                        clickThrough = true
+                        icon.clickThrough = readValue()
+                        true
+                    }
+                    name == ICON_CLICK_TRACKING -> {
+                        readValue()?.let { icon.clickTrackingUrls.add(it) }
+                        true
+                    }
+                    else -> false
+                }
+            }
+        }
+
+        private fun readCompanionAds(companionAds: MutableList<PulledCompanionAd>) {
+            readElement { name ->
+                if (name == COMPANION) {
+                    companionAds.add(readCompanionAd())
+                    true
+                } else {
+                    false
+                }
+            }
+        }
+
+        private fun readCompanionAd(): PulledCompanionAd {
+            val companionAd = PulledCompanionAd(intAttribute(WIDTH), intAttribute(HEIGHT))
+            var clickThrough = false
+            var trackingEvents = false
+            readElement { name ->
+                when {
+                    readResource(name, companionAd.resource) -> true
+                    name == COMPANION_CLICK_THROUGH && !clickThrough -> {
+                        clickThrough = true
+                        companionAd.clickThrough = readValue()
+                        true
+                    }
+                    name == COMPANION_CLICK_TRACKING -> {
+                        addIfNotEmpty(companionAd.clickTrackerUrls, readValue())
+                        true
+                    }
+                    name == TRACKING_EVENTS && !trackingEvents -> {
+                        trackingEvents = true
+                        readTrackingEvents(companionAd.trackingEvents)
+                        true
+                    }
+                    else -> false
+                }
+            }
+            return companionAd
+        }
+
+        /**
+         * Reads the element the parser is on into [resource] if it is the first of its type.
+         *
+         * @return whether it was read.
+         */
+        private fun readResource(name: String, resource: PulledResource): Boolean {
+            when {
+                name == STATIC_RESOURCE && !resource.hasStatic -> {
+                    resource.hasStatic = true
+                    resource.staticType = attribute(CREATIVE_TYPE)?.toLowerCase()
+                    resource.staticValue = readValue()
+                }
+                name == IFRAME_RESOURCE && !resource.hasIFrame -> {
+                    resource.hasIFrame = true
+                    resource.iFrameValue = readValue()
+                }
+                name == HTML_RESOURCE && !resource.hasHtml -> {
+                    resource.hasHtml = true
+                    resource.htmlValue = readValue()
+                }
+                else -> return false
+            }
+            return true
+        }
+
+        private fun readExtensions(): List<PulledExtension> {
+            val extensions = ArrayList<PulledExtension>()
+            readElement { name ->
+                if (name == EXTENSION) {
+                    extensions.add(readExtension())
+                    true
+                } else {
+                    false
+                }
+            }
+            return extensions
+        }
+
+        private fun readExtension(): PulledExtension {
+            val extension = PulledExtension(attribute(TYPE))
+            var adVerifications = false
+            readElement { name ->
+                when {
+                    name == VIDEO_VIEWABILITY_TRACKER && !extension.hasViewabilityTracker -> {
+                        extension.hasViewabilityTracker = true
+                        extension.viewablePlaytime =
+                            attribute(VideoViewabilityTrackerXmlManager.VIEWABLE_PLAYTIME)
+                        extension.percentViewable =
+                            attribute(VideoViewabilityTrackerXmlManager.PERCENT_VIEWABLE)
+                        extension.viewabilityTrackerUrl = readValue()
+                        true
+                    }
+                    name == AD_VERIFICATIONS && !adVerifications -> {
+                        adVerifications = true
+                        readAdVerifications(extension.vendors)
+                        true
+                    }
+                    else -> false
+                }
+            }
+            return extension
+        }
+
+        private fun readAdVerifications(vendors: MutableSet<ViewabilityVendor>) {
+            readElement { name ->
+                if (name == VERIFICATION) {
+                    readVerification()?.let { vendors.add(it) }
+                    true
+                } else {
+                    false
+                }
+            }
+        }
+
+        private fun readVerification(): ViewabilityVendor? {
+            val vendorKey = attribute(VENDOR)
+            var javascriptResource = false
+            var javascriptResourceUrl: String? = null
+            var trackingEvents: MutableList<TrackingEvent>? = null
+            var verificationParameters = false
+            var verificationParametersValue: String? = null
+            readElement { name ->
+                when {
+                    name == JAVASCRIPT_RESOURCE && !javascriptResource
+                            && attribute(API_FRAMEWORK) == OMID -> {
+                        javascriptResource = true
+                        javascriptResourceUrl = readValue()
+                        true
+                    }
+                    name == TRACKING_EVENTS && trackingEvents == null -> {
+                        trackingEvents = ArrayList<TrackingEvent>().also { readTrackingEvents(it) }
+                        true
+                    }
+                    name == VERIFICATION_PARAMETERS && !verificationParameters -> {
+                        verificationParameters = true
+                        verificationParametersValue = readValue()
+                        true
+                    }
+                    else -> false
+                }
+            }
+            if (!javascriptResource) {
+                return null
+            }
+            return ViewabilityVendor.Builder(javascriptResourceUrl ?: "")
+                .withApiFramework(OMID)
+                .withVendorKey(vendorKey)
+                .withVerificationParameters(verificationParametersValue)
+                .withVerificationNotExecuted(
+                    trackingEvents?.firstOrNull { it.event == VERIFICATION_NOT_EXECUTED }?.url
+                )
+                .build()
+        }
+
+        private fun addIfNotEmpty(urls: MutableList<String>, url: String?) {
+            if (!TextUtils.isEmpty(url)) {
+                urls.add(url!!)
+            }
+        }
+    }
+
+    private class TrackingEvent(val event: String?, val offset: String?, val url: String?)
+
+    private class PulledDocument : VastXml.Document {
+        val ads = ArrayList<PulledAd>()
+        var errorUrl: String? = null
+        val moPubImpressionUrls = ArrayList<String>()
+        var ctaText: String? = null
+        var skipText: String? = null
+        var closeIconUrl: String? = null
+
+        override fun getAdXmlManagers(): List<VastXml.Ad> = ads
+
+        override fun getErrorTracker(): VastTracker? =
+            errorUrl?.takeIf { it.isNotEmpty() }?.let { VastTracker.Builder(it).build() }
+
+        override fun getMoPubImpressionTrackers() = toTrackers(moPubImpressionUrls)
+
+        override fun getCustomCtaText() = ctaText?.takeIf { it.length <= MAX_CTA_TEXT_LENGTH }
+
+        override fun getCustomSkipText() = skipText?.takeIf { it.length <= MAX_SKIP_TEXT_LENGTH }
+
+        override fun getCustomCloseIconUrl() = closeIconUrl
+    }
+
+    private class PulledAd(private val sequence: String?) : VastXml.Ad {
+        var inLine: PulledInLineWrapper? = null
+        var wrapper: PulledWrapper? = null
+
+        override fun getInLineXmlManager() = inLine
+
+        override fun getWrapperXmlManager() = wrapper
+
+        override fun getSequence() = sequence
+    }
+
+    private open class PulledInLineWrapper : VastXml.InLineWrapper {
+        val impressionUrls = ArrayList<String>()
+        val errorUrls = ArrayList<String>()
+        val linears = ArrayList<PulledLinear>()
+        val companionAds = ArrayList<PulledCompanionAd>()
+        var extensionParent: PulledExtensionParent? = null
+        val vendors = HashSet<ViewabilityVendor>()
+
+        override fun getImpressionTrackers() = toTrackers(impressionUrls)
+
+        override fun getErrorTrackers() = toTrackers(errorUrls, isRepeatable = true)
+
+        override fun getLinearXmlManagers(): List<VastXml.Linear> = linears
+
+        override fun getCompanionAdXmlManagers(): List<VastXml.CompanionAd> = companionAds
+
+        override fun getVastExtensionParentXmlManager() = extensionParent
+
+        override fun getViewabilityVendors(): Set<ViewabilityVendor> = vendors
+    }
+
+    private class PulledWrapper : PulledInLineWrapper(), VastXml.Wrapper {
+        var vastAdTagUri: String? = null
+
+        override fun getVastAdTagURI() = vastAdTagUri
+    }
+
+    /**
+     * Builds trackers the way [VastLinearXmlManager] does, and new ones on every call since
+     * trackers remember whether they were fired.
+     */
+    private class PulledLinear : VastXml.Linear {
+        val trackingEvents = ArrayList<TrackingEvent>()
+        var clickThrough: String? = null
+        val clickTrackerUrls = ArrayList<String>()
+        val mediaFiles = ArrayList<PulledMediaFile>()
+        val icons = ArrayList<PulledIcon>()
+
+        override fun getFractionalProgressTrackers(): List<VastFractionalProgressTracker> {
+            val trackers = ArrayList<VastFractionalProgressTracker>()
+            getUrls(FIRST_QUARTILE).mapTo(trackers) { VastFractionalProgressTracker.Builder(it, 0.25f).build() }
+            getUrls(MIDPOINT).mapTo(trackers) { VastFractionalProgressTracker.Builder(it, 0.5f).build() }
+            getUrls(THIRD_QUARTILE).mapTo(trackers) { VastFractionalProgressTracker.Builder(it, 0.75f).build() }
+            for (trackingEvent in trackingEvents) {
+                val offset = trackingEvent.offset?.trim() ?: continue
+                val url = trackingEvent.url
+                if (trackingEvent.event != PROGRESS || url == null
+                    || !VastFractionalProgressTracker.isPercentageTracker(offset)) {
+                    continue
+                }
+                try {
+                    val fraction = offset.replace("%", "").toFloat() / 100f
+                    if (fraction >= 0) {
+                        trackers.add(VastFractionalProgressTracker.Builder(url, fraction).build())
+                    }
+                } catch (e: NumberFormatException) {
+                    MoPubLog.log(CUSTOM, "Failed to parse VAST progress tracker $offset")
+                }
+            }
+            trackers.sort()
+            return trackers
+        }
+
+        override fun getAbsoluteProgressTrackers(): List<VastAbsoluteProgressTracker> {
+            val trackers = ArrayList<VastAbsoluteProgressTracker>()
+            getUrls(START).mapTo(trackers) { VastAbsoluteProgressTracker.Builder(it, 0).build() }
+            for (trackingEvent in trackingEvents) {
+                val offset = trackingEvent.offset?.trim() ?: continue
+                val url = trackingEvent.url
+                if (trackingEvent.event != PROGRESS || url == null
+                    || !VastAbsoluteProgressTracker.isAbsoluteTracker(offset)) {
+                    continue
+                }
+                try {
+                    val milliseconds = VastAbsoluteProgressTracker.parseAbsoluteOffset(offset)
+                    if (milliseconds != null && milliseconds >= 0) {
+                        trackers.add(VastAbsoluteProgressTracker.Builder(url, milliseconds).build())
+                    }
+                } catch (e: NumberFormatException) {
+                    MoPubLog.log(CUSTOM, "Failed to parse VAST progress tracker $offset")
+                }
+            }
+            getUrls(CREATIVE_VIEW).mapTo(trackers) { VastAbsoluteProgressTracker.Builder(it, 0).build() }
+            trackers.sort()
+            return trackers
+        }
+
+        override fun getVideoCompleteTrackers() = toTrackers(getUrls(COMPLETE))
+
+        override fun getPauseTrackers() = toTrackers(getUrls(PAUSE), isRepeatable = true)
+
+        override fun getResumeTrackers() = toTrackers(getUrls(RESUME), isRepeatable = true)
+
+        override fun getVideoCloseTrackers() = toTrackers(getUrls(CLOSE) + getUrls(CLOSE_LINEAR))
+
+        override fun getVideoSkipTrackers() = toTrackers(getUrls(SKIP))
+
+        override fun getClickThroughUrl() = clickThrough
+
+        override fun getClickTrackers() = toTrackers(clickTrackerUrls)
+
+        override fun getMediaXmlManagers(): List<VastXml.MediaFile> = mediaFiles
+
+        override fun getIconXmlManagers(): List<VastXml.Icon> = icons
+
+        private fun getUrls(event: String) = trackingEvents.mapNotNull { if (it.event == event) it.url else null }
+    }
+
+    private class PulledMediaFile(
+        private val type: String?,
+        private val width: Int?,
+        private val height: Int?,
+        private val bitrate: Int?,
+        private val minBitrate: Int?,
+        private val maxBitrate: Int?
+    ) : VastXml.MediaFile {
+        var url: String? = null
+
+        override fun getWidth() = width
+
+        override fun getHeight() = height
+
+        override fun getType() = type
+
+        override fun getMediaUrl() = url
+
+        override fun getBitrate(): Int? = when {
+            bitrate != null -> bitrate
+            minBitrate != null && maxBitrate != null -> (minBitrate + maxBitrate) / 2
+            else -> minBitrate ?: maxBitrate
+        }
+    }
+
+    private class PulledResource : VastXml.Resource {
+        var hasStatic = false
+        var staticValue: String? = null
+        var staticType: String? = null
+        var hasIFrame = false
+        var iFrameValue: String? = null
+        var hasHtml = false
+        var htmlValue: String? = null
+
+        override fun getStaticResource() = staticValue
+
+        override fun getStaticResourceType() = staticType
+
+        override fun getIFrameResource() = iFrameValue
+
+        override fun getHTMLResource() = htmlValue
+    }
+
+    private class PulledIcon(
+        private val width: Int?,
+        private val height: Int?,
+        private val offsetMS: Int?,
+        private val durationMS: Int?
+    ) : VastXml.Icon {
+        val resource = PulledResource()
+        val clickTrackingUrls = ArrayList<String>()
+        var clickThrough: String? = null
+        val viewTrackingUrls = ArrayList<String>()
+
+        override fun getWidth() = width
+
+        override fun getHeight() = height
+
+        override fun getOffsetMS() = offsetMS
+
+        override fun getDurationMS() = durationMS
+
+        override fun getResourceXmlManager(): VastXml.Resource = resource
+
+        override fun getClickTrackingUris() = toTrackers(clickTrackingUrls)
+
+        override fun getClickThroughUri() = clickThrough
+
+        override fun getViewTrackingUris() = toTrackers(viewTrackingUrls)
+    }
+
+    private class PulledCompanionAd(private val width: Int?, private val height: Int?) : VastXml.CompanionAd {
+        val resource = PulledResource()
+        var clickThrough: String? = null
+        val clickTrackerUrls = ArrayList<String>()
+        val trackingEvents = ArrayList<TrackingEvent>()
+
+        override fun getWidth() = width
+
+        override fun getHeight() = height
+
+        override fun getResourceXmlManager(): VastXml.Resource = resource
+
+        override fun getClickThroughUrl() = clickThrough
+
+        override fun getClickTrackers() = toTrackers(clickTrackerUrls)
+
+        override fun getCompanionCreativeViewTrackers() =
+            toTrackers(trackingEvents.mapNotNull { if (it.event == CREATIVE_VIEW) it.url else null })
+
+        override fun hasResources() = !TextUtils.isEmpty(resource.staticValue)
+                || !TextUtils.isEmpty(resource.htmlValue)
+                || !TextUtils.isEmpty(resource.iFrameValue)
+    }
+
+    private class PulledExtensionParent(private val extensions: List<PulledExtension>) : VastXml.ExtensionParent {
+        override fun getVastExtensionXmlManagers(): List<VastXml.Extension> = extensions
+    }
+
+    private class PulledExtension(private val type: String?) : VastXml.Extension {
+        var hasViewabilityTracker = false
+        var viewablePlaytime: String? = null
+        var percentViewable: String? = null
+        var viewabilityTrackerUrl: String? = null
+        val vendors = HashSet<ViewabilityVendor>()
+
+        override fun getType() = type
+
+        override fun getVideoViewabilityTracker(): VideoViewabilityTracker? {
+            if (!hasViewabilityTracker) {
+                return null
+            }
+            val viewablePlaytimeMS =
+                VideoViewabilityTrackerXmlManager.parseViewablePlaytimeMS(viewablePlaytime) ?: return null
+            val percentViewableValue =
+                VideoViewabilityTrackerXmlManager.parsePercentViewable(percentViewable) ?: return null
+            val url = viewabilityTrackerUrl?.takeIf { it.isNotEmpty() } ?: return null
+            return VideoViewabilityTracker.Builder(url, viewablePlaytimeMS, percentViewableValue).build()
+        }
+
+        override fun getViewabilityVendors(): Set<ViewabilityVendor> = vendors
+    }
+
+    private fun toTrackers(urls: List<String>, isRepeatable: Boolean = false): List<VastTracker> =
+        urls.map { VastTracker.Builder(it).isRepeatable(isRepeatable).build() }
+}
@@ -11,6 +11,7 @@ import androidx.annotation.Nullable;
 
 import com.mopub.common.MoPubHttpUrlConnection;
 import com.mopub.common.Preconditions;
+import com.mopub.common.RequestCoalescer;
 import com.mopub.common.VideoCacheService;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
@@ -23,6 +24,9 @@ import java.lang.ref.WeakReference;
 import java.net.HttpURLConnection;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR_WITH_THROWABLE;
@@ -31,8 +35,29 @@ public class VideoDownloader {
     private static final int MAX_VIDEO_SIZE = 25 * 1024 * 1024; // 25 MiB
     private static final Deque<WeakReference<VideoDownloaderTask>> sDownloaderTasks =
             new ArrayDeque<WeakReference<VideoDownloaderTask>>();
+    private static final RequestCoalescer<Boolean> sDownloads = new RequestCoalescer<>();
+    private static volatile int sProgressiveBufferBytes;
+
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final String RANGE_HEADER = "Range";
+    private static final String IF_RANGE_HEADER = "If-Range";
+    private static final String CONTENT_RANGE_HEADER = "Content-Range";
+    private static final String ETAG_HEADER = "ETag";
+    private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    // bytes <first>-<last>/<length or *>
+    private static final Pattern CONTENT_RANGE_PATTERN =
+            Pattern.compile("bytes\\s+(\\d+)-\\d+/(\\d+|\\*)");
 
     interface VideoDownloaderListener {
+        /**
+         * Called once enough of the video is cached to start playing it through
+         * {@link ProgressiveVideoDownload}, while the rest keeps downloading. Only called when
+         * progressive downloads are enabled, and never for a video that ends up downloaded
+         * before the threshold was reached. {@link #onComplete(boolean)} still follows.
+         */
+        void onBuffered();
+
         void onComplete(boolean success);
     }
 
@@ -57,6 +82,16 @@ public class VideoDownloader {
     }
 
 
+    /**
+     * Lets videos start playing once this many bytes are downloaded, instead of waiting for the
+     * whole file.
+     *
+     * @param progressiveBufferBytes the amount to buffer, or 0 to wait for the whole file.
+     */
+    public static void setProgressiveBufferBytes(final int progressiveBufferBytes) {
+        sProgressiveBufferBytes = Math.max(progressiveBufferBytes, 0);
+    }
+
     public static void cancelAllDownloaderTasks() {
         for (final WeakReference<VideoDownloaderTask> weakDownloaderTask : sDownloaderTasks) {
             cancelOneTask(weakDownloaderTask);
@@ -114,33 +149,100 @@ public class VideoDownloader {
             }
 
             final String videoUrl = params[0];
+            try {
+                // Another ad may already be caching the same media file. Each ad waiting on it
+                // is told when it is buffered.
+                return sDownloads.execute(videoUrl, new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return download(videoUrl);
+                    }
+                }, new Runnable() {
+                    @Override
+                    public void run() {
+                        publishProgress();
+                    }
+                });
+            } catch (Exception e) {
+                MoPubLog.log(ERROR_WITH_THROWABLE, "VideoDownloader task failed waiting for download.", e);
+                return false;
+            }
+        }
+
+        private static boolean download(@NonNull final String videoUrl) {
             HttpURLConnection urlConnection = null;
             InputStream inputStream = null;
+            final ProgressiveVideoDownload partialDownload =
+                    ProgressiveVideoDownload.start(videoUrl);
+            boolean success = false;
             try {
                 urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(videoUrl);
-                inputStream = new BufferedInputStream(urlConnection.getInputStream());
-
-                // Check status code range
+                final long resumeOffset = partialDownload == null
+                        ? 0
+                        : partialDownload.getResumeOffset();
+                if (resumeOffset > 0) {
+                    // The server sends the whole file instead if it changed since
+                    urlConnection.setRequestProperty(RANGE_HEADER, "bytes=" + resumeOffset + "-");
+                    urlConnection.setRequestProperty(IF_RANGE_HEADER,
+                            partialDownload.getResumeValidator());
+                }
+                // Check status code range before opening the stream, which throws for errors
                 int statusCode = urlConnection.getResponseCode();
                 if (statusCode < HttpURLConnection.HTTP_OK
                         || statusCode >= HttpURLConnection.HTTP_MULT_CHOICE) {
                     MoPubLog.log(CUSTOM, "VideoDownloader encountered unexpected statusCode: " +
                             statusCode);
+                    if (statusCode == HTTP_RANGE_NOT_SATISFIABLE && partialDownload != null) {
+                        partialDownload.discard();
+                    }
+                    return false;
+                }
+                inputStream = new BufferedInputStream(urlConnection.getInputStream());
+
+                final boolean resumed = statusCode == HttpURLConnection.HTTP_PARTIAL;
+                final String contentRange = urlConnection.getHeaderField(CONTENT_RANGE_HEADER);
+                if (resumed && (resumeOffset == 0
+                        || getContentRangeStart(contentRange) != resumeOffset)) {
+                    MoPubLog.log(CUSTOM, "VideoDownloader received an unexpected range: " +
+                            contentRange);
+                    if (partialDownload != null) {
+                        partialDownload.discard();
+                    }
                     return false;
                 }
 
                 // Check video size below maximum
-                int contentLength = urlConnection.getContentLength();
+                long contentLength = urlConnection.getContentLength();
+                if (resumed) {
+                    contentLength = getContentRangeLength(contentRange);
+                }
                 if (contentLength > MAX_VIDEO_SIZE) {
                     MoPubLog.log(CUSTOM, String.format(
                             "VideoDownloader encountered video larger than disk cap. " +
                                     "(%d bytes / %d maximum).",
                             contentLength,
                             MAX_VIDEO_SIZE));
+                    if (partialDownload != null) {
+                        partialDownload.discard();
+                    }
                     return false;
                 }
 
-                return VideoCacheService.put(videoUrl, inputStream);
+                if (partialDownload == null) {
+                    return VideoCacheService.put(videoUrl, inputStream);
+                }
+
+                partialDownload.begin(resumed, getValidator(urlConnection), contentLength);
+                final int progressiveBufferBytes = sProgressiveBufferBytes;
+                final Runnable onBuffered = progressiveBufferBytes <= 0 ? null : new Runnable() {
+                    @Override
+                    public void run() {
+                        sDownloads.publishProgress(videoUrl);
+                    }
+                };
+                partialDownload.download(inputStream, progressiveBufferBytes, onBuffered);
+                success = partialDownload.moveToCache();
+                return success;
             } catch (Exception e) {
                 MoPubLog.log(ERROR_WITH_THROWABLE, "VideoDownloader task threw an internal exception.", e);
                 return false;
@@ -149,7 +251,28 @@ public class VideoDownloader {
                 if (urlConnection != null) {
                     urlConnection.disconnect();
                 }
+                if (partialDownload != null) {
+                    partialDownload.finish(success);
+                }
+            }
+        }
+
+        /**
+         * @return the ETag, unless it is weak and so can't be used with {@code If-Range}, else
+         * the Last-Modified date, else null.
+         */
+        @Nullable
+        private static String getValidator(@NonNull final HttpURLConnection urlConnection) {
+            final String eTag = urlConnection.getHeaderField(ETAG_HEADER);
+            if (eTag != null && !eTag.startsWith(WEAK_ETAG_PREFIX)) {
+                return eTag;
             }
+            return urlConnection.getHeaderField(LAST_MODIFIED_HEADER);
+        }
+
+        @Override
+        protected void onProgressUpdate(final Void... values) {
+            mListener.onBuffered();
         }
 
         @Override
@@ -177,6 +300,33 @@ public class VideoDownloader {
         }
     }
 
+    /**
+     * @return the offset of the first byte in a {@code Content-Range} header, or -1 if there
+     * isn't one.
+     */
+    @VisibleForTesting
+    static long getContentRangeStart(@Nullable final String contentRange) {
+        final Matcher matcher = contentRange == null
+                ? null
+                : CONTENT_RANGE_PATTERN.matcher(contentRange.trim());
+        return matcher != null && matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    /**
+     * @return the size of the whole file in a {@code Content-Range} header, or -1 if the server
+     * didn't say.
+     */
+    @VisibleForTesting
+    static long getContentRangeLength(@Nullable final String contentRange) {
+        final Matcher matcher = contentRange == null
+                ? null
+                : CONTENT_RANGE_PATTERN.matcher(contentRange.trim());
+        if (matcher == null || !matcher.matches() || "*".equals(matcher.group(2))) {
+            return -1;
+        }
+        return Long.parseLong(matcher.group(2));
+    }
+
     @Deprecated
     @VisibleForTesting
     public static Deque<WeakReference<VideoDownloaderTask>> getDownloaderTasks() {
@@ -42,8 +42,15 @@ public class VideoViewabilityTrackerXmlManager {
      */
     @Nullable
     Integer getViewablePlaytimeMS() {
-        String viewablePlaytimeStr =
-                XmlUtils.getAttributeValue(mVideoViewabilityNode, VIEWABLE_PLAYTIME);
+        return parseViewablePlaytimeMS(
+                XmlUtils.getAttributeValue(mVideoViewabilityNode, VIEWABLE_PLAYTIME));
+    }
+
+    /**
+     * @see #getViewablePlaytimeMS()
+     */
+    @Nullable
+    static Integer parseViewablePlaytimeMS(@Nullable final String viewablePlaytimeStr) {
         if (viewablePlaytimeStr == null) {
             return null;
         }
@@ -84,8 +91,15 @@ public class VideoViewabilityTrackerXmlManager {
      */
     @Nullable
     Integer getPercentViewable() {
-        String percentViewableStr =
-                XmlUtils.getAttributeValue(mVideoViewabilityNode, PERCENT_VIEWABLE);
+        return parsePercentViewable(
+                XmlUtils.getAttributeValue(mVideoViewabilityNode, PERCENT_VIEWABLE));
+    }
+
+    /**
+     * @see #getPercentViewable()
+     */
+    @Nullable
+    static Integer parsePercentViewable(@Nullable final String percentViewableStr) {
         if (percentViewableStr == null) {
             return null;
         }
@@ -10,14 +10,15 @@ import android.os.Handler;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.mopub.common.MemoryTrimmer;
 import com.mopub.common.Preconditions;
 import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 
 import java.lang.ref.WeakReference;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static com.mopub.common.Constants.FIFTEEN_MINUTES_MILLIS;
@@ -85,16 +86,30 @@ public class WebViewCacheService {
     @VisibleForTesting
     static final long TRIM_CACHE_FREQUENCY_MILLIS = FIFTEEN_MINUTES_MILLIS;
 
+    /**
+     * WebViews don't report how much memory they use. This is a rough size of one cached WebView
+     * with its content, for reporting what trimming released.
+     */
+    @VisibleForTesting
+    static final long ESTIMATED_WEB_VIEW_BYTES = 2 * 1024 * 1024;
+
+    private static final String MEMORY_TRIMMER_CACHE_NAME = "web-views";
+
+    /**
+     * In insertion order, so that trimming releases the oldest first.
+     */
     @SuppressLint("UseSparseArrays")
     @NonNull
     private static final Map<Long, Config> sWebViewConfigs =
-            Collections.synchronizedMap(new HashMap<>());
+            Collections.synchronizedMap(new LinkedHashMap<>());
 
     @VisibleForTesting
     @NonNull
     static final TrimCacheRunnable sTrimCacheRunnable = new TrimCacheRunnable();
     @NonNull
     private static Handler sHandler = new Handler();
+    @NonNull
+    private static final MemoryTrimmer.Trimmable sMemoryTrimmable = WebViewCacheService::trimMemory;
 
     private WebViewCacheService() {
     }
@@ -125,6 +140,7 @@ public class WebViewCacheService {
 
         sWebViewConfigs.put(broadcastIdentifier,
                 new Config(baseWebView, baseAd, controller));
+        MemoryTrimmer.addCache(MEMORY_TRIMMER_CACHE_NAME, sMemoryTrimmable);
     }
 
     @Nullable
@@ -152,6 +168,30 @@ public class WebViewCacheService {
         }
     }
 
+    /**
+     * Destroys the oldest {@code fraction} of the cached WebViews. Their interstitials load their
+     * creative again when shown.
+     *
+     * @return Roughly how many bytes were released.
+     */
+    @VisibleForTesting
+    static synchronized long trimMemory(final float fraction) {
+        final int sizeBeforeTrimCache = sWebViewConfigs.size();
+        trimCache();
+        final int trimCount = MemoryTrimmer.getTrimCount(sWebViewConfigs.size(), fraction);
+        synchronized (sWebViewConfigs) {
+            final Iterator<Config> iterator = sWebViewConfigs.values().iterator();
+            for (int i = 0; i < trimCount && iterator.hasNext(); i++) {
+                iterator.next().invalidate();
+                iterator.remove();
+            }
+        }
+        if (trimCount > 0) {
+            MoPubLog.log(CUSTOM, "Destroyed " + trimCount + " cached web views to free memory.");
+        }
+        return (sizeBeforeTrimCache - sWebViewConfigs.size()) * ESTIMATED_WEB_VIEW_BYTES;
+    }
+
     private static class TrimCacheRunnable implements Runnable {
         @Override
         public void run() {
@@ -31,7 +31,10 @@ public class AdLoader {
     // to be implemented by external listener
     public interface Listener extends MoPubResponse.Listener<AdResponse> {}
 
+    private static volatile boolean sWaterfallPrefetchEnabled = false;
+
     private final MultiAdRequest.Listener mAdListener;
+    private final MultiAdRequest.Listener mPrefetchListener;
     private final WeakReference<Context> mContext;
     private final Listener mOriginalListener;
 
@@ -46,6 +49,13 @@ public class AdLoader {
     @Nullable
     private ContentDownloadAnalytics mDownloadTracker;
 
+    // next waterfall page, requested while the last item of the current page loads
+    @Nullable
+    private MultiAdRequest mPrefetchRequest;
+    @Nullable
+    private MultiAdResponse mPrefetchedResponse;
+    private boolean mWaitingForPrefetch;
+
     private volatile boolean mRunning;
     private volatile boolean mFailed;
     private boolean mContentDownloaded;
@@ -65,6 +75,24 @@ public class AdLoader {
                     @Nullable final String adUnitId,
                     @NonNull final Context context,
                     @NonNull final Listener listener) {
+        this(url, null, adFormat, adUnitId, context, listener);
+    }
+
+    /**
+     * @param url           initial URL to download ads from ads.mopub.com
+     * @param requestParams the parameters {@code url} was generated from, sent instead of the ones
+     *                      parsed from {@code url}
+     * @param adFormat      banner, interstitial, etc.
+     * @param adUnitId      ad unit id will be sent to the server
+     * @param context       required by {@link Networking} class
+     * @param listener      callback to return results
+     */
+    public AdLoader(@NonNull final String url,
+                    @Nullable final MoPubRequestParams requestParams,
+                    @NonNull final AdFormat adFormat,
+                    @Nullable final String adUnitId,
+                    @NonNull final Context context,
+                    @NonNull final Listener listener) {
         Preconditions.checkArgument(!TextUtils.isEmpty(url));
         Preconditions.checkNotNull(adFormat);
         Preconditions.checkNotNull(context);
@@ -92,8 +120,46 @@ public class AdLoader {
                     mMultiAdResponse = response;
                     if (mMultiAdResponse.hasNext()) {
                         deliverResponse(mMultiAdResponse.next());
+                        prefetchNextPageIfNeeded();
+                    }
+                }
+            }
+        };
+
+        mPrefetchListener = new MultiAdRequest.Listener() {
+            @Override
+            public void onErrorResponse(@NonNull final MoPubNetworkError networkError) {
+                synchronized (lock) {
+                    if (mPrefetchRequest == null) {
+                        // discarded
+                        return;
+                    }
+                    mPrefetchRequest = null;
+                    if (!mWaitingForPrefetch) {
+                        // loadNextAd will request the page again if it gets that far
+                        MoPubLog.log(CUSTOM, "Waterfall prefetch failed: " + networkError.getMessage());
+                        return;
                     }
+                    mWaitingForPrefetch = false;
                 }
+                mAdListener.onErrorResponse(networkError);
+            }
+
+            @Override
+            public void onResponse(@NonNull final MultiAdResponse response) {
+                synchronized (lock) {
+                    if (mPrefetchRequest == null) {
+                        // discarded
+                        return;
+                    }
+                    if (!mWaitingForPrefetch) {
+                        mPrefetchedResponse = response;
+                        return;
+                    }
+                    mPrefetchRequest = null;
+                    mWaitingForPrefetch = false;
+                }
+                mAdListener.onResponse(response);
             }
         };
 
@@ -105,6 +171,21 @@ public class AdLoader {
                 context,
                 mAdListener
         );
+        // The url is cleared when the SDK isn't initialized, and nothing should be sent then
+        if (!TextUtils.isEmpty(mMultiAdRequest.getOriginalUrl())) {
+            mMultiAdRequest.setRequestParams(requestParams);
+        }
+    }
+
+    /**
+     * When enabled, the fail URL of a waterfall page is requested as soon as the last ad of that
+     * page is delivered, rather than after that ad fails to load. The prefetched page is
+     * discarded if an ad loads successfully.
+     *
+     * @param enabled true to prefetch the next waterfall page, false by default
+     */
+    public static void setWaterfallPrefetchEnabled(final boolean enabled) {
+        sWaterfallPrefetchEnabled = enabled;
     }
 
     /**
@@ -155,7 +236,7 @@ public class AdLoader {
 
             // not running and not failed: start it for the first time
             if (mMultiAdResponse == null) {
-                if (RequestRateTracker.getInstance().isBlockedByRateLimit(mMultiAdRequest.mAdUnitId)) {
+                if (!RequestRateTracker.getInstance().tryAcquireRequest(mMultiAdRequest.mAdUnitId)) {
                     // report no fill
                     MoPubLog.log(MoPubLog.SdkLogEvent.CUSTOM, mMultiAdRequest.mAdUnitId + " is blocked by request rate limiting.");
                     mFailed = true;
@@ -178,6 +259,14 @@ public class AdLoader {
                 creativeDownloadFailed(errorCode);
             }
 
+            // the current page is exhausted and the next one has already arrived
+            if (!mMultiAdResponse.hasNext() && mPrefetchedResponse != null) {
+                mMultiAdRequest = mPrefetchRequest;
+                mMultiAdResponse = mPrefetchedResponse;
+                mPrefetchRequest = null;
+                mPrefetchedResponse = null;
+            }
+
             // in the middle of waterfall, check if preloaded items available
             if (mMultiAdResponse.hasNext()) {
                 // logic to return next preloaded AdResponse item
@@ -188,6 +277,15 @@ public class AdLoader {
                         deliverResponse(adResponse);
                     }
                 });
+                prefetchNextPageIfNeeded();
+                return mMultiAdRequest;
+            }
+
+            // the next page is still in flight, wait for it instead of requesting it again
+            if (mPrefetchRequest != null) {
+                mWaitingForPrefetch = true;
+                mRunning = true;
+                mMultiAdRequest = mPrefetchRequest;
                 return mMultiAdRequest;
             }
 
@@ -222,6 +320,7 @@ public class AdLoader {
      */
     public void creativeDownloadSuccess() {
         mContentDownloaded = true;
+        discardPrefetch();
 
         if (null == mDownloadTracker) {
             MoPubLog.log(CUSTOM, "Response analytics should not be null here");
@@ -256,6 +355,53 @@ public class AdLoader {
         }
     }
 
+    /**
+     * Requests the next waterfall page in the background if prefetching is enabled and the last
+     * item of the current page has been handed out. Must be called while holding the lock.
+     */
+    private void prefetchNextPageIfNeeded() {
+        if (!sWaterfallPrefetchEnabled || mPrefetchRequest != null || mMultiAdResponse == null) {
+            return;
+        }
+
+        if (mMultiAdResponse.hasNext() || mMultiAdResponse.isWaterfallFinished()) {
+            return;
+        }
+
+        final Context context = mContext.get();
+        if (context == null) {
+            return;
+        }
+
+        mPrefetchRequest = new MultiAdRequest(mMultiAdResponse.getFailURL(),
+                mMultiAdRequest.mAdFormat,
+                mMultiAdRequest.mAdUnitId,
+                context,
+                mPrefetchListener
+        );
+        MoPubLog.log(REQUESTED, mPrefetchRequest.getOriginalUrl(), "<prefetch>");
+        Networking.getRequestQueue(context).add(mPrefetchRequest);
+    }
+
+    /**
+     * Call this function when the loader is no longer needed, so that a prefetched waterfall page
+     * still in flight is cancelled.
+     */
+    public void destroy() {
+        discardPrefetch();
+    }
+
+    private void discardPrefetch() {
+        synchronized (lock) {
+            if (mPrefetchRequest != null) {
+                mPrefetchRequest.cancel();
+            }
+            mPrefetchRequest = null;
+            mPrefetchedResponse = null;
+            mWaitingForPrefetch = false;
+        }
+    }
+
     /**
      * Submits request to the networking library
      *
@@ -273,8 +419,11 @@ public class AdLoader {
         }
 
         String bodyString = "<no body>";
-        if (MoPubRequestUtils.isMoPubRequest(request.getUrl()) && request.getBody() != null) {
-            bodyString = new String(request.getBody());
+        if (MoPubRequestUtils.isMoPubRequest(request.getUrl())) {
+            final byte[] body = request.getBody();
+            if (body != null) {
+                bodyString = new String(body);
+            }
         }
 
         MoPubLog.log(REQUESTED, request.getOriginalUrl(), bodyString);
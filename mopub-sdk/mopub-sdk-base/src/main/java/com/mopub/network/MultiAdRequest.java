@@ -58,6 +58,8 @@ public class MultiAdRequest extends MoPubRequest<MultiAdResponse> {
         mContext = context.getApplicationContext();
 
         setShouldCache(false);
+        setRequestClass(RequestClass.AD);
+        setAdUnitId(adUnitId);
 
         final PersonalInfoManager personalInfoManager = MoPub.getPersonalInformationManager();
         if (personalInfoManager != null) {
@@ -6,6 +6,8 @@ package com.mopub.network;
 
 import android.content.Context;
 import android.text.TextUtils;
+import android.util.JsonReader;
+import android.util.JsonToken;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -20,6 +22,7 @@ import com.mopub.common.FullAdType;
 import com.mopub.common.MoPub;
 import com.mopub.common.Preconditions;
 import com.mopub.common.ViewabilityVendor;
+import com.mopub.common.VisibleForTesting;
 import com.mopub.common.logging.MoPubLog;
 import com.mopub.common.util.Json;
 import com.mopub.common.util.ResponseHeader;
@@ -31,11 +34,15 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import static com.mopub.common.DataKeys.ADM_KEY;
@@ -65,7 +72,30 @@ public class MultiAdResponse implements Iterator<AdResponse> {
     private static final String EMPTY_JSON_ARRAY = "[]";
 
     @NonNull
-    private final Iterator<AdResponse> mResponseIterator;
+    private final Context mAppContext;
+    @NonNull
+    private final AdFormat mAdFormat;
+    @Nullable
+    private final String mAdUnitId;
+    @NonNull
+    private final String mAdUnitFormat;
+    @Nullable
+    private final String mRequestId;
+    private final boolean mIsRewarded;
+    @Nullable
+    private final JSONObject mCreativeExperienceSettings;
+
+    /**
+     * Waterfall items, read one at a time. Each one is only turned into an {@link AdResponse}
+     * once the waterfall reaches it, since usually one of the first items fills and the rest are
+     * discarded.
+     */
+    @NonNull
+    private final ResponseBody mResponseBody;
+    private final int mEndItemIndex;
+    private int mNextItemIndex;
+    @Nullable
+    private AdResponse mNextResponse;
 
     @NonNull
     private String mFailUrl;
@@ -78,6 +108,13 @@ public class MultiAdResponse implements Iterator<AdResponse> {
     @Nullable
     private static ServerOverrideListener sServerOverrideListener;
 
+    /**
+     * When enabled, the response is read straight from the network bytes with a
+     * {@link JsonReader} instead of first decoding the whole body into a {@link String} and
+     * tokenizing it again.
+     */
+    private static volatile boolean sStreamingParserEnabled = true;
+
     /**
      *
      * @param appContext application context
@@ -93,9 +130,8 @@ public class MultiAdResponse implements Iterator<AdResponse> {
                            @Nullable final String adUnitId) throws JSONException, MoPubNetworkError {
 
         // Response Body encoding / decoding
-        final String responseBody = parseStringBody(networkResponse);
-
-        JSONObject jsonObject = new JSONObject(responseBody);
+        final ResponseBody responseBody = parseResponseBody(networkResponse);
+        final JSONObject jsonObject = responseBody.headers;
         mFailUrl = jsonObject.optString(ResponseHeader.FAIL_URL.getKey());
         final String adUnitFormat = jsonObject.optString(ResponseHeader.ADUNIT_FORMAT.getKey());
         String requestId = jsonObject.optString(ResponseHeader.REQUEST_ID.getKey());
@@ -140,54 +176,40 @@ public class MultiAdResponse implements Iterator<AdResponse> {
         JSONObject creativeExperienceSettings = extractJsonObjectHeader(jsonObject,
                 ResponseHeader.CREATIVE_EXPERIENCE_SETTINGS);
         
-        JSONArray adResponses = jsonObject.getJSONArray(ResponseHeader.AD_RESPONSES.getKey());
-        int ADS_PER_RESPONSE = 3;
-        List<AdResponse> list = new ArrayList<>(ADS_PER_RESPONSE);
-        AdResponse adResponseClear = null;
-        for (int i = 0; i < adResponses.length(); i++) {
-            try {
-                JSONObject item = adResponses.getJSONObject(i);
-                AdResponse singleAdResponse = parseSingleAdResponse(appContext,
-                        networkResponse,
-                        item,
-                        adUnitId,
-                        adFormat,
-                        adUnitFormat,
-                        requestId,
-                        isRewarded,
-                        creativeExperienceSettings);
-                if (!AdType.CLEAR.equals(singleAdResponse.getAdType())) {
-                    list.add(singleAdResponse);
-                    continue;
-                }
+        mAppContext = appContext;
+        mAdFormat = adFormat;
+        mAdUnitId = adUnitId;
+        mAdUnitFormat = adUnitFormat;
+        mRequestId = requestId;
+        mIsRewarded = isRewarded;
+        mCreativeExperienceSettings = creativeExperienceSettings;
+        mResponseBody = responseBody;
+        // Items beyond 'clear' are not processed
+        mEndItemIndex = responseBody.clearItemIndex;
 
-                // received message 'clear'
-                mFailUrl = "";
-                adResponseClear = singleAdResponse;
-                if (extractWarmup(item)) {
-                    throw new MoPubNetworkError.Builder("Server is preparing this Ad Unit.")
-                            .reason(MoPubNetworkError.Reason.WARMING_UP)
-                            .refreshTimeMillis(adResponseClear.getRefreshTimeMillis())
-                            .build();
-                }
-                break; // we don't process items beyond 'clear'
-
-            } catch (JSONException ex) {
-                // don't break everything because of single item parsing error
-                MoPubLog.log(CUSTOM, "Invalid response item. Body: " + responseBody);
-            } catch (MoPubNetworkError ex) {
-                if (ex.getReason() == MoPubNetworkError.Reason.WARMING_UP) {
-                    throw ex;
-                }
-                MoPubLog.log(CUSTOM, "Invalid response item. Error: " + ex.getReason());
-            } catch (Exception ex) {
-                MoPubLog.log(CUSTOM, "Unexpected error parsing response item. " + ex.getMessage());
+        AdResponse adResponseClear = null;
+        final JSONObject clearItem = responseBody.readClearItem();
+        if (clearItem != null) {
+            // received message 'clear'
+            mFailUrl = "";
+            adResponseClear = parseSingleAdResponse(appContext,
+                    clearItem,
+                    adUnitId,
+                    adFormat,
+                    adUnitFormat,
+                    requestId,
+                    isRewarded,
+                    creativeExperienceSettings);
+            if (extractWarmup(clearItem)) {
+                throw new MoPubNetworkError.Builder("Server is preparing this Ad Unit.")
+                        .reason(MoPubNetworkError.Reason.WARMING_UP)
+                        .refreshTimeMillis(adResponseClear.getRefreshTimeMillis())
+                        .build();
             }
         }
-        mResponseIterator = list.iterator();
 
         // validate if there is any valid ad response
-        if (!mResponseIterator.hasNext()) {
+        if (!hasNext()) {
             Integer refreshTimeMilliseconds = Constants.THIRTY_SECONDS_MILLIS;
             if (adResponseClear != null) {
                 refreshTimeMilliseconds = adResponseClear.getRefreshTimeMillis();
@@ -199,15 +221,51 @@ public class MultiAdResponse implements Iterator<AdResponse> {
         }
     }
 
+    /**
+     * Parses waterfall items up to the next valid one. Returns immediately if that item has
+     * already been parsed.
+     *
+     * @return true if there is another valid {@link AdResponse} in this response
+     */
     @Override
-    public boolean hasNext() {
-        return mResponseIterator.hasNext();
+    public synchronized boolean hasNext() {
+        while (mNextResponse == null && mNextItemIndex < mEndItemIndex) {
+            mNextItemIndex++;
+            Object item = null;
+            try {
+                item = mResponseBody.readNextItem();
+                if (!(item instanceof JSONObject)) {
+                    throw new JSONException("Item is not a JSONObject.");
+                }
+                mNextResponse = parseSingleAdResponse(mAppContext,
+                        (JSONObject) item,
+                        mAdUnitId,
+                        mAdFormat,
+                        mAdUnitFormat,
+                        mRequestId,
+                        mIsRewarded,
+                        mCreativeExperienceSettings);
+            } catch (JSONException ex) {
+                // don't break everything because of single item parsing error
+                MoPubLog.log(CUSTOM, "Invalid response item. Item: " + item);
+            } catch (MoPubNetworkError ex) {
+                MoPubLog.log(CUSTOM, "Invalid response item. Error: " + ex.getReason());
+            } catch (Exception ex) {
+                MoPubLog.log(CUSTOM, "Unexpected error parsing response item. " + ex.getMessage());
+            }
+        }
+        return mNextResponse != null;
     }
 
     @NonNull
     @Override
-    public AdResponse next() {
-        return mResponseIterator.next();
+    public synchronized AdResponse next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final AdResponse adResponse = mNextResponse;
+        mNextResponse = null;
+        return adResponse;
     }
 
     boolean isWaterfallFinished() {
@@ -219,6 +277,11 @@ public class MultiAdResponse implements Iterator<AdResponse> {
         sServerOverrideListener = serverOverrideListener;
     }
 
+    @VisibleForTesting
+    static void setStreamingParserEnabled(final boolean streamingParserEnabled) {
+        sStreamingParserEnabled = streamingParserEnabled;
+    }
+
     /**
      * Parse single object {@link AdResponse} from JSON
      *
@@ -243,8 +306,36 @@ public class MultiAdResponse implements Iterator<AdResponse> {
                                                       @NonNull final Boolean isRewarded,
                                                       @Nullable final JSONObject ceSettingsJSONObject)
             throws JSONException, MoPubNetworkError {
-        Preconditions.checkNotNull(appContext);
         Preconditions.checkNotNull(networkResponse);
+
+        return parseSingleAdResponse(appContext, jsonObject, adUnitId, adFormat, adUnitFormat,
+                requestId, isRewarded, ceSettingsJSONObject);
+    }
+
+    /**
+     * Parse single object {@link AdResponse} from JSON. Does not need the original network
+     * response, so items can be parsed after it has been released.
+     *
+     * @param appContext      application context
+     * @param jsonObject      JSON object to parse
+     * @param adUnitId        request ad unit id
+     * @param adFormat        {@link AdFormat}
+     * @param requestId       GUID assigned by server
+     * @return valid {@link AdResponse} or throws exception
+     * @throws JSONException     when JSON format is broken or critical field is missing
+     * @throws MoPubNetworkError when high level validation failed
+     */
+    @NonNull
+    static AdResponse parseSingleAdResponse(@NonNull final Context appContext,
+                                            @NonNull final JSONObject jsonObject,
+                                            @Nullable final String adUnitId,
+                                            @NonNull final AdFormat adFormat,
+                                            @NonNull final String adUnitFormat,
+                                            @Nullable final String requestId,
+                                            @NonNull final Boolean isRewarded,
+                                            @Nullable final JSONObject ceSettingsJSONObject)
+            throws JSONException, MoPubNetworkError {
+        Preconditions.checkNotNull(appContext);
         Preconditions.checkNotNull(jsonObject);
         Preconditions.checkNotNull(adFormat);
         Preconditions.checkNotNull(adUnitFormat);
@@ -524,6 +615,288 @@ public class MultiAdResponse implements Iterator<AdResponse> {
         return extractBooleanHeader(jsonHeaders, ResponseHeader.WARMUP, false);
     }
 
+    /**
+     * Parses the response body, either by streaming it from the raw bytes or by decoding the body
+     * into a {@link String} first.
+     *
+     * @param response network response to parse
+     * @return the top level fields sent by the server, and a way to read the waterfall items
+     * @throws JSONException when the body is not a valid JSON object
+     */
+    @NonNull
+    private static ResponseBody parseResponseBody(@NonNull final MoPubNetworkResponse response)
+            throws JSONException {
+        Preconditions.checkNotNull(response);
+
+        if (!sStreamingParserEnabled) {
+            return new TreeResponseBody(new JSONObject(parseStringBody(response)));
+        }
+
+        final byte[] data = response.getData() != null ? response.getData() : new byte[0];
+        final String charsetName = MoPubNetworkUtils.parseCharsetFromContentType(
+                response.getHeaders());
+        try {
+            return StreamingResponseBody.read(data, charsetName);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new JSONException("Unable to parse response body. " + e.getMessage());
+        }
+    }
+
+    private static boolean isClear(@NonNull final JSONObject item) {
+        return AdType.CLEAR.equals(extractHeader(
+                item.optJSONObject(ResponseHeader.METADATA.getKey()), ResponseHeader.AD_TYPE));
+    }
+
+    /**
+     * The top level fields of a response body, and its waterfall items up to the first 'clear'
+     * item. Items are read in order, each one only once.
+     */
+    private abstract static class ResponseBody {
+        @NonNull final JSONObject headers;
+        /**
+         * Index of the first 'clear' item, or the number of items if there is none.
+         */
+        final int clearItemIndex;
+
+        ResponseBody(@NonNull final JSONObject headers, final int clearItemIndex) {
+            this.headers = headers;
+            this.clearItemIndex = clearItemIndex;
+        }
+
+        /**
+         * @return the first 'clear' item, or null if there is none.
+         */
+        @Nullable
+        abstract JSONObject readClearItem() throws JSONException;
+
+        /**
+         * @return the next item, which is not necessarily a {@link JSONObject}.
+         */
+        @Nullable
+        abstract Object readNextItem() throws JSONException;
+    }
+
+    /**
+     * A body decoded into a {@link String} and parsed into a {@link JSONObject} as a whole.
+     */
+    private static class TreeResponseBody extends ResponseBody {
+        @NonNull private final JSONArray mAdResponses;
+        private int mNextItemIndex;
+
+        TreeResponseBody(@NonNull final JSONObject jsonObject) throws JSONException {
+            this(jsonObject, jsonObject.getJSONArray(ResponseHeader.AD_RESPONSES.getKey()));
+        }
+
+        private TreeResponseBody(@NonNull final JSONObject jsonObject,
+                @NonNull final JSONArray adResponses) {
+            super(jsonObject, findClearItemIndex(adResponses));
+            mAdResponses = adResponses;
+        }
+
+        private static int findClearItemIndex(@NonNull final JSONArray adResponses) {
+            for (int i = 0; i < adResponses.length(); i++) {
+                final JSONObject item = adResponses.optJSONObject(i);
+                if (item != null && isClear(item)) {
+                    return i;
+                }
+            }
+            return adResponses.length();
+        }
+
+        @Nullable
+        @Override
+        JSONObject readClearItem() {
+            return mAdResponses.optJSONObject(clearItemIndex);
+        }
+
+        @Nullable
+        @Override
+        Object readNextItem() {
+            return mAdResponses.opt(mNextItemIndex++);
+        }
+    }
+
+    /**
+     * A body read straight from the network bytes. The first pass reads the top level fields and
+     * only looks at each item's ad type to find the end of the waterfall, skipping over everything
+     * else. Items are then read from a second reader as the waterfall reaches them, so items that
+     * are never reached are never built.
+     */
+    private static class StreamingResponseBody extends ResponseBody {
+        @NonNull private final byte[] mData;
+        @NonNull private final String mCharsetName;
+        /**
+         * Which of the ad-responses fields in the body is used, should there be more than one.
+         */
+        private final int mAdResponsesOccurrence;
+        @Nullable private JsonReader mItemReader;
+
+        private StreamingResponseBody(@NonNull final byte[] data,
+                @NonNull final String charsetName,
+                @NonNull final JSONObject headers,
+                final int clearItemIndex,
+                final int adResponsesOccurrence) {
+            super(headers, clearItemIndex);
+            mData = data;
+            mCharsetName = charsetName;
+            mAdResponsesOccurrence = adResponsesOccurrence;
+        }
+
+        /**
+         * Reads the top level fields, and finds the first 'clear' item without building any of
+         * the items.
+         */
+        @NonNull
+        static StreamingResponseBody read(@NonNull final byte[] data,
+                @NonNull final String charsetName) throws IOException, JSONException {
+            final JSONObject headers = new JSONObject();
+            int clearItemIndex = -1;
+            int adResponsesOccurrence = 0;
+
+            final JsonReader reader = newReader(data, charsetName);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                if (!ResponseHeader.AD_RESPONSES.getKey().equals(name)) {
+                    headers.put(name, Json.readJsonValue(reader));
+                    continue;
+                }
+                if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    throw new JSONException("Value for " + name + " is not a JSONArray.");
+                }
+                // Like a JSONObject, use the last field with this name
+                adResponsesOccurrence++;
+                clearItemIndex = -1;
+                int itemCount = 0;
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (clearItemIndex == -1 && scanIsClear(reader)) {
+                        clearItemIndex = itemCount;
+                    } else {
+                        reader.skipValue();
+                    }
+                    itemCount++;
+                }
+                reader.endArray();
+                if (clearItemIndex == -1) {
+                    clearItemIndex = itemCount;
+                }
+            }
+            reader.endObject();
+
+            if (adResponsesOccurrence == 0) {
+                throw new JSONException("No value for " + ResponseHeader.AD_RESPONSES.getKey());
+            }
+            return new StreamingResponseBody(data, charsetName, headers, clearItemIndex,
+                    adResponsesOccurrence);
+        }
+
+        /**
+         * Consumes the next item if it is an object, only reading its ad type.
+         *
+         * @return whether the item is a 'clear' item. If the item isn't an object, it is not
+         * consumed and false is returned.
+         */
+        private static boolean scanIsClear(@NonNull final JsonReader reader) throws IOException {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return false;
+            }
+            boolean clear = false;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!ResponseHeader.METADATA.getKey().equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
+                }
+                clear = false;
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    final boolean adType = ResponseHeader.AD_TYPE.getKey().equals(reader.nextName());
+                    if (adType && reader.peek() == JsonToken.STRING) {
+                        clear = AdType.CLEAR.equals(reader.nextString());
+                    } else {
+                        if (adType) {
+                            clear = false;
+                        }
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+            return clear;
+        }
+
+        @Nullable
+        @Override
+        JSONObject readClearItem() throws JSONException {
+            try {
+                final JsonReader reader = openAdResponses();
+                for (int i = 0; i < clearItemIndex; i++) {
+                    reader.skipValue();
+                }
+                if (!reader.hasNext()) {
+                    return null;
+                }
+                return Json.readJsonObject(reader);
+            } catch (IOException | IllegalStateException | NumberFormatException e) {
+                throw new JSONException("Unable to parse response item. " + e.getMessage());
+            }
+        }
+
+        @Nullable
+        @Override
+        Object readNextItem() throws JSONException {
+            try {
+                if (mItemReader == null) {
+                    mItemReader = openAdResponses();
+                }
+                return Json.readJsonValue(mItemReader);
+            } catch (IOException | IllegalStateException | NumberFormatException e) {
+                throw new JSONException("Unable to parse response item. " + e.getMessage());
+            }
+        }
+
+        /**
+         * @return a new reader, positioned before the first item of the ad-responses field.
+         */
+        @NonNull
+        private JsonReader openAdResponses() throws IOException {
+            final JsonReader reader = newReader(mData, mCharsetName);
+            int adResponsesOccurrence = 0;
+            reader.beginObject();
+            while (true) {
+                if (ResponseHeader.AD_RESPONSES.getKey().equals(reader.nextName())
+                        && ++adResponsesOccurrence == mAdResponsesOccurrence) {
+                    reader.beginArray();
+                    return reader;
+                }
+                reader.skipValue();
+            }
+        }
+
+        @NonNull
+        private static JsonReader newReader(@NonNull final byte[] data,
+                @NonNull final String charsetName) {
+            final InputStream inputStream = new ByteArrayInputStream(data);
+            InputStreamReader inputStreamReader;
+            try {
+                inputStreamReader = new InputStreamReader(inputStream, charsetName);
+            } catch (UnsupportedEncodingException e) {
+                inputStreamReader = new InputStreamReader(inputStream);
+            }
+
+            final JsonReader jsonReader = new JsonReader(inputStreamReader);
+            // Match the leniency of JSONTokener used by the String based path
+            jsonReader.setLenient(true);
+            return jsonReader;
+        }
+    }
+
     // Based on Volley's StringResponse class.
     private static String parseStringBody(@NonNull final MoPubNetworkResponse response) {
         Preconditions.checkNotNull(response);
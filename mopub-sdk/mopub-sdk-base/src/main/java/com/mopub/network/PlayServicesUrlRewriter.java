@@ -5,9 +5,11 @@
 package com.mopub.network;
 
 import android.net.Uri;
+import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 
+import com.mopub.common.BaseUrlGenerator;
 import com.mopub.common.ClientMetadata;
 import com.mopub.common.MoPub;
 import com.mopub.common.privacy.AdvertisingId;
@@ -50,4 +52,89 @@ public class PlayServicesUrlRewriter implements MoPubUrlRewriter {
         toReturn = toReturn.replace(MOPUB_ID_TEMPLATE,  Uri.encode(info.getIdentifier(false)));
         return toReturn;
     }
+
+    /**
+     * Fills in the same templates as {@link #rewriteUrl(String)}, on values that are not URL
+     * encoded.
+     */
+    @Override
+    public void rewriteParams(@NonNull final MoPubRequestParams params) {
+        ClientMetadata clientMetadata = ClientMetadata.getInstance();
+        if (clientMetadata == null) {
+            return;
+        }
+        AdvertisingId info = clientMetadata.getMoPubIdentifier().getAdvertisingInfo();
+        params.replaceTemplate(DO_NOT_TRACK_TEMPLATE, info.isDoNotTrack() ? "1" : "0");
+        params.replaceTemplate(TAS_TEMPLATE, info.isDoNotTrack() ? TAS_DENIED : TAS_AUTHORIZED);
+
+        if (MoPub.canCollectPersonalInformation() && !info.isDoNotTrack()) {
+            params.replaceTemplate(IFA_TEMPLATE, info.getIdentifier(true));
+        } else {
+            params.remove(BaseUrlGenerator.IFA_KEY, IFA_TEMPLATE);
+        }
+
+        params.replaceTemplate(MOPUB_ID_TEMPLATE, info.getIdentifier(false));
+    }
+
+    /**
+     * Does the opposite of {@link #rewriteUrl(String)} for the advertising ID and the MoPub ID,
+     * so that a url can be stored without them and still be sent with them later. Only the
+     * {@link BaseUrlGenerator#IFA_KEY} and {@link BaseUrlGenerator#MOPUB_ID_KEY} query parameters
+     * are replaced, and only when their decoded value is the identifier, however it was encoded.
+     *
+     * @param url A url that may hold the identifiers.
+     * @return The url with each identifier replaced by its template.
+     */
+    @NonNull
+    static String replaceIdentifiersWithTemplates(@NonNull final String url) {
+        ClientMetadata clientMetadata = ClientMetadata.getInstance();
+        if (clientMetadata == null) {
+            return url;
+        }
+        final int fragmentStart = url.indexOf('#') == -1 ? url.length() : url.indexOf('#');
+        final int queryStart = url.indexOf('?');
+        if (queryStart == -1 || queryStart > fragmentStart) {
+            return url;
+        }
+
+        AdvertisingId info = clientMetadata.getMoPubIdentifier().getAdvertisingInfo();
+        final String mopubId = info.getIdentifier(false);
+        // Consent decides whether the advertising ID is sent, not whether it is stored. With
+        // Do Not Track on, this is the MoPub ID again.
+        final String ifa = info.getIdentifier(true);
+
+        final StringBuilder builder = new StringBuilder(url.length());
+        builder.append(url, 0, queryStart + 1);
+        int start = queryStart + 1;
+        while (start <= fragmentStart) {
+            int end = url.indexOf('&', start);
+            if (end == -1 || end > fragmentStart) {
+                end = fragmentStart;
+            }
+            final int separator = url.indexOf('=', start);
+            String template = null;
+            if (separator != -1 && separator < end) {
+                final String key = Uri.decode(url.substring(start, separator));
+                final String value = Uri.decode(url.substring(separator + 1, end));
+                if (BaseUrlGenerator.MOPUB_ID_KEY.equals(key) && !TextUtils.isEmpty(mopubId)
+                        && mopubId.equals(value)) {
+                    template = MOPUB_ID_TEMPLATE;
+                } else if (BaseUrlGenerator.IFA_KEY.equals(key) && !TextUtils.isEmpty(ifa)
+                        && ifa.equals(value)) {
+                    template = IFA_TEMPLATE;
+                }
+            }
+            if (template == null) {
+                builder.append(url, start, end);
+            } else {
+                builder.append(url, start, separator + 1).append(template);
+            }
+            if (end < fragmentStart) {
+                builder.append('&');
+            }
+            start = end + 1;
+        }
+        builder.append(url, fragmentStart, url.length());
+        return builder.toString();
+    }
 }
@@ -11,12 +11,14 @@ import android.text.TextUtils;
 
 import com.mopub.common.VisibleForTesting;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Singleton to cache ad request rate limit time interval and reason.
+ * Singleton to cache ad request rate limit time interval and reason. On top of the server's
+ * backoff, requests can be limited on the client with token buckets per ad unit and across all
+ * ad units. None of the checks take a lock.
  */
 public class RequestRateTracker {
 
@@ -37,8 +39,68 @@ public class RequestRateTracker {
         }
     }
 
+    /**
+     * Holds up to {@code capacity} tokens and gains one every {@code refillIntervalMs}. Rather
+     * than a token count and a refill time, which would have to change together, it keeps only
+     * the time at which it will be full again.
+     */
+    static class TokenBucket {
+        final int mCapacity;
+        final long mRefillIntervalMs;
+        @NonNull
+        private final AtomicLong mFullAt = new AtomicLong();
+
+        TokenBucket(final int capacity, final long refillIntervalMs) {
+            mCapacity = capacity;
+            mRefillIntervalMs = refillIntervalMs;
+        }
+
+        boolean tryAcquire(final long now) {
+            while (true) {
+                final long fullAt = mFullAt.get();
+                final long newFullAt = Math.max(fullAt, now) + mRefillIntervalMs;
+                if (newFullAt - now > mCapacity * mRefillIntervalMs) {
+                    return false;
+                }
+                if (mFullAt.compareAndSet(fullAt, newFullAt)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Gives back a token taken by {@link #tryAcquire(long)}.
+         */
+        void release() {
+            mFullAt.addAndGet(-mRefillIntervalMs);
+        }
+
+        int getAvailableTokens(final long now) {
+            final long missing = Math.max(0, mFullAt.get() - now);
+            return mCapacity - (int) ((missing + mRefillIntervalMs - 1) / mRefillIntervalMs);
+        }
+    }
+
+    @NonNull
+    private final ConcurrentHashMap<String, TimeRecord> mTimeRecordMap;
+    @NonNull
+    private final ConcurrentHashMap<String, TokenBucket> mAdUnitBuckets;
+    @Nullable
+    private volatile TokenBucket mGlobalBucket;
+    private volatile int mAdUnitBucketCapacity;
+    private volatile long mAdUnitBucketRefillIntervalMs;
+    private volatile int mMaxRefreshJitterMs;
     @NonNull
-    private Map<String, TimeRecord> mTimeRecordMap;
+    private final Random mRandom = new Random();
+
+    @NonNull
+    private final AtomicLong mAllowedCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong mBlockedByBackoffCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong mBlockedByAdUnitLimitCount = new AtomicLong();
+    @NonNull
+    private final AtomicLong mBlockedByGlobalLimitCount = new AtomicLong();
 
     private static class Helper {
         @NonNull
@@ -46,7 +108,8 @@ public class RequestRateTracker {
     }
 
     RequestRateTracker() {
-        mTimeRecordMap = Collections.synchronizedMap(new HashMap<String, TimeRecord>());
+        mTimeRecordMap = new ConcurrentHashMap<>();
+        mAdUnitBuckets = new ConcurrentHashMap<>();
     }
 
     @NonNull
@@ -54,6 +117,53 @@ public class RequestRateTracker {
         return Helper.sInstance;
     }
 
+    /**
+     * Limits each ad unit to bursts of {@code capacity} requests, refilled at one request every
+     * {@code refillIntervalMs}.
+     *
+     * @param capacity         maximum burst, or 0 to remove the limit
+     * @param refillIntervalMs time to regain one request
+     */
+    public void setAdUnitRequestLimit(final int capacity, final long refillIntervalMs) {
+        mAdUnitBucketCapacity = refillIntervalMs > 0 ? Math.max(capacity, 0) : 0;
+        mAdUnitBucketRefillIntervalMs = refillIntervalMs;
+        mAdUnitBuckets.clear();
+    }
+
+    /**
+     * Limits all ad units together to bursts of {@code capacity} requests, refilled at one
+     * request every {@code refillIntervalMs}.
+     *
+     * @param capacity         maximum burst, or 0 to remove the limit
+     * @param refillIntervalMs time to regain one request
+     */
+    public void setGlobalRequestLimit(final int capacity, final long refillIntervalMs) {
+        mGlobalBucket = capacity > 0 && refillIntervalMs > 0
+                ? new TokenBucket(capacity, refillIntervalMs)
+                : null;
+    }
+
+    /**
+     * Refresh timers are pushed back by a random delay of up to this value so that ad views
+     * created together don't keep requesting together.
+     *
+     * @param maxRefreshJitterMs maximum delay, or 0 to refresh exactly on time
+     */
+    public void setMaxRefreshJitterMs(final int maxRefreshJitterMs) {
+        mMaxRefreshJitterMs = Math.max(maxRefreshJitterMs, 0);
+    }
+
+    /**
+     * @return a random delay to add to the next refresh
+     */
+    public long getRefreshJitterMs() {
+        final int maxRefreshJitterMs = mMaxRefreshJitterMs;
+        if (maxRefreshJitterMs <= 0) {
+            return 0;
+        }
+        return mRandom.nextInt(maxRefreshJitterMs + 1);
+    }
+
     void registerRateLimit(@Nullable final String adUnit, @Nullable final Integer blockIntervalMs, @Nullable final String reason) {
         if (TextUtils.isEmpty(adUnit)) {
             return;
@@ -70,13 +180,79 @@ public class RequestRateTracker {
         return getTimeUntilLimitEnds(adUnitId) > 0;
     }
 
+    /**
+     * Checks the server's backoff and takes a token from the ad unit and global buckets.
+     *
+     * @return true if a request for this ad unit may be sent now
+     */
+    boolean tryAcquireRequest(@Nullable final String adUnitId) {
+        if (isBlockedByRateLimit(adUnitId)) {
+            mBlockedByBackoffCount.incrementAndGet();
+            return false;
+        }
+
+        final long now = currentTimeMs();
+        final TokenBucket adUnitBucket = getAdUnitBucket(adUnitId);
+        if (adUnitBucket != null && !adUnitBucket.tryAcquire(now)) {
+            mBlockedByAdUnitLimitCount.incrementAndGet();
+            return false;
+        }
+
+        final TokenBucket globalBucket = mGlobalBucket;
+        if (globalBucket != null && !globalBucket.tryAcquire(now)) {
+            if (adUnitBucket != null) {
+                adUnitBucket.release();
+            }
+            mBlockedByGlobalLimitCount.incrementAndGet();
+            return false;
+        }
+
+        mAllowedCount.incrementAndGet();
+        return true;
+    }
+
     @Nullable
     public TimeRecord getRecordForAdUnit(@Nullable final String adUnitId) {
+        if (adUnitId == null) {
+            return null;
+        }
         return mTimeRecordMap.get(adUnitId);
     }
 
+    public long getAllowedRequestCount() {
+        return mAllowedCount.get();
+    }
+
+    public long getBlockedByBackoffCount() {
+        return mBlockedByBackoffCount.get();
+    }
+
+    public long getBlockedByAdUnitLimitCount() {
+        return mBlockedByAdUnitLimitCount.get();
+    }
+
+    public long getBlockedByGlobalLimitCount() {
+        return mBlockedByGlobalLimitCount.get();
+    }
+
+    @Nullable
+    private TokenBucket getAdUnitBucket(@Nullable final String adUnitId) {
+        final int capacity = mAdUnitBucketCapacity;
+        if (capacity <= 0 || TextUtils.isEmpty(adUnitId)) {
+            return null;
+        }
+
+        final TokenBucket bucket = mAdUnitBuckets.get(adUnitId);
+        if (bucket != null) {
+            return bucket;
+        }
+        final TokenBucket newBucket = new TokenBucket(capacity, mAdUnitBucketRefillIntervalMs);
+        final TokenBucket existingBucket = mAdUnitBuckets.putIfAbsent(adUnitId, newBucket);
+        return existingBucket != null ? existingBucket : newBucket;
+    }
+
     private long getTimeUntilLimitEnds(@Nullable final String adUnitId) {
-        final TimeRecord record = mTimeRecordMap.get(adUnitId);
+        final TimeRecord record = getRecordForAdUnit(adUnitId);
         if (record == null) {
             return 0;
         }
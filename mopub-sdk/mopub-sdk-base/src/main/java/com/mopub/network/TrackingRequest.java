@@ -24,14 +24,15 @@ import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
 
 public class TrackingRequest extends MoPubRequest<String> {
 
-    // Retrying may cause duplicate impressions
+    // Retries are handled by TrackingRequestOutbox, which only retries failures where the
+    // endpoint did not answer, to avoid duplicate impressions
     private static final int ZERO_RETRIES = 0;
 
     public interface Listener extends MoPubResponse.Listener<String> {}
 
     @Nullable private final Listener mListener;
 
-    private TrackingRequest(
+    TrackingRequest(
             @NonNull final Context context,
             @NonNull final String url,
             @Nullable final Listener listener) {
@@ -73,6 +74,7 @@ public class TrackingRequest extends MoPubRequest<String> {
                     new MoPubNetworkError.Builder("Failed to log tracking request. Response code: "
                             + networkResponse.getStatusCode() + " for url: " + getUrl())
                             .reason(MoPubNetworkError.Reason.TRACKING_FAILURE)
+                            .networkResponse(networkResponse)
                             .build());
         }
         return MoPubResponse.success(Integer.toString(networkResponse.getStatusCode()), networkResponse);
@@ -97,7 +99,7 @@ public class TrackingRequest extends MoPubRequest<String> {
             @Nullable final Context context) {
         Preconditions.checkNotNull(vastTrackers);
 
-        List<String> trackers = new ArrayList<String>(vastTrackers.size());
+        List<VastTracker> trackers = new ArrayList<VastTracker>(vastTrackers.size());
         for (VastTracker vastTracker : vastTrackers) {
             if (vastTracker == null) {
                 continue;
@@ -105,12 +107,12 @@ public class TrackingRequest extends MoPubRequest<String> {
             if (vastTracker.isTracked() && !vastTracker.isRepeatable()) {
                 continue;
             }
-            trackers.add(vastTracker.getContent());
+            trackers.add(vastTracker);
             vastTracker.setTracked();
         }
 
         makeTrackingHttpRequest(
-                new VastMacroHelper(trackers)
+                VastMacroHelper.fromTrackers(trackers)
                         .withErrorCode(vastErrorCode)
                         .withContentPlayHead(contentPlayHead)
                         .withAssetUri(assetUri)
@@ -126,7 +128,7 @@ public class TrackingRequest extends MoPubRequest<String> {
             return;
         }
 
-        final MoPubRequestQueue requestQueue = Networking.getRequestQueue(context);
+        final TrackingRequestOutbox outbox = TrackingRequestOutbox.getInstance(context);
         for (final String url : urls) {
             if (TextUtils.isEmpty(url)) {
                 continue;
@@ -149,8 +151,7 @@ public class TrackingRequest extends MoPubRequest<String> {
                     }
                 }
             };
-            final TrackingRequest trackingRequest = new TrackingRequest(context, url, internalListener);
-            requestQueue.add(trackingRequest);
+            outbox.enqueue(url, internalListener);
         }
     }
 
@@ -0,0 +1,599 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mopub.common.Preconditions;
+import com.mopub.common.VisibleForTesting;
+import com.mopub.common.logging.MoPubLog;
+import com.mopub.common.util.DateAndTime;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM;
+import static com.mopub.common.logging.MoPubLog.SdkLogEvent.ERROR;
+
+/**
+ * Delivers tracking beacons on behalf of {@link TrackingRequest}. Beacons are recorded in an
+ * append-only log before they are sent, at most {@link #DEFAULT_MAX_CONCURRENT_REQUESTS} are in
+ * flight at once, and beacons that could not reach the endpoint at all are retried with exponential
+ * backoff until the beacon is older than {@link #MAX_AGE_MS}. Beacons still waiting to be sent when
+ * the process dies are sent the next time the outbox is created. Beacons that were being sent are
+ * dropped instead, since the endpoint may already have counted them.
+ *
+ * Beacons enqueued during the same main thread turn are sent by one drain and recorded by one log
+ * write. Log records are single lines: {@code +<id> <created millis> <url>} when a beacon is added,
+ * {@code ><id>} when a send starts, {@code <<id>} when a send fails before reaching the endpoint,
+ * and {@code -<id>} once it is delivered or dropped. Advertising and MoPub IDs in the url are
+ * written as the templates {@link PlayServicesUrlRewriter} fills in when the beacon is sent, so the
+ * log never holds them and a restored beacon follows the consent at the time it is sent. The log is
+ * rewritten with only the outstanding beacons once it is mostly made up of finished ones, and
+ * deleted once no beacons are outstanding.
+ */
+public class TrackingRequestOutbox {
+    @VisibleForTesting
+    static final String LOG_FILE_NAME = "mopub-tracking-outbox";
+    @VisibleForTesting
+    static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+    @VisibleForTesting
+    static final int MAX_ATTEMPTS = 5;
+    @VisibleForTesting
+    static final long MAX_AGE_MS = TimeUnit.HOURS.toMillis(6);
+    @VisibleForTesting
+    static final long INITIAL_BACKOFF_MS = TimeUnit.SECONDS.toMillis(5);
+    @VisibleForTesting
+    static final long MAX_BACKOFF_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final int COMPACTION_THRESHOLD = 256;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char ADDED = '+';
+    private static final char REMOVED = '-';
+    private static final char SENDING = '>';
+    private static final char UNSENT = '<';
+
+    private static volatile TrackingRequestOutbox sInstance;
+    private static int sMaxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+    private static class Entry {
+        @NonNull final String id;
+        @NonNull final String url;
+        final long createdAtMillis;
+        @Nullable final TrackingRequest.Listener listener;
+        int attempts;
+        boolean sending;
+
+        Entry(@NonNull final String id,
+                @NonNull final String url,
+                final long createdAtMillis,
+                @Nullable final TrackingRequest.Listener listener) {
+            this.id = id;
+            this.url = url;
+            this.createdAtMillis = createdAtMillis;
+            this.listener = listener;
+        }
+    }
+
+    @NonNull private final Context mContext;
+    @NonNull private final File mLogFile;
+    @NonNull private final Executor mDiskExecutor;
+    @NonNull private final Handler mRetryHandler;
+    private final int mMaxConcurrentRequests;
+
+    // Every beacon that has not been delivered or dropped, including in flight ones
+    @NonNull private final Map<String, Entry> mEntries = new LinkedHashMap<>();
+    @NonNull private final ArrayDeque<Entry> mReadyEntries = new ArrayDeque<>();
+    @NonNull private final StringBuilder mLogBuffer = new StringBuilder();
+    @NonNull private final String mSessionPrefix;
+    private long mNextId;
+    private int mInFlightCount;
+    private int mLogRecordCount;
+    private boolean mFlushScheduled;
+    private boolean mDrainScheduled;
+    private boolean mCompactionRequested;
+    private boolean mClosed;
+
+    private long mDeliveredCount;
+    private long mDroppedCount;
+    private long mTotalDeliveryLatencyMs;
+    private long mMaxDeliveryLatencyMs;
+
+    @NonNull
+    public static TrackingRequestOutbox getInstance(@NonNull final Context context) {
+        Preconditions.checkNotNull(context);
+
+        TrackingRequestOutbox outbox = sInstance;
+        if (outbox == null) {
+            synchronized (TrackingRequestOutbox.class) {
+                outbox = sInstance;
+                if (outbox == null) {
+                    final Context appContext = context.getApplicationContext();
+                    outbox = new TrackingRequestOutbox(appContext,
+                            new File(appContext.getFilesDir(), LOG_FILE_NAME),
+                            new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS,
+                                    new LinkedBlockingQueue<Runnable>()),
+                            sMaxConcurrentRequests);
+                    sInstance = outbox;
+                }
+            }
+        }
+        return outbox;
+    }
+
+    @VisibleForTesting
+    TrackingRequestOutbox(@NonNull final Context context,
+            @NonNull final File logFile,
+            @NonNull final Executor diskExecutor,
+            final int maxConcurrentRequests) {
+        mContext = context;
+        mLogFile = logFile;
+        mDiskExecutor = diskExecutor;
+        mRetryHandler = new Handler(Looper.getMainLooper());
+        mMaxConcurrentRequests = maxConcurrentRequests;
+        // Ids only need to be unique within the log, so each process gets its own prefix
+        mSessionPrefix = Long.toString(new Random().nextInt() & 0xffffffffL, 36) + ".";
+
+        mDiskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                restoreFromLog();
+            }
+        });
+    }
+
+    /**
+     * Records a beacon and sends it as soon as a request slot is free. Sending is deferred to the
+     * end of the current main thread turn so that beacons fired together go out together.
+     *
+     * @param url      The tracking url.
+     * @param listener Notified once the beacon is delivered, or once it is dropped after it
+     *                 could not be delivered.
+     */
+    public void enqueue(@NonNull final String url, @Nullable final TrackingRequest.Listener listener) {
+        Preconditions.checkNotNull(url);
+
+        synchronized (this) {
+            final Entry entry = new Entry(mSessionPrefix + Long.toString(mNextId++, 36), url,
+                    DateAndTime.now().getTime(), listener);
+            mEntries.put(entry.id, entry);
+            mReadyEntries.add(entry);
+            appendRecordLocked(addedRecord(entry));
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Drains on the main thread at the end of the current turn, unless a drain is already
+     * scheduled.
+     */
+    private void scheduleDrain() {
+        synchronized (this) {
+            if (mDrainScheduled) {
+                return;
+            }
+            mDrainScheduled = true;
+        }
+        mRetryHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (TrackingRequestOutbox.this) {
+                    mDrainScheduled = false;
+                }
+                drain();
+            }
+        });
+    }
+
+    /**
+     * @return The number of beacons that have not been delivered or dropped yet.
+     */
+    public synchronized int getQueueDepth() {
+        return mEntries.size();
+    }
+
+    public synchronized long getDeliveredCount() {
+        return mDeliveredCount;
+    }
+
+    /**
+     * @return The number of beacons given up on, either because they failed permanently, ran
+     * out of attempts, or were older than {@link #MAX_AGE_MS}.
+     */
+    public synchronized long getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    /**
+     * @return The mean time from enqueue to successful delivery, including any retries.
+     */
+    public synchronized long getAverageDeliveryLatencyMs() {
+        return mDeliveredCount == 0 ? 0 : mTotalDeliveryLatencyMs / mDeliveredCount;
+    }
+
+    public synchronized long getMaxDeliveryLatencyMs() {
+        return mMaxDeliveryLatencyMs;
+    }
+
+    private void drain() {
+        final List<Entry> toSend = new ArrayList<>();
+        synchronized (this) {
+            while (mInFlightCount < mMaxConcurrentRequests && !mReadyEntries.isEmpty()) {
+                final Entry entry = mReadyEntries.poll();
+                if (isExpired(entry)) {
+                    dropLocked(entry, "it expired");
+                    continue;
+                }
+                entry.attempts++;
+                entry.sending = true;
+                mInFlightCount++;
+                appendRecordLocked(sendingRecord(entry));
+                toSend.add(entry);
+            }
+        }
+
+        if (toSend.isEmpty()) {
+            return;
+        }
+        final MoPubRequestQueue requestQueue = Networking.getRequestQueue(mContext);
+        for (final Entry entry : toSend) {
+            requestQueue.add(new TrackingRequest(mContext, entry.url, new TrackingRequest.Listener() {
+                @Override
+                public void onResponse(@NonNull final String url) {
+                    onDelivered(entry);
+                }
+
+                @Override
+                public void onErrorResponse(@NonNull final MoPubNetworkError networkError) {
+                    onFailed(entry, networkError);
+                }
+            }));
+        }
+    }
+
+    private void onDelivered(@NonNull final Entry entry) {
+        synchronized (this) {
+            mInFlightCount--;
+            entry.sending = false;
+            if (mEntries.remove(entry.id) != null) {
+                final long latencyMs = Math.max(0, DateAndTime.now().getTime() - entry.createdAtMillis);
+                mDeliveredCount++;
+                mTotalDeliveryLatencyMs += latencyMs;
+                mMaxDeliveryLatencyMs = Math.max(mMaxDeliveryLatencyMs, latencyMs);
+                appendRecordLocked(removedRecord(entry));
+            }
+        }
+        if (entry.listener != null) {
+            entry.listener.onResponse(entry.url);
+        }
+        drain();
+    }
+
+    private void onFailed(@NonNull final Entry entry, @NonNull final MoPubNetworkError networkError) {
+        boolean dropped = false;
+        synchronized (this) {
+            mInFlightCount--;
+            entry.sending = false;
+            if (!isRetryable(networkError)) {
+                dropped = dropLocked(entry, "the server rejected it");
+            } else if (entry.attempts >= MAX_ATTEMPTS) {
+                dropped = dropLocked(entry, "it ran out of attempts");
+            } else {
+                // The endpoint never saw it, so it is safe to send again after a restart
+                if (mEntries.containsKey(entry.id)) {
+                    appendRecordLocked(unsentRecord(entry));
+                }
+                final long delayMs = getBackoffMs(entry.attempts);
+                MoPubLog.log(CUSTOM, "Retrying tracking request in " + delayMs + "ms: " + entry.url);
+                mRetryHandler.postDelayed(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (TrackingRequestOutbox.this) {
+                            mReadyEntries.add(entry);
+                        }
+                        drain();
+                    }
+                }, delayMs);
+            }
+        }
+        if (dropped && entry.listener != null) {
+            entry.listener.onErrorResponse(networkError);
+        }
+        drain();
+    }
+
+    private boolean dropLocked(@NonNull final Entry entry, @NonNull final String reason) {
+        if (mEntries.remove(entry.id) == null) {
+            return false;
+        }
+        mDroppedCount++;
+        appendRecordLocked(removedRecord(entry));
+        MoPubLog.log(CUSTOM, "Dropping tracking request because " + reason + ": " + entry.url);
+        return true;
+    }
+
+    private static boolean isExpired(@NonNull final Entry entry) {
+        return DateAndTime.now().getTime() - entry.createdAtMillis > MAX_AGE_MS;
+    }
+
+    /**
+     * Only failures to connect are retried, since the endpoint can't have seen those beacons. After
+     * a timeout, a dropped connection or any response, the beacon may already have counted, and
+     * sending it again could count it twice.
+     */
+    @VisibleForTesting
+    static boolean isRetryable(@NonNull final MoPubNetworkError networkError) {
+        if (networkError.getReason() != MoPubNetworkError.Reason.NO_CONNECTION) {
+            return false;
+        }
+        final Throwable cause = networkError.getCause();
+        return cause instanceof UnknownHostException
+                || cause instanceof ConnectException
+                || cause instanceof NoRouteToHostException;
+    }
+
+    @VisibleForTesting
+    static long getBackoffMs(final int attempts) {
+        final int shift = Math.min(Math.max(attempts - 1, 0), 16);
+        return Math.min(INITIAL_BACKOFF_MS << shift, MAX_BACKOFF_MS);
+    }
+
+    ///////////////////////////////////////////////////////////////
+    // Log handling, only run on the disk executor except for appendRecordLocked
+    ///////////////////////////////////////////////////////////////
+
+    @Nullable
+    private static String addedRecord(@NonNull final Entry entry) {
+        // A url with a line break would corrupt the log. Send it, but don't persist it.
+        if (entry.url.indexOf('\n') != -1 || entry.url.indexOf('\r') != -1) {
+            return null;
+        }
+        return ADDED + entry.id + ' ' + entry.createdAtMillis + ' '
+                + PlayServicesUrlRewriter.replaceIdentifiersWithTemplates(entry.url) + '\n';
+    }
+
+    @NonNull
+    private static String removedRecord(@NonNull final Entry entry) {
+        return REMOVED + entry.id + '\n';
+    }
+
+    @NonNull
+    private static String sendingRecord(@NonNull final Entry entry) {
+        return SENDING + entry.id + '\n';
+    }
+
+    @NonNull
+    private static String unsentRecord(@NonNull final Entry entry) {
+        return UNSENT + entry.id + '\n';
+    }
+
+    private void appendRecordLocked(@Nullable final String record) {
+        if (record == null) {
+            return;
+        }
+        mLogBuffer.append(record);
+        mLogRecordCount++;
+        scheduleFlushLocked();
+    }
+
+    private void scheduleFlushLocked() {
+        if (!mFlushScheduled) {
+            mFlushScheduled = true;
+            mDiskExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    flushLog();
+                }
+            });
+        }
+    }
+
+    private void flushLog() {
+        final String records;
+        final boolean rewrite;
+        synchronized (this) {
+            mFlushScheduled = false;
+            if (mClosed) {
+                return;
+            }
+            // A freshly restored log is always rewritten. Otherwise a small log is only worth
+            // rewriting when that empties it.
+            if (mCompactionRequested) {
+                rewrite = mLogRecordCount > mEntries.size();
+                mCompactionRequested = false;
+            } else {
+                rewrite = mLogRecordCount > 2 * mEntries.size()
+                        && (mLogRecordCount > COMPACTION_THRESHOLD || mEntries.isEmpty());
+            }
+            if (rewrite) {
+                // The outstanding entries fully describe the log, so pending records can go
+                final StringBuilder snapshot = new StringBuilder();
+                int recordCount = 0;
+                for (final Entry entry : mEntries.values()) {
+                    final String record = addedRecord(entry);
+                    if (record != null) {
+                        snapshot.append(record);
+                        recordCount++;
+                        if (entry.sending) {
+                            snapshot.append(sendingRecord(entry));
+                            recordCount++;
+                        }
+                    }
+                }
+                records = snapshot.toString();
+                mLogRecordCount = recordCount;
+            } else {
+                records = mLogBuffer.toString();
+            }
+            mLogBuffer.setLength(0);
+        }
+
+        if (rewrite && records.isEmpty()) {
+            if (mLogFile.exists() && !mLogFile.delete()) {
+                MoPubLog.log(ERROR, "Unable to delete tracking outbox log.");
+            }
+        } else if (rewrite) {
+            final File tempFile = new File(mLogFile.getPath() + ".tmp");
+            if (writeRecords(tempFile, records, false) && !tempFile.renameTo(mLogFile)) {
+                MoPubLog.log(ERROR, "Unable to replace tracking outbox log.");
+            }
+        } else if (!records.isEmpty()) {
+            writeRecords(mLogFile, records, true);
+        }
+    }
+
+    private static boolean writeRecords(@NonNull final File file,
+            @NonNull final String records,
+            final boolean append) {
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(file, append);
+            outputStream.write(records.getBytes(UTF_8));
+            return true;
+        } catch (IOException e) {
+            MoPubLog.log(ERROR, "Unable to write tracking outbox log.", e);
+            return false;
+        } finally {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (IOException e) {
+                    // Nothing to do
+                }
+            }
+        }
+    }
+
+    private void restoreFromLog() {
+        if (!mLogFile.exists()) {
+            return;
+        }
+
+        final Map<String, Entry> restored = new LinkedHashMap<>();
+        final Set<String> sendingIds = new HashSet<>();
+        int recordCount = 0;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(mLogFile), UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                recordCount++;
+                if (line.length() < 2) {
+                    continue;
+                }
+                final String recordId = line.substring(1);
+                if (line.charAt(0) == REMOVED) {
+                    restored.remove(recordId);
+                    sendingIds.remove(recordId);
+                    continue;
+                }
+                if (line.charAt(0) == SENDING) {
+                    if (restored.containsKey(recordId)) {
+                        sendingIds.add(recordId);
+                    }
+                    continue;
+                }
+                if (line.charAt(0) == UNSENT) {
+                    sendingIds.remove(recordId);
+                    continue;
+                }
+                final String[] parts = recordId.split(" ", 3);
+                if (line.charAt(0) != ADDED || parts.length != 3) {
+                    continue;
+                }
+                try {
+                    restored.put(parts[0],
+                            new Entry(parts[0], parts[2], Long.parseLong(parts[1]), null));
+                } catch (NumberFormatException e) {
+                    // A partially written record. Skip it.
+                }
+            }
+        } catch (IOException e) {
+            MoPubLog.log(ERROR, "Unable to read tracking outbox log.", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // Nothing to do
+                }
+            }
+        }
+
+        synchronized (this) {
+            mLogRecordCount += recordCount;
+            for (final Entry entry : restored.values()) {
+                if (mEntries.containsKey(entry.id)) {
+                    continue;
+                }
+                mEntries.put(entry.id, entry);
+                if (sendingIds.contains(entry.id)) {
+                    dropLocked(entry, "it was being sent when the process died");
+                } else if (isExpired(entry)) {
+                    dropLocked(entry, "it expired");
+                } else {
+                    mReadyEntries.add(entry);
+                }
+            }
+            if (!restored.isEmpty()) {
+                MoPubLog.log(CUSTOM, "Restored " + restored.size() + " tracking requests.");
+            }
+            if (recordCount > restored.size()) {
+                mCompactionRequested = true;
+                scheduleFlushLocked();
+            }
+        }
+        // Beacons are only ever sent from the main thread
+        scheduleDrain();
+    }
+
+    @Deprecated
+    @VisibleForTesting
+    public static void clearForTesting() {
+        final TrackingRequestOutbox outbox = sInstance;
+        if (outbox != null) {
+            synchronized (outbox) {
+                outbox.mClosed = true;
+                outbox.mLogBuffer.setLength(0);
+            }
+            outbox.mLogFile.delete();
+            new File(outbox.mLogFile.getPath() + ".tmp").delete();
+        }
+        sInstance = null;
+        sMaxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+    }
+
+    @Deprecated
+    @VisibleForTesting
+    public static void setMaxConcurrentRequestsForTesting(final int maxConcurrentRequests) {
+        sMaxConcurrentRequests = maxConcurrentRequests;
+    }
+}
@@ -0,0 +1,97 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.xmlpull.v1.XmlPullParserException
+
+@RunWith(RobolectricTestRunner::class)
+class VastXmlPullParserTest {
+
+    @Test
+    fun parse_withJustError_shouldReadErrorTracker() {
+        val document = VastXmlPullParser.parse(TEST_JUST_ERROR_XML_STRING)
+
+        assertThat(document.adXmlManagers).isEmpty()
+        assertThat(document.errorTracker!!.content)
+            .isEqualTo("https://justErrorTracking?errorcode=[ERRORCODE]")
+    }
+
+    @Test(expected = XmlPullParserException::class)
+    fun parse_withInvalidXml_shouldThrowXmlPullParserException() {
+        VastXmlPullParser.parse("this is not xml at all<<<")
+    }
+
+    @Test
+    fun parse_withTruncatedXml_shouldThrowXmlPullParserException() {
+        val xml = TEST_VAST_XML_STRING.substring(0, TEST_VAST_XML_STRING.length / 2)
+
+        try {
+            VastXmlPullParser.parse(xml)
+        } catch (e: XmlPullParserException) {
+            return
+        }
+        throw AssertionError("Expected an XmlPullParserException")
+    }
+
+    @Test
+    fun parse_shouldReadAdsInDocumentOrder() {
+        val document = VastXmlPullParser.parse(TEST_VAST_XML_STRING)
+
+        assertThat(document.adXmlManagers).hasSize(2)
+        assertThat(document.adXmlManagers[0].inLineXmlManager).isNotNull()
+        assertThat(document.adXmlManagers[1].sequence).isEqualTo("1")
+        assertThat(document.adXmlManagers[1].wrapperXmlManager!!.vastAdTagURI)
+            .isEqualTo("https://wrapper.example.com/vast.xml")
+    }
+
+    @Test
+    fun getDocumentStart_withXmlDeclaration_shouldSkipIt() {
+        val xml = "\uFEFF <?xml version=\"1.0\" encoding=\"UTF-8\"?><VAST/>"
+
+        assertThat(xml.substring(VastXmlPullParser.getDocumentStart(xml))).isEqualTo("<VAST/>")
+    }
+
+    @Test
+    fun getDocumentStart_withoutXmlDeclaration_shouldReturnZero() {
+        assertThat(VastXmlPullParser.getDocumentStart("<VAST/>")).isEqualTo(0)
+        assertThat(VastXmlPullParser.getDocumentStart("<?xml version=\"1.0\"")).isEqualTo(0)
+    }
+
+    companion object {
+        private const val TEST_JUST_ERROR_XML_STRING = "<VAST version='3.0'>" +
+                "<Error><![CDATA[https://justErrorTracking?errorcode=[ERRORCODE]]]></Error>" +
+                "</VAST>"
+
+        private const val TEST_VAST_XML_STRING = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<VAST version='3.0'>" +
+                "    <Ad id='1'>" +
+                "        <InLine>" +
+                "            <Impression><![CDATA[https://impression]]></Impression>" +
+                "            <Creatives>" +
+                "                <Creative>" +
+                "                    <Linear>" +
+                "                        <MediaFiles>" +
+                "                            <MediaFile width='640' height='360' type='video/mp4'>" +
+                "                                <![CDATA[https://video360.mp4]]>" +
+                "                            </MediaFile>" +
+                "                        </MediaFiles>" +
+                "                    </Linear>" +
+                "                </Creative>" +
+                "            </Creatives>" +
+                "        </InLine>" +
+                "    </Ad>" +
+                "    <Ad id='2' sequence='1'>" +
+                "        <Wrapper>" +
+                "            <VASTAdTagURI><![CDATA[https://wrapper.example.com/vast.xml]]></VASTAdTagURI>" +
+                "            <Impression><![CDATA[https://wrapperImpression]]></Impression>" +
+                "        </Wrapper>" +
+                "    </Ad>" +
+                "</VAST>"
+    }
+}
@@ -71,10 +71,14 @@ public class MoPubFullscreen extends BaseAd implements VastManager.VastManagerLi
     @Nullable
     private JSONObject mVideoTrackers;
     @Nullable
+    private String mPinnedVideoUrl;
+    @Nullable
     private Handler mHandler;
     @Nullable
     private Runnable mAdExpiration;
     private boolean mReady;
+    private boolean mShowing;
+    private boolean mVideoDownloadFailed;
 
     @Nullable
     @Override
@@ -293,15 +297,17 @@ public class MoPubFullscreen extends BaseAd implements VastManager.VastManagerLi
         MoPubLog.log(SHOW_ATTEMPTED, ADAPTER_NAME);
 
         if (!mReady || mContext == null) {
-            MoPubLog.log(SHOW_FAILED, ADAPTER_NAME,
-                    ADAPTER_CONFIGURATION_ERROR.getIntCode(),
-                    ADAPTER_CONFIGURATION_ERROR);
+            final MoPubErrorCode errorCode = mVideoDownloadFailed
+                    ? MoPubErrorCode.VIDEO_DOWNLOAD_ERROR
+                    : ADAPTER_CONFIGURATION_ERROR;
+            MoPubLog.log(SHOW_FAILED, ADAPTER_NAME, errorCode.getIntCode(), errorCode);
             if (mInteractionListener != null) {
-                mInteractionListener.onAdFailed(ADAPTER_CONFIGURATION_ERROR);
+                mInteractionListener.onAdFailed(errorCode);
             }
             return;
         }
 
+        mShowing = true;
         mBroadcastReceiver = new EventForwardingBroadcastReceiver(mInteractionListener, mBroadcastIdentifier);
         mBroadcastReceiver.register(mBroadcastReceiver, mContext);
         MoPubFullscreenActivity.start(mContext, mAdData);
@@ -312,7 +318,10 @@ public class MoPubFullscreen extends BaseAd implements VastManager.VastManagerLi
         if (mVastManager != null) {
             mVastManager.cancel();
         }
+        VideoCacheService.unpin(mPinnedVideoUrl);
+        mPinnedVideoUrl = null;
         markNotReady();
+        mShowing = false;
         mAdExpiration = null;
         mHandler = null;
         mLoadListener = null;
@@ -350,7 +359,12 @@ public class MoPubFullscreen extends BaseAd implements VastManager.VastManagerLi
             vastVideoConfig.setRewarded(true);
         }
 
-        mAdData.setVastVideoConfigString(vastVideoConfig.toJsonString());
+        mAdData.setVastVideoConfigByteArray(vastVideoConfig.toByteArray());
+
+        // VastManager pinned the video when it picked it. Keep it around until this ad is
+        // invalidated.
+        VideoCacheService.unpin(mPinnedVideoUrl);
+        mPinnedVideoUrl = mVastManager != null ? mVastManager.takePinnedVideoUrl() : null;
 
         if (mLoadListener != null) {
             mLoadListener.onAdLoaded();
@@ -359,6 +373,17 @@ public class MoPubFullscreen extends BaseAd implements VastManager.VastManagerLi
         markReady();
     }
 
+    @Override
+    public void onVastVideoDownloadFailed(@NonNull final VastVideoConfig vastVideoConfig) {
+        if (mShowing) {
+            // The player fails on its own if it reaches the missing bytes
+            return;
+        }
+        // The ad was already reported loaded, so the failure is reported when it is shown
+        mVideoDownloadFailed = true;
+        markNotReady();
+    }
+
     @VisibleForTesting
     void markReady() {
         mReady = true;
@@ -75,13 +75,20 @@ class RewardedAdsLoaders {
     void markFail(@NonNull final String adUnitId) {
         Preconditions.checkNotNull(adUnitId);
 
-        mAdUnitToAdLoader.remove(adUnitId);
+        removeAdLoader(adUnitId);
     }
 
     void markPlayed(@NonNull final String adUnitId) {
         Preconditions.checkNotNull(adUnitId);
 
-        mAdUnitToAdLoader.remove(adUnitId);
+        removeAdLoader(adUnitId);
+    }
+
+    private void removeAdLoader(@NonNull final String adUnitId) {
+        final AdLoaderRewardedAd adLoader = mAdUnitToAdLoader.remove(adUnitId);
+        if (adLoader != null) {
+            adLoader.destroy();
+        }
     }
 
     void onRewardedAdStarted(@NonNull String adUnitId, @NonNull Context context) {
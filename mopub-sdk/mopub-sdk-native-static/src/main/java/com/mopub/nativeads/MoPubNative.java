@@ -23,6 +23,7 @@ import com.mopub.network.AdResponse;
 import com.mopub.network.MoPubNetworkError;
 import com.mopub.network.MoPubNetworkResponse;
 import com.mopub.network.MoPubRequest;
+import com.mopub.network.MoPubRequestParams;
 
 import java.lang.ref.WeakReference;
 import java.util.Map;
@@ -132,7 +133,10 @@ public class MoPubNative {
             mNativeRequest.cancel();
             mNativeRequest = null;
         }
-        mAdLoader = null;
+        if (mAdLoader != null) {
+            mAdLoader.destroy();
+            mAdLoader = null;
+        }
 
         if (mNativeAd != null) {
             mNativeAd.destroy();
@@ -192,10 +196,16 @@ public class MoPubNative {
 
         final String endpointUrl = generator.generateUrlString(Constants.HOST);
 
-        requestNativeAd(endpointUrl, null);
+        requestNativeAd(endpointUrl, generator.getRequestParams(endpointUrl), null);
     }
 
     void requestNativeAd(@Nullable final String endpointUrl, @Nullable final NativeErrorCode errorCode) {
+        requestNativeAd(endpointUrl, null, errorCode);
+    }
+
+    private void requestNativeAd(@Nullable final String endpointUrl,
+            @Nullable final MoPubRequestParams requestParams,
+            @Nullable final NativeErrorCode errorCode) {
         final Context context = getContextOrDestroy();
         if (context == null) {
             return;
@@ -206,7 +216,8 @@ public class MoPubNative {
                 mMoPubNativeNetworkListener.onNativeFail(errorCode == null ? INVALID_REQUEST_URL : errorCode);
                 return;
             } else {
-                mAdLoader = new AdLoader(endpointUrl, AdFormat.NATIVE, mAdUnitId, context, moPubResponseListener);
+                mAdLoader = new AdLoader(endpointUrl, requestParams, AdFormat.NATIVE, mAdUnitId,
+                        context, moPubResponseListener);
             }
         }
         mNativeRequest = mAdLoader.loadNextAd(errorCode);
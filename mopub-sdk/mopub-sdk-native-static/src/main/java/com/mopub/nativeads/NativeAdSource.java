@@ -10,6 +10,7 @@ import android.os.SystemClock;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.mopub.common.MemoryTrimmer;
 import com.mopub.common.VisibleForTesting;
 
 import java.util.ArrayList;
@@ -34,12 +35,19 @@ import static com.mopub.nativeads.MoPubNative.MoPubNativeNetworkListener;
  *
  * This class is not thread safe and should only be called from the UI thread.
  */
-class NativeAdSource {
+class NativeAdSource implements MemoryTrimmer.Trimmable {
     /**
      * Number of ads to cache
      */
     private static final int CACHE_LIMIT = 1;
 
+    /**
+     * Native ads don't report how much memory they use. This is a rough size of one cached ad
+     * without its images, which are trimmed along with the image cache.
+     */
+    @VisibleForTesting static final long ESTIMATED_NATIVE_AD_BYTES = 16 * 1024;
+    private static final String MEMORY_TRIMMER_CACHE_NAME = "native-ads";
+
     private static final int EXPIRATION_TIME_MILLISECONDS = AD_EXPIRATION_DELAY;
     private static final int MAXIMUM_RETRY_TIME_MILLISECONDS = 5 * 60 * 1000; // 5 minutes.
     @VisibleForTesting static final int[] RETRY_TIME_ARRAY_MILLISECONDS = new int[]{1000, 3000, 5000, 25000, 60000, MAXIMUM_RETRY_TIME_MILLISECONDS};
@@ -136,6 +144,8 @@ class NativeAdSource {
 
         mSequenceNumber = 0;
         resetRetryTime();
+
+        MemoryTrimmer.addCache(MEMORY_TRIMMER_CACHE_NAME, this);
     }
 
     int getAdRendererCount() {
@@ -245,6 +255,19 @@ class NativeAdSource {
         return null;
     }
 
+    /**
+     * Destroys the oldest {@code fraction} of the queued ads. The cache is replenished on the next
+     * dequeue.
+     */
+    @Override
+    public long trimMemory(final float fraction) {
+        final int trimCount = MemoryTrimmer.getTrimCount(mNativeAdCache.size(), fraction);
+        for (int i = 0; i < trimCount; i++) {
+            mNativeAdCache.remove(0).mInstance.destroy();
+        }
+        return trimCount * ESTIMATED_NATIVE_AD_BYTES;
+    }
+
     @VisibleForTesting
     void updateRetryTime() {
         if (mCurrentRetries < RETRY_TIME_ARRAY_MILLISECONDS.length - 1) {
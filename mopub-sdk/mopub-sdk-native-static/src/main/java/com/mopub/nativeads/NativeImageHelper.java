@@ -118,6 +118,13 @@ public class NativeImageHelper {
         }
 
         final MoPubImageLoader mImageLoader = Networking.getImageLoader(imageView.getContext());
+        final int maxImageWidth = ImageUtils.getMaxImageWidth(imageView.getContext());
+        // Once laid out, decode only as many pixels as the view shows. An image already decoded
+        // by preCacheImages is shown as is rather than decoded again.
+        final boolean decodeToViewSize = imageView.getWidth() > 0 && imageView.getHeight() > 0
+                && !mImageLoader.isCached(url, maxImageWidth);
+        final int maxWidth = decodeToViewSize ? imageView.getWidth() : maxImageWidth;
+        final int maxHeight = decodeToViewSize ? imageView.getHeight() : 0;
         mImageLoader.fetch(url, new MoPubImageLoader.ImageListener() {
             @Override
             public void onResponse(@NonNull final MoPubImageLoader.ImageContainer imageContainer,
@@ -134,6 +141,6 @@ public class NativeImageHelper {
                 MoPubLog.log(CUSTOM, "Failed to load image.", networkError);
                 imageView.setImageDrawable(null);
             }
-        }, ImageUtils.getMaxImageWidth(imageView.getContext()));
+        }, maxWidth, maxHeight, decodeToViewSize ? imageView.getScaleType() : ImageView.ScaleType.CENTER_INSIDE);
     }
 }
@@ -17,8 +17,6 @@ import com.mopub.network.MoPubNetworkUtils;
 import com.mopub.network.MoPubRequest;
 import com.mopub.network.MoPubRequestUtils;
 import com.mopub.network.MoPubResponse;
-import com.mopub.network.MoPubUrlRewriter;
-import com.mopub.network.Networking;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -52,6 +50,10 @@ public class PositioningRequest extends MoPubRequest<MoPubClientPositioning> {
                 listener);
 
         mListener = listener;
+        // Ads can't be placed in the stream until positioning arrives
+        setRequestClass(RequestClass.AD);
+        // Placers sharing an ad unit ask for the same positioning
+        setShouldCoalesce(true);
     }
 
     @Override
@@ -153,12 +155,11 @@ public class PositioningRequest extends MoPubRequest<MoPubClientPositioning> {
     @Nullable
     @Override
     protected Map<String, String> getParams() {
-        MoPubUrlRewriter rewriter = Networking.getUrlRewriter();
-        if (!MoPubRequestUtils.isMoPubRequest(getUrl()) || rewriter == null) {
+        if (!MoPubRequestUtils.isMoPubRequest(getUrl())) {
             return null;
         }
 
-        return MoPubNetworkUtils.convertQueryToMap(rewriter.rewriteUrl(getOriginalUrl()));
+        return super.getParams();
     }
 
     @NonNull
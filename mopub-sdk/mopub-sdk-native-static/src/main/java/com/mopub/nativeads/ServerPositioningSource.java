@@ -17,6 +17,7 @@ import com.mopub.common.util.DeviceUtils;
 import com.mopub.mobileads.MoPubErrorCode;
 import com.mopub.nativeads.MoPubNativeAdPositioning.MoPubClientPositioning;
 import com.mopub.network.MoPubNetworkError;
+import com.mopub.network.MoPubRequestParams;
 import com.mopub.network.MoPubRequestQueue;
 import com.mopub.network.MoPubResponse;
 import com.mopub.network.Networking;
@@ -71,6 +72,7 @@ class ServerPositioningSource implements PositioningSource {
     @Nullable private PositioningListener mListener;
     private int mRetryCount;
     @Nullable private String mRetryUrl;
+    @Nullable private MoPubRequestParams mRetryParams;
     @Nullable private PositioningRequest mRequest;
 
     ServerPositioningSource(@NonNull final Context context) {
@@ -121,9 +123,10 @@ class ServerPositioningSource implements PositioningSource {
         }
 
         mListener = listener;
-        mRetryUrl = new PositioningUrlGenerator(mContext)
-                .withAdUnitId(adUnitId)
-                .generateUrlString(Constants.HOST);
+        final PositioningUrlGenerator urlGenerator = new PositioningUrlGenerator(mContext)
+                .withAdUnitId(adUnitId);
+        mRetryUrl = urlGenerator.generateUrlString(Constants.HOST);
+        mRetryParams = urlGenerator.getRequestParams(mRetryUrl);
         requestPositioningInternal();
     }
 
@@ -131,6 +134,7 @@ class ServerPositioningSource implements PositioningSource {
         MoPubLog.log(CUSTOM, "Loading positioning from: " + mRetryUrl);
 
         mRequest = new PositioningRequest(mContext, mRetryUrl, mPositioningListener);
+        mRequest.setRequestParams(mRetryParams);
         final MoPubRequestQueue requestQueue = Networking.getRequestQueue(mContext);
         requestQueue.add(mRequest);
     }
@@ -0,0 +1,95 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network
+
+import android.graphics.Bitmap
+
+import com.mopub.common.MemoryTrimmer
+
+import java.util.LinkedList
+
+/**
+ * Mutable bitmaps that image decoding can decode into with `BitmapFactory.Options.inBitmap`
+ * instead of allocating. Only bitmaps that were never handed out belong here: a bitmap that an
+ * [android.widget.ImageView] may still be drawing must not be reused.
+ *
+ * @param maxBytes How many bytes of bitmaps to keep. The oldest are recycled first.
+ */
+class BitmapPool(private val maxBytes: Int) : MemoryTrimmer.Trimmable {
+    private val bitmaps = LinkedList<Bitmap>()
+    private var size = 0
+
+    val sizeBytes: Int
+        @Synchronized get() = size
+
+    /**
+     * @return a bitmap large enough to decode a [width] by [height] image with [config] into, or
+     * null if there is none. The caller owns it until it is [put] back.
+     */
+    @Synchronized
+    fun get(width: Int, height: Int, config: Bitmap.Config): Bitmap? {
+        val neededBytes = width.toLong() * height * getBytesPerPixel(config)
+        var best: Bitmap? = null
+        for (bitmap in bitmaps) {
+            if (bitmap.allocationByteCount >= neededBytes
+                && (best == null || bitmap.allocationByteCount < best.allocationByteCount)) {
+                best = bitmap
+            }
+        }
+        best?.let {
+            bitmaps.remove(it)
+            size -= it.allocationByteCount
+        }
+        return best
+    }
+
+    /**
+     * Keeps [bitmap] for reuse, or recycles it if it can't be reused.
+     */
+    @Synchronized
+    fun put(bitmap: Bitmap) {
+        if (bitmap.isRecycled) {
+            return
+        }
+        if (!bitmap.isMutable || bitmap.allocationByteCount > maxBytes) {
+            bitmap.recycle()
+            return
+        }
+        bitmaps.addLast(bitmap)
+        size += bitmap.allocationByteCount
+        trimToSize(maxBytes)
+    }
+
+    @Synchronized
+    override fun trimMemory(fraction: Float): Long {
+        val sizeBefore = size
+        trimToSize((size * (1 - fraction)).toInt())
+        return (sizeBefore - size).toLong()
+    }
+
+    private fun trimToSize(targetBytes: Int) {
+        while (size > targetBytes) {
+            val oldest = bitmaps.removeFirst()
+            size -= oldest.allocationByteCount
+            oldest.recycle()
+        }
+    }
+
+    @Synchronized
+    fun clear() {
+        bitmaps.forEach { it.recycle() }
+        bitmaps.clear()
+        size = 0
+    }
+
+    companion object {
+        @JvmStatic
+        fun getBytesPerPixel(config: Bitmap.Config?) = when (config) {
+            Bitmap.Config.ALPHA_8 -> 1
+            Bitmap.Config.RGB_565, Bitmap.Config.ARGB_4444 -> 2
+            else -> 4
+        }
+    }
+}
@@ -5,6 +5,7 @@
 package com.mopub.network
 
 import android.net.SSLCertificateSocketFactory
+import android.net.SSLSessionCache
 import android.os.Build
 
 import com.mopub.common.VisibleForTesting
@@ -91,12 +92,18 @@ class CustomSSLSocketFactory private constructor() : SSLSocketFactory() {
                 if (autoClose) socketParam?.close()
                 csf.createSocket(InetAddressUtils.getInetAddressByName(host), port).also {
                     enableTlsIfAvailable(it)
+                    val timing = recordConnectTiming()
                     doManualServerNameIdentification(it, host)
+                    recordHandshakeTiming(timing, it)
                 }
             }
             else -> {
+                // The socket passed in is already connected. The certificate socket factory
+                // verifies the host name, which finishes the handshake, before it returns.
+                val timing = recordConnectTiming()
                 csf.createSocket(socketParam, host, port, autoClose).also {
                     enableTlsIfAvailable(it)
+                    recordHandshakeTiming(timing, it)
                 }
             }
         }
@@ -124,6 +131,26 @@ class CustomSSLSocketFactory private constructor() : SSLSocketFactory() {
         } ?: throw SocketException("SSLSocketFactory was null. Unable to create socket.")
     }
 
+    /**
+     * The TCP connection is up by the time it is layered with TLS, and the handshake follows. Only
+     * does anything while [MoPubRequestQueue] is timing the request on this thread.
+     *
+     * @return The timing of the request, or null if it isn't being timed.
+     */
+    private fun recordConnectTiming(): RequestTiming? {
+        return RequestTiming.current.get()?.also { it.connectEndAt = RequestTiming.now() }
+    }
+
+    /**
+     * Called on the requesting thread right after the handshake, rather than from a
+     * HandshakeCompletedListener, which may run on another thread after the request was reported.
+     */
+    private fun recordHandshakeTiming(timing: RequestTiming?, socket: Socket) {
+        if (timing != null && socket is SSLSocket) {
+            timing.tlsEndAt = RequestTiming.now()
+        }
+    }
+
     private fun enableTlsIfAvailable(socket: Socket?) {
         if (socket is SSLSocket) {
             val supportedProtocols = socket.supportedProtocols
@@ -135,10 +162,15 @@ class CustomSSLSocketFactory private constructor() : SSLSocketFactory() {
     }
 
     companion object {
+        /**
+         * @param sessionCache Persists TLS sessions so that they can be resumed after the process
+         * restarts. Sessions are only kept in memory, for the lifetime of this factory, when null.
+         */
         @JvmStatic
-        fun getDefault(handshakeTimeoutMillis: Int): CustomSSLSocketFactory {
+        @JvmOverloads
+        fun getDefault(handshakeTimeoutMillis: Int, sessionCache: SSLSessionCache? = null): CustomSSLSocketFactory {
             val factory = CustomSSLSocketFactory()
-            factory.certificateSocketFactory = SSLCertificateSocketFactory.getDefault(handshakeTimeoutMillis, null)
+            factory.certificateSocketFactory = SSLCertificateSocketFactory.getDefault(handshakeTimeoutMillis, sessionCache)
 
             return factory
         }
@@ -9,14 +9,23 @@ import android.widget.ImageView.ScaleType
 
 import com.mopub.common.Mockable
 import com.mopub.network.MoPubNetworkError.Companion.volleyErrorToMoPubNetworkError
+import com.mopub.volley.Request
+import com.mopub.volley.Response
 import com.mopub.volley.VolleyError
 import com.mopub.volley.toolbox.ImageLoader
 
 /**
  * Custom implementation of Volley's ImageLoader
+ *
+ * Images are kept decoded in [cache] and encoded in the request queue's disk cache, and decoded
+ * through [MoPubImageRequest] with reuse from [bitmapPool].
  */
 @Mockable
-class MoPubImageLoader(queue: MoPubRequestQueue?, cache: ImageCache)  {
+class MoPubImageLoader @JvmOverloads constructor(
+    queue: MoPubRequestQueue?,
+    cache: ImageCache,
+    bitmapPool: BitmapPool? = null
+) {
     private val volleyImageLoader: ImageLoader
     private lateinit var volleyImageListener: ImageLoader.ImageListener
 
@@ -35,9 +44,40 @@ class MoPubImageLoader(queue: MoPubRequestQueue?, cache: ImageCache)  {
             }
         }
 
-        volleyImageLoader = object : ImageLoader(queue?.getVolleyRequestQueue(), volleyImageCache) {}
+        volleyImageLoader = object : ImageLoader(queue?.imageLoaderQueue, volleyImageCache) {
+            override fun makeImageRequest(
+                requestUrl: String,
+                maxWidth: Int,
+                maxHeight: Int,
+                scaleType: ScaleType,
+                cacheKey: String
+            ): Request<Bitmap> {
+                return MoPubImageRequest(
+                    requestUrl,
+                    Response.Listener { onGetImageSuccess(cacheKey, it) },
+                    maxWidth,
+                    maxHeight,
+                    scaleType,
+                    Bitmap.Config.RGB_565,
+                    bitmapPool,
+                    Response.ErrorListener { onGetImageError(cacheKey, it) }
+                )
+            }
+        }
     }
 
+    /**
+     * @return true if [requestUrl] at this size is decoded in memory, so that [fetch] would
+     * respond immediately.
+     */
+    @JvmOverloads
+    fun isCached(
+        requestUrl: String,
+        maxWidth: Int = 0,
+        maxHeight: Int = 0,
+        scaleType: ScaleType = ScaleType.CENTER_INSIDE
+    ) = volleyImageLoader.isCached(requestUrl, maxWidth, maxHeight, scaleType)
+
     @JvmOverloads
     fun fetch(
         requestUrl: String?,
@@ -0,0 +1,255 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.widget.ImageView.ScaleType
+
+import com.mopub.common.VisibleForTesting
+import com.mopub.common.logging.MoPubLog
+import com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM
+import com.mopub.volley.Cache
+import com.mopub.volley.NetworkResponse
+import com.mopub.volley.ParseError
+import com.mopub.volley.Response
+import com.mopub.volley.toolbox.HttpHeaderParser
+import com.mopub.volley.toolbox.ImageRequest
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Image request that keeps the encoded image in the disk cache and decodes only as many pixels as
+ * the target needs.
+ *
+ * Images are fetched once per ad and rarely come with cache headers, so a response without any is
+ * kept on disk for [IMAGE_CACHE_TTL_MILLIS]. An image shown again after it has been evicted from
+ * memory is then decoded from disk instead of downloaded. Responses that forbid caching still
+ * aren't cached.
+ *
+ * Decoding subsamples to the nearest power of two above the target size first, into a bitmap from
+ * [bitmapPool] when there is one, and only then scales to the target size. The subsampled bitmap is
+ * never handed out, so it goes back to the pool afterwards.
+ *
+ * Like a [MoPubRequest], it records its wait for a network dispatcher and collects a
+ * [RequestTiming].
+ */
+internal class MoPubImageRequest(
+    url: String,
+    listener: Response.Listener<Bitmap>,
+    private val maxWidth: Int,
+    private val maxHeight: Int,
+    private val scaleType: ScaleType,
+    private val decodeConfig: Bitmap.Config,
+    private val bitmapPool: BitmapPool?,
+    errorListener: Response.ErrorListener
+) : ImageRequest(url, listener, maxWidth, maxHeight, scaleType, decodeConfig, errorListener),
+        MoPubRequestQueue.QueueWaitTimed, MoPubRequestQueue.Timed {
+
+    companion object {
+        @VisibleForTesting
+        val IMAGE_CACHE_TTL_MILLIS = TimeUnit.DAYS.toMillis(1)
+
+        /**
+         * Decoding allocates a lot; decoding one image at a time keeps it from running out of
+         * memory when several images arrive at once.
+         */
+        private val DECODE_LOCK = Any()
+
+        /**
+         * @return the cache entry for [response], kept for [IMAGE_CACHE_TTL_MILLIS] if its headers
+         * don't say how long to keep it.
+         */
+        @VisibleForTesting
+        @JvmStatic
+        fun parseImageCacheHeaders(
+            response: NetworkResponse,
+            nowMillis: Long = System.currentTimeMillis()
+        ): Cache.Entry? {
+            val entry = HttpHeaderParser.parseCacheHeaders(response) ?: return null
+            if (entry.ttl <= nowMillis) {
+                entry.ttl = nowMillis + IMAGE_CACHE_TTL_MILLIS
+                entry.softTtl = entry.ttl
+            }
+            return entry
+        }
+
+        /**
+         * Same as Volley's: the largest power of two that keeps the image at least as large as the
+         * desired size.
+         */
+        @VisibleForTesting
+        @JvmStatic
+        fun findBestSampleSize(
+            actualWidth: Int,
+            actualHeight: Int,
+            desiredWidth: Int,
+            desiredHeight: Int
+        ): Int {
+            val ratio = minOf(
+                actualWidth.toDouble() / desiredWidth,
+                actualHeight.toDouble() / desiredHeight
+            )
+            var sampleSize = 1
+            while (sampleSize * 2 <= ratio) {
+                sampleSize *= 2
+            }
+            return sampleSize
+        }
+
+        /**
+         * Same as Volley's: the size of the primary dimension that keeps the aspect ratio within
+         * the maximum size.
+         */
+        @VisibleForTesting
+        @JvmStatic
+        fun getResizedDimension(
+            maxPrimary: Int,
+            maxSecondary: Int,
+            actualPrimary: Int,
+            actualSecondary: Int,
+            scaleType: ScaleType
+        ): Int {
+            if (maxPrimary == 0 && maxSecondary == 0) {
+                return actualPrimary
+            }
+            if (scaleType == ScaleType.FIT_XY) {
+                return if (maxPrimary == 0) actualPrimary else maxPrimary
+            }
+            if (maxPrimary == 0) {
+                val ratio = maxSecondary.toDouble() / actualSecondary
+                return (actualPrimary * ratio).toInt()
+            }
+            if (maxSecondary == 0) {
+                return maxPrimary
+            }
+            val ratio = actualSecondary.toDouble() / actualPrimary
+            var resized = maxPrimary
+            if (scaleType == ScaleType.CENTER_CROP) {
+                if (resized * ratio < maxSecondary) {
+                    resized = (maxSecondary / ratio).toInt()
+                }
+                return resized
+            }
+            if (resized * ratio > maxSecondary) {
+                resized = (maxSecondary / ratio).toInt()
+            }
+            return resized
+        }
+
+        private fun divideRoundingUp(dividend: Int, divisor: Int) = (dividend + divisor - 1) / divisor
+    }
+
+    private var queueWaitStats: MoPubRequestQueue.QueueWaitStats? = null
+
+    override val timing = RequestTiming()
+
+    override fun onEnqueued(stats: MoPubRequestQueue.QueueWaitStats) {
+        queueWaitStats = stats
+        timing.requestClass = MoPubRequest.RequestClass.IMAGE
+        timing.url = url
+        timing.enqueuedAt = RequestTiming.now()
+    }
+
+    override fun addMarker(tag: String?) {
+        super.addMarker(tag)
+        if (tag == MoPubRequest.NETWORK_QUEUE_TAKE_MARKER) {
+            timing.networkTakeAt = RequestTiming.now()
+            queueWaitStats?.record(timing.networkTakeAt - timing.enqueuedAt)
+        }
+    }
+
+    override fun parseNetworkResponse(response: NetworkResponse): Response<Bitmap> {
+        timing.parseStartAt = RequestTiming.now()
+        try {
+            return decodeResponse(response)
+        } finally {
+            timing.parseEndAt = RequestTiming.now()
+        }
+    }
+
+    private fun decodeResponse(response: NetworkResponse): Response<Bitmap> {
+        synchronized(DECODE_LOCK) {
+            return try {
+                val bitmap = decode(response.data)
+                if (bitmap == null) {
+                    Response.error(ParseError(response))
+                } else {
+                    Response.success(bitmap, parseImageCacheHeaders(response))
+                }
+            } catch (e: OutOfMemoryError) {
+                MoPubLog.log(CUSTOM, "Caught OOM decoding ${response.data.size} bytes from $url")
+                Response.error(ParseError(e))
+            }
+        }
+    }
+
+    private fun decode(data: ByteArray): Bitmap? {
+        val options = BitmapFactory.Options()
+        options.inPreferredConfig = decodeConfig
+        if (maxWidth == 0 && maxHeight == 0) {
+            return BitmapFactory.decodeByteArray(data, 0, data.size, options)
+        }
+
+        options.inJustDecodeBounds = true
+        BitmapFactory.decodeByteArray(data, 0, data.size, options)
+        val actualWidth = options.outWidth
+        val actualHeight = options.outHeight
+        if (actualWidth <= 0 || actualHeight <= 0) {
+            return null
+        }
+        val desiredWidth = getResizedDimension(maxWidth, maxHeight, actualWidth, actualHeight, scaleType)
+        val desiredHeight = getResizedDimension(maxHeight, maxWidth, actualHeight, actualWidth, scaleType)
+
+        options.inJustDecodeBounds = false
+        options.inSampleSize = findBestSampleSize(actualWidth, actualHeight, desiredWidth, desiredHeight)
+        val sampledWidth = divideRoundingUp(actualWidth, options.inSampleSize)
+        val sampledHeight = divideRoundingUp(actualHeight, options.inSampleSize)
+        // Only a bitmap that will be scaled afterwards is never handed out and can be pooled
+        val willScale = sampledWidth > desiredWidth || sampledHeight > desiredHeight
+        if (bitmapPool != null && willScale) {
+            options.inMutable = true
+            options.inBitmap = bitmapPool.get(sampledWidth, sampledHeight, decodeConfig)
+        }
+
+        val sampledBitmap = decodeIntoPooledBitmap(data, options) ?: return null
+        if (sampledBitmap.width > desiredWidth || sampledBitmap.height > desiredHeight) {
+            val bitmap = Bitmap.createScaledBitmap(sampledBitmap, desiredWidth, desiredHeight, true)
+            recycleSampledBitmap(sampledBitmap)
+            return bitmap
+        }
+        if (options.inBitmap != null) {
+            // Decoded into a pooled bitmap but came out the desired size after all
+            val bitmap = sampledBitmap.copy(sampledBitmap.config, false)
+            recycleSampledBitmap(sampledBitmap)
+            return bitmap
+        }
+        return sampledBitmap
+    }
+
+    private fun decodeIntoPooledBitmap(data: ByteArray, options: BitmapFactory.Options): Bitmap? {
+        val pooledBitmap = options.inBitmap ?: return BitmapFactory.decodeByteArray(data, 0, data.size, options)
+        return try {
+            BitmapFactory.decodeByteArray(data, 0, data.size, options).also {
+                if (it == null) {
+                    bitmapPool?.put(pooledBitmap)
+                }
+            }
+        } catch (e: IllegalArgumentException) {
+            // The pooled bitmap couldn't be reused for this image
+            options.inBitmap = null
+            bitmapPool?.put(pooledBitmap)
+            BitmapFactory.decodeByteArray(data, 0, data.size, options)
+        }
+    }
+
+    private fun recycleSampledBitmap(bitmap: Bitmap) {
+        if (bitmapPool != null) {
+            bitmapPool.put(bitmap)
+        } else {
+            bitmap.recycle()
+        }
+    }
+}
@@ -0,0 +1,104 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network
+
+import android.os.SystemClock
+
+/**
+ * Where the time went for a single request, in milliseconds. A phase is null when the request
+ * never went through it, such as connect and TLS when a pooled connection was reused, or
+ * every network phase when the response came from the cache.
+ */
+data class MoPubNetworkTiming(
+    val requestClass: MoPubRequest.RequestClass,
+    val adUnitId: String?,
+    val url: String,
+    /**
+     * From adding the request to a network dispatcher taking it.
+     */
+    val queueWaitMs: Long?,
+    /**
+     * DNS lookup and TCP connect, measured up to the point the TLS layer is added to the socket.
+     * The connection resolves the host itself, so the lookup can't be timed on its own.
+     */
+    val connectMs: Long?,
+    val tlsHandshakeMs: Long?,
+    /**
+     * From the connection being ready to the response headers arriving.
+     */
+    val timeToFirstByteMs: Long?,
+    val downloadMs: Long?,
+    val parseMs: Long?,
+    /**
+     * From adding the request to it finishing, whether it succeeded, failed or was cancelled.
+     */
+    val totalMs: Long,
+    /**
+     * True when the request joined an identical request in flight and received its response
+     * instead of being sent. Only [totalMs] is set then.
+     */
+    val coalesced: Boolean = false
+) {
+
+    interface Listener {
+        /**
+         * Called once for every request that finishes, on whichever thread finished it.
+         */
+        fun onNetworkTiming(timing: MoPubNetworkTiming)
+    }
+}
+
+/**
+ * Timestamps collected while a request moves through the queue and the network stack. They are
+ * written on the thread that adds the request and then on the dispatcher thread.
+ */
+internal class RequestTiming {
+    @Volatile var requestClass = MoPubRequest.RequestClass.BACKGROUND
+    @Volatile var adUnitId: String? = null
+    @Volatile var url = ""
+    @Volatile var coalesced = false
+
+    @Volatile var enqueuedAt = 0L
+    @Volatile var networkTakeAt = 0L
+    @Volatile var executeStartAt = 0L
+    @Volatile var connectEndAt = 0L
+    @Volatile var tlsEndAt = 0L
+    @Volatile var headersAt = 0L
+    @Volatile var parseStartAt = 0L
+    @Volatile var parseEndAt = 0L
+
+    fun toNetworkTiming(finishedAt: Long): MoPubNetworkTiming {
+        val connectionReadyAt = maxOf(executeStartAt, connectEndAt, tlsEndAt)
+        return MoPubNetworkTiming(
+            requestClass = requestClass,
+            adUnitId = adUnitId,
+            url = url,
+            queueWaitMs = between(enqueuedAt, networkTakeAt),
+            connectMs = between(executeStartAt, connectEndAt),
+            tlsHandshakeMs = between(connectEndAt, tlsEndAt),
+            timeToFirstByteMs = between(connectionReadyAt, headersAt),
+            downloadMs = between(headersAt, parseStartAt),
+            parseMs = between(parseStartAt, parseEndAt),
+            totalMs = (finishedAt - enqueuedAt).coerceAtLeast(0),
+            coalesced = coalesced
+        )
+    }
+
+    private fun between(start: Long, end: Long): Long? {
+        return if (start == 0L || end == 0L) null else (end - start).coerceAtLeast(0)
+    }
+
+    companion object {
+        /**
+         * The timing of the request the current dispatcher thread is executing, so that the
+         * socket factory can attribute connect and TLS time to it.
+         */
+        @JvmField
+        val current = ThreadLocal<RequestTiming?>()
+
+        @JvmStatic
+        fun now() = SystemClock.elapsedRealtime()
+    }
+}
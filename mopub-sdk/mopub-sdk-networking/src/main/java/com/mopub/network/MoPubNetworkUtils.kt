@@ -7,9 +7,6 @@ package com.mopub.network
 import android.net.Uri
 import android.text.TextUtils
 
-import com.mopub.common.logging.MoPubLog
-
-import org.json.JSONException
 import org.json.JSONObject
 
 /**
@@ -39,10 +36,13 @@ object MoPubNetworkUtils {
         return DEFAULT_CONTENT_CHARSET
     }
 
+    /**
+     * Parses the query of a URL in a single pass. Produces the same values as
+     * [Uri.getQueryParameters] joined with commas, without building a [Uri].
+     */
     @JvmStatic
     fun convertQueryToMap(url: String): Map<String, String> {
-        val uri = Uri.parse(url)
-        return getQueryParamMap(uri)
+        return MoPubRequestParams.fromUrl(url).toMap()
     }
 
     @JvmStatic
@@ -61,16 +61,22 @@ object MoPubNetworkUtils {
             return null
         }
 
-        val jsonBody = JSONObject()
-
-        for (queryName in params.keys) {
-            try {
-                jsonBody.put(queryName, params[queryName])
-            } catch (e: JSONException) {
-                MoPubLog.log(MoPubLog.SdkLogEvent.CUSTOM, "Unable to add $queryName to JSON body.")
+        // Written directly instead of through a JSONObject
+        val builder = StringBuilder(params.size * 32)
+        builder.append('{')
+        for (entry in params.entries) {
+            // Maps coming from Java may still hold nulls, which JSONObject.put would drop
+            val key: String? = entry.key
+            val value: String? = entry.value
+            if (key == null || value == null) {
+                continue
             }
+            if (builder.length > 1) {
+                builder.append(',')
+            }
+            builder.append(JSONObject.quote(key)).append(':').append(JSONObject.quote(value))
         }
-
-        return jsonBody.toString()
+        builder.append('}')
+        return builder.toString()
     }
 }
@@ -32,6 +32,32 @@ abstract class MoPubRequest<T: Any>(val context: Context,
         POST
     }
 
+    /**
+     * Decides which dispatcher pool of [MoPubRequestQueue] runs the request, so that background
+     * traffic can't hold up ad requests.
+     */
+    enum class RequestClass(internal val defaultPriority: Priority) {
+        /**
+         * Requests an ad is waiting on, such as ad and positioning requests.
+         */
+        AD(Priority.HIGH),
+        IMAGE(Priority.NORMAL),
+        /**
+         * Tracking, consent and other requests nothing on screen is waiting on.
+         */
+        BACKGROUND(Priority.LOW)
+    }
+
+    /**
+     * Order in which requests of the same [RequestClass] are dispatched.
+     */
+    enum class Priority {
+        LOW,
+        NORMAL,
+        HIGH,
+        IMMEDIATE
+    }
+
     private var volleyRequest : VolleyRequest<T>
 
     var shouldCache : Boolean = false
@@ -50,7 +76,40 @@ abstract class MoPubRequest<T: Any>(val context: Context,
             )
         }
 
+    var requestClass: RequestClass = RequestClass.BACKGROUND
+
+    /**
+     * Overrides the default priority of the [requestClass] when set.
+     */
+    var priority: Priority? = null
+
+    /**
+     * Set on requests without side effects, such as fetching a document. While such a request is
+     * in flight, [MoPubRequestQueue] answers identical requests with its response instead of
+     * sending them. Never set this on tracking requests, where each send counts.
+     */
+    var shouldCoalesce: Boolean = false
+
+    /**
+     * Tags network timings of this request, if it is made on behalf of an ad unit.
+     */
+    var adUnitId: String? = null
+
+    /**
+     * The parameters [originalUrl] was generated from. When set, they are sent instead of the ones
+     * parsed from [originalUrl].
+     */
+    var requestParams: MoPubRequestParams? = null
+
+    internal var coalescer: MoPubRequestQueue.InFlightRequests? = null
+
+    internal val timing = RequestTiming()
+
+    private var queueWaitStats: MoPubRequestQueue.QueueWaitStats? = null
+
     companion object {
+        internal const val NETWORK_QUEUE_TAKE_MARKER = "network-queue-take"
+
         const val JSON_CONTENT_TYPE = "application/json; charset=UTF-8"
         const val DEFAULT_CONTENT_TYPE = "application/x-www-form-urlencoded; charset=UTF-8"
     }
@@ -60,20 +119,39 @@ abstract class MoPubRequest<T: Any>(val context: Context,
         val volleyErrorListener = Response.ErrorListener { volleyError ->
             val moPubNetworkError = volleyErrorToMoPubNetworkError(volleyError)
             moPubListener?.onErrorResponse(moPubNetworkError)
+            coalescer?.let { inFlightRequests ->
+                inFlightRequests.takeFollowers(this)?.forEach {
+                    it.moPubListener?.onErrorResponse(moPubNetworkError)
+                    inFlightRequests.onFollowerFinished(it)
+                }
+            }
         }
 
-        volleyRequest = object : VolleyRequest<T>(context, method, truncatedUrl, volleyErrorListener) {
+        volleyRequest = object : VolleyRequest<T>(context, method, truncatedUrl, volleyErrorListener),
+                MoPubRequestQueue.QueueWaitTimed {
             override fun parseNetworkResponse(networkResponse: NetworkResponse?): Response<T>? {
                 // convert Volley NetworkResponse to MoPubNetworkResponse
                 var moPubNetworkResponse: MoPubNetworkResponse? = null
                 networkResponse?.let {
                     moPubNetworkResponse = MoPubNetworkResponse(it.statusCode, it.data, it.headers)
                 }
-                return this@MoPubRequest.parseNetworkResponse(moPubNetworkResponse)?.getVolleyResponse()
+                val requestTiming = this@MoPubRequest.timing
+                requestTiming.parseStartAt = RequestTiming.now()
+                try {
+                    return this@MoPubRequest.parseNetworkResponse(moPubNetworkResponse)?.getVolleyResponse()
+                } finally {
+                    requestTiming.parseEndAt = RequestTiming.now()
+                }
             }
 
             override fun deliverResponse(response: T) {
-                return this@MoPubRequest.deliverResponse(response)
+                this@MoPubRequest.deliverResponse(response)
+                coalescer?.let { inFlightRequests ->
+                    inFlightRequests.takeFollowers(this@MoPubRequest)?.forEach {
+                        it.deliverResponse(response)
+                        inFlightRequests.onFollowerFinished(it)
+                    }
+                }
             }
 
             override fun getParams(): Map<String, String>? {
@@ -87,7 +165,26 @@ abstract class MoPubRequest<T: Any>(val context: Context,
             override fun getBodyContentType(): String {
                 return this@MoPubRequest.getBodyContentType()
             }
+
+            override fun getPriority(): Request.Priority {
+                return this@MoPubRequest.getVolleyPriority()
+            }
+
+            override fun addMarker(tag: String?) {
+                super.addMarker(tag)
+                // Volley marks the moment a network dispatcher picks the request up
+                if (tag == NETWORK_QUEUE_TAKE_MARKER) {
+                    val requestTiming = this@MoPubRequest.timing
+                    requestTiming.networkTakeAt = RequestTiming.now()
+                    queueWaitStats?.record(requestTiming.networkTakeAt - requestTiming.enqueuedAt)
+                }
+            }
+
+            override fun onEnqueued(stats: MoPubRequestQueue.QueueWaitStats) {
+                this@MoPubRequest.onEnqueued(stats)
+            }
         }
+        volleyRequest.timing = timing
     }
 
     protected fun parseStringBody(response: MoPubNetworkResponse): String {
@@ -119,11 +216,48 @@ abstract class MoPubRequest<T: Any>(val context: Context,
         return volleyRequest
     }
 
+    /**
+     * Identifies requests that can share a response. Requests of different types never match
+     * since their responses are parsed differently.
+     */
+    internal fun getCoalescingKey() = "${javaClass.name} $method $originalUrl"
+
+    internal fun getVolleyPriority() : Request.Priority {
+        return when (priority ?: requestClass.defaultPriority) {
+            Priority.LOW -> Request.Priority.LOW
+            Priority.NORMAL -> Request.Priority.NORMAL
+            Priority.HIGH -> Request.Priority.HIGH
+            Priority.IMMEDIATE -> Request.Priority.IMMEDIATE
+        }
+    }
+
+    internal fun onEnqueued(stats: MoPubRequestQueue.QueueWaitStats) {
+        queueWaitStats = stats
+        startTiming(coalesced = false)
+    }
+
+    /**
+     * Called instead of [onEnqueued] when the request joins an identical one in flight.
+     */
+    internal fun onCoalesced() {
+        startTiming(coalesced = true)
+    }
+
+    private fun startTiming(coalesced: Boolean) {
+        timing.requestClass = requestClass
+        timing.adUnitId = adUnitId
+        timing.url = originalUrl
+        timing.coalesced = coalesced
+        timing.enqueuedAt = RequestTiming.now()
+    }
+
     protected open fun getParams() : Map<String, String>? {
         // Checks for isMoPubRequest are moved out of the networking module
-        return Networking.urlRewriter?.let {
-            MoPubNetworkUtils.convertQueryToMap(it.rewriteUrl(originalUrl))
-        }
+        val urlRewriter = Networking.urlRewriter ?: return null
+        // Rewritten on a copy, since templates are filled in again on every attempt
+        val params = requestParams?.copy() ?: MoPubRequestParams.fromUrl(originalUrl)
+        urlRewriter.rewriteParams(params)
+        return params.toMap()
     }
 
     open fun getBody() : ByteArray? {
@@ -146,7 +280,9 @@ abstract class MoPubRequest<T: Any>(val context: Context,
         method: MoPubRequest.Method,
         url: String,
         listener: Response.ErrorListener?
-    ) : Request<T>(getVolleyMethod(method), url, listener) {
+    ) : Request<T>(getVolleyMethod(method), url, listener), MoPubRequestQueue.Timed {
+
+        override var timing: RequestTiming? = null
 
         companion object {
             @JvmStatic
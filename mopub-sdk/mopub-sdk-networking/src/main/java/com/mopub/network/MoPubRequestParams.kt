@@ -0,0 +1,116 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network
+
+import android.net.Uri
+
+/**
+ * Decoded query parameters of a request, in the order they were added. URL generators fill it
+ * and write it out as the query string of the URL. [MoPubRequest] sends it as the body of a POST
+ * once [MoPubUrlRewriter.rewriteParams] has filled in its templates, without parsing the URL
+ * again.
+ */
+class MoPubRequestParams {
+    private val keys = ArrayList<String>()
+    private val values = ArrayList<String>()
+
+    val isEmpty: Boolean
+        get() = keys.isEmpty()
+
+    fun add(key: String, value: String) {
+        keys.add(key)
+        values.add(value)
+    }
+
+    /**
+     * Replaces [template] wherever it appears in a value.
+     */
+    fun replaceTemplate(template: String, replacement: String) {
+        for (i in values.indices) {
+            if (values[i].contains(template)) {
+                values[i] = values[i].replace(template, replacement)
+            }
+        }
+    }
+
+    /**
+     * Removes every [key] whose value is exactly [value].
+     */
+    fun remove(key: String, value: String) {
+        for (i in keys.indices.reversed()) {
+            if (keys[i] == key && values[i] == value) {
+                keys.removeAt(i)
+                values.removeAt(i)
+            }
+        }
+    }
+
+    fun copy(): MoPubRequestParams {
+        val copy = MoPubRequestParams()
+        copy.keys.addAll(keys)
+        copy.values.addAll(values)
+        return copy
+    }
+
+    /**
+     * Appends `?key=value&...` to [builder], or nothing if there are no parameters. Values are
+     * URL encoded and keys are written as they are. Repeated keys are repeated.
+     */
+    fun appendQueryString(builder: StringBuilder): StringBuilder {
+        for (i in keys.indices) {
+            builder.append(if (i == 0) '?' else '&')
+                .append(keys[i])
+                .append('=')
+                .append(Uri.encode(values[i]))
+        }
+        return builder
+    }
+
+    /**
+     * @return the parameters by key, with the values of a repeated key joined with commas.
+     */
+    fun toMap(): Map<String, String> {
+        val params = LinkedHashMap<String, String>()
+        for (i in keys.indices) {
+            val existing = params[keys[i]]
+            params[keys[i]] = if (existing == null) values[i] else "$existing,${values[i]}"
+        }
+        return params
+    }
+
+    companion object {
+        /**
+         * Reads the query of [url] in a single pass, decoding each key and value once.
+         */
+        @JvmStatic
+        fun fromUrl(url: String): MoPubRequestParams {
+            val params = MoPubRequestParams()
+
+            val fragmentStart = url.indexOf('#').let { if (it == -1) url.length else it }
+            val queryStart = url.indexOf('?')
+            if (queryStart == -1 || queryStart >= fragmentStart) {
+                return params
+            }
+
+            var start = queryStart + 1
+            while (start < fragmentStart) {
+                val end = url.indexOf('&', start).let {
+                    if (it == -1 || it > fragmentStart) fragmentStart else it
+                }
+                if (end > start) {
+                    val separator = url.indexOf('=', start).let {
+                        if (it == -1 || it > end) end else it
+                    }
+                    val key = Uri.decode(url.substring(start, separator))
+                    val value = if (separator == end) "" else Uri.decode(url.substring(separator + 1, end))
+                    params.add(key, value)
+                }
+                start = end + 1
+            }
+
+            return params
+        }
+    }
+}
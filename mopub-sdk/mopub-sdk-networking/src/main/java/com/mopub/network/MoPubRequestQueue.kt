@@ -9,6 +9,7 @@ import com.mopub.common.Mockable
 import com.mopub.common.util.DeviceUtils
 import com.mopub.common.util.ResponseHeader
 import com.mopub.volley.AuthFailureError
+import com.mopub.volley.Cache
 import com.mopub.volley.Request
 import com.mopub.volley.RequestQueue
 import com.mopub.volley.toolbox.BasicNetwork
@@ -18,10 +19,17 @@ import com.mopub.volley.toolbox.HurlStack
 
 import java.io.File
 import java.io.IOException
+import java.util.IdentityHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
 import javax.net.ssl.SSLSocketFactory
 
 /**
  * MoPub's custom implementation of the Google Volley RequestQueue.
+ *
+ * Each [MoPubRequest.RequestClass] gets its own Volley queue with its own network dispatcher
+ * threads, so image and tracking traffic can't delay ad requests. The queues share one network
+ * stack and one disk cache.
  * @see [com.mopub.volley.RequestQueue]
  */
 @Mockable
@@ -29,9 +37,26 @@ class MoPubRequestQueue internal constructor(
     userAgent: String?,
     sslSocketFactory: SSLSocketFactory,
     moPubUrlRewriter: MoPubUrlRewriter,
-    volleyCacheDir: File
+    volleyCacheDir: File,
+    threadPoolSizes: Map<MoPubRequest.RequestClass, Int> = DEFAULT_THREAD_POOL_SIZES
 ) {
-    private val volleyRequestQueue: RequestQueue
+    private val volleyRequestQueues: Map<MoPubRequest.RequestClass, RequestQueue>
+    private val queueWaitStats: Map<MoPubRequest.RequestClass, QueueWaitStats>
+    private val inFlightRequests = InFlightRequests { follower -> reportTiming(follower.timing) }
+
+    /**
+     * Volley's ImageLoader adds its requests to the queue it is given itself, so it is given this
+     * one. It is never started. It hands each request to [dispatch], so image requests are counted
+     * like any other request of the IMAGE class.
+     */
+    internal val imageLoaderQueue: RequestQueue
+
+    /**
+     * Receives the [MoPubNetworkTiming] of every request once it finishes. Off unless a listener
+     * is set.
+     */
+    @Volatile
+    var timingListener: MoPubNetworkTiming.Listener? = null
 
     init {
         val volleyUrlRewriter = HurlStack.UrlRewriter { url -> moPubUrlRewriter.rewriteUrl(url) }
@@ -45,23 +70,61 @@ class MoPubRequestQueue internal constructor(
                 val newAdditionalHeaders = if (additionalHeaders.isNullOrEmpty()) mutableMapOf() else additionalHeaders
 
                 newAdditionalHeaders[ResponseHeader.USER_AGENT.key] = userAgent
-                return super.executeRequest(request, newAdditionalHeaders)
+
+                val timing = (request as? Timed)?.timing
+                    ?.takeIf { timingListener != null }
+                    ?: return super.executeRequest(request, newAdditionalHeaders)
+
+                timing.executeStartAt = RequestTiming.now()
+                RequestTiming.current.set(timing)
+                try {
+                    return super.executeRequest(request, newAdditionalHeaders)
+                } finally {
+                    timing.headersAt = RequestTiming.now()
+                    RequestTiming.current.remove()
+                }
             }
         }
 
         val network = BasicNetwork(volleyHurlStack)
-        val cache = DiskBasedCache(volleyCacheDir,
-                DeviceUtils.diskCacheSizeBytes(volleyCacheDir, Constants.TEN_MB.toLong()).toInt())
+        val cache = SharedCache(DiskBasedCache(volleyCacheDir,
+                DeviceUtils.diskCacheSizeBytes(volleyCacheDir, Constants.TEN_MB.toLong()).toInt()))
 
-        volleyRequestQueue = RequestQueue(cache, network)
+        volleyRequestQueues = MoPubRequest.RequestClass.values().associate { requestClass ->
+            val threadPoolSize = threadPoolSizes[requestClass]
+                ?: DEFAULT_THREAD_POOL_SIZES.getValue(requestClass)
+            requestClass to RequestQueue(cache, network, threadPoolSize.coerceAtLeast(1)).apply {
+                addRequestFinishedListener(RequestQueue.RequestFinishedListener<Any> { request ->
+                    // A cancelled request is never delivered, so hand its followers to one of them
+                    inFlightRequests.onFinished(request)?.let { dispatch(it.requestClass, it.getVolleyRequest()) }
+                    (request as? Timed)?.timing?.let { reportTiming(it) }
+                })
+            }
+        }
+        queueWaitStats = MoPubRequest.RequestClass.values().associate { it to QueueWaitStats() }
+        imageLoaderQueue = object : RequestQueue(cache, network, 1) {
+            override fun <T> add(request: Request<T>): Request<T> {
+                dispatch(MoPubRequest.RequestClass.IMAGE, request)
+                return request
+            }
+        }
     }
 
     fun start() {
-        volleyRequestQueue.start()
+        volleyRequestQueues.values.forEach { it.start() }
     }
 
     fun <T: Any>add(request: MoPubRequest<T>) {
-        volleyRequestQueue.add(request.getVolleyRequest())
+        if (request.shouldCoalesce && inFlightRequests.join(request)) {
+            request.onCoalesced()
+            return
+        }
+        dispatch(request.requestClass, request.getVolleyRequest())
+    }
+
+    private fun dispatch(requestClass: MoPubRequest.RequestClass, volleyRequest: Request<*>) {
+        (volleyRequest as? QueueWaitTimed)?.onEnqueued(queueWaitStats.getValue(requestClass))
+        getVolleyRequestQueue(requestClass).add(volleyRequest)
     }
 
     /**
@@ -70,14 +133,163 @@ class MoPubRequestQueue internal constructor(
      * @param request The request to cancel.
      */
     fun <T: Any>cancel(request: MoPubRequest<T>) {
-        volleyRequestQueue.cancelAll { it === request.getVolleyRequest() }
+        getVolleyRequestQueue(request.requestClass).cancelAll { it === request.getVolleyRequest() }
     }
 
     fun cancelAll(tag: Any) {
-        volleyRequestQueue.cancelAll(tag)
+        volleyRequestQueues.values.forEach { it.cancelAll(tag) }
+    }
+
+    private fun reportTiming(timing: RequestTiming) {
+        val listener = timingListener ?: return
+        listener.onNetworkTiming(timing.toNetworkTiming(RequestTiming.now()))
+    }
+
+    /**
+     * @return How long requests of the given class waited for a network dispatcher.
+     */
+    fun getQueueWaitStats(requestClass: MoPubRequest.RequestClass): QueueWaitStats {
+        return queueWaitStats.getValue(requestClass)
+    }
+
+    internal fun getVolleyRequestQueue(
+        requestClass: MoPubRequest.RequestClass = MoPubRequest.RequestClass.BACKGROUND
+    ) : RequestQueue {
+        return volleyRequestQueues.getValue(requestClass)
+    }
+
+    /**
+     * Implemented by Volley requests that record how long they waited for a network dispatcher.
+     */
+    internal interface QueueWaitTimed {
+        fun onEnqueued(stats: QueueWaitStats)
+    }
+
+    /**
+     * Implemented by Volley requests that collect a [RequestTiming].
+     */
+    internal interface Timed {
+        val timing: RequestTiming?
+    }
+
+    /**
+     * Running totals of the time between adding a request and a network dispatcher taking it.
+     * Requests served from the cache are not counted.
+     */
+    class QueueWaitStats internal constructor() {
+        private val count = AtomicLong()
+        private val totalWaitMs = AtomicLong()
+        private val maxWaitMs = AtomicLong()
+
+        val requestCount: Long
+            get() = count.get()
+
+        val averageWaitMs: Long
+            get() = count.get().let { if (it == 0L) 0 else totalWaitMs.get() / it }
+
+        val maxWaitMillis: Long
+            get() = maxWaitMs.get()
+
+        internal fun record(waitMs: Long) {
+            count.incrementAndGet()
+            totalWaitMs.addAndGet(waitMs)
+            var max = maxWaitMs.get()
+            while (waitMs > max && !maxWaitMs.compareAndSet(max, waitMs)) {
+                max = maxWaitMs.get()
+            }
+        }
+    }
+
+    /**
+     * Identical coalescable requests that are in flight. The first request of a group is sent,
+     * and the rest are followers that receive its response.
+     *
+     * @param followerFinishedListener Called once a follower has been given the leader's response
+     * or error.
+     */
+    internal class InFlightRequests(
+        private val followerFinishedListener: (MoPubRequest<*>) -> Unit = {}
+    ) {
+        private val groups = HashMap<String, MutableList<MoPubRequest<*>>>()
+        private val keysByLeader = IdentityHashMap<Request<*>, String>()
+
+        /**
+         * @return true if the request joined an identical request in flight and must not be sent.
+         */
+        @Synchronized
+        fun join(request: MoPubRequest<*>): Boolean {
+            val key = request.getCoalescingKey()
+            request.coalescer = this
+            val group = groups[key]
+            if (group != null) {
+                group.add(request)
+                return true
+            }
+            groups[key] = mutableListOf(request)
+            keysByLeader[request.getVolleyRequest()] = key
+            return false
+        }
+
+        /**
+         * Ends the leader's group so that later identical requests are sent again.
+         *
+         * @return The followers waiting on the leader's response, or null if there are none.
+         */
+        @Synchronized
+        fun <T: Any> takeFollowers(leader: MoPubRequest<T>): List<MoPubRequest<T>>? {
+            val key = keysByLeader.remove(leader.getVolleyRequest()) ?: return null
+            val group = groups.remove(key) ?: return null
+            @Suppress("UNCHECKED_CAST")
+            return group.drop(1).filterNot { it.isCanceled() } as List<MoPubRequest<T>>
+        }
+
+        fun onFollowerFinished(follower: MoPubRequest<*>) {
+            followerFinishedListener(follower)
+        }
+
+        /**
+         * Called for every finished request. If the leader finished without delivering, its
+         * first live follower becomes the new leader.
+         *
+         * @return The new leader, which needs to be sent.
+         */
+        @Synchronized
+        fun onFinished(volleyRequest: Request<*>): MoPubRequest<*>? {
+            val key = keysByLeader.remove(volleyRequest) ?: return null
+            val group = groups.remove(key) ?: return null
+            val followers = group.drop(1).filterNot { it.isCanceled() }
+            if (followers.isEmpty()) {
+                return null
+            }
+            groups[key] = followers.toMutableList()
+            keysByLeader[followers[0].getVolleyRequest()] = key
+            return followers[0]
+        }
+    }
+
+    /**
+     * Every queue's cache dispatcher initializes its cache, so only let the first one scan the
+     * cache directory.
+     */
+    private class SharedCache(private val cache: Cache) : Cache by cache {
+        private val initialized = AtomicBoolean()
+
+        override fun initialize() {
+            if (initialized.compareAndSet(false, true)) {
+                cache.initialize()
+            }
+        }
     }
 
-    internal fun getVolleyRequestQueue() : RequestQueue {
-        return volleyRequestQueue
+    companion object {
+        /**
+         * Network dispatcher threads per request class. Volley uses four for its single queue.
+         */
+        @JvmField
+        val DEFAULT_THREAD_POOL_SIZES: Map<MoPubRequest.RequestClass, Int> = mapOf(
+            MoPubRequest.RequestClass.AD to 2,
+            MoPubRequest.RequestClass.IMAGE to 2,
+            MoPubRequest.RequestClass.BACKGROUND to 2
+        )
     }
 }
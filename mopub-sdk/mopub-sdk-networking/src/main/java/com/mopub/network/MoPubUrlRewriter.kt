@@ -11,4 +11,10 @@ interface MoPubUrlRewriter {
     fun rewriteUrl(url: String) : String {
         return url
     }
+
+    /**
+     * Does for the parameters of a POST body what [rewriteUrl] does for a URL.
+     */
+    fun rewriteParams(params: MoPubRequestParams) {
+    }
 }
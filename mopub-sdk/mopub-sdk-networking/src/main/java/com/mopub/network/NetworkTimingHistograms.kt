@@ -0,0 +1,145 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network
+
+import org.json.JSONArray
+import org.json.JSONObject
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+
+/**
+ * Aggregates [MoPubNetworkTiming]s into fixed-bucket histograms per request class, ad unit and
+ * phase. Register it with [Networking.networkTimingListener] and read it with [toJson].
+ *
+ * @param bucketBoundsMs Upper bounds of the buckets, in ascending order. Values above the last
+ * bound go in an overflow bucket.
+ */
+class NetworkTimingHistograms @JvmOverloads constructor(
+    private val bucketBoundsMs: LongArray = DEFAULT_BUCKET_BOUNDS_MS
+) : MoPubNetworkTiming.Listener {
+
+    enum class Phase(internal val key: String) {
+        QUEUE_WAIT("queue_wait"),
+        CONNECT("connect"),
+        TLS_HANDSHAKE("tls_handshake"),
+        TIME_TO_FIRST_BYTE("ttfb"),
+        DOWNLOAD("download"),
+        PARSE("parse"),
+        TOTAL("total")
+    }
+
+    class Histogram internal constructor(private val bucketBoundsMs: LongArray) {
+        private val bucketCounts = AtomicLongArray(bucketBoundsMs.size + 1)
+        private val count = AtomicLong()
+        private val sumMs = AtomicLong()
+
+        val sampleCount: Long
+            get() = count.get()
+
+        val totalMs: Long
+            get() = sumMs.get()
+
+        fun getBucketCount(bucket: Int) = bucketCounts.get(bucket)
+
+        internal fun record(valueMs: Long) {
+            var bucket = 0
+            while (bucket < bucketBoundsMs.size && valueMs > bucketBoundsMs[bucket]) {
+                bucket++
+            }
+            bucketCounts.incrementAndGet(bucket)
+            count.incrementAndGet()
+            sumMs.addAndGet(valueMs)
+        }
+
+        internal fun toJson(): JSONObject {
+            val counts = JSONArray()
+            for (i in 0 until bucketCounts.length()) {
+                counts.put(bucketCounts.get(i))
+            }
+            return JSONObject()
+                .put(COUNT_KEY, count.get())
+                .put(SUM_MS_KEY, sumMs.get())
+                .put(BUCKET_COUNTS_KEY, counts)
+        }
+    }
+
+    private data class Tag(val requestClass: MoPubRequest.RequestClass, val adUnitId: String?)
+
+    private val histograms = ConcurrentHashMap<Tag, Map<Phase, Histogram>>()
+
+    override fun onNetworkTiming(timing: MoPubNetworkTiming) {
+        val tag = Tag(timing.requestClass, timing.adUnitId)
+        val phases = histograms[tag] ?: histograms.getOrPut(tag) {
+            Phase.values().associate { it to Histogram(bucketBoundsMs) }
+        }
+
+        timing.queueWaitMs?.let { phases.getValue(Phase.QUEUE_WAIT).record(it) }
+        timing.connectMs?.let { phases.getValue(Phase.CONNECT).record(it) }
+        timing.tlsHandshakeMs?.let { phases.getValue(Phase.TLS_HANDSHAKE).record(it) }
+        timing.timeToFirstByteMs?.let { phases.getValue(Phase.TIME_TO_FIRST_BYTE).record(it) }
+        timing.downloadMs?.let { phases.getValue(Phase.DOWNLOAD).record(it) }
+        timing.parseMs?.let { phases.getValue(Phase.PARSE).record(it) }
+        phases.getValue(Phase.TOTAL).record(timing.totalMs)
+    }
+
+    /**
+     * @return The histogram, or null if no request with these tags has finished.
+     */
+    fun getHistogram(
+        requestClass: MoPubRequest.RequestClass,
+        adUnitId: String?,
+        phase: Phase
+    ): Histogram? {
+        return histograms[Tag(requestClass, adUnitId)]?.get(phase)
+    }
+
+    fun clear() {
+        histograms.clear()
+    }
+
+    /**
+     * Exports every histogram, for example:
+     * `{"bucket_bounds_ms":[10,...],"histograms":[{"request_class":"AD","ad_unit_id":"abc",
+     * "phases":{"connect":{"count":2,"sum_ms":31,"bucket_counts":[0,1,...]},...}}]}`
+     */
+    fun toJson(): JSONObject {
+        val bounds = JSONArray()
+        bucketBoundsMs.forEach { bounds.put(it) }
+
+        val entries = JSONArray()
+        for ((tag, phases) in histograms) {
+            val phasesJson = JSONObject()
+            for ((phase, histogram) in phases) {
+                if (histogram.sampleCount > 0) {
+                    phasesJson.put(phase.key, histogram.toJson())
+                }
+            }
+            entries.put(JSONObject()
+                .put(REQUEST_CLASS_KEY, tag.requestClass.name)
+                .put(AD_UNIT_ID_KEY, tag.adUnitId ?: JSONObject.NULL)
+                .put(PHASES_KEY, phasesJson))
+        }
+
+        return JSONObject()
+            .put(BUCKET_BOUNDS_KEY, bounds)
+            .put(HISTOGRAMS_KEY, entries)
+    }
+
+    companion object {
+        @JvmField
+        val DEFAULT_BUCKET_BOUNDS_MS = longArrayOf(10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000)
+
+        private const val BUCKET_BOUNDS_KEY = "bucket_bounds_ms"
+        private const val HISTOGRAMS_KEY = "histograms"
+        private const val REQUEST_CLASS_KEY = "request_class"
+        private const val AD_UNIT_ID_KEY = "ad_unit_id"
+        private const val PHASES_KEY = "phases"
+        private const val COUNT_KEY = "count"
+        private const val SUM_MS_KEY = "sum_ms"
+        private const val BUCKET_COUNTS_KEY = "bucket_counts"
+    }
+}
@@ -6,21 +6,35 @@ package com.mopub.network
 
 import android.content.Context
 import android.graphics.Bitmap
+import android.net.SSLSessionCache
+import android.os.AsyncTask
 import android.os.Looper
 import android.webkit.WebSettings
 
 import androidx.collection.LruCache
 
 import com.mopub.common.Constants
+import com.mopub.common.MemoryTrimmer
 import com.mopub.common.VisibleForTesting
 import com.mopub.common.logging.MoPubLog
 import com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM
+import com.mopub.common.util.AsyncTasks
 import com.mopub.common.util.DeviceUtils
 
 import java.io.File
+import java.io.IOException
+import java.net.HttpURLConnection
+import java.net.URL
+import javax.net.ssl.HttpsURLConnection
 
 object Networking {
     private const val CACHE_DIRECTORY_NAME = "mopub-volley-cache"
+    /**
+     * Share of the image memory cache to also keep as bitmaps for decoding into.
+     */
+    private const val BITMAP_POOL_FRACTION = 8
+    private const val IMAGE_CACHE_NAME = "images"
+    private const val BITMAP_POOL_NAME = "bitmap-pool"
     private val DEFAULT_USER_AGENT: String
 
     init {
@@ -41,13 +55,43 @@ object Networking {
     @get:VisibleForTesting
     var requestQueue: MoPubRequestQueue? = null
         private set
+    /**
+     * The socket factory shared by the request queue and [com.mopub.common.MoPubHttpUrlConnection],
+     * so that every SDK connection draws from the same TLS session cache and connection pool.
+     * Null until the request queue has been created.
+     */
+    @JvmStatic
+    @Volatile
+    var sslSocketFactory: CustomSSLSocketFactory? = null
+        private set
     @Volatile
     private var userAgent: String? = null
     @Volatile
     private var imageLoader: MoPubImageLoader? = null
+    /**
+     * Hosts with a preconnect in progress, so that repeated calls don't open more connections.
+     */
+    private val preconnectingHosts = HashSet<String>()
     @JvmStatic
     var urlRewriter : MoPubUrlRewriter? = null
 
+    /**
+     * Opts in to per-request network timings. Pass a [NetworkTimingHistograms] to aggregate them.
+     */
+    @JvmStatic
+    var networkTimingListener: MoPubNetworkTiming.Listener? = null
+        set(value) {
+            field = value
+            requestQueue?.timingListener = value
+        }
+
+    /**
+     * Network dispatcher threads for each request class. Only read when the request queue is
+     * first created.
+     */
+    @JvmStatic
+    var threadPoolSizes: Map<MoPubRequest.RequestClass, Int> = MoPubRequestQueue.DEFAULT_THREAD_POOL_SIZES
+
     /**
      * Gets the previously cached WebView user agent. This returns the default userAgent if the
      * WebView user agent has not been initialized yet.
@@ -72,7 +116,10 @@ object Networking {
         // Double-check locking to initialize.
         requestQueue ?: synchronized(Networking::class) {
             requestQueue ?: run {
-                val socketFactory = CustomSSLSocketFactory.getDefault(Constants.TEN_SECONDS_MILLIS)
+                val socketFactory = sslSocketFactory ?: CustomSSLSocketFactory.getDefault(
+                    Constants.TEN_SECONDS_MILLIS,
+                    SSLSessionCache(context.applicationContext)
+                ).also { sslSocketFactory = it }
                 val userAgent = getUserAgent(context.applicationContext)
                 val volleyCacheDir = File(context.cacheDir.path + File.separator + CACHE_DIRECTORY_NAME)
 
@@ -81,8 +128,10 @@ object Networking {
                         userAgent,
                         socketFactory,
                         moPubUrlRewriter,
-                        volleyCacheDir
+                        volleyCacheDir,
+                        threadPoolSizes
                     ).also {
+                        it.timingListener = networkTimingListener
                         requestQueue = it
                         it.start()
                     }
@@ -95,6 +144,57 @@ object Networking {
             }
         }
 
+    /**
+     * Opens a connection to the host in the background, so that the first request to it can skip
+     * the TCP and TLS handshakes. The connection is left in the pool that the request queue and
+     * [com.mopub.common.MoPubHttpUrlConnection] draw from. Runs on the AsyncTask executor, and does
+     * nothing while a preconnect to the same host is still in progress.
+     *
+     * @param host The host to connect to over https, such as [Constants.HOST].
+     */
+    @JvmStatic
+    fun preconnect(context: Context, host: String) {
+        getRequestQueue(context)
+        val socketFactory = sslSocketFactory ?: return
+        synchronized(preconnectingHosts) {
+            if (!preconnectingHosts.add(host)) {
+                return
+            }
+        }
+        AsyncTasks.safeExecuteOnExecutor(PreconnectTask(host, socketFactory, cachedUserAgent))
+    }
+
+    private class PreconnectTask(
+        private val host: String,
+        private val socketFactory: CustomSSLSocketFactory,
+        private val userAgent: String
+    ) : AsyncTask<Void, Void, Void>() {
+        override fun doInBackground(vararg params: Void?): Void? {
+            var connection: HttpURLConnection? = null
+            try {
+                connection = URL(Constants.HTTPS + "://" + host + "/").openConnection() as HttpURLConnection
+                (connection as? HttpsURLConnection)?.sslSocketFactory = socketFactory
+                connection.requestMethod = "HEAD"
+                connection.connectTimeout = Constants.TEN_SECONDS_MILLIS
+                connection.readTimeout = Constants.TEN_SECONDS_MILLIS
+                connection.setRequestProperty("user-agent", userAgent)
+                val responseCode = connection.responseCode
+                // Closing rather than disconnecting returns the connection to the pool
+                val stream = if (responseCode < 400) connection.inputStream else connection.errorStream
+                stream?.close()
+                MoPubLog.log(CUSTOM, "Preconnected to $host")
+            } catch (e: IOException) {
+                connection?.disconnect()
+                MoPubLog.log(CUSTOM, "Unable to preconnect to $host: ${e.message}")
+            } finally {
+                synchronized(preconnectingHosts) {
+                    preconnectingHosts.remove(host)
+                }
+            }
+            return null
+        }
+    }
+
     @JvmStatic
     fun getImageLoader(context: Context) =
         // Double-check locking to initialize.
@@ -102,17 +202,26 @@ object Networking {
             imageLoader ?: run {
                 val queue = getRequestQueue(context)
                 val cacheSize = DeviceUtils.memoryCacheSizeBytes(context)
-                val imageCache = object : LruCache<String, Bitmap>(cacheSize) {
+                val imageCache = object : LruCache<String, Bitmap>(cacheSize), MemoryTrimmer.Trimmable {
                     override fun sizeOf(key: String, value: Bitmap): Int {
                         return value.rowBytes * value.height
                     }
+
+                    override fun trimMemory(fraction: Float): Long {
+                        val sizeBefore = size()
+                        trimToSize((sizeBefore * (1 - fraction)).toInt())
+                        return (sizeBefore - size()).toLong()
+                    }
                 }
+                val bitmapPool = BitmapPool(cacheSize / BITMAP_POOL_FRACTION)
+                MemoryTrimmer.addCache(IMAGE_CACHE_NAME, imageCache)
+                MemoryTrimmer.addCache(BITMAP_POOL_NAME, bitmapPool)
                 MoPubImageLoader(queue, object : MoPubImageLoader.ImageCache {
                     override fun getBitmap(key: String) = imageCache.get(key)
                     override fun putBitmap(key: String, bitmap: Bitmap) {
                         imageCache.put(key, bitmap)
                     }
-                }).also {
+                }, bitmapPool).also {
                     imageLoader = it
                 }
             }
@@ -158,8 +267,12 @@ object Networking {
     @JvmStatic
     fun clearForTesting() {
         requestQueue = null
+        sslSocketFactory = null
         imageLoader = null
         userAgent = null
+        synchronized(preconnectingHosts) {
+            preconnectingHosts.clear()
+        }
     }
 
     @VisibleForTesting
@@ -0,0 +1,102 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network
+
+import android.graphics.Bitmap
+
+import com.mopub.test.support.NetworkingTestRunner
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(NetworkingTestRunner::class)
+class BitmapPoolTest {
+    private lateinit var subject: BitmapPool
+
+    @Before
+    fun setup() {
+        subject = BitmapPool(MAX_BYTES)
+    }
+
+    @Test
+    fun get_shouldReturnSmallestBitmapThatFits() {
+        val large = createBitmap(20, 20)
+        val medium = createBitmap(10, 10)
+        val small = createBitmap(5, 5)
+        subject.put(large)
+        subject.put(medium)
+        subject.put(small)
+
+        assertThat(subject.get(8, 8, Bitmap.Config.ARGB_8888)).isSameAs(medium)
+        assertThat(subject.get(8, 8, Bitmap.Config.ARGB_8888)).isSameAs(large)
+        assertThat(subject.sizeBytes).isEqualTo(small.allocationByteCount)
+    }
+
+    @Test
+    fun get_withSmallerConfig_shouldFitMorePixels() {
+        val bitmap = createBitmap(10, 10)
+        subject.put(bitmap)
+
+        assertThat(subject.get(14, 14, Bitmap.Config.ARGB_8888)).isNull()
+        assertThat(subject.get(14, 14, Bitmap.Config.RGB_565)).isSameAs(bitmap)
+    }
+
+    @Test
+    fun put_overMaxBytes_shouldRecycleOldest() {
+        val oldest = createBitmap(20, 20)
+        val newest = createBitmap(20, 20)
+        subject.put(oldest)
+        subject.put(newest)
+
+        assertThat(oldest.isRecycled).isTrue()
+        assertThat(newest.isRecycled).isFalse()
+        assertThat(subject.sizeBytes).isEqualTo(newest.allocationByteCount)
+    }
+
+    @Test
+    fun put_withImmutableBitmap_shouldRecycleIt() {
+        val bitmap = createBitmap(10, 10).copy(Bitmap.Config.ARGB_8888, false)
+
+        subject.put(bitmap)
+
+        assertThat(bitmap.isRecycled).isTrue()
+        assertThat(subject.sizeBytes).isEqualTo(0)
+    }
+
+    @Test
+    fun trimMemory_shouldRecycleOldestUntilFractionIsReleased() {
+        val oldest = createBitmap(10, 10)
+        val newest = createBitmap(10, 10)
+        subject.put(oldest)
+        subject.put(newest)
+
+        val bytesReleased = subject.trimMemory(0.5f)
+
+        assertThat(bytesReleased).isEqualTo(oldest.allocationByteCount.toLong())
+        assertThat(oldest.isRecycled).isTrue()
+        assertThat(newest.isRecycled).isFalse()
+    }
+
+    @Test
+    fun clear_shouldRecycleEverything() {
+        val bitmap = createBitmap(10, 10)
+        subject.put(bitmap)
+
+        subject.clear()
+
+        assertThat(bitmap.isRecycled).isTrue()
+        assertThat(subject.get(1, 1, Bitmap.Config.ARGB_8888)).isNull()
+    }
+
+    private fun createBitmap(width: Int, height: Int) =
+        Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
+
+    companion object {
+        // Room for one 20x20 ARGB_8888 bitmap and a few small ones
+        private const val MAX_BYTES = 2500
+    }
+}
@@ -0,0 +1,85 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network
+
+import android.widget.ImageView.ScaleType
+
+import com.mopub.test.support.NetworkingTestRunner
+import com.mopub.volley.NetworkResponse
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(NetworkingTestRunner::class)
+class MoPubImageRequestTest {
+
+    @Test
+    fun parseImageCacheHeaders_withoutCacheHeaders_shouldKeepForImageTtl() {
+        val now = System.currentTimeMillis()
+
+        val entry = MoPubImageRequest.parseImageCacheHeaders(createResponse(emptyMap()), now)
+
+        assertThat(entry!!.ttl).isEqualTo(now + MoPubImageRequest.IMAGE_CACHE_TTL_MILLIS)
+        assertThat(entry.softTtl).isEqualTo(entry.ttl)
+    }
+
+    @Test
+    fun parseImageCacheHeaders_withMaxAge_shouldKeepMaxAge() {
+        val now = System.currentTimeMillis()
+
+        val entry = MoPubImageRequest.parseImageCacheHeaders(
+            createResponse(mapOf("Cache-Control" to "max-age=600")), now)
+
+        assertThat(entry!!.ttl).isGreaterThanOrEqualTo(now + 600_000)
+        assertThat(entry.ttl).isLessThan(now + MoPubImageRequest.IMAGE_CACHE_TTL_MILLIS)
+    }
+
+    @Test
+    fun parseImageCacheHeaders_withNoStore_shouldReturnNull() {
+        val entry = MoPubImageRequest.parseImageCacheHeaders(
+            createResponse(mapOf("Cache-Control" to "no-store")))
+
+        assertThat(entry).isNull()
+    }
+
+    @Test
+    fun findBestSampleSize_shouldStayAtLeastDesiredSize() {
+        assertThat(MoPubImageRequest.findBestSampleSize(1000, 1000, 1000, 1000)).isEqualTo(1)
+        assertThat(MoPubImageRequest.findBestSampleSize(1000, 1000, 499, 499)).isEqualTo(2)
+        assertThat(MoPubImageRequest.findBestSampleSize(1000, 1000, 250, 250)).isEqualTo(4)
+        assertThat(MoPubImageRequest.findBestSampleSize(1000, 1000, 249, 600)).isEqualTo(1)
+    }
+
+    @Test
+    fun getResizedDimension_withCenterInside_shouldFitWithinBounds() {
+        val width = MoPubImageRequest.getResizedDimension(300, 100, 1200, 800, ScaleType.CENTER_INSIDE)
+        val height = MoPubImageRequest.getResizedDimension(100, 300, 800, 1200, ScaleType.CENTER_INSIDE)
+
+        assertThat(width).isEqualTo(150)
+        assertThat(height).isEqualTo(100)
+    }
+
+    @Test
+    fun getResizedDimension_withCenterCrop_shouldCoverBounds() {
+        val width = MoPubImageRequest.getResizedDimension(300, 100, 1200, 800, ScaleType.CENTER_CROP)
+        val height = MoPubImageRequest.getResizedDimension(100, 300, 800, 1200, ScaleType.CENTER_CROP)
+
+        assertThat(width).isEqualTo(300)
+        assertThat(height).isEqualTo(200)
+    }
+
+    @Test
+    fun getResizedDimension_withOnlyMaxWidth_shouldKeepAspectRatio() {
+        val width = MoPubImageRequest.getResizedDimension(600, 0, 1200, 800, ScaleType.CENTER_INSIDE)
+        val height = MoPubImageRequest.getResizedDimension(0, 600, 800, 1200, ScaleType.CENTER_INSIDE)
+
+        assertThat(width).isEqualTo(600)
+        assertThat(height).isEqualTo(400)
+    }
+
+    private fun createResponse(headers: Map<String, String>) =
+        NetworkResponse(200, ByteArray(0), headers, false)
+}
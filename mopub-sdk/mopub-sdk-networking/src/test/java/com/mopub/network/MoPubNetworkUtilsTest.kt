@@ -4,8 +4,10 @@
 
 package com.mopub.network
 
+import android.net.Uri
 import com.mopub.test.support.NetworkingTestRunner
 import org.fest.assertions.api.Assertions.assertThat
+import org.json.JSONObject
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -61,6 +63,20 @@ class MoPubNetworkUtilsTest {
         assertThat(result["query4"]).isEqualTo(",,")
     }
 
+    @Test
+    fun convertQueryToMap_shouldMatchUriQueryParameters() {
+        val url = "https://ads.mopub.com/m/ad?id=abc&q=a%20b%2Cc&id=def&empty=&flag&u=" +
+                Uri.encode("https://x.com/?a=1&b=2") + "&plus=a+b#fragment&ignored=1"
+        val uri = Uri.parse(url)
+
+        val result = MoPubNetworkUtils.convertQueryToMap(url)
+
+        assertThat(result.keys).containsExactly("id", "q", "empty", "flag", "u", "plus")
+        for (name in uri.queryParameterNames) {
+            assertThat(result[name]).isEqualTo(uri.getQueryParameters(name).joinToString(","))
+        }
+    }
+
     @Test
     fun convertQueryToMap_withNoQueryParams_shouldReturnEmptyMap() {
         val result = MoPubNetworkUtils.convertQueryToMap("https://ads.mopub.com/m/ad")
@@ -87,6 +103,18 @@ class MoPubNetworkUtilsTest {
         assertThat(result?.length).isEqualTo(90)
     }
 
+    @Test
+    fun generateBodyFromParams_withCharactersToEscape_shouldMatchJSONObject() {
+        val escaped = linkedMapOf(
+            "url" to "https://x.com/a?b=\"c\"",
+            "unicode" to "é☃\n"
+        )
+
+        val result = MoPubNetworkUtils.generateBodyFromParams(escaped)
+
+        assertThat(result).isEqualTo(JSONObject(escaped as Map<*, *>).toString())
+    }
+
     @Test
     fun generateBodyFromParams_withEmptyParamsMap_shouldReturnNull() {
         val result = MoPubNetworkUtils.generateBodyFromParams(emptyMap())
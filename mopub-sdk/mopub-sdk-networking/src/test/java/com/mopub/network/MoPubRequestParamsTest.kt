@@ -0,0 +1,98 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network
+
+import android.net.Uri
+import com.mopub.test.support.NetworkingTestRunner
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(NetworkingTestRunner::class)
+class MoPubRequestParamsTest {
+
+    @Test
+    fun fromUrl_shouldMatchUriQueryParameters() {
+        val url = "https://ads.mopub.com/m/ad?id=abc&q=a%20b%2Cc&id=def&empty=&flag&u=" +
+                Uri.encode("https://x.com/?a=1&b=2") + "&plus=a+b#fragment&ignored=1"
+        val uri = Uri.parse(url)
+
+        val result = MoPubRequestParams.fromUrl(url).toMap()
+
+        assertThat(result.keys).containsExactly("id", "q", "empty", "flag", "u", "plus")
+        for (name in uri.queryParameterNames) {
+            assertThat(result[name]).isEqualTo(uri.getQueryParameters(name).joinToString(","))
+        }
+    }
+
+    @Test
+    fun fromUrl_withoutQuery_shouldReturnEmptyParams() {
+        assertThat(MoPubRequestParams.fromUrl("https://ads.mopub.com/m/ad").isEmpty).isTrue()
+        assertThat(MoPubRequestParams.fromUrl("https://ads.mopub.com/m/ad#a?b=c").isEmpty).isTrue()
+        assertThat(MoPubRequestParams.fromUrl("https://ads.mopub.com/m/ad?").isEmpty).isTrue()
+    }
+
+    @Test
+    fun appendQueryString_shouldEncodeValuesAndRepeatKeys() {
+        val subject = MoPubRequestParams()
+        subject.add("id", "ad unit")
+        subject.add("ll", "47.6,-122.3")
+        subject.add("id", "key:value&other=1")
+
+        val result = subject.appendQueryString(StringBuilder("https://ads.mopub.com/m/ad"))
+
+        assertThat(result.toString()).isEqualTo("https://ads.mopub.com/m/ad?id=ad%20unit" +
+                "&ll=47.6%2C-122.3&id=key%3Avalue%26other%3D1")
+        assertThat(MoPubRequestParams.fromUrl(result.toString()).toMap())
+            .isEqualTo(subject.toMap())
+    }
+
+    @Test
+    fun toMap_withRepeatedKey_shouldJoinWithComma() {
+        val subject = MoPubRequestParams()
+        subject.add("key", "a")
+        subject.add("other", "b")
+        subject.add("key", "c")
+
+        assertThat(subject.toMap()).isEqualTo(mapOf("key" to "a,c", "other" to "b"))
+    }
+
+    @Test
+    fun replaceTemplate_shouldReplaceInEveryValue() {
+        val subject = MoPubRequestParams()
+        subject.add("a", "tmpl")
+        subject.add("b", "x-tmpl-y")
+        subject.add("tmpl", "c")
+
+        subject.replaceTemplate("tmpl", "v a")
+
+        assertThat(subject.toMap()).isEqualTo(mapOf("a" to "v a", "b" to "x-v a-y", "tmpl" to "c"))
+    }
+
+    @Test
+    fun remove_shouldOnlyRemoveMatchingValues() {
+        val subject = MoPubRequestParams()
+        subject.add("ifa", "tmpl")
+        subject.add("ifa", "other")
+        subject.add("mid", "tmpl")
+
+        subject.remove("ifa", "tmpl")
+
+        assertThat(subject.toMap()).isEqualTo(mapOf("ifa" to "other", "mid" to "tmpl"))
+    }
+
+    @Test
+    fun copy_shouldNotChangeOriginal() {
+        val subject = MoPubRequestParams()
+        subject.add("a", "tmpl")
+
+        val copy = subject.copy()
+        copy.replaceTemplate("tmpl", "value")
+        copy.add("b", "c")
+
+        assertThat(subject.toMap()).isEqualTo(mapOf("a" to "tmpl"))
+        assertThat(copy.toMap()).isEqualTo(mapOf("a" to "value", "b" to "c"))
+    }
+}
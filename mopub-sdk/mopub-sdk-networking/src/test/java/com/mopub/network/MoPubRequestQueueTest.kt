@@ -5,12 +5,18 @@
 package com.mopub.network
 
 import android.content.Context
+import android.graphics.Bitmap
+import android.os.SystemClock
+import android.widget.ImageView
 
 import com.mopub.network.CustomSSLSocketFactory.Companion.getDefault
 import com.mopub.test.support.NetworkingTestRunner
 import com.mopub.volley.CacheDispatcher
+import com.mopub.volley.ExecutorDelivery
 import com.mopub.volley.Request
 import com.mopub.volley.RequestQueue
+import com.mopub.volley.Response
+import com.mopub.volley.VolleyError
 
 import org.fest.assertions.api.Assertions.assertThat
 import org.junit.Assert.assertFalse
@@ -21,6 +27,7 @@ import org.junit.runner.RunWith
 import org.mockito.Mock
 
 import java.io.File
+import java.util.concurrent.Executor
 
 @RunWith(NetworkingTestRunner::class)
 class MoPubRequestQueueTest {
@@ -101,6 +108,271 @@ class MoPubRequestQueueTest {
         }
     }
 
+    @Test
+    fun add_withAdRequestClass_shouldOnlyAddRequestToAdVolleyRequestQueue() {
+        moPubRequest.requestClass = MoPubRequest.RequestClass.AD
+
+        subject.add(moPubRequest)
+
+        val requestsField = RequestQueue::class.java.getDeclaredField("mCurrentRequests")
+        requestsField.isAccessible = true
+        val adRequests =
+            requestsField.get(subject.getVolleyRequestQueue(MoPubRequest.RequestClass.AD)) as Set<Request<*>>
+        val backgroundRequests =
+            requestsField.get(subject.getVolleyRequestQueue(MoPubRequest.RequestClass.BACKGROUND)) as Set<Request<*>>
+        assertTrue(adRequests.contains(moPubRequest.getVolleyRequest()))
+        assertFalse(backgroundRequests.contains(moPubRequest.getVolleyRequest()))
+    }
+
+    @Test
+    fun imageLoaderQueue_add_shouldDispatchToImageVolleyRequestQueueAndRecordWait() {
+        val volleyRequest = moPubRequest.getVolleyRequest()
+
+        subject.imageLoaderQueue.add(volleyRequest)
+        volleyRequest.addMarker("network-queue-take")
+
+        val requestsField = RequestQueue::class.java.getDeclaredField("mCurrentRequests")
+        requestsField.isAccessible = true
+        val imageRequests =
+            requestsField.get(subject.getVolleyRequestQueue(MoPubRequest.RequestClass.IMAGE)) as Set<Request<*>>
+        val loaderRequests = requestsField.get(subject.imageLoaderQueue) as Set<Request<*>>
+        assertTrue(imageRequests.contains(volleyRequest))
+        assertTrue(loaderRequests.isEmpty())
+        assertThat(subject.getQueueWaitStats(MoPubRequest.RequestClass.IMAGE).requestCount)
+            .isEqualTo(1)
+    }
+
+    @Test
+    fun cancelAll_withRequestsInDifferentClasses_shouldCancelAllWithTag() {
+        moPubRequest.setTag("tag1")
+        moPubRequest.requestClass = MoPubRequest.RequestClass.AD
+        val moPubRequest2 = TestMoPubRequest(context, null, "test")
+        moPubRequest2.setTag("tag1")
+        subject.add(moPubRequest)
+        subject.add(moPubRequest2)
+
+        subject.cancelAll("tag1")
+
+        assertTrue(moPubRequest.isCanceled())
+        assertTrue(moPubRequest2.isCanceled())
+    }
+
+    @Test
+    fun constructor_shouldCreateDispatchersPerRequestClass() {
+        val sizes = mapOf(
+            MoPubRequest.RequestClass.AD to 3,
+            MoPubRequest.RequestClass.IMAGE to 1
+        )
+        subject = MoPubRequestQueue("user-agent", getDefault(0), object : MoPubUrlRewriter {},
+            volleyCacheDir, sizes)
+
+        val dispatchersField = RequestQueue::class.java.getDeclaredField("mDispatchers")
+        dispatchersField.isAccessible = true
+        fun dispatcherCount(requestClass: MoPubRequest.RequestClass) =
+            (dispatchersField.get(subject.getVolleyRequestQueue(requestClass)) as Array<*>).size
+        assertThat(dispatcherCount(MoPubRequest.RequestClass.AD)).isEqualTo(3)
+        assertThat(dispatcherCount(MoPubRequest.RequestClass.IMAGE)).isEqualTo(1)
+        assertThat(dispatcherCount(MoPubRequest.RequestClass.BACKGROUND)).isEqualTo(
+            MoPubRequestQueue.DEFAULT_THREAD_POOL_SIZES[MoPubRequest.RequestClass.BACKGROUND])
+    }
+
+    @Test
+    fun getVolleyPriority_shouldUseRequestClassDefaultUnlessOverridden() {
+        assertThat(moPubRequest.getVolleyRequest().priority).isEqualTo(Request.Priority.LOW)
+
+        moPubRequest.requestClass = MoPubRequest.RequestClass.AD
+        assertThat(moPubRequest.getVolleyRequest().priority).isEqualTo(Request.Priority.HIGH)
+
+        moPubRequest.priority = MoPubRequest.Priority.IMMEDIATE
+        assertThat(moPubRequest.getVolleyRequest().priority).isEqualTo(Request.Priority.IMMEDIATE)
+    }
+
+    @Test
+    fun getQueueWaitStats_afterNetworkDispatcherTakesRequest_shouldRecordWaitForRequestClass() {
+        moPubRequest.requestClass = MoPubRequest.RequestClass.AD
+        subject.add(moPubRequest)
+        SystemClock.sleep(40)
+
+        moPubRequest.getVolleyRequest().addMarker("network-queue-take")
+
+        val adStats = subject.getQueueWaitStats(MoPubRequest.RequestClass.AD)
+        assertThat(adStats.requestCount).isEqualTo(1)
+        assertThat(adStats.averageWaitMs).isEqualTo(40)
+        assertThat(adStats.maxWaitMillis).isEqualTo(40)
+        assertThat(subject.getQueueWaitStats(MoPubRequest.RequestClass.BACKGROUND).requestCount)
+            .isEqualTo(0)
+    }
+
+    @Test
+    fun add_withIdenticalCoalescableRequests_shouldSendOneAndDeliverResponseToAll() {
+        val listeners = List(3) { RecordingListener() }
+        val requests = listeners.map { listener ->
+            TestMoPubRequest(context, listener, "test").apply { shouldCoalesce = true }
+        }
+
+        requests.forEach { subject.add(it) }
+
+        assertThat(getCurrentRequests()).containsOnly(requests[0].getVolleyRequest())
+
+        ExecutorDelivery(Executor { it.run() }).postResponse(
+            requests[0].getVolleyRequest(),
+            Response.success("response", null)
+        )
+
+        listeners.forEach { assertThat(it.responses).containsExactly("response") }
+    }
+
+    @Test
+    fun add_withIdenticalCoalescableRequests_afterResponse_shouldSendAgain() {
+        val first = TestMoPubRequest(context, RecordingListener(), "test").apply { shouldCoalesce = true }
+        val second = TestMoPubRequest(context, RecordingListener(), "test").apply { shouldCoalesce = true }
+        subject.add(first)
+        ExecutorDelivery(Executor { it.run() }).postResponse(
+            first.getVolleyRequest(),
+            Response.success("response", null)
+        )
+
+        subject.add(second)
+
+        assertTrue(getCurrentRequests().contains(second.getVolleyRequest()))
+    }
+
+    @Test
+    fun add_withIdenticalCoalescableRequests_whenLeaderFails_shouldDeliverErrorToAll() {
+        val listeners = List(2) { RecordingListener() }
+        val requests = listeners.map { listener ->
+            TestMoPubRequest(context, listener, "test").apply { shouldCoalesce = true }
+        }
+        requests.forEach { subject.add(it) }
+
+        requests[0].getVolleyRequest().deliverError(VolleyError("failed"))
+
+        listeners.forEach { assertThat(it.errors).hasSize(1) }
+    }
+
+    @Test
+    fun add_withIdenticalCoalescableRequests_whenLeaderIsCancelled_shouldSendFollower() {
+        val first = TestMoPubRequest(context, RecordingListener(), "test").apply { shouldCoalesce = true }
+        val second = TestMoPubRequest(context, RecordingListener(), "test").apply { shouldCoalesce = true }
+        subject.add(first)
+        subject.add(second)
+
+        subject.cancel(first)
+        val finishMethod = Request::class.java.getDeclaredMethod("finish", String::class.java)
+        finishMethod.isAccessible = true
+        finishMethod.invoke(first.getVolleyRequest(), "cancelled")
+
+        assertTrue(getCurrentRequests().contains(second.getVolleyRequest()))
+    }
+
+    @Test
+    fun add_withIdenticalRequestsNotCoalescable_shouldSendEach() {
+        val first = TestMoPubRequest(context, null, "test")
+        val second = TestMoPubRequest(context, null, "test")
+
+        subject.add(first)
+        subject.add(second)
+
+        assertThat(getCurrentRequests()).contains(first.getVolleyRequest(), second.getVolleyRequest())
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun getCurrentRequests(): Set<Request<*>> {
+        val requestsField = RequestQueue::class.java.getDeclaredField("mCurrentRequests")
+        requestsField.isAccessible = true
+        return requestsField.get(subject.getVolleyRequestQueue()) as Set<Request<*>>
+    }
+
+    @Test
+    fun requestFinished_withTimingListener_shouldReportTimingTaggedWithClassAndAdUnit() {
+        val timings = mutableListOf<MoPubNetworkTiming>()
+        subject.timingListener = object : MoPubNetworkTiming.Listener {
+            override fun onNetworkTiming(timing: MoPubNetworkTiming) {
+                timings.add(timing)
+            }
+        }
+        moPubRequest.requestClass = MoPubRequest.RequestClass.AD
+        moPubRequest.adUnitId = "ad_unit_id"
+        subject.add(moPubRequest)
+
+        ExecutorDelivery(Executor { it.run() }).postResponse(
+            moPubRequest.getVolleyRequest(),
+            Response.success("response", null)
+        )
+
+        assertThat(timings).hasSize(1)
+        assertThat(timings[0].requestClass).isEqualTo(MoPubRequest.RequestClass.AD)
+        assertThat(timings[0].adUnitId).isEqualTo("ad_unit_id")
+        assertThat(timings[0].url).isEqualTo("test")
+        // Never reached a network dispatcher
+        assertThat(timings[0].queueWaitMs).isNull()
+    }
+
+    @Test
+    fun requestFinished_withCoalescedFollower_shouldReportFollowerTimingAsCoalesced() {
+        val timings = mutableListOf<MoPubNetworkTiming>()
+        subject.timingListener = object : MoPubNetworkTiming.Listener {
+            override fun onNetworkTiming(timing: MoPubNetworkTiming) {
+                timings.add(timing)
+            }
+        }
+        val requests = List(2) {
+            TestMoPubRequest(context, RecordingListener(), "test").apply { shouldCoalesce = true }
+        }
+        requests.forEach { subject.add(it) }
+
+        ExecutorDelivery(Executor { it.run() }).postResponse(
+            requests[0].getVolleyRequest(),
+            Response.success("response", null)
+        )
+
+        assertThat(timings).hasSize(2)
+        assertThat(timings.filter { it.coalesced }).hasSize(1)
+        val followerTiming = timings.first { it.coalesced }
+        assertThat(followerTiming.url).isEqualTo("test")
+        assertThat(followerTiming.queueWaitMs).isNull()
+        assertThat(followerTiming.connectMs).isNull()
+    }
+
+    @Test
+    fun requestFinished_withImageRequest_shouldReportTimingForImageClass() {
+        val timings = mutableListOf<MoPubNetworkTiming>()
+        subject.timingListener = object : MoPubNetworkTiming.Listener {
+            override fun onNetworkTiming(timing: MoPubNetworkTiming) {
+                timings.add(timing)
+            }
+        }
+        val imageRequest = MoPubImageRequest("https://images.example.com/image.png",
+            Response.Listener<Bitmap> {}, 0, 0, ImageView.ScaleType.CENTER_INSIDE, Bitmap.Config.ARGB_8888,
+            null, Response.ErrorListener {})
+        subject.imageLoaderQueue.add(imageRequest)
+        imageRequest.addMarker("network-queue-take")
+
+        ExecutorDelivery(Executor { it.run() }).postResponse(
+            imageRequest,
+            Response.success(Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888), null)
+        )
+
+        assertThat(timings).hasSize(1)
+        assertThat(timings[0].requestClass).isEqualTo(MoPubRequest.RequestClass.IMAGE)
+        assertThat(timings[0].url).isEqualTo("https://images.example.com/image.png")
+        assertThat(timings[0].queueWaitMs).isNotNull()
+        assertThat(timings[0].coalesced).isFalse()
+    }
+
+    class RecordingListener : MoPubResponse.Listener<String> {
+        val responses = mutableListOf<String>()
+        val errors = mutableListOf<MoPubNetworkError>()
+
+        override fun onResponse(response: String) {
+            responses.add(response)
+        }
+
+        override fun onErrorResponse(networkError: MoPubNetworkError) {
+            errors.add(networkError)
+        }
+    }
+
     class TestMoPubRequest(
         context: Context,
         listener: MoPubResponse.Listener<String>?,
@@ -112,7 +384,9 @@ class MoPubRequestQueueTest {
         Method.POST,
         listener
     ) {
-        override fun deliverResponse(response: String) {}
+        override fun deliverResponse(response: String) {
+            moPubListener?.onResponse(response)
+        }
 
         override fun parseNetworkResponse(networkResponse: MoPubNetworkResponse?): MoPubResponse<String>? {
             return networkResponse?.let {
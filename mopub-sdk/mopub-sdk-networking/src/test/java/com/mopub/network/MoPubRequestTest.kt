@@ -23,7 +23,6 @@ import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.junit.runner.RunWith
-import org.mockito.Mockito.anyString
 import org.powermock.api.mockito.PowerMockito
 import org.powermock.api.mockito.PowerMockito.`when`
 import org.powermock.api.mockito.PowerMockito.verifyStatic
@@ -65,8 +64,6 @@ class MoPubRequestTest {
         PowerMockito.mockStatic(MoPubNetworkUtils::class.java)
         `when`(MoPubNetworkUtils.parseCharsetFromContentType(mutableMapOf()))
             .thenReturn("ISO-8859-1")
-        `when`(MoPubNetworkUtils.convertQueryToMap(url))
-            .thenReturn(mapOf("query1" to "abc", "query2" to "def", "query3" to "ghi"))
         Networking.urlRewriter = object : MoPubUrlRewriter {}
     }
 
@@ -119,10 +116,9 @@ class MoPubRequestTest {
 
     @Test
     fun volleyGetParams_shouldCallMoPubRequestGetParams() {
-        subject.getParamsFromRequest()
+        val getParamsMethod = subject.getVolleyRequest().javaClass.getDeclaredMethod("getParams")
 
-        verifyStatic(MoPubNetworkUtils::class.java)
-        MoPubNetworkUtils.convertQueryToMap(anyString())
+        assertEquals(subject.getParamsFromRequest(), getParamsMethod.invoke(subject.getVolleyRequest()))
     }
 
     @Test
@@ -212,8 +208,6 @@ class MoPubRequestTest {
     fun getParams_whenUrlHasParams_whenUrlRewriterIsNotNull_shouldReturnParamMap() {
         val result = subject.getParamsFromRequest()
 
-        verifyStatic(MoPubNetworkUtils::class.java)
-        MoPubNetworkUtils.convertQueryToMap(url)
         assertEquals(
             mapOf("query1" to "abc", "query2" to "def", "query3" to "ghi"),
             result
@@ -228,6 +222,31 @@ class MoPubRequestTest {
         assertTrue(subject.getParamsFromRequest()!!.isEmpty())
     }
 
+    @Test
+    fun getParams_withRequestParams_shouldSendThemInsteadOfUrlParams() {
+        val requestParams = MoPubRequestParams()
+        requestParams.add("id", "generated")
+        requestParams.add("id", "twice")
+        subject.requestParams = requestParams
+
+        assertEquals(mapOf("id" to "generated,twice"), subject.getParamsFromRequest())
+    }
+
+    @Test
+    fun getParams_shouldRewriteCopyOfRequestParams() {
+        val requestParams = MoPubRequestParams()
+        requestParams.add("ifa", "template")
+        subject.requestParams = requestParams
+        Networking.urlRewriter = object : MoPubUrlRewriter {
+            override fun rewriteParams(params: MoPubRequestParams) {
+                params.replaceTemplate("template", "value")
+            }
+        }
+
+        assertEquals(mapOf("ifa" to "value"), subject.getParamsFromRequest())
+        assertEquals(mapOf("ifa" to "template"), requestParams.toMap())
+    }
+
     @Test
     fun getParams_whenUrlRewriterIsNull_shouldReturnNull() {
         Networking.urlRewriter = null
@@ -0,0 +1,154 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network
+
+import com.mopub.network.NetworkTimingHistograms.Phase
+import com.mopub.test.support.NetworkingTestRunner
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(NetworkingTestRunner::class)
+class NetworkTimingHistogramsTest {
+    private lateinit var subject: NetworkTimingHistograms
+
+    @Before
+    fun setup() {
+        subject = NetworkTimingHistograms(longArrayOf(10, 100))
+    }
+
+    @Test
+    fun onNetworkTiming_shouldRecordEachPhaseInItsBucket() {
+        subject.onNetworkTiming(createTiming(connectMs = 5, tlsHandshakeMs = 50, totalMs = 500))
+        subject.onNetworkTiming(createTiming(connectMs = 10, tlsHandshakeMs = 150, totalMs = 90))
+
+        val connect = subject.getHistogram(MoPubRequest.RequestClass.AD, AD_UNIT_ID, Phase.CONNECT)!!
+        assertThat(connect.sampleCount).isEqualTo(2)
+        assertThat(connect.totalMs).isEqualTo(15)
+        assertThat(connect.getBucketCount(0)).isEqualTo(2)
+
+        val tls = subject.getHistogram(MoPubRequest.RequestClass.AD, AD_UNIT_ID, Phase.TLS_HANDSHAKE)!!
+        assertThat(tls.getBucketCount(1)).isEqualTo(1)
+        assertThat(tls.getBucketCount(2)).isEqualTo(1)
+
+        val total = subject.getHistogram(MoPubRequest.RequestClass.AD, AD_UNIT_ID, Phase.TOTAL)!!
+        assertThat(total.getBucketCount(1)).isEqualTo(1)
+        assertThat(total.getBucketCount(2)).isEqualTo(1)
+    }
+
+    @Test
+    fun onNetworkTiming_withMissingPhases_shouldNotRecordThem() {
+        subject.onNetworkTiming(createTiming(connectMs = null, tlsHandshakeMs = null, totalMs = 20))
+
+        val connect = subject.getHistogram(MoPubRequest.RequestClass.AD, AD_UNIT_ID, Phase.CONNECT)!!
+        assertThat(connect.sampleCount).isEqualTo(0)
+        val total = subject.getHistogram(MoPubRequest.RequestClass.AD, AD_UNIT_ID, Phase.TOTAL)!!
+        assertThat(total.sampleCount).isEqualTo(1)
+    }
+
+    @Test
+    fun onNetworkTiming_shouldKeepRequestClassesAndAdUnitsApart() {
+        subject.onNetworkTiming(createTiming(totalMs = 20))
+        subject.onNetworkTiming(createTiming(totalMs = 20, adUnitId = "other"))
+        subject.onNetworkTiming(createTiming(totalMs = 20,
+            requestClass = MoPubRequest.RequestClass.IMAGE, adUnitId = null))
+
+        assertThat(subject.getHistogram(MoPubRequest.RequestClass.AD, AD_UNIT_ID, Phase.TOTAL)!!
+            .sampleCount).isEqualTo(1)
+        assertThat(subject.getHistogram(MoPubRequest.RequestClass.AD, "other", Phase.TOTAL)!!
+            .sampleCount).isEqualTo(1)
+        assertThat(subject.getHistogram(MoPubRequest.RequestClass.IMAGE, null, Phase.TOTAL)!!
+            .sampleCount).isEqualTo(1)
+        assertThat(subject.getHistogram(MoPubRequest.RequestClass.BACKGROUND, null, Phase.TOTAL))
+            .isNull()
+    }
+
+    @Test
+    fun toJson_shouldExportBoundsAndRecordedPhases() {
+        subject.onNetworkTiming(createTiming(connectMs = 5, tlsHandshakeMs = null, totalMs = 500))
+
+        val json = subject.toJson()
+
+        assertThat(json.getJSONArray("bucket_bounds_ms").toString()).isEqualTo("[10,100]")
+        val entry = json.getJSONArray("histograms").getJSONObject(0)
+        assertThat(entry.getString("request_class")).isEqualTo("AD")
+        assertThat(entry.getString("ad_unit_id")).isEqualTo(AD_UNIT_ID)
+        val phases = entry.getJSONObject("phases")
+        assertThat(phases.has("tls_handshake")).isFalse
+        assertThat(phases.getJSONObject("connect").getLong("count")).isEqualTo(1)
+        assertThat(phases.getJSONObject("total").getJSONArray("bucket_counts").toString())
+            .isEqualTo("[0,0,1]")
+    }
+
+    @Test
+    fun toNetworkTiming_shouldComputePhasesFromTimestamps() {
+        val timing = RequestTiming().apply {
+            requestClass = MoPubRequest.RequestClass.AD
+            adUnitId = AD_UNIT_ID
+            url = "https://ads.mopub.com/m/gen_ad"
+            enqueuedAt = 1000
+            networkTakeAt = 1010
+            executeStartAt = 1012
+            connectEndAt = 1050
+            tlsEndAt = 1100
+            headersAt = 1180
+            parseStartAt = 1200
+            parseEndAt = 1205
+        }
+
+        val result = timing.toNetworkTiming(1210)
+
+        assertThat(result.queueWaitMs).isEqualTo(10)
+        assertThat(result.connectMs).isEqualTo(38)
+        assertThat(result.tlsHandshakeMs).isEqualTo(50)
+        assertThat(result.timeToFirstByteMs).isEqualTo(80)
+        assertThat(result.downloadMs).isEqualTo(20)
+        assertThat(result.parseMs).isEqualTo(5)
+        assertThat(result.totalMs).isEqualTo(210)
+    }
+
+    @Test
+    fun toNetworkTiming_withReusedConnection_shouldLeaveConnectAndTlsEmpty() {
+        val timing = RequestTiming().apply {
+            enqueuedAt = 1000
+            networkTakeAt = 1001
+            executeStartAt = 1002
+            headersAt = 1050
+            parseStartAt = 1060
+            parseEndAt = 1061
+        }
+
+        val result = timing.toNetworkTiming(1070)
+
+        assertThat(result.connectMs).isNull()
+        assertThat(result.tlsHandshakeMs).isNull()
+        assertThat(result.timeToFirstByteMs).isEqualTo(48)
+    }
+
+    private fun createTiming(
+        connectMs: Long? = 1,
+        tlsHandshakeMs: Long? = 1,
+        totalMs: Long,
+        requestClass: MoPubRequest.RequestClass = MoPubRequest.RequestClass.AD,
+        adUnitId: String? = AD_UNIT_ID
+    ) = MoPubNetworkTiming(
+        requestClass = requestClass,
+        adUnitId = adUnitId,
+        url = "https://ads.mopub.com/m/gen_ad",
+        queueWaitMs = 1,
+        connectMs = connectMs,
+        tlsHandshakeMs = tlsHandshakeMs,
+        timeToFirstByteMs = 1,
+        downloadMs = 1,
+        parseMs = 1,
+        totalMs = totalMs
+    )
+
+    companion object {
+        private const val AD_UNIT_ID = "ad_unit_id"
+    }
+}
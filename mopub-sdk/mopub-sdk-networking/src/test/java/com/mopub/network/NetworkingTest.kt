@@ -6,8 +6,10 @@ package com.mopub.network
 
 import android.app.Activity
 import android.net.SSLCertificateSocketFactory
+import android.os.AsyncTask
 import android.webkit.WebSettings
 
+import com.mopub.common.util.AsyncTasks
 import com.mopub.volley.CacheDispatcher
 import com.mopub.volley.RequestQueue
 
@@ -25,6 +27,7 @@ import org.robolectric.Robolectric
 import org.robolectric.RobolectricTestRunner
 
 import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
 import java.util.concurrent.TimeUnit
 
 @RunWith(RobolectricTestRunner::class)
@@ -152,6 +155,19 @@ class NetworkingTest {
         assertNull(volleyCacheDispatcher)
     }
 
+    @Test
+    fun getRequestQueue_shouldCreateSslSocketFactory_shouldKeepItWhenQueueIsRecreated() {
+        Networking.urlRewriter = object : MoPubUrlRewriter {}
+
+        Networking.getRequestQueue(context)
+        val sslSocketFactory = Networking.sslSocketFactory
+        Networking.setRequestQueueForTesting(null)
+        Networking.getRequestQueue(context)
+
+        assertNotNull(sslSocketFactory)
+        assertThat(Networking.sslSocketFactory).isSameAs(sslSocketFactory)
+    }
+
     @Test
     fun getImageLoader_shouldReturnCachedImageLoader() {
         Networking.setImageLoaderForTesting(mockImageLoader)
@@ -171,4 +187,19 @@ class NetworkingTest {
         verifyStatic()
         Networking.getRequestQueue(context.applicationContext)
     }
+
+    @Test
+    fun preconnect_calledAgainForSameHostBeforeFinishing_shouldStartOneTask() {
+        val tasks = mutableListOf<Runnable>()
+        AsyncTasks.setExecutor(Executor { tasks.add(it) })
+        try {
+            Networking.preconnect(context, "ads.mopub.com")
+            Networking.preconnect(context, "ads.mopub.com")
+            Networking.preconnect(context, "other.mopub.com")
+
+            assertThat(tasks).hasSize(2)
+        } finally {
+            AsyncTasks.setExecutor(AsyncTask.THREAD_POOL_EXECUTOR)
+        }
+    }
 }
@@ -0,0 +1,207 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network
+
+import com.mopub.common.logging.MoPubLog
+import com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM
+import com.mopub.test.support.NetworkingTestRunner
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.After
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+import java.io.IOException
+import java.net.InetAddress
+import java.net.URL
+import java.security.KeyStore
+import java.util.Collections
+import java.util.concurrent.atomic.AtomicInteger
+import javax.net.ssl.HttpsURLConnection
+import javax.net.ssl.KeyManagerFactory
+import javax.net.ssl.SSLContext
+import javax.net.ssl.SSLServerSocket
+import javax.net.ssl.SSLSocket
+import javax.net.ssl.TrustManagerFactory
+
+/**
+ * Measures what sharing one [CustomSSLSocketFactory] saves on the first request to a host, against
+ * a local TLS server: a resumed session skips the full handshake, and a preconnected host skips
+ * the connection altogether. The server counts handshakes and connections, so each case asserts
+ * what it skipped and logs its latency. Only runs with -Pbenchmarks.
+ */
+@RunWith(NetworkingTestRunner::class)
+class TlsSessionBenchmarkTest {
+    private lateinit var server: StandInServer
+
+    @Before
+    fun setUp() {
+        assumeTrue(java.lang.Boolean.getBoolean("mopub.benchmarks"))
+        server = StandInServer(createSslContext())
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        if (::server.isInitialized) {
+            server.stop()
+        }
+    }
+
+    @Test
+    fun firstRequest_withNewSocketFactory_shouldDoFullHandshakeEveryTime() {
+        val factories = List(ROUNDS) { createSocketFactory() }
+        val connections = server.connectionCount.get()
+        val sessions = server.sessionCount
+
+        val averageMicros = factories.map { timeRequestMicros(it) }.average()
+
+        report("cold", averageMicros)
+        assertThat(server.connectionCount.get() - connections).isEqualTo(ROUNDS)
+        assertThat(server.sessionCount - sessions).isEqualTo(ROUNDS)
+    }
+
+    @Test
+    fun firstRequest_withSharedSocketFactory_withClosedConnection_shouldResumeTlsSession() {
+        server.keepAlive = false
+        val socketFactory = createSocketFactory()
+        timeRequestMicros(socketFactory)
+        val sessions = server.sessionCount
+
+        val averageMicros = List(ROUNDS) { timeRequestMicros(socketFactory) }.average()
+
+        report("resumed session", averageMicros)
+        assertThat(server.sessionCount - sessions).isEqualTo(0)
+    }
+
+    @Test
+    fun firstRequest_withSharedSocketFactory_withPreconnection_shouldReusePooledConnection() {
+        val socketFactory = createSocketFactory()
+        // What Networking.preconnect does during initialization
+        timeRequestMicros(socketFactory)
+        val connections = server.connectionCount.get()
+
+        val averageMicros = List(ROUNDS) { timeRequestMicros(socketFactory) }.average()
+
+        report("pooled connection", averageMicros)
+        assertThat(server.connectionCount.get() - connections).isEqualTo(0)
+    }
+
+    private fun createSocketFactory(): CustomSSLSocketFactory {
+        return CustomSSLSocketFactory.getDefault(0).apply {
+            @Suppress("DEPRECATION")
+            setCertificateSocketFactory(createSslContext().socketFactory)
+        }
+    }
+
+    private fun timeRequestMicros(socketFactory: CustomSSLSocketFactory): Long {
+        val start = System.nanoTime()
+        val connection = URL("https://localhost:${server.port}/").openConnection() as HttpsURLConnection
+        connection.sslSocketFactory = socketFactory
+        connection.inputStream.use { stream ->
+            while (stream.read() != -1) {
+                // Drain so that the connection can go back to the pool
+            }
+        }
+        return (System.nanoTime() - start) / 1000
+    }
+
+    private fun report(case: String, averageMicros: Double) {
+        MoPubLog.log(CUSTOM, "TLS first request, $case: ${averageMicros.toLong()} us average " +
+                "over $ROUNDS requests")
+    }
+
+    /**
+     * Answers every request with a tiny response. Only allows TLS 1.2 so that a resumed session
+     * keeps its session id and full handshakes can be counted by distinct ids.
+     */
+    private class StandInServer(sslContext: SSLContext) {
+        private val serverSocket = sslContext.serverSocketFactory
+            .createServerSocket(0, 50, InetAddress.getByName("127.0.0.1")) as SSLServerSocket
+        private val sessionIds = Collections.synchronizedSet(HashSet<String>())
+        val connectionCount = AtomicInteger()
+        @Volatile var keepAlive = true
+
+        val port: Int
+            get() = serverSocket.localPort
+
+        val sessionCount: Int
+            get() = sessionIds.size
+
+        init {
+            serverSocket.enabledProtocols = arrayOf("TLSv1.2")
+        }
+
+        fun start() {
+            Thread {
+                while (true) {
+                    val socket = try {
+                        serverSocket.accept() as SSLSocket
+                    } catch (e: IOException) {
+                        return@Thread
+                    }
+                    connectionCount.incrementAndGet()
+                    Thread { serve(socket) }.start()
+                }
+            }.apply { isDaemon = true }.start()
+        }
+
+        fun stop() {
+            serverSocket.close()
+        }
+
+        private fun serve(socket: SSLSocket) {
+            try {
+                socket.use {
+                    it.startHandshake()
+                    sessionIds.add(it.session.id.joinToString("") { byte -> "%02x".format(byte) })
+                    val reader = it.inputStream.bufferedReader()
+                    val output = it.outputStream
+                    while (true) {
+                        var line = reader.readLine() ?: return
+                        while (line.isNotEmpty()) {
+                            line = reader.readLine() ?: return
+                        }
+                        val close = !keepAlive
+                        val connectionHeader = if (close) "Connection: close\r\n" else ""
+                        output.write("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n${connectionHeader}\r\nok".toByteArray())
+                        output.flush()
+                        if (close) {
+                            return
+                        }
+                    }
+                }
+            } catch (e: IOException) {
+                // The client went away
+            }
+        }
+    }
+
+    companion object {
+        private const val ROUNDS = 20
+        private const val KEY_STORE = "tls-stand-in.p12"
+        private val KEY_STORE_PASSWORD = "mopubtest".toCharArray()
+
+        /**
+         * The stand-in certificate is self-signed for localhost, so the same key store serves as
+         * the server's key and the client's trust anchor.
+         */
+        private fun createSslContext(): SSLContext {
+            val keyStore = KeyStore.getInstance("PKCS12")
+            TlsSessionBenchmarkTest::class.java.getResourceAsStream(KEY_STORE).use {
+                keyStore.load(it, KEY_STORE_PASSWORD)
+            }
+            val keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm())
+            keyManagerFactory.init(keyStore, KEY_STORE_PASSWORD)
+            val trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm())
+            trustManagerFactory.init(keyStore)
+            return SSLContext.getInstance("TLS").apply {
+                init(keyManagerFactory.keyManagers, trustManagerFactory.trustManagers, null)
+            }
+        }
+    }
+}
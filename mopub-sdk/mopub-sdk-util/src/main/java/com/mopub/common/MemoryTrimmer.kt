@@ -0,0 +1,161 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common
+
+import android.content.ComponentCallbacks2
+import android.content.ComponentCallbacks2.TRIM_MEMORY_COMPLETE
+import android.content.ComponentCallbacks2.TRIM_MEMORY_MODERATE
+import android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL
+import android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+import android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE
+import android.content.Context
+import android.content.res.Configuration
+
+import androidx.annotation.MainThread
+
+import com.mopub.common.logging.MoPubLog
+import com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM
+
+import java.lang.ref.WeakReference
+
+/**
+ * Trims the SDK's in-memory caches when the system is low on memory, so that the app isn't killed
+ * while the SDK holds on to bitmaps and WebViews it can load again.
+ *
+ * Each cache gives up a share of its contents by trim level: a quarter once the app is hidden or
+ * memory starts to run low while it is running ([TRIM_MEMORY_RUNNING_MODERATE] and
+ * [TRIM_MEMORY_RUNNING_LOW]), half when memory is moderately low in the background
+ * ([TRIM_MEMORY_MODERATE]) and everything when it is critical ([TRIM_MEMORY_RUNNING_CRITICAL] and
+ * [TRIM_MEMORY_COMPLETE]). Caches are held weakly and only need to be [added][addCache] once.
+ */
+object MemoryTrimmer : ComponentCallbacks2 {
+
+    /**
+     * A cache that can give up part of its contents.
+     */
+    interface Trimmable {
+        /**
+         * Releases [fraction] of the cache, between 0 and 1. Called on the main thread.
+         *
+         * @return roughly how many bytes were released.
+         */
+        @MainThread
+        fun trimMemory(fraction: Float): Long
+    }
+
+    /**
+     * How many bytes each cache released at one trim level.
+     */
+    class TrimReport(val level: Int, val bytesReleased: Map<String, Long>) {
+        val totalBytesReleased: Long
+            get() = bytesReleased.values.sum()
+
+        override fun toString() = "Trim level $level released $totalBytesReleased bytes: $bytesReleased"
+    }
+
+    private class NamedCache(val name: String, cache: Trimmable) {
+        val cache = WeakReference(cache)
+    }
+
+    private val caches = mutableListOf<NamedCache>()
+    private var registeredContext: Context? = null
+
+    @JvmStatic
+    var lastReport: TrimReport? = null
+        private set
+
+    /**
+     * Starts listening for memory pressure. Safe to call more than once.
+     */
+    @JvmStatic
+    @MainThread
+    fun register(context: Context) {
+        if (registeredContext != null) {
+            return
+        }
+        registeredContext = context.applicationContext.also {
+            it.registerComponentCallbacks(this)
+        }
+    }
+
+    @JvmStatic
+    fun addCache(name: String, cache: Trimmable) {
+        synchronized(caches) {
+            if (caches.none { it.cache.get() === cache }) {
+                caches.add(NamedCache(name, cache))
+            }
+        }
+    }
+
+    @JvmStatic
+    fun removeCache(cache: Trimmable) {
+        synchronized(caches) {
+            caches.removeAll { it.cache.get().let { trimmable -> trimmable == null || trimmable === cache } }
+        }
+    }
+
+    override fun onTrimMemory(level: Int) {
+        trim(level)
+    }
+
+    override fun onLowMemory() {
+        trim(TRIM_MEMORY_COMPLETE)
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) {}
+
+    /**
+     * Trims every cache by the share for [level].
+     *
+     * @return what was released, or null if [level] doesn't call for trimming.
+     */
+    @JvmStatic
+    @MainThread
+    fun trim(level: Int): TrimReport? {
+        val fraction = getTrimFraction(level)
+        if (fraction <= 0) {
+            return null
+        }
+        val liveCaches = synchronized(caches) {
+            caches.removeAll { it.cache.get() == null }
+            caches.toList()
+        }
+        val bytesReleased = LinkedHashMap<String, Long>()
+        for (namedCache in liveCaches) {
+            val released = namedCache.cache.get()?.trimMemory(fraction) ?: continue
+            bytesReleased[namedCache.name] = (bytesReleased[namedCache.name] ?: 0) + released
+        }
+        return TrimReport(level, bytesReleased).also {
+            lastReport = it
+            MoPubLog.log(CUSTOM, it.toString())
+        }
+    }
+
+    @JvmStatic
+    fun getTrimFraction(level: Int) = when {
+        level >= TRIM_MEMORY_COMPLETE || level == TRIM_MEMORY_RUNNING_CRITICAL -> 1f
+        level >= TRIM_MEMORY_MODERATE -> 0.5f
+        level >= TRIM_MEMORY_RUNNING_MODERATE -> 0.25f
+        else -> 0f
+    }
+
+    /**
+     * @return how many of [count] entries to release for [fraction], rounding to the nearest.
+     */
+    @JvmStatic
+    fun getTrimCount(count: Int, fraction: Float) = Math.round(count * fraction).coerceIn(0, count)
+
+    @Deprecated("")
+    @VisibleForTesting
+    @JvmStatic
+    fun clearForTesting() {
+        registeredContext?.unregisterComponentCallbacks(this)
+        registeredContext = null
+        synchronized(caches) {
+            caches.clear()
+        }
+        lastReport = null
+    }
+}
@@ -5,6 +5,9 @@
 package com.mopub.common.util;
 
 import android.text.TextUtils;
+import android.util.JsonReader;
+
+import androidx.annotation.NonNull;
 
 import com.mopub.common.logging.MoPubLog;
 
@@ -13,6 +16,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -97,4 +101,78 @@ public class Json {
 
         return valueClass.cast(object);
     }
+
+    /**
+     * Reads the next value from the reader into the same representation {@link JSONTokener}
+     * would produce for it: a {@link JSONObject}, {@link JSONArray}, {@link String},
+     * {@link Boolean}, {@link Number} or {@link JSONObject#NULL}.
+     *
+     * @param reader reader positioned before a value
+     * @return the value read
+     * @throws IOException   when the underlying stream fails or is malformed
+     * @throws JSONException when the value cannot be represented as JSON
+     */
+    @NonNull
+    public static Object readJsonValue(@NonNull final JsonReader reader)
+            throws IOException, JSONException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                return readJsonObject(reader);
+            case BEGIN_ARRAY:
+                return readJsonArray(reader);
+            case NUMBER:
+                // Let JSONTokener pick Integer, Long or Double exactly like the tree parser does
+                return new JSONTokener(reader.nextString()).nextValue();
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return JSONObject.NULL;
+            case STRING:
+                return reader.nextString();
+            default:
+                throw new JSONException("Unexpected JSON token: " + reader.peek());
+        }
+    }
+
+    /**
+     * Reads the next object from the reader into a {@link JSONObject}.
+     *
+     * @param reader reader positioned before an object
+     * @return the object read
+     * @throws IOException   when the underlying stream fails or is malformed
+     * @throws JSONException when the object cannot be represented as JSON
+     */
+    @NonNull
+    public static JSONObject readJsonObject(@NonNull final JsonReader reader)
+            throws IOException, JSONException {
+        final JSONObject jsonObject = new JSONObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            jsonObject.put(name, readJsonValue(reader));
+        }
+        reader.endObject();
+        return jsonObject;
+    }
+
+    /**
+     * Reads the next array from the reader into a {@link JSONArray}.
+     *
+     * @param reader reader positioned before an array
+     * @return the array read
+     * @throws IOException   when the underlying stream fails or is malformed
+     * @throws JSONException when the array cannot be represented as JSON
+     */
+    @NonNull
+    public static JSONArray readJsonArray(@NonNull final JsonReader reader)
+            throws IOException, JSONException {
+        final JSONArray jsonArray = new JSONArray();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            jsonArray.put(readJsonValue(reader));
+        }
+        reader.endArray();
+        return jsonArray;
+    }
 }
@@ -131,4 +131,60 @@ class CESettingsCacheServiceTest {
 
         assertEquals(responseSettings, cachedSettings)
     }
+
+    @Test
+    fun getCESettingsHash_afterPutCESettings_shouldCallOnHashReceivedFromMemory() {
+        CESettingsCacheService.putCESettings(adUnitId, responseSettings, null)
+
+        // No context, so the hash can't come from disk
+        CESettingsCacheService.getCESettingsHash(adUnitId, listener, null)
+
+        assertEquals("12345", cachedHash)
+    }
+
+    @Test
+    fun getCESettings_afterPutCESettings_shouldCallOnSettingsReceivedAfterReturning() {
+        CESettingsCacheService.putCESettings(adUnitId, responseSettings, context)
+        Robolectric.getForegroundThreadScheduler().pause()
+
+        CESettingsCacheService.getCESettings(adUnitId, listener, context)
+
+        assertEquals(null, cachedSettings)
+        Robolectric.getForegroundThreadScheduler().unPause()
+        assertEquals(responseSettings, cachedSettings)
+    }
+
+    @Test
+    fun getCESettingsHash_afterDiskRead_shouldCallOnHashReceivedFromMemory() {
+        CESettingsCacheService.initializeDiskCache(context)
+        CESettingsCacheService.putToDiskCache(adUnitId, responseSettings.toByteArray())
+        CESettingsCacheService.getCESettingsHash(adUnitId, listener, context)
+        semaphore.acquire()
+        cachedHash = null
+
+        CESettingsCacheService.getCESettingsHash(adUnitId, listener, null)
+
+        assertEquals("12345", cachedHash)
+    }
+
+    @Test
+    fun putCESettings_shouldReplaceSettingsInMemory() {
+        val newSettings = responseSettings.copy(hash = "67890")
+        CESettingsCacheService.putCESettings(adUnitId, responseSettings, null)
+
+        CESettingsCacheService.putCESettings(adUnitId, newSettings, null)
+        CESettingsCacheService.getCESettings(adUnitId, listener, null)
+
+        assertEquals(newSettings, cachedSettings)
+    }
+
+    @Test
+    fun clearCESettingsCache_shouldClearSettingsInMemory() {
+        CESettingsCacheService.putCESettings(adUnitId, responseSettings, null)
+
+        CESettingsCacheService.clearCESettingsCache()
+        CESettingsCacheService.getCESettingsHash(adUnitId, listener, null)
+
+        assertEquals("0", cachedHash)
+    }
 }
@@ -0,0 +1,95 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common
+
+import com.mopub.common.test.support.SdkTestRunner
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(SdkTestRunner::class)
+class CacheEvictionPolicyTest {
+    private lateinit var subject: CacheEvictionPolicy
+
+    @Before
+    fun setUp() {
+        subject = CacheEvictionPolicy(HOUR_MILLIS, HOUR_MILLIS, SAMPLE_SIZE)
+    }
+
+    @Test
+    fun getPriority_shouldCountLookups() {
+        subject.recordAccess(KEY)
+        subject.recordAccess(KEY)
+
+        assertThat(subject.getPriority(KEY)).isEqualTo(2)
+        assertThat(subject.getPriority("other_key")).isEqualTo(0)
+    }
+
+    @Test
+    fun recordAccess_afterSampleSize_shouldHalveFrequencies_shouldForgetSingleLookups() {
+        repeat(5) { subject.recordAccess(KEY) }
+        repeat(SAMPLE_SIZE - 6) { subject.recordAccess("key_$it") }
+        subject.recordAccess("other_key")
+
+        assertThat(subject.getPriority(KEY)).isEqualTo(2)
+        assertThat(subject.getPriority("other_key")).isEqualTo(0)
+    }
+
+    @Test
+    fun isPinned_shouldLastUntilEveryPinIsReleased() {
+        subject.pin(KEY)
+        subject.pin(KEY)
+
+        subject.unpin(KEY)
+        assertThat(subject.isPinned(KEY)).isTrue()
+        subject.unpin(KEY)
+        assertThat(subject.isPinned(KEY)).isFalse()
+    }
+
+    @Test
+    fun isPinned_withExpiredPin_shouldReturnFalse() {
+        subject = CacheEvictionPolicy(HOUR_MILLIS, 0)
+
+        subject.pin(KEY)
+
+        assertThat(subject.isPinned(KEY)).isFalse()
+    }
+
+    @Test
+    fun isExpired_shouldGoByLatestOfWriteAndLookup() {
+        val twoHoursAgo = System.currentTimeMillis() - 2 * HOUR_MILLIS
+
+        assertThat(subject.isExpired(KEY, twoHoursAgo)).isTrue()
+        subject.recordAccess(KEY)
+        assertThat(subject.isExpired(KEY, twoHoursAgo)).isFalse()
+        assertThat(subject.isExpired("other_key", System.currentTimeMillis())).isFalse()
+    }
+
+    @Test
+    fun isExpired_withoutTtl_shouldReturnFalse() {
+        subject = CacheEvictionPolicy(0, HOUR_MILLIS)
+
+        assertThat(subject.isExpired(KEY, 0)).isFalse()
+    }
+
+    @Test
+    fun clear_shouldForgetLookupsAndPins() {
+        subject.recordAccess(KEY)
+        subject.pin(KEY)
+
+        subject.clear()
+
+        assertThat(subject.getPriority(KEY)).isEqualTo(0)
+        assertThat(subject.isPinned(KEY)).isFalse()
+    }
+
+    companion object {
+        private const val KEY = "key"
+        private const val SAMPLE_SIZE = 16
+        private const val HOUR_MILLIS = 60 * 60 * 1000L
+    }
+}
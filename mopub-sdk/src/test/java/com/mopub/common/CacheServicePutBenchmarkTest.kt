@@ -0,0 +1,138 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common
+
+import android.app.Activity
+
+import com.mopub.common.logging.MoPubLog
+import com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM
+import com.mopub.common.test.support.SdkTestRunner
+import com.mopub.common.util.Streams
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.After
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Robolectric
+
+import java.io.BufferedOutputStream
+import java.io.ByteArrayInputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.InputStream
+import java.util.Random
+
+/**
+ * Puts the same 50 KB and 20 MB entries through each of [CacheService]'s write paths (stream, file
+ * channel, byte array) and through the path they replaced, a buffered stream copy with a journal
+ * flush before every commit, then logs the throughput of each. Each path has to read back what it
+ * wrote. Only runs with -Pbenchmarks, since the large case writes a few hundred MB.
+ */
+@RunWith(SdkTestRunner::class)
+class CacheServicePutBenchmarkTest {
+    private lateinit var context: Activity
+    private lateinit var subject: CacheService
+    private lateinit var baselineCache: DiskLruCache
+    private lateinit var sourceFile: File
+
+    @Before
+    fun setUp() {
+        assumeTrue(java.lang.Boolean.getBoolean("mopub.benchmarks"))
+        context = Robolectric.buildActivity(Activity::class.java).create().get()
+        subject = object : CacheService(CACHE_NAME) {}
+        subject.initialize(context)
+        // Nothing should be evicted while measuring
+        subject.diskLruCache!!.maxSize = Long.MAX_VALUE
+        baselineCache = DiskLruCache.open(File(context.cacheDir, BASELINE_CACHE_NAME), 1, 1, Long.MAX_VALUE)
+        sourceFile = File(context.cacheDir, "benchmark-source")
+    }
+
+    @After
+    fun tearDown() {
+        if (!::sourceFile.isInitialized) {
+            return
+        }
+        subject.clearAndNullCache()
+        baselineCache.delete()
+        sourceFile.delete()
+    }
+
+    @Test
+    fun putToDiskCache_withSmallEntries() {
+        benchmark("50 KB", SMALL_ENTRY_BYTES, SMALL_ENTRY_ROUNDS)
+    }
+
+    @Test
+    fun putToDiskCache_withLargeEntries() {
+        benchmark("20 MB", LARGE_ENTRY_BYTES, LARGE_ENTRY_ROUNDS)
+    }
+
+    private fun benchmark(case: String, entryBytes: Int, rounds: Int) {
+        val content = ByteArray(entryBytes).apply { Random(1).nextBytes(this) }
+        sourceFile.writeBytes(content)
+
+        val baselineMicros = time(rounds) { putBaseline("baseline$it", ByteArrayInputStream(content)) }
+        val streamMicros = time(rounds) {
+            assertThat(subject.putToDiskCache("stream$it", ByteArrayInputStream(content))).isTrue()
+        }
+        val fileMicros = time(rounds) {
+            FileInputStream(sourceFile).use {
+                assertThat(subject.putToDiskCache("file$it", it)).isTrue()
+            }
+        }
+        val bytesMicros = time(rounds) {
+            assertThat(subject.putToDiskCache("bytes$it", content)).isTrue()
+        }
+
+        report(case, "buffered stream + flush", baselineMicros, entryBytes)
+        report(case, "stream", streamMicros, entryBytes)
+        report(case, "file channel", fileMicros, entryBytes)
+        report(case, "byte array", bytesMicros, entryBytes)
+        listOf("stream", "file", "bytes").forEach {
+            assertThat(subject.getFromDiskCache("$it${rounds - 1}")).isEqualTo(content)
+        }
+        // Including the warm-up round
+        assertThat(baselineCache.size()).isEqualTo(entryBytes.toLong() * (rounds + 1))
+    }
+
+    private fun putBaseline(key: String, content: InputStream) {
+        val validKey = subject.createValidDiskCacheKey(key)
+        val editor = baselineCache.edit(validKey)
+        BufferedOutputStream(editor.newOutputStream(0)).apply {
+            Streams.copyContent(content, this)
+            flush()
+            close()
+        }
+        baselineCache.flush()
+        editor.commit()
+    }
+
+    private inline fun time(rounds: Int, put: (Int) -> Unit): Double {
+        // One round to warm up
+        put(rounds)
+        val start = System.nanoTime()
+        for (round in 0 until rounds) {
+            put(round)
+        }
+        return (System.nanoTime() - start) / 1000.0 / rounds
+    }
+
+    private fun report(case: String, path: String, averageMicros: Double, entryBytes: Int) {
+        val megabytesPerSecond = entryBytes / averageMicros
+        MoPubLog.log(CUSTOM, "Cache put, $case, $path: ${averageMicros.toLong()} us average, " +
+                "${"%.1f".format(megabytesPerSecond)} MB/s")
+    }
+
+    companion object {
+        private const val CACHE_NAME = "mopub-benchmark-cache"
+        private const val BASELINE_CACHE_NAME = "mopub-benchmark-baseline-cache"
+        private const val SMALL_ENTRY_BYTES = 50 * 1024
+        private const val SMALL_ENTRY_ROUNDS = 200
+        private const val LARGE_ENTRY_BYTES = 20 * 1024 * 1024
+        private const val LARGE_ENTRY_ROUNDS = 3
+    }
+}
@@ -8,6 +8,7 @@ import android.app.Activity
 
 import com.mopub.common.CacheService.DiskLruCacheListener
 import com.mopub.common.test.support.SdkTestRunner
+import com.mopub.common.util.Utils
 
 import junit.framework.Assert.*
 
@@ -183,6 +184,28 @@ class CacheServiceTest {
         assertFalse(testCacheService.containsKeyDiskCache("key2"))
     }
 
+    @Test
+    fun createValidDiskCacheKey_shouldMemoizeHash() {
+        val validKey = testCacheService.createValidDiskCacheKey(key1)
+
+        assertEquals(Utils.sha1(key1), validKey)
+        assertThat(testCacheService.createValidDiskCacheKey(key1)).isSameAs(validKey)
+    }
+
+    @Test
+    fun containsKeyDiskCache_whileKeyIsBeingWritten_shouldReturnFalse_shouldNotWaitForCache() {
+        testCacheService.initialize(context)
+        val cache = testCacheService.diskLruCache!!
+        val editor = cache.edit(testCacheService.createValidDiskCacheKey(key1))
+
+        val contains = testCacheService.containsKeyDiskCache(key1)
+
+        assertFalse(contains)
+        // Never took the cache's lock
+        assertThat(testCacheService.lockWaitStats.acquisitionCount).isEqualTo(0)
+        editor.abort()
+    }
+
     @Test
     fun containsKeyDiskCache_withKeyInCache_shouldReturnTrue() {
         testCacheService.initialize(context)
@@ -411,7 +434,165 @@ class CacheServiceTest {
         assertNull(asyncGetValue)
     }
 
+    @Test
+    fun lockWaitStats_shouldCountEachCacheOperation() {
+        testCacheService.initialize(context)
+
+        testCacheService.putToDiskCache(key1, data1.toByteArray())
+        testCacheService.getFromDiskCache(key1)
+        testCacheService.containsKeyDiskCache(key1)
+
+        // put takes the lock to edit and again to commit; containsKey doesn't take it
+        assertThat(testCacheService.lockWaitStats.acquisitionCount).isEqualTo(3)
+        assertThat(testCacheService.lockWaitStats.maxWaitMicros)
+            .isGreaterThanOrEqualTo(testCacheService.lockWaitStats.averageWaitMicros)
+    }
+
+    @Test
+    fun putToDiskCache_withFileInputStream_shouldPutFileContent() {
+        testCacheService.initialize(context)
+        val sourceFile = File(context.cacheDir, "source").apply { writeText(data1) }
+
+        val putSuccess = sourceFile.inputStream().use { testCacheService.putToDiskCache(key1, it) }
+
+        assertTrue(putSuccess)
+        assertEquals(data1, String(testCacheService.getFromDiskCache(key1)!!))
+        sourceFile.delete()
+    }
+
+    @Test
+    fun diskLruCacheOpen_afterCrashBeforeDeferredJournalFlush_shouldDeleteFilesMissingFromJournal() {
+        val directory = File(context.cacheDir, "crashed-cache")
+        val cache = DiskLruCache.open(directory, 1, 1, Long.MAX_VALUE)
+        cache.setJournalFlushInterval(HOUR_MILLIS)
+        val editor = cache.edit("key")
+        editor.set(0, data1.toByteArray())
+        editor.commit()
+        val valueFile = File(directory, "key.0")
+        assertTrue(valueFile.exists())
+
+        // Opened again without closing, as after a crash
+        val reopenedCache = DiskLruCache.open(directory, 1, 1, Long.MAX_VALUE)
+
+        assertFalse(valueFile.exists())
+        assertNull(reopenedCache.get("key"))
+        reopenedCache.delete()
+    }
+
+    @Test
+    fun cacheStats_shouldCountHitsAndMisses() {
+        testCacheService.initialize(context)
+        testCacheService.putToDiskCache(key1, data1.toByteArray())
+
+        testCacheService.containsKeyDiskCache(key1)
+        testCacheService.getFromDiskCache(key1)
+        testCacheService.getFromDiskCache("key2")
+        testCacheService.containsKeyDiskCache("key2")
+        testCacheService.containsKeyDiskCache(key1)
+
+        assertThat(testCacheService.cacheStats.hitCount).isEqualTo(3)
+        assertThat(testCacheService.cacheStats.missCount).isEqualTo(2)
+        assertThat(testCacheService.cacheStats.hitRatio).isEqualTo(0.6)
+    }
+
+    @Test
+    fun putToDiskCache_withEvictionPolicy_whenOverMaxSize_shouldEvictLeastLookedUpEntry() {
+        val policyCacheService = createPolicyCacheService(CacheEvictionPolicy(0, HOUR_MILLIS))
+        // Asked for twice before it was cached, which plain LRU would forget
+        policyCacheService.containsKeyDiskCache(KEY_A)
+        policyCacheService.containsKeyDiskCache(KEY_A)
+        putEntries(policyCacheService)
+
+        trimTo(policyCacheService, 2 * ENTRY_SIZE)
+
+        assertTrue(File(policyCacheService.getFilePathDiskCache(KEY_A)!!).exists())
+        assertFalse(File(policyCacheService.getFilePathDiskCache(KEY_B)!!).exists())
+        assertTrue(File(policyCacheService.getFilePathDiskCache(KEY_C)!!).exists())
+        assertThat(policyCacheService.cacheStats.evictionCount).isEqualTo(1)
+        policyCacheService.clearAndNullCache()
+    }
+
+    @Test
+    fun putToDiskCache_withEvictionPolicy_withPinnedEntry_shouldEvictAnotherEntry() {
+        val policy = CacheEvictionPolicy(0, HOUR_MILLIS)
+        val policyCacheService = createPolicyCacheService(policy)
+        putEntries(policyCacheService)
+        policy.pin(policyCacheService.createValidDiskCacheKey(KEY_A))
+
+        trimTo(policyCacheService, 2 * ENTRY_SIZE)
+
+        assertTrue(File(policyCacheService.getFilePathDiskCache(KEY_A)!!).exists())
+        assertFalse(File(policyCacheService.getFilePathDiskCache(KEY_B)!!).exists())
+        assertTrue(File(policyCacheService.getFilePathDiskCache(KEY_C)!!).exists())
+        policyCacheService.clearAndNullCache()
+    }
+
+    @Test
+    fun putToDiskCache_withEvictionPolicy_withAllEntriesPinned_shouldStayOverMaxSize() {
+        val policy = CacheEvictionPolicy(0, HOUR_MILLIS)
+        val policyCacheService = createPolicyCacheService(policy)
+        putEntries(policyCacheService)
+        listOf(KEY_A, KEY_B, KEY_C).forEach { policy.pin(policyCacheService.createValidDiskCacheKey(it)) }
+
+        trimTo(policyCacheService, ENTRY_SIZE)
+
+        assertThat(policyCacheService.diskLruCache?.size()).isEqualTo(3L * ENTRY_SIZE)
+        assertThat(policyCacheService.cacheStats.evictionCount).isEqualTo(0)
+        policyCacheService.clearAndNullCache()
+    }
+
+    @Test
+    fun evictionPolicy_withEntryPastTtl_shouldRemoveEntryWhileUnderMaxSize() {
+        val startMillis = System.currentTimeMillis()
+        val writeTimes = HashMap<String, Long>()
+        var expiredKey: String? = null
+        val policy = object : CacheEvictionPolicy(HOUR_MILLIS, HOUR_MILLIS) {
+            override fun isExpired(key: String, lastModifiedMillis: Long): Boolean {
+                writeTimes[key] = lastModifiedMillis
+                return key == expiredKey
+            }
+        }
+        val policyCacheService = createPolicyCacheService(policy)
+        putEntries(policyCacheService)
+        expiredKey = policyCacheService.createValidDiskCacheKey(KEY_B)
+
+        trimTo(policyCacheService, 10 * ENTRY_SIZE)
+
+        assertFalse(policyCacheService.containsKeyDiskCache(KEY_B))
+        assertTrue(policyCacheService.containsKeyDiskCache(KEY_A))
+        assertThat(writeTimes.getValue(policyCacheService.createValidDiskCacheKey(KEY_B)))
+            .isGreaterThanOrEqualTo(startMillis)
+        assertThat(policyCacheService.cacheStats.expirationCount).isEqualTo(1)
+        assertThat(policyCacheService.cacheStats.evictionCount).isEqualTo(0)
+        policyCacheService.clearAndNullCache()
+    }
+
+    private fun createPolicyCacheService(policy: CacheEvictionPolicy): CacheService {
+        return object : CacheService(cacheName, policy) {}.apply { initialize(context) }
+    }
+
+    private fun putEntries(cacheService: CacheService) {
+        listOf(KEY_A, KEY_B, KEY_C).forEach {
+            assertTrue(cacheService.putToDiskCache(it, ByteArray(ENTRY_SIZE.toInt())))
+        }
+    }
+
+    /**
+     * Sets the max size and waits for the cache's cleanup to run.
+     */
+    private fun trimTo(cacheService: CacheService, maxSize: Long) {
+        val cache = cacheService.diskLruCache!!
+        cache.maxSize = maxSize
+        cache.executorService.submit(Runnable {}).get()
+    }
+
     companion object {
+        private const val KEY_A = "https://www.mopub.com/a"
+        private const val KEY_B = "https://www.mopub.com/b"
+        private const val KEY_C = "https://www.mopub.com/c"
+        private const val ENTRY_SIZE = 100L
+        private const val HOUR_MILLIS = 60 * 60 * 1000L
+
         const val cacheName = "mopub-mock-cache"
         private lateinit var testCacheService: CacheService
 
@@ -0,0 +1,256 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common
+
+import android.app.Activity
+
+import com.mopub.common.test.support.SdkTestRunner
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.Robolectric
+
+import java.io.DataInputStream
+import java.io.File
+import java.io.RandomAccessFile
+
+@RunWith(SdkTestRunner::class)
+class DiskLruCacheTest {
+    private lateinit var directory: File
+    private lateinit var subject: DiskLruCache
+
+    @Before
+    fun setUp() {
+        val context = Robolectric.buildActivity(Activity::class.java).create().get()
+        directory = File(context.cacheDir, "disk-lru-cache-test")
+        subject = open()
+    }
+
+    @After
+    fun tearDown() {
+        subject.delete()
+    }
+
+    @Test
+    fun open_afterClose_shouldLoadEntriesFromIndexWithoutReplayingJournal() {
+        put("a", "aaa")
+        put("b", "bb")
+        subject.close()
+        // Replaying any of the indexed journal lines would now fail as corrupt
+        RandomAccessFile(File(directory, DiskLruCache.JOURNAL_FILE), "rw").use {
+            val headerLength = JOURNAL_HEADER.length.toLong()
+            it.seek(headerLength)
+            it.write(ByteArray((readIndexedJournalLength() - headerLength).toInt()) { '\n'.toByte() })
+        }
+
+        subject = open()
+
+        assertThat(get("a")).isEqualTo("aaa")
+        assertThat(get("b")).isEqualTo("bb")
+        assertThat(subject.size()).isEqualTo(5)
+    }
+
+    @Test
+    fun open_withJournalLinesAfterIndex_shouldReplayThem() {
+        put("a", "aaa")
+        subject.close()
+        subject = open()
+        put("b", "bb")
+        subject.remove("a")
+        // Not closed, so the index only covers the first session
+        subject.flush()
+
+        subject = open()
+
+        assertThat(get("a")).isNull()
+        assertThat(get("b")).isEqualTo("bb")
+        assertThat(subject.size()).isEqualTo(2)
+    }
+
+    @Test
+    fun open_withCorruptIndex_shouldReplayWholeJournal() {
+        put("a", "aaa")
+        subject.close()
+        File(directory, DiskLruCache.INDEX_FILE).writeBytes(ByteArray(10))
+
+        subject = open()
+
+        assertThat(get("a")).isEqualTo("aaa")
+    }
+
+    @Test
+    fun open_withIndexForLongerJournal_shouldReplayWholeJournal() {
+        put("a", "aaa")
+        subject.close()
+        RandomAccessFile(File(directory, DiskLruCache.JOURNAL_FILE), "rw").use {
+            it.setLength(JOURNAL_HEADER.length.toLong())
+        }
+
+        subject = open()
+
+        assertThat(get("a")).isNull()
+        assertThat(subject.size()).isEqualTo(0)
+    }
+
+    @Test
+    fun open_afterClose_shouldKeepLruOrder() {
+        put("a", "a")
+        put("b", "b")
+        put("c", "c")
+        get("a")
+        subject.close()
+        subject = open()
+
+        subject.maxSize = 2
+        subject.flush()
+
+        assertThat(get("a")).isEqualTo("a")
+        assertThat(get("b")).isNull()
+        assertThat(get("c")).isEqualTo("c")
+    }
+
+    @Test
+    fun rebuildJournal_shouldReplaceIndex() {
+        put("a", "aaa")
+        // Enough redundant lines to compact the journal
+        repeat(2000) { get("a") }
+        put("b", "bb")
+        subject.executorService.submit(Runnable {}).get()
+        val journalLength = File(directory, DiskLruCache.JOURNAL_FILE).length()
+        assertThat(journalLength).isLessThan(2000L * "READ a\n".length)
+        assertThat(readIndexedJournalLength()).isLessThanOrEqualTo(journalLength)
+        subject.close()
+
+        subject = open()
+
+        assertThat(get("a")).isEqualTo("aaa")
+        assertThat(get("b")).isEqualTo("bb")
+    }
+
+    @Test
+    fun contains_shouldFollowCommitsAndRemovals() {
+        val editor = subject.edit("a")
+        editor.set(0, "aaa")
+        assertThat(subject.contains("a")).isFalse()
+        editor.commit()
+        assertThat(subject.contains("a")).isTrue()
+        assertThat(subject.getLength("a")).isEqualTo(3)
+
+        subject.remove("a")
+
+        assertThat(subject.contains("a")).isFalse()
+        assertThat(subject.getLength("a")).isEqualTo(-1)
+    }
+
+    @Test
+    fun contains_whileEntryIsBeingUpdated_shouldKeepPreviousValue() {
+        put("a", "aaa")
+
+        val editor = subject.edit("a")
+        editor.set(0, "aaaaa")
+        assertThat(subject.getLength("a")).isEqualTo(3)
+        editor.commit()
+
+        assertThat(subject.getLength("a")).isEqualTo(5)
+    }
+
+    @Test
+    fun contains_afterEviction_shouldReturnFalse() {
+        put("a", "aaa")
+        put("b", "bbb")
+
+        subject.maxSize = 4
+        subject.flush()
+
+        assertThat(subject.contains("a")).isFalse()
+        assertThat(subject.contains("b")).isTrue()
+    }
+
+    @Test
+    fun contains_afterOpen_shouldIncludeEntriesFromJournal() {
+        put("a", "aaa")
+        subject.close()
+        assertThat(subject.contains("a")).isFalse()
+
+        subject = open()
+
+        assertThat(subject.contains("a")).isTrue()
+        assertThat(subject.getLength("a")).isEqualTo(3)
+    }
+
+    @Test
+    fun contains_afterOpen_withDeletedFiles_shouldReturnFalse() {
+        put("a", "aaa")
+        put("b", "bb")
+        subject.close()
+        File(directory, "a.0").delete()
+
+        subject = open()
+
+        assertThat(subject.contains("a")).isFalse()
+        assertThat(subject.contains("b")).isTrue()
+        assertThat(subject.size()).isEqualTo(2)
+    }
+
+    @Test
+    fun contains_afterGetFindsDeletedFiles_shouldReturnFalse() {
+        put("a", "aaa")
+        File(directory, "a.0").delete()
+
+        assertThat(get("a")).isNull()
+
+        assertThat(subject.contains("a")).isFalse()
+    }
+
+    @Test
+    fun open_withChurnedJournal_shouldLoadTheSameEntriesWithAndWithoutIndex() {
+        // Many short-lived entries leave long journals on long-lived installs
+        for (i in 0 until CHURNED_ENTRIES) {
+            put("key$i", "value$i")
+            get("key$i")
+            if (i % 3 != 0) {
+                subject.remove("key$i")
+            }
+        }
+        subject.close()
+
+        subject = open()
+        val indexedSize = subject.size()
+        subject.close()
+        File(directory, DiskLruCache.INDEX_FILE).delete()
+        subject = open()
+
+        assertThat(subject.size()).isEqualTo(indexedSize)
+        assertThat(get("key0")).isEqualTo("value0")
+        assertThat(get("key1")).isNull()
+    }
+
+    private fun open() = DiskLruCache.open(directory, 1, 1, Long.MAX_VALUE)
+
+    private fun put(key: String, value: String) {
+        subject.edit(key).apply {
+            set(0, value)
+            commit()
+        }
+    }
+
+    private fun get(key: String): String? = subject.get(key)?.use { it.getString(0) }
+
+    private fun readIndexedJournalLength(): Long {
+        DataInputStream(File(directory, DiskLruCache.INDEX_FILE).inputStream()).use {
+            // Magic, index version, app version and value count come first
+            it.skipBytes(16)
+            return it.readLong()
+        }
+    }
+
+    companion object {
+        private const val JOURNAL_HEADER = "libcore.io.DiskLruCache\n1\n1\n1\n\n"
+        private const val CHURNED_ENTRIES = 3000
+    }
+}
@@ -0,0 +1,106 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common
+
+import android.content.ComponentCallbacks2
+
+import com.mopub.common.test.support.SdkTestRunner
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RuntimeEnvironment
+
+@RunWith(SdkTestRunner::class)
+class MemoryTrimmerTest {
+    private lateinit var imageCache: TestCache
+    private lateinit var webViewCache: TestCache
+
+    @Before
+    fun setUp() {
+        imageCache = TestCache(1000)
+        webViewCache = TestCache(400)
+        MemoryTrimmer.addCache("images", imageCache)
+        MemoryTrimmer.addCache("web-views", webViewCache)
+    }
+
+    @Test
+    fun trim_shouldTrimEachCacheByLevel_shouldReportBytesReleasedPerCache() {
+        val report = MemoryTrimmer.trim(ComponentCallbacks2.TRIM_MEMORY_MODERATE)
+
+        assertThat(imageCache.fractions).containsExactly(0.5f)
+        assertThat(webViewCache.fractions).containsExactly(0.5f)
+        assertThat(report!!.bytesReleased).isEqualTo(mapOf("images" to 500L, "web-views" to 200L))
+        assertThat(report.totalBytesReleased).isEqualTo(700)
+        assertThat(MemoryTrimmer.lastReport).isSameAs(report)
+    }
+
+    @Test
+    fun trim_withRemovedCache_shouldNotTrimIt() {
+        MemoryTrimmer.removeCache(webViewCache)
+
+        val report = MemoryTrimmer.trim(ComponentCallbacks2.TRIM_MEMORY_COMPLETE)
+
+        assertThat(webViewCache.fractions).isEmpty()
+        assertThat(report!!.bytesReleased).isEqualTo(mapOf("images" to 1000L))
+    }
+
+    @Test
+    fun trim_withLevelBelowRunningModerate_shouldNotTrim() {
+        assertThat(MemoryTrimmer.trim(0)).isNull()
+
+        assertThat(imageCache.fractions).isEmpty()
+    }
+
+    @Test
+    fun addCache_twice_shouldTrimOnce() {
+        MemoryTrimmer.addCache("images", imageCache)
+
+        MemoryTrimmer.trim(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)
+
+        assertThat(imageCache.fractions).containsExactly(0.25f)
+    }
+
+    @Test
+    fun register_shouldTrimOnApplicationTrimMemory() {
+        MemoryTrimmer.register(RuntimeEnvironment.application)
+        MemoryTrimmer.register(RuntimeEnvironment.application)
+
+        RuntimeEnvironment.application.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL)
+
+        assertThat(imageCache.fractions).containsExactly(1f)
+    }
+
+    @Test
+    fun getTrimFraction_shouldGrowWithTrimLevel() {
+        assertThat(MemoryTrimmer.getTrimFraction(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE)).isEqualTo(0.25f)
+        assertThat(MemoryTrimmer.getTrimFraction(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)).isEqualTo(0.25f)
+        assertThat(MemoryTrimmer.getTrimFraction(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL)).isEqualTo(1f)
+        assertThat(MemoryTrimmer.getTrimFraction(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)).isEqualTo(0.25f)
+        assertThat(MemoryTrimmer.getTrimFraction(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND)).isEqualTo(0.25f)
+        assertThat(MemoryTrimmer.getTrimFraction(ComponentCallbacks2.TRIM_MEMORY_MODERATE)).isEqualTo(0.5f)
+        assertThat(MemoryTrimmer.getTrimFraction(ComponentCallbacks2.TRIM_MEMORY_COMPLETE)).isEqualTo(1f)
+    }
+
+    @Test
+    fun getTrimCount_shouldRoundToNearest() {
+        assertThat(MemoryTrimmer.getTrimCount(1, 0.25f)).isEqualTo(0)
+        assertThat(MemoryTrimmer.getTrimCount(1, 0.5f)).isEqualTo(1)
+        assertThat(MemoryTrimmer.getTrimCount(10, 0.25f)).isEqualTo(3)
+        assertThat(MemoryTrimmer.getTrimCount(10, 1f)).isEqualTo(10)
+    }
+
+    private class TestCache(private var size: Long) : MemoryTrimmer.Trimmable {
+        val fractions = mutableListOf<Float>()
+
+        override fun trimMemory(fraction: Float): Long {
+            fractions.add(fraction)
+            val released = (size * fraction).toLong()
+            size -= released
+            return released
+        }
+    }
+}
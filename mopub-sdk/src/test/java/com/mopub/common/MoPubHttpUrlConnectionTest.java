@@ -11,6 +11,7 @@ import android.webkit.WebView;
 import com.mopub.common.test.support.SdkTestRunner;
 import com.mopub.network.Networking;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -20,21 +21,29 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.util.List;
 
+import javax.net.ssl.HttpsURLConnection;
+
 import static com.mopub.common.MoPubHttpUrlConnection.urlEncode;
 import static org.fest.assertions.api.Assertions.assertThat;
 
 @RunWith(SdkTestRunner.class)
 public class MoPubHttpUrlConnectionTest {
     private static final String url = "https://www.mopub.com";
+    private Context context;
     private String userAgent;
 
     @Before
     public void setUp() throws Exception {
-        Context context = Robolectric.buildActivity(Activity.class).create().get();
+        context = Robolectric.buildActivity(Activity.class).create().get();
         userAgent = new WebView(context).getSettings().getUserAgentString();
         Networking.setUserAgentForTesting(userAgent);
     }
 
+    @After
+    public void tearDown() {
+        Networking.clearForTesting();
+    }
+
     @Test
     public void getHttpUrlConnection_shouldReturnHttpUrlConnectionWithUserAgent() throws Exception {
         HttpURLConnection urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(url);
@@ -51,6 +60,16 @@ public class MoPubHttpUrlConnectionTest {
         assertThat(urlConnection.getReadTimeout()).isEqualTo(10000);
     }
 
+    @Test
+    public void getHttpUrlConnection_afterRequestQueueCreated_shouldShareItsSslSocketFactory() throws Exception {
+        Networking.getRequestQueue(context);
+
+        HttpURLConnection urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(url);
+
+        assertThat(((HttpsURLConnection) urlConnection).getSSLSocketFactory())
+                .isSameAs(Networking.getSslSocketFactory());
+    }
+
     @Test
     public void getHttpUrlConnection_shouldProperlyEncodeUrl() throws Exception {
         HttpURLConnection urlConnection = MoPubHttpUrlConnection.getHttpUrlConnection(
@@ -0,0 +1,242 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.common;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+@RunWith(SdkTestRunner.class)
+public class RequestCoalescerTest {
+    private static final String URL = "https://example.com/video.mp4";
+    private static final int CALLER_COUNT = 8;
+
+    private RequestCoalescer<String> subject;
+    private AtomicInteger fetchCount;
+    private CountDownLatch fetchStarted;
+    private CountDownLatch releaseFetch;
+
+    @Before
+    public void setUp() {
+        subject = new RequestCoalescer<>();
+        fetchCount = new AtomicInteger();
+        fetchStarted = new CountDownLatch(1);
+        releaseFetch = new CountDownLatch(1);
+    }
+
+    @Test
+    public void execute_withConcurrentCallers_shouldFetchOnceAndShareResult() throws Exception {
+        final AtomicReferenceArray<Object> results = new AtomicReferenceArray<>(CALLER_COUNT);
+        final List<Thread> threads = startCallers(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                fetchCount.incrementAndGet();
+                fetchStarted.countDown();
+                releaseFetch.await();
+                return "body";
+            }
+        }, results);
+
+        awaitAllWaiting(threads);
+        releaseFetch.countDown();
+        for (final Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        assertThat(fetchCount.get()).isEqualTo(1);
+        for (int i = 0; i < CALLER_COUNT; i++) {
+            assertThat(results.get(i)).isEqualTo("body");
+        }
+        assertThat(subject.getInFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void execute_withConcurrentCallers_whenFetchFails_shouldThrowToAllCallers() throws Exception {
+        final AtomicReferenceArray<Object> results = new AtomicReferenceArray<>(CALLER_COUNT);
+        final IOException failure = new IOException("connection reset");
+        final List<Thread> threads = startCallers(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                fetchCount.incrementAndGet();
+                fetchStarted.countDown();
+                releaseFetch.await();
+                throw failure;
+            }
+        }, results);
+
+        awaitAllWaiting(threads);
+        releaseFetch.countDown();
+        for (final Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        assertThat(fetchCount.get()).isEqualTo(1);
+        for (int i = 0; i < CALLER_COUNT; i++) {
+            assertThat(results.get(i)).isSameAs(failure);
+        }
+    }
+
+    @Test
+    public void execute_afterFetchCompletes_shouldFetchAgain() throws Exception {
+        final Callable<String> fetch = new Callable<String>() {
+            @Override
+            public String call() {
+                return "body" + fetchCount.incrementAndGet();
+            }
+        };
+
+        assertThat(subject.execute(URL, fetch)).isEqualTo("body1");
+        assertThat(subject.execute(URL, fetch)).isEqualTo("body2");
+        assertThat(subject.getInFlightCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void execute_withDifferentKeys_shouldNotShareFetches() throws Exception {
+        final Callable<String> fetch = new Callable<String>() {
+            @Override
+            public String call() {
+                return "body" + fetchCount.incrementAndGet();
+            }
+        };
+
+        subject.execute(URL, fetch);
+        subject.execute(URL + "?other", fetch);
+
+        assertThat(fetchCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void publishProgress_shouldRunEveryWaitingCallersListener() throws Exception {
+        final AtomicInteger progressCount = new AtomicInteger();
+        final CountDownLatch followerJoined = new CountDownLatch(1);
+        final Callable<String> fetch = new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                fetchCount.incrementAndGet();
+                fetchStarted.countDown();
+                assertThat(followerJoined.await(5, TimeUnit.SECONDS)).isTrue();
+                subject.publishProgress(URL);
+                subject.publishProgress(URL);
+                releaseFetch.await();
+                return "body";
+            }
+        };
+        final Runnable onProgress = new Runnable() {
+            @Override
+            public void run() {
+                progressCount.incrementAndGet();
+            }
+        };
+        final Thread leader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    subject.execute(URL, fetch, onProgress);
+                } catch (Exception e) {
+                    fail(e.getMessage());
+                }
+            }
+        });
+        leader.start();
+        assertThat(fetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        final Thread follower = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    subject.execute(URL, fetch, onProgress);
+                } catch (Exception e) {
+                    fail(e.getMessage());
+                }
+            }
+        });
+        follower.start();
+        awaitAllWaiting(Collections.singletonList(follower));
+        followerJoined.countDown();
+
+        awaitAllWaiting(Collections.singletonList(leader));
+        // Joins after the progress was published
+        final Thread lateFollower = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    subject.execute(URL, fetch, onProgress);
+                } catch (Exception e) {
+                    fail(e.getMessage());
+                }
+            }
+        });
+        lateFollower.start();
+        awaitAllWaiting(Collections.singletonList(lateFollower));
+        releaseFetch.countDown();
+        leader.join(TimeUnit.SECONDS.toMillis(5));
+        follower.join(TimeUnit.SECONDS.toMillis(5));
+        lateFollower.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(fetchCount.get()).isEqualTo(1);
+        assertThat(progressCount.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void publishProgress_withNoFetchInFlight_shouldDoNothing() {
+        subject.publishProgress(URL);
+
+        assertThat(subject.getInFlightCount()).isEqualTo(0);
+    }
+
+    private List<Thread> startCallers(final Callable<String> fetch,
+            final AtomicReferenceArray<Object> results) throws InterruptedException {
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < CALLER_COUNT; i++) {
+            final int index = i;
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        results.set(index, subject.execute(URL, fetch));
+                    } catch (Exception e) {
+                        results.set(index, e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+            if (i == 0) {
+                assertThat(fetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            }
+        }
+        return threads;
+    }
+
+    /**
+     * Every caller is parked either in the fetch or waiting for its result once they are all in
+     * the WAITING state.
+     */
+    private static void awaitAllWaiting(final List<Thread> threads) throws InterruptedException {
+        int attemptsLeft = 1000;
+        for (final Thread thread : threads) {
+            while (thread.getState() != Thread.State.WAITING) {
+                if (--attemptsLeft < 0) {
+                    fail("Callers did not start waiting in time.");
+                }
+                Thread.sleep(5);
+            }
+        }
+    }
+}
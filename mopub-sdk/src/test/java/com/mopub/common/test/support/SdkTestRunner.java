@@ -8,6 +8,7 @@ import androidx.annotation.NonNull;
 
 import com.mopub.common.CESettingsCacheService;
 import com.mopub.common.ClientMetadata;
+import com.mopub.common.MemoryTrimmer;
 import com.mopub.common.MoPub;
 import com.mopub.common.Preconditions;
 import com.mopub.common.VideoCacheService;
@@ -37,6 +38,7 @@ import com.mopub.mobileads.test.support.TestVastManagerFactory;
 import com.mopub.mobileads.test.support.TestVideoViewFactory;
 import com.mopub.nativeads.factories.CustomEventNativeFactory;
 import com.mopub.nativeads.test.support.TestCustomEventNativeFactory;
+import com.mopub.network.TrackingRequestOutbox;
 
 import org.junit.runners.model.InitializationError;
 import org.mockito.MockitoAnnotations;
@@ -92,6 +94,9 @@ public class SdkTestRunner extends RobolectricTestRunner {
             AsyncTasks.setExecutor(new RoboExecutorService());
             VideoCacheService.clearAndNullVideoCache();
             CESettingsCacheService.clearCESettingsCache();
+            MemoryTrimmer.clearForTesting();
+
+            TrackingRequestOutbox.clearForTesting();
         }
     }
 }
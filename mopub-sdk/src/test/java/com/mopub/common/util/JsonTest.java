@@ -4,12 +4,17 @@
 
 package com.mopub.common.util;
 
+import android.util.JsonReader;
+
 import com.mopub.common.test.support.SdkTestRunner;
 
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.StringReader;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -156,4 +161,34 @@ public class JsonTest {
 
         assertThat(result).isEqualTo(expected);
     }
+
+    @Test
+    public void readJsonObject_shouldMatchJsonObjectParsing() throws Exception {
+        String jsonString = "{\"string\":\"value\",\"int\":15,\"long\":12345678901," +
+                "\"double\":3.5,\"bool\":true,\"null\":null,\"array\":[1,\"two\",{\"k\":false}]," +
+                "\"object\":{\"nested\":[]}}";
+
+        JSONObject result = Json.readJsonObject(new JsonReader(new StringReader(jsonString)));
+
+        JSONObject expected = new JSONObject(jsonString);
+        assertThat(result.toString()).isEqualTo(expected.toString());
+        assertThat(result.get("int")).isEqualTo(expected.get("int"));
+        assertThat(result.get("long")).isEqualTo(expected.get("long"));
+        assertThat(result.get("double")).isEqualTo(expected.get("double"));
+        assertThat(result.get("null")).isEqualTo(JSONObject.NULL);
+    }
+
+    @Test
+    public void readJsonArray_shouldMatchJsonArrayParsing() throws Exception {
+        String jsonString = "[\"a\", 2, 2.25, false, null, [], {}]";
+
+        JSONArray result = Json.readJsonArray(new JsonReader(new StringReader(jsonString)));
+
+        assertThat(result.toString()).isEqualTo(new JSONArray(jsonString).toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void readJsonObject_withArray_shouldThrowIllegalStateException() throws Exception {
+        Json.readJsonObject(new JsonReader(new StringReader("[1, 2]")));
+    }
 }
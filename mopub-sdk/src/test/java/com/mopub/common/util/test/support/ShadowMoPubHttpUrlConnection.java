@@ -39,9 +39,10 @@ public abstract class ShadowMoPubHttpUrlConnection extends HttpURLConnection {
         sPendingUrlConnections.clear();
     }
 
+    // VAST wrappers of sibling ads are fetched on several threads at once
     @Implementation
     @Nullable
-    public static HttpURLConnection getHttpUrlConnection(@NonNull final String url)
+    public static synchronized HttpURLConnection getHttpUrlConnection(@NonNull final String url)
             throws IOException {
         sLatestRequestUrl = url;
 
@@ -340,6 +340,43 @@ public class MoPubFullscreenTest {
         verify(loadListener).onAdLoadFailed(MoPubErrorCode.VIDEO_DOWNLOAD_ERROR);
     }
 
+    @Test
+    public void onVastVideoConfigurationPrepared_shouldTakeVideoPinFromVastManager() throws Exception {
+        loadVast();
+
+        subject.onVastVideoConfigurationPrepared(mock(VastVideoConfig.class));
+
+        verify(mockVastManager).takePinnedVideoUrl();
+    }
+
+    @Test
+    public void onVastVideoDownloadFailed_afterLoad_shouldFailShowWithoutSecondLoadCallback() throws Exception {
+        loadVast();
+        final VastVideoConfig vastVideoConfig = mock(VastVideoConfig.class);
+        subject.onVastVideoConfigurationPrepared(vastVideoConfig);
+
+        subject.onVastVideoDownloadFailed(vastVideoConfig);
+        subject.show();
+
+        verify(loadListener).onAdLoaded();
+        verify(loadListener, never()).onAdLoadFailed(any(MoPubErrorCode.class));
+        verify(interactionListener).onAdFailed(MoPubErrorCode.VIDEO_DOWNLOAD_ERROR);
+        verify(interactionListener, never()).onAdShown();
+    }
+
+    @Test
+    public void onVastVideoDownloadFailed_whileShowing_shouldDoNothing() throws Exception {
+        loadVast();
+        final VastVideoConfig vastVideoConfig = mock(VastVideoConfig.class);
+        subject.onVastVideoConfigurationPrepared(vastVideoConfig);
+        subject.show();
+
+        subject.onVastVideoDownloadFailed(vastVideoConfig);
+
+        verify(loadListener, never()).onAdLoadFailed(any(MoPubErrorCode.class));
+        verify(interactionListener, never()).onAdFailed(any(MoPubErrorCode.class));
+    }
+
     @Test
     public void onVastVideoConfigurationPrepared_withProperVastConfig_withRewardedFlag_shouldSetRewardedVideoFlag() throws Exception {
         adData.setRewarded(true);
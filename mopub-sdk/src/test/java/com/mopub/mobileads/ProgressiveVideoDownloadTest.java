@@ -0,0 +1,270 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.app.Activity;
+import android.content.Context;
+
+import androidx.media2.common.DataSourceCallback;
+
+import com.mopub.common.VideoCacheService;
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class ProgressiveVideoDownloadTest {
+    private static final String VIDEO_URL = "https://video_url";
+    private static final byte[] VIDEO_DATA = "video_data".getBytes();
+
+    private AtomicInteger bufferedCount;
+    private Runnable onBuffered;
+
+    @Before
+    public void setUp() {
+        Context context = Robolectric.buildActivity(Activity.class).create().get();
+        VideoCacheService.initializeCache(context);
+        bufferedCount = new AtomicInteger();
+        onBuffered = new Runnable() {
+            @Override
+            public void run() {
+                bufferedCount.incrementAndGet();
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        final File partialFile = VideoCacheService.getPartialFile(VIDEO_URL);
+        if (partialFile != null) {
+            partialFile.delete();
+            new File(partialFile.getPath() + ".meta").delete();
+        }
+        ProgressiveVideoDownload.clearDownloads();
+        VideoCacheService.clearAndNullVideoCache();
+    }
+
+    @Test
+    public void start_shouldMakeDownloadAvailableByUrl() throws Exception {
+        final ProgressiveVideoDownload subject = startDownload(-1);
+
+        assertThat(ProgressiveVideoDownload.get(VIDEO_URL)).isSameAs(subject);
+        assertThat(VideoCacheService.getPartialFile(VIDEO_URL).exists()).isTrue();
+    }
+
+    @Test
+    public void start_withUninitializedCache_shouldReturnNull() {
+        VideoCacheService.clearAndNullVideoCache();
+
+        assertThat(ProgressiveVideoDownload.start(VIDEO_URL)).isNull();
+    }
+
+    @Test
+    public void writeThrough_shouldRunOnBufferedOnceThresholdIsWritten() throws Exception {
+        final ProgressiveVideoDownload subject = startDownload(-1);
+        final InputStream stream = subject.writeThrough(new ByteArrayInputStream(VIDEO_DATA), 4, onBuffered);
+        final byte[] buffer = new byte[3];
+
+        stream.read(buffer, 0, 3);
+        assertThat(bufferedCount.get()).isEqualTo(0);
+        stream.read(buffer, 0, 3);
+        assertThat(bufferedCount.get()).isEqualTo(1);
+        drain(stream);
+        assertThat(bufferedCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void dataSourceCallback_shouldReadBytesWrittenSoFar() throws Exception {
+        final ProgressiveVideoDownload subject = startDownload(VIDEO_DATA.length);
+        final InputStream stream = subject.writeThrough(new ByteArrayInputStream(VIDEO_DATA), 4, onBuffered);
+        stream.read(new byte[5], 0, 5);
+        final DataSourceCallback dataSourceCallback = subject.createDataSourceCallback();
+        final byte[] buffer = new byte[VIDEO_DATA.length];
+
+        final int count = dataSourceCallback.readAt(1, buffer, 0, buffer.length);
+
+        assertThat(count).isEqualTo(4);
+        assertThat(new String(buffer, 0, count)).isEqualTo("ideo");
+        assertThat(dataSourceCallback.getSize()).isEqualTo(VIDEO_DATA.length);
+        dataSourceCallback.close();
+    }
+
+    @Test
+    public void dataSourceCallback_withReadAheadOfDownload_shouldWaitForBytes() throws Exception {
+        final ProgressiveVideoDownload subject = startDownload(-1);
+        final InputStream stream = subject.writeThrough(new ByteArrayInputStream(VIDEO_DATA), 4, onBuffered);
+        stream.read(new byte[5], 0, 5);
+        final DataSourceCallback dataSourceCallback = subject.createDataSourceCallback();
+        final AtomicReference<String> result = new AtomicReference<>();
+        final Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final byte[] buffer = new byte[VIDEO_DATA.length];
+                int position = 5;
+                try {
+                    int count;
+                    while ((count = dataSourceCallback.readAt(position, buffer, position,
+                            buffer.length - position)) > 0) {
+                        position += count;
+                    }
+                    result.set(new String(buffer, 5, position - 5));
+                } catch (IOException e) {
+                    result.set(e.toString());
+                }
+            }
+        });
+
+        reader.start();
+        drain(stream);
+        subject.finish(true);
+        reader.join();
+
+        assertThat(result.get()).isEqualTo("_data");
+        dataSourceCallback.close();
+    }
+
+    @Test
+    public void dataSourceCallback_atEndOfSuccessfulDownload_shouldReturnEndOfFile() throws Exception {
+        final ProgressiveVideoDownload subject = startDownload(-1);
+        final InputStream stream = subject.writeThrough(new ByteArrayInputStream(VIDEO_DATA), 4, onBuffered);
+        final DataSourceCallback dataSourceCallback = subject.createDataSourceCallback();
+        drain(stream);
+
+        subject.finish(true);
+
+        assertThat(dataSourceCallback.readAt(VIDEO_DATA.length, new byte[1], 0, 1)).isEqualTo(-1);
+        assertThat(dataSourceCallback.getSize()).isEqualTo(VIDEO_DATA.length);
+        dataSourceCallback.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void dataSourceCallback_afterFailedDownload_shouldThrowIOException() throws Exception {
+        final ProgressiveVideoDownload subject = startDownload(-1);
+        final DataSourceCallback dataSourceCallback = subject.createDataSourceCallback();
+
+        subject.finish(false);
+
+        dataSourceCallback.readAt(0, new byte[1], 0, 1);
+    }
+
+    @Test
+    public void finish_shouldRemoveDownloadAndPartialFile() throws Exception {
+        final ProgressiveVideoDownload subject = startDownload(-1);
+
+        subject.finish(true);
+
+        assertThat(ProgressiveVideoDownload.get(VIDEO_URL)).isNull();
+        assertThat(VideoCacheService.getPartialFile(VIDEO_URL).exists()).isFalse();
+    }
+
+    @Test
+    public void finish_withFailure_withValidator_shouldKeepPartialFileForNextAttempt() throws Exception {
+        ProgressiveVideoDownload subject = ProgressiveVideoDownload.start(VIDEO_URL);
+        subject.begin(false, "\"v1\"", VIDEO_DATA.length);
+        subject.writeThrough(new ByteArrayInputStream(VIDEO_DATA), 4, null).read(new byte[6], 0, 6);
+
+        subject.finish(false);
+        subject = ProgressiveVideoDownload.start(VIDEO_URL);
+
+        assertThat(subject.getResumeOffset()).isEqualTo(6);
+        assertThat(subject.getResumeValidator()).isEqualTo("\"v1\"");
+        assertThat(subject.getContentLength()).isEqualTo(VIDEO_DATA.length);
+    }
+
+    @Test
+    public void finish_withFailure_withoutValidator_shouldRemovePartialFile() throws Exception {
+        ProgressiveVideoDownload subject = startDownload(VIDEO_DATA.length);
+        subject.writeThrough(new ByteArrayInputStream(VIDEO_DATA), 4, null).read(new byte[6], 0, 6);
+
+        subject.finish(false);
+        subject = ProgressiveVideoDownload.start(VIDEO_URL);
+
+        assertThat(VideoCacheService.getPartialFile(VIDEO_URL).exists()).isFalse();
+        assertThat(subject.getResumeOffset()).isEqualTo(0);
+        assertThat(subject.getResumeValidator()).isNull();
+    }
+
+    @Test
+    public void finish_withFailure_afterDiscard_shouldRemovePartialFile() throws Exception {
+        ProgressiveVideoDownload subject = ProgressiveVideoDownload.start(VIDEO_URL);
+        subject.begin(false, "\"v1\"", VIDEO_DATA.length);
+        subject.writeThrough(new ByteArrayInputStream(VIDEO_DATA), 4, null).read(new byte[6], 0, 6);
+
+        subject.discard();
+        subject.finish(false);
+
+        assertThat(ProgressiveVideoDownload.start(VIDEO_URL).getResumeOffset()).isEqualTo(0);
+    }
+
+    @Test
+    public void download_withResumedDownload_shouldAppendToBytesFromEarlierAttempt() throws Exception {
+        ProgressiveVideoDownload subject = ProgressiveVideoDownload.start(VIDEO_URL);
+        subject.begin(false, "\"v1\"", VIDEO_DATA.length);
+        subject.writeThrough(new ByteArrayInputStream(VIDEO_DATA), 4, null).read(new byte[6], 0, 6);
+        subject.finish(false);
+        subject = ProgressiveVideoDownload.start(VIDEO_URL);
+        subject.begin(true, "\"v1\"", VIDEO_DATA.length);
+
+        subject.download(new ByteArrayInputStream(VIDEO_DATA, 6, VIDEO_DATA.length - 6), 4,
+                onBuffered);
+
+        // Already past the threshold
+        assertThat(bufferedCount.get()).isEqualTo(1);
+        assertThat(VideoCacheService.getPartialFile(VIDEO_URL).length()).isEqualTo(VIDEO_DATA.length);
+    }
+
+    @Test
+    public void moveToCache_shouldPutPartialFileInCacheWithoutCopying() throws Exception {
+        final ProgressiveVideoDownload subject = startDownload(VIDEO_DATA.length);
+        subject.download(new ByteArrayInputStream(VIDEO_DATA), 4, null);
+
+        assertThat(subject.moveToCache()).isTrue();
+
+        assertThat(VideoCacheService.getPartialFile(VIDEO_URL).exists()).isFalse();
+        assertThat(VideoCacheService.get(VIDEO_URL)).isEqualTo(VIDEO_DATA);
+    }
+
+    @Test
+    public void dataSourceCallback_openedBeforeMoveToCache_shouldKeepReading() throws Exception {
+        final ProgressiveVideoDownload subject = startDownload(VIDEO_DATA.length);
+        final DataSourceCallback dataSourceCallback = subject.createDataSourceCallback();
+        subject.download(new ByteArrayInputStream(VIDEO_DATA), 4, null);
+
+        subject.finish(subject.moveToCache());
+        final byte[] buffer = new byte[VIDEO_DATA.length];
+
+        assertThat(dataSourceCallback.readAt(0, buffer, 0, buffer.length))
+                .isEqualTo(VIDEO_DATA.length);
+        assertThat(buffer).isEqualTo(VIDEO_DATA);
+        dataSourceCallback.close();
+    }
+
+    private static ProgressiveVideoDownload startDownload(final long contentLength)
+            throws IOException {
+        final ProgressiveVideoDownload download = ProgressiveVideoDownload.start(VIDEO_URL);
+        download.begin(false, null, contentLength);
+        return download;
+    }
+
+    private static void drain(final InputStream stream) throws IOException {
+        final byte[] buffer = new byte[3];
+        while (stream.read(buffer, 0, buffer.length) != -1) {
+            // Keep reading
+        }
+    }
+}
@@ -215,6 +215,29 @@ public class VastMacroHelperTest {
         assertThat(subject.getUris()).containsOnly(normalUri);
     }
 
+    @Test
+    public void fromTrackers_shouldSkipEmptyContent_shouldReplaceMacros() {
+        final VastTracker tracker = new VastTracker.Builder(defaultUri).build();
+        final VastTracker emptyTracker = new VastTracker.Builder("").build();
+        subject = VastMacroHelper.fromTrackers(Arrays.asList(tracker, emptyTracker))
+                .withErrorCode(VastErrorCode.UNDEFINED_ERROR)
+                .withContentPlayHead(500);
+
+        assertThat(subject.getUris()).containsOnly(
+                "https://www.derp.com/herp?errorcode=900&contentplayhead=00:00:00.500&asseturi=&cachebusting=" +
+                        getAndCheckCachebusting(subject.getUris().get(0)));
+    }
+
+    @Test
+    public void fromTrackers_shouldReuseTrackerTemplate() {
+        final VastTracker tracker = new VastTracker.Builder(defaultUri).build();
+        final VastMacroTemplate template = tracker.getContentTemplate();
+
+        VastMacroHelper.fromTrackers(Collections.singletonList(tracker)).getUris();
+
+        assertThat(tracker.getContentTemplate()).isSameAs(template);
+    }
+
     private String getAndCheckCachebusting(final String uriStr) {
         Uri uri = Uri.parse(uriStr);
         String cacheBusting = uri.getQueryParameter(CACHE_BUSTING);
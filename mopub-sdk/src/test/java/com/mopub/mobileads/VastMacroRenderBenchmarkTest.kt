@@ -0,0 +1,100 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads
+
+import com.mopub.common.logging.MoPubLog
+import com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM
+import com.mopub.common.test.support.SdkTestRunner
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Renders 50 trackers carrying four macros each, 1000 times from their compiled
+ * [VastMacroTemplate]s and 1000 times with the regex `replaceAll` per macro that [VastMacroHelper]
+ * used before, and logs the average per pass. Both must produce the same urls. Only runs with
+ * -Pbenchmarks.
+ */
+@RunWith(SdkTestRunner::class)
+class VastMacroRenderBenchmarkTest {
+    private val trackers = (0 until TRACKER_COUNT).map {
+        VastTracker.Builder("https://tracker$it.example.com/event?error=[ERRORCODE]" +
+                "&playhead=[CONTENTPLAYHEAD]&cb=[CACHEBUSTING]&asset=[ASSETURI]&id=$it").build()
+    }
+
+    @Before
+    fun setUp() {
+        assumeTrue(java.lang.Boolean.getBoolean("mopub.benchmarks"))
+    }
+
+    @Test
+    fun render_with50Trackers_withAllMacros() {
+        val macroValues = arrayOfNulls<String>(VastMacro.values().size)
+        macroValues[VastMacro.ERRORCODE.ordinal] = VastErrorCode.UNDEFINED_ERROR.errorCode
+        macroValues[VastMacro.CONTENTPLAYHEAD.ordinal] = "00:00:15.000"
+        macroValues[VastMacro.CACHEBUSTING.ordinal] = "12345678"
+        macroValues[VastMacro.ASSETURI.ordinal] = "https%3A%2F%2Fexample.com%2Fvideo.mp4"
+
+        val expected = renderWithReplaceAll(macroValues)
+        var rendered: List<String> = emptyList()
+        val replaceAllMicros = time { renderWithReplaceAll(macroValues) }
+        val templateMicros = time {
+            val builder = StringBuilder()
+            rendered = trackers.map { it.contentTemplate.render(macroValues, builder) }
+        }
+
+        assertThat(rendered).isEqualTo(expected)
+        assertThat(rendered[0]).isEqualTo("https://tracker0.example.com/event?error=900" +
+                "&playhead=00:00:15.000&cb=12345678&asset=https%3A%2F%2Fexample.com%2Fvideo.mp4&id=0")
+        MoPubLog.log(CUSTOM,
+            "VAST macros, $TRACKER_COUNT trackers, replaceAll: $replaceAllMicros us average")
+        MoPubLog.log(CUSTOM, "VAST macros, $TRACKER_COUNT trackers, templates: $templateMicros us average")
+    }
+
+    @Test
+    fun getUris_with50Trackers_withAllMacros() {
+        var uris: List<String> = emptyList()
+        val micros = time {
+            uris = VastMacroHelper.fromTrackers(trackers)
+                .withErrorCode(VastErrorCode.UNDEFINED_ERROR)
+                .withContentPlayHead(15000)
+                .withAssetUri("https://example.com/video.mp4")
+                .uris
+        }
+
+        assertThat(uris).hasSize(TRACKER_COUNT)
+        assertThat(uris[TRACKER_COUNT - 1]).doesNotContain("[")
+        MoPubLog.log(CUSTOM, "VAST macros, $TRACKER_COUNT trackers, VastMacroHelper: $micros us average")
+    }
+
+    private fun renderWithReplaceAll(macroValues: Array<String?>): List<String> {
+        return trackers.map { tracker ->
+            var uri = tracker.content
+            for (vastMacro in VastMacro.values()) {
+                uri = uri.replace(("\\[" + vastMacro.name + "\\]").toRegex(),
+                    macroValues[vastMacro.ordinal] ?: "")
+            }
+            uri
+        }
+    }
+
+    private inline fun time(run: () -> Unit): Long {
+        // One round to warm up, which also compiles the templates
+        run()
+        val start = System.nanoTime()
+        for (round in 0 until ROUNDS) {
+            run()
+        }
+        return (System.nanoTime() - start) / 1000 / ROUNDS
+    }
+
+    companion object {
+        private const val TRACKER_COUNT = 50
+        private const val ROUNDS = 1000
+    }
+}
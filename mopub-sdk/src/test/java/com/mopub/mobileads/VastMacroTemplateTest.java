@@ -0,0 +1,71 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class VastMacroTemplateTest {
+    private String[] macroValues;
+    private StringBuilder builder;
+
+    @Before
+    public void setUp() {
+        macroValues = new String[VastMacro.values().length];
+        macroValues[VastMacro.ERRORCODE.ordinal()] = "900";
+        macroValues[VastMacro.CONTENTPLAYHEAD.ordinal()] = "00:00:01.000";
+        macroValues[VastMacro.CACHEBUSTING.ordinal()] = "12345678";
+        builder = new StringBuilder();
+    }
+
+    @Test
+    public void render_shouldReplaceEveryMacro() {
+        final VastMacroTemplate subject = VastMacroTemplate.compile(
+                "https://t?e=[ERRORCODE]&c=[CACHEBUSTING][CACHEBUSTING]&p=[CONTENTPLAYHEAD]");
+
+        assertThat(subject.hasMacros()).isTrue();
+        assertThat(subject.render(macroValues, builder))
+                .isEqualTo("https://t?e=900&c=1234567812345678&p=00:00:01.000");
+    }
+
+    @Test
+    public void render_withMissingValue_shouldReplaceWithEmpty() {
+        final VastMacroTemplate subject = VastMacroTemplate.compile("[ASSETURI]a[ASSETURI]");
+
+        assertThat(subject.render(macroValues, builder)).isEqualTo("a");
+    }
+
+    @Test
+    public void render_withUnknownOrUnclosedBrackets_shouldKeepThem() {
+        final VastMacroTemplate subject = VastMacroTemplate.compile(
+                "https://t?[]&[TIMESTAMP]&[[ERRORCODE]]&[errorcode]&[ERRORCODE");
+
+        assertThat(subject.render(macroValues, builder))
+                .isEqualTo("https://t?[]&[TIMESTAMP]&[900]&[errorcode]&[ERRORCODE");
+    }
+
+    @Test
+    public void render_withoutMacros_shouldReturnUri() {
+        final String uri = "https://t?a=[b]";
+        final VastMacroTemplate subject = VastMacroTemplate.compile(uri);
+
+        assertThat(subject.hasMacros()).isFalse();
+        assertThat(subject.render(macroValues, builder)).isSameAs(uri);
+    }
+
+    @Test
+    public void render_shouldReplaceBuilderContents() {
+        builder.append("previous");
+
+        assertThat(VastMacroTemplate.compile("[ERRORCODE]").render(macroValues, builder))
+                .isEqualTo("900");
+    }
+}
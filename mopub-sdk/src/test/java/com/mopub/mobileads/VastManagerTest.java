@@ -21,6 +21,11 @@ import org.robolectric.Robolectric;
 import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowLooper;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
 import java.util.concurrent.Semaphore;
 
 import static com.mopub.mobileads.VastManager.VastManagerListener;
@@ -29,6 +34,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(SdkTestRunner.class)
 @Config(qualifiers = "w480dp-h800dp", shadows = {ShadowMoPubHttpUrlConnection.class})
@@ -66,6 +72,7 @@ public class VastManagerTest {
 
     @After
     public void tearDown() {
+        VideoDownloader.setProgressiveBufferBytes(0);
         VideoCacheService.clearAndNullVideoCache();
     }
 
@@ -391,6 +398,42 @@ public class VastManagerTest {
         assertThat(mVastVideoConfig.getCustomSkipText()).isNull();
     }
 
+    @Test
+    public void prepareVastVideoConfiguration_shouldHandOverVideoPin() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_NESTED_VAST_XML_STRING);
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "video_data");
+
+        prepareVastVideoConfiguration();
+        semaphore.acquire();
+
+        assertThat(subject.takePinnedVideoUrl()).isEqualTo(mVastVideoConfig.getNetworkMediaFileUrl());
+        assertThat(subject.takePinnedVideoUrl()).isNull();
+    }
+
+    @Test
+    public void prepareVastVideoConfiguration_withFailedVideoDownload_shouldReleaseVideoPin() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_NESTED_VAST_XML_STRING);
+        ShadowMoPubHttpUrlConnection.addPendingResponse(404, "");
+
+        prepareVastVideoConfiguration();
+        semaphore.acquire();
+
+        verify(vastManagerListener).onVastVideoConfigurationPrepared(null);
+        assertThat(subject.takePinnedVideoUrl()).isNull();
+    }
+
+    @Test
+    public void cancel_shouldReleaseVideoPin() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_NESTED_VAST_XML_STRING);
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "video_data");
+        prepareVastVideoConfiguration();
+        semaphore.acquire();
+
+        subject.cancel();
+
+        assertThat(subject.takePinnedVideoUrl()).isNull();
+    }
+
     @Test
     public void prepareVastVideoConfiguration_withNoMediaUrlInXml_shouldReturnNull() throws Exception {
         subject.prepareVastVideoConfiguration(TEST_VAST_BAD_NEST_URL_XML_STRING,
@@ -444,6 +487,48 @@ public class VastManagerTest {
                         "https://s3.amazonaws.com/mopub-vast/tapad-video1.mp4"));
     }
 
+    @Test
+    public void prepareVastVideoConfiguration_withProgressiveBufferBytes_shouldNotifyTheListenerOnceWithCachePath() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_NESTED_VAST_XML_STRING);
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "video_data");
+        VideoDownloader.setProgressiveBufferBytes(4);
+
+        prepareVastVideoConfiguration();
+        semaphore.acquire();
+
+        verify(vastManagerListener).onVastVideoConfigurationPrepared(any(VastVideoConfig.class));
+        assertThat(mVastVideoConfig.getDiskMediaFileUrl())
+                .isEqualTo(VideoCacheService.getFilePath(
+                        "https://s3.amazonaws.com/mopub-vast/tapad-video1.mp4"));
+    }
+
+    @Test
+    public void prepareVastVideoConfiguration_withProgressiveBufferBytes_withFailedDownload_shouldNotifyTheListenerThatTheDownloadFailed() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_NESTED_VAST_XML_STRING);
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, "video_data");
+        // The connection drops after the first few bytes
+        HttpURLConnection videoConnection = null;
+        for (final Object connection : ShadowMoPubHttpUrlConnection.getPendingUrlConnections()) {
+            videoConnection = (HttpURLConnection) connection;
+        }
+        when(videoConnection.getInputStream()).thenReturn(new SequenceInputStream(
+                new ByteArrayInputStream("video".getBytes()),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                }));
+        VideoDownloader.setProgressiveBufferBytes(4);
+
+        prepareVastVideoConfiguration();
+        semaphore.acquire();
+        ShadowLooper.runUiThreadTasks();
+
+        verify(vastManagerListener).onVastVideoConfigurationPrepared(any(VastVideoConfig.class));
+        verify(vastManagerListener).onVastVideoDownloadFailed(mVastVideoConfig);
+    }
+
     @Test
     public void prepareVastVideoConfiguration_withUninitializedDiskCache_shouldReturnNull() throws Exception {
         VideoCacheService.clearAndNullVideoCache();
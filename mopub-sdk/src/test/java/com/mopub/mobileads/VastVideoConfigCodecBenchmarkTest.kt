@@ -0,0 +1,101 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads
+
+import com.mopub.common.logging.MoPubLog
+import com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM
+import com.mopub.common.test.support.SdkTestRunner
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.ObjectInputStream
+import java.io.ObjectOutputStream
+
+/**
+ * Encodes and decodes a [VastVideoConfig] with 320 trackers and 10 companions 200 times each as
+ * the Gson string the player used to get, as the Java serialization saved instance state used to
+ * store, and with [VastVideoConfigCodec], then logs the average round trip and the size each form
+ * takes in a Parcel. The codec's copy has to match the original. Only runs with -Pbenchmarks.
+ */
+@RunWith(SdkTestRunner::class)
+class VastVideoConfigCodecBenchmarkTest {
+    private lateinit var vastVideoConfig: VastVideoConfig
+
+    @Before
+    fun setUp() {
+        assumeTrue(java.lang.Boolean.getBoolean("mopub.benchmarks"))
+        vastVideoConfig = VastVideoConfigCodecTest.createVastVideoConfig(TRACKER_COUNT, COMPANION_COUNT)
+    }
+
+    @Test
+    fun encodeAndDecode_withManyTrackersAndCompanions() {
+        val expected = vastVideoConfig.toJsonString()
+
+        var json = ""
+        val gson = measure {
+            json = vastVideoConfig.toJsonString()
+            assertThat(VastVideoConfig.fromVastVideoConfigString(json).networkMediaFileUrl)
+                .isNotNull()
+        }
+
+        var serialized = ByteArray(0)
+        val serializable = measure {
+            serialized = serialize(vastVideoConfig)
+            assertThat(deserialize(serialized).networkMediaFileUrl).isNotNull()
+        }
+
+        var bytes = ByteArray(0)
+        val codec = measure {
+            bytes = vastVideoConfig.toByteArray()
+            assertThat(VastVideoConfig.fromByteArray(bytes).networkMediaFileUrl).isNotNull()
+        }
+
+        assertThat(VastVideoConfig.fromByteArray(bytes).toJsonString()).isEqualTo(expected)
+        report("Gson", gson, 2 * json.length)
+        report("Serializable", serializable, serialized.size)
+        report("binary codec", codec, bytes.size)
+    }
+
+    private fun serialize(config: VastVideoConfig): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        ObjectOutputStream(bytes).use { it.writeObject(config) }
+        return bytes.toByteArray()
+    }
+
+    private fun deserialize(bytes: ByteArray): VastVideoConfig {
+        return ObjectInputStream(ByteArrayInputStream(bytes)).use { it.readObject() as VastVideoConfig }
+    }
+
+    private inline fun measure(run: () -> Unit): Long {
+        // One round to warm up
+        run()
+        val start = System.nanoTime()
+        for (round in 0 until ROUNDS) {
+            run()
+        }
+        return (System.nanoTime() - start) / 1000 / ROUNDS
+    }
+
+    /**
+     * @param bytes What the form takes in a Parcel; strings are written as UTF-16.
+     */
+    private fun report(form: String, averageMicros: Long, bytes: Int) {
+        MoPubLog.log(CUSTOM, "VastVideoConfig $form: $averageMicros us average to encode and decode, " +
+                "${bytes / 1024} KB")
+    }
+
+    companion object {
+        // 10 of each of 10 tracker kinds, 20 on each companion and 20 on the icon: 320 trackers
+        private const val TRACKER_COUNT = 10
+        private const val COMPANION_COUNT = 10
+        private const val ROUNDS = 200
+    }
+}
@@ -0,0 +1,211 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads
+
+import com.mopub.common.ViewabilityVendor
+import com.mopub.common.test.support.SdkTestRunner
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+import java.io.IOException
+
+/**
+ * Checks that [VastVideoConfig.toByteArray] and [VastVideoConfig.fromByteArray] keep everything the
+ * Gson form does, by comparing the Gson form of the config before and after.
+ */
+@RunWith(SdkTestRunner::class)
+class VastVideoConfigCodecTest {
+
+    @Test
+    fun fromByteArray_withFullConfig_shouldMatchOriginal() {
+        val vastVideoConfig = createVastVideoConfig(TRACKER_COUNT, COMPANION_COUNT)
+
+        val decoded = VastVideoConfig.fromByteArray(vastVideoConfig.toByteArray())
+
+        assertThat(decoded.toJsonString()).isEqualTo(vastVideoConfig.toJsonString())
+        assertThat(decoded.vastCompanionAdConfigs).hasSize(COMPANION_COUNT)
+        assertThat(decoded.viewabilityVendors).isEqualTo(vastVideoConfig.viewabilityVendors)
+    }
+
+    @Test
+    fun fromByteArray_withEmptyConfig_shouldMatchOriginal() {
+        val vastVideoConfig = VastVideoConfig()
+
+        val decoded = VastVideoConfig.fromByteArray(vastVideoConfig.toByteArray())
+
+        assertThat(decoded.toJsonString()).isEqualTo(vastVideoConfig.toJsonString())
+        assertThat(decoded.vastIconConfig).isNull()
+        assertThat(decoded.videoViewabilityTracker).isNull()
+    }
+
+    @Test
+    fun fromByteArray_shouldKeepTrackerSubclassesAndTrackedState() {
+        val vastVideoConfig = VastVideoConfig()
+        val tracked = VastTracker.Builder("tracked").isRepeatable(true).build()
+        tracked.setTracked()
+        vastVideoConfig.addImpressionTrackers(listOf(tracked,
+            VastAbsoluteProgressTracker.Builder("absolute", 1500).build()))
+        vastVideoConfig.videoViewabilityTracker =
+            VideoViewabilityTracker.Builder("viewability", 2000, 50).build()
+
+        val decoded = VastVideoConfig.fromByteArray(vastVideoConfig.toByteArray())
+
+        val impressionTrackers = decoded.impressionTrackers
+        assertThat(impressionTrackers[0].isTracked).isTrue()
+        assertThat(impressionTrackers[0].isRepeatable).isTrue()
+        assertThat(impressionTrackers[1]).isInstanceOf(VastAbsoluteProgressTracker::class.java)
+        assertThat((impressionTrackers[1] as VastAbsoluteProgressTracker).trackingMilliseconds)
+            .isEqualTo(1500)
+        assertThat(impressionTrackers[1].isTracked).isFalse()
+        assertThat(decoded.videoViewabilityTracker!!.viewablePlaytimeMS).isEqualTo(2000)
+        assertThat(decoded.videoViewabilityTracker!!.percentViewable).isEqualTo(50)
+    }
+
+    @Test
+    fun fromByteArray_withLongResourceAndNonAsciiText_shouldMatchOriginal() {
+        val vastVideoConfig = VastVideoConfig()
+        val html = "<html>" + "é中😀".repeat(20000) + "</html>"
+        vastVideoConfig.addVastCompanionAdConfig(VastCompanionAdConfig(300, 250,
+            VastResource(html, VastResource.Type.HTML_RESOURCE, VastResource.CreativeType.NONE,
+                300, 250), null, mutableListOf(), mutableListOf(), null))
+        vastVideoConfig.customCtaText = "¡Compra ya!"
+
+        val decoded = VastVideoConfig.fromByteArray(vastVideoConfig.toByteArray())
+
+        assertThat(decoded.vastCompanionAdConfigs.first().vastResource.resource).isEqualTo(html)
+        assertThat(decoded.customCtaText).isEqualTo("¡Compra ya!")
+    }
+
+    @Test
+    fun toByteArray_shouldBeSmallerThanJson() {
+        val vastVideoConfig = createVastVideoConfig(TRACKER_COUNT, COMPANION_COUNT)
+
+        assertThat(vastVideoConfig.toByteArray().size)
+            .isLessThan(vastVideoConfig.toJsonString().toByteArray(Charsets.UTF_8).size)
+    }
+
+    @Test(expected = IOException::class)
+    fun fromByteArray_withUnknownVersion_shouldThrowIOException() {
+        val bytes = VastVideoConfig().toByteArray()
+        bytes[2] = 99
+
+        VastVideoConfig.fromByteArray(bytes)
+    }
+
+    @Test(expected = IOException::class)
+    fun fromByteArray_withJson_shouldThrowIOException() {
+        VastVideoConfig.fromByteArray(VastVideoConfig().toJsonString().toByteArray(Charsets.UTF_8))
+    }
+
+    @Test
+    fun fromByteArray_withTruncatedBytes_shouldThrowIOException() {
+        val bytes = createVastVideoConfig(10, 2).toByteArray()
+
+        for (length in listOf(0, 3, bytes.size / 2, bytes.size - 1)) {
+            try {
+                VastVideoConfig.fromByteArray(bytes.copyOf(length))
+                throw AssertionError("Expected an IOException for $length bytes")
+            } catch (e: IOException) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    fun adData_withEqualVastVideoConfigByteArrays_shouldBeEqual() {
+        val bytes = createVastVideoConfig(1, 1).toByteArray()
+        val adData = AdData.Builder().vastVideoConfigByteArray(bytes).build()
+        val copy = AdData.Builder().vastVideoConfigByteArray(bytes.copyOf()).build()
+
+        assertThat(copy).isEqualTo(adData)
+        assertThat(copy.hashCode()).isEqualTo(adData.hashCode())
+        assertThat(AdData.Builder().vastVideoConfigByteArray(ByteArray(0)).build())
+            .isNotEqualTo(adData)
+    }
+
+    companion object {
+        private const val TRACKER_COUNT = 12
+        private const val COMPANION_COUNT = 3
+
+        /**
+         * A config with [trackerCount] trackers of each kind, [companionCount] companions with
+         * [trackerCount] click and view trackers each, an icon, vendors and every text field set.
+         */
+        fun createVastVideoConfig(trackerCount: Int, companionCount: Int): VastVideoConfig {
+            fun trackers(name: String) = (0 until trackerCount).map {
+                VastTracker.Builder("https://trackers.example.com/$name?n=$it&e=[ERRORCODE]")
+                    .isRepeatable(it % 3 == 0)
+                    .build()
+                    .apply { if (it % 4 == 0) setTracked() }
+            }
+
+            return VastVideoConfig().apply {
+                addImpressionTrackers(trackers("impression"))
+                addPauseTrackers(trackers("pause"))
+                addResumeTrackers(trackers("resume"))
+                addCompleteTrackers(trackers("complete"))
+                addCloseTrackers(trackers("close"))
+                addSkipTrackers(trackers("skip"))
+                addClickTrackers(trackers("click"))
+                addErrorTrackers(trackers("error"))
+                addFractionalTrackers((0 until trackerCount).map {
+                    VastFractionalProgressTracker.Builder("https://trackers.example.com/fraction?n=$it",
+                        it / trackerCount.toFloat())
+                        .messageType(if (it % 2 == 0) VastTracker.MessageType.QUARTILE_EVENT
+                            else VastTracker.MessageType.TRACKING_URL)
+                        .build()
+                })
+                addAbsoluteTrackers((0 until trackerCount).map {
+                    VastAbsoluteProgressTracker.Builder("https://trackers.example.com/absolute?n=$it",
+                        it * 1000).build()
+                })
+                addViewabilityVendors(setOfNotNull(
+                    ViewabilityVendor.Builder("https://vendor.example.com/omid.js")
+                        .withVendorKey("vendor")
+                        .withVerificationParameters("{\"id\":1}")
+                        .build(),
+                    ViewabilityVendor.Builder("https://other.example.com/omid.js")
+                        .withVerificationNotExecuted("https://other.example.com/failed")
+                        .build()))
+
+                clickThroughUrl = "https://clickthrough.example.com"
+                networkMediaFileUrl = "https://media.example.com/video.mp4"
+                diskMediaFileUrl = "/data/cache/video.mp4"
+
+                addVastCompanionAdConfigs((0 until companionCount).map {
+                    VastCompanionAdConfig(
+                        300 + it,
+                        250,
+                        VastResource("https://companion.example.com/$it.png",
+                            VastResource.Type.STATIC_RESOURCE, VastResource.CreativeType.IMAGE,
+                            300 + it, 250),
+                        "https://companion.example.com/click/$it",
+                        trackers("companionClick$it").toMutableList(),
+                        trackers("companionView$it").toMutableList(),
+                        "Install $it"
+                    )
+                })
+                vastIconConfig = VastIconConfig(40, -1, 5000, null,
+                    VastResource("<iframe src='https://icon.example.com'/>",
+                        VastResource.Type.IFRAME_RESOURCE, VastResource.CreativeType.NONE, 40, -1),
+                    trackers("iconClick"), "https://icon.example.com/click", trackers("iconView"))
+
+                isRewarded = true
+                enableClickExperiment = true
+                customCtaText = "Learn more"
+                customSkipText = "Skip"
+                customCloseIconUrl = "https://close.example.com/icon.png"
+                videoViewabilityTracker =
+                    VideoViewabilityTracker.Builder("https://viewability.example.com", 2000, 50)
+                        .build()
+                dspCreativeId = "dsp-creative"
+                privacyInformationIconImageUrl = "https://privacy.example.com/icon.png"
+                privacyInformationIconClickthroughUrl = "https://privacy.example.com"
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads
+
+import com.mopub.common.test.support.SdkTestRunner
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(SdkTestRunner::class)
+class VastVideoConfigProgressTrackerTest {
+    private lateinit var subject: VastVideoConfig
+    private lateinit var start: VastAbsoluteProgressTracker
+    private lateinit var fiveSeconds: VastAbsoluteProgressTracker
+    private lateinit var firstQuartile: VastFractionalProgressTracker
+    private lateinit var midpoint: VastFractionalProgressTracker
+
+    @Before
+    fun setUp() {
+        start = VastAbsoluteProgressTracker.Builder("start", 0).build()
+        fiveSeconds = VastAbsoluteProgressTracker.Builder("fiveSeconds", 5000).build()
+        firstQuartile = VastFractionalProgressTracker.Builder("firstQuartile", 0.25f).build()
+        midpoint = VastFractionalProgressTracker.Builder("midpoint", 0.5f).build()
+
+        subject = VastVideoConfig()
+        subject.addAbsoluteTrackers(listOf(fiveSeconds, start))
+        subject.addFractionalTrackers(listOf(midpoint, firstQuartile))
+    }
+
+    @Test
+    fun getUntriggeredTrackersBefore_shouldReturnCrossedUntrackedTrackers_shouldNotTrackThem() {
+        assertThat(subject.getUntriggeredTrackersBefore(5000, 20000))
+            .containsExactly(start, fiveSeconds, firstQuartile)
+        assertThat(subject.getUntriggeredTrackersBefore(5000, 20000))
+            .containsExactly(start, fiveSeconds, firstQuartile)
+    }
+
+    @Test
+    fun getUntriggeredTrackersBefore_withTrackedTrackers_shouldSkipThem() {
+        start.setTracked()
+        firstQuartile.setTracked()
+
+        assertThat(subject.getUntriggeredTrackersBefore(10000, 20000))
+            .containsExactly(fiveSeconds, midpoint)
+    }
+
+    @Test
+    fun getUntriggeredTrackersBefore_afterSeekingBackwards_shouldOnlyReturnUntrackedTrackers() {
+        subject.getUntriggeredTrackersBefore(10000, 20000).forEach { it.setTracked() }
+
+        assertThat(subject.getUntriggeredTrackersBefore(1000, 20000)).isEmpty()
+        assertThat(subject.getUntriggeredTrackersBefore(10000, 20000)).isEmpty()
+    }
+
+    @Test
+    fun getUntriggeredTrackersBefore_withSeekingBackwardsBeforeTracking_shouldStillReturnEarlierTrackers() {
+        subject.getUntriggeredTrackersBefore(10000, 20000)
+
+        assertThat(subject.getUntriggeredTrackersBefore(1000, 20000)).containsExactly(start)
+    }
+
+    @Test
+    fun getUntriggeredTrackersBefore_afterAddingTrackers_shouldIncludeThem() {
+        subject.getUntriggeredTrackersBefore(10000, 20000).forEach { it.setTracked() }
+        val twoSeconds = VastAbsoluteProgressTracker.Builder("twoSeconds", 2000).build()
+
+        subject.addAbsoluteTrackers(listOf(twoSeconds))
+
+        assertThat(subject.getUntriggeredTrackersBefore(10000, 20000)).containsExactly(twoSeconds)
+    }
+
+    @Test
+    fun getUntriggeredTrackersBefore_withInvalidPosition_shouldReturnEmpty() {
+        assertThat(subject.getUntriggeredTrackersBefore(-1, 20000)).isEmpty()
+        assertThat(subject.getUntriggeredTrackersBefore(1000, 0)).isEmpty()
+    }
+
+    @Test
+    fun remainingProgressTrackerCount_shouldCountUntrackedTrackers() {
+        assertThat(subject.remainingProgressTrackerCount).isEqualTo(4)
+
+        start.setTracked()
+        midpoint.setTracked()
+
+        assertThat(subject.remainingProgressTrackerCount).isEqualTo(2)
+    }
+}
@@ -34,6 +34,7 @@ import com.mopub.mobileads.test.support.TestVideoViewFactory;
 import com.mopub.mobileads.test.support.VastUtils;
 import com.mopub.network.MoPubImageLoader;
 import com.mopub.network.MoPubRequestQueue;
+import com.mopub.network.TrackingRequestOutbox;
 import com.mopub.network.Networking;
 
 import org.apache.maven.artifact.ant.shaded.ReflectionUtils;
@@ -149,6 +150,8 @@ public class VastVideoViewControllerTest {
     public void setUp() throws Exception {
         Networking.setRequestQueueForTesting(mockRequestQueue);
         Networking.setImageLoaderForTesting(mockImageLoader);
+        // The mock request queue never completes tracking requests, so don't hold any back
+        TrackingRequestOutbox.setMaxConcurrentRequestsForTesting(Integer.MAX_VALUE);
         context = spy(Robolectric.buildActivity(Activity.class).create().get());
         bundle = new Bundle();
         savedInstanceState = new Bundle();
@@ -520,6 +523,47 @@ public class VastVideoViewControllerTest {
         assertThat(subject.getNetworkMediaFileUrl()).isEqualTo("resumed_network_media_url");
     }
 
+    @Test
+    public void constructor_withEncodedVastConfigurationInSavedInstanceState_shouldUseThatVastConfiguration() throws Exception {
+        VastVideoConfig vastVideoConfig = new VastVideoConfig();
+        vastVideoConfig.setDiskMediaFileUrl("disk_video_path");
+        vastVideoConfig.setNetworkMediaFileUrl("resumed_network_media_url");
+        savedInstanceState.putByteArray(RESUMED_VAST_CONFIG, vastVideoConfig.toByteArray());
+
+        initializeSubject();
+
+        assertThat(subject.getNetworkMediaFileUrl()).isEqualTo("resumed_network_media_url");
+    }
+
+    @Test
+    public void constructor_withVastVideoConfigByteArrayInAdData_shouldUseItOverString() throws Exception {
+        VastVideoConfig vastVideoConfig = new VastVideoConfig();
+        vastVideoConfig.setDiskMediaFileUrl("disk_video_path");
+        vastVideoConfig.setNetworkMediaFileUrl("encoded_network_media_url");
+        final AdData currentAdData = bundle.getParcelable(AD_DATA_KEY);
+        final AdData newAdData = new AdData.Builder().fromAdData(currentAdData)
+                .vastVideoConfigByteArray(vastVideoConfig.toByteArray())
+                .build();
+        bundle.putParcelable(AD_DATA_KEY, newAdData);
+
+        initializeSubject();
+
+        assertThat(subject.getNetworkMediaFileUrl()).isEqualTo("encoded_network_media_url");
+    }
+
+    @Test
+    public void constructor_withUnreadableVastVideoConfigByteArrayInAdData_shouldFallBackToString() throws Exception {
+        final AdData currentAdData = bundle.getParcelable(AD_DATA_KEY);
+        final AdData newAdData = new AdData.Builder().fromAdData(currentAdData)
+                .vastVideoConfigByteArray(new byte[]{1, 2, 3})
+                .build();
+        bundle.putParcelable(AD_DATA_KEY, newAdData);
+
+        initializeSubject();
+
+        assertThat(subject.getNetworkMediaFileUrl()).isEqualTo("video_url");
+    }
+
     @Test
     public void constructor_withSavedVastConfiguration_withCurrentPositionSet_shouldResumeVideoFromCurrentPosition() throws Exception {
         VastVideoConfig vastVideoConfig = new VastVideoConfig();
@@ -591,8 +635,7 @@ public class VastVideoViewControllerTest {
         subject.onSaveInstanceState(bundle);
 
         verify(bundle).putInt(eq(CURRENT_POSITION), anyInt());
-        verify(bundle).putSerializable(eq(RESUMED_VAST_CONFIG), any(VastVideoConfig
-                .class));
+        verify(bundle).putByteArray(eq(RESUMED_VAST_CONFIG), any(byte[].class));
     }
 
     @Test
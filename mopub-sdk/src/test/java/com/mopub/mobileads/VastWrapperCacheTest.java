@@ -0,0 +1,95 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.os.SystemClock;
+
+import com.mopub.common.test.support.SdkTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+@RunWith(SdkTestRunner.class)
+public class VastWrapperCacheTest {
+    private static final String URL = "https://vast/wrapper";
+    private static final String XML = "<VAST version='3.0'></VAST>";
+
+    @Before
+    public void setUp() {
+        VastWrapperCache.clear();
+    }
+
+    @Test
+    public void get_beforeTtl_shouldReturnResponse() {
+        VastWrapperCache.put(URL, XML, 1000);
+
+        assertThat(VastWrapperCache.get(URL)).isEqualTo(XML);
+    }
+
+    @Test
+    public void get_afterTtl_shouldReturnNull_shouldRemoveEntry() {
+        VastWrapperCache.put(URL, XML, 1000);
+
+        SystemClock.setCurrentTimeMillis(SystemClock.uptimeMillis() + 1000);
+
+        assertThat(VastWrapperCache.get(URL)).isNull();
+        assertThat(VastWrapperCache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void put_withZeroTtl_shouldNotCache() {
+        VastWrapperCache.put(URL, XML, 0);
+
+        assertThat(VastWrapperCache.get(URL)).isNull();
+    }
+
+    @Test
+    public void put_withMoreThanMaxEntries_shouldEvictLeastRecentlyUsed() {
+        for (int i = 0; i < VastWrapperCache.MAX_ENTRIES; i++) {
+            VastWrapperCache.put(URL + i, XML, 1000);
+        }
+        VastWrapperCache.get(URL + 0);
+
+        VastWrapperCache.put(URL, XML, 1000);
+
+        assertThat(VastWrapperCache.size()).isEqualTo(VastWrapperCache.MAX_ENTRIES);
+        assertThat(VastWrapperCache.get(URL + 0)).isEqualTo(XML);
+        assertThat(VastWrapperCache.get(URL + 1)).isNull();
+    }
+
+    @Test
+    public void trimMemory_shouldDropLeastRecentlyUsed_shouldReportBytes() {
+        VastWrapperCache.put(URL + 0, XML, 1000);
+        VastWrapperCache.put(URL + 1, XML, 1000);
+
+        assertThat(VastWrapperCache.trimMemory(0.5f)).isEqualTo(2L * XML.length());
+        assertThat(VastWrapperCache.get(URL + 0)).isNull();
+        assertThat(VastWrapperCache.get(URL + 1)).isEqualTo(XML);
+    }
+
+    @Test
+    public void getTtlMillis_shouldUseMaxAge() {
+        assertThat(VastWrapperCache.getTtlMillis("public, max-age=60")).isEqualTo(60000);
+        assertThat(VastWrapperCache.getTtlMillis("MAX-AGE=1")).isEqualTo(1000);
+    }
+
+    @Test
+    public void getTtlMillis_shouldCapAtMaxTtl() {
+        assertThat(VastWrapperCache.getTtlMillis("max-age=86400"))
+                .isEqualTo(VastWrapperCache.MAX_TTL_MILLIS);
+    }
+
+    @Test
+    public void getTtlMillis_withoutMaxAgeOrWithNoStore_shouldReturnZero() {
+        assertThat(VastWrapperCache.getTtlMillis(null)).isEqualTo(0);
+        assertThat(VastWrapperCache.getTtlMillis("public")).isEqualTo(0);
+        assertThat(VastWrapperCache.getTtlMillis("no-store, max-age=60")).isEqualTo(0);
+        assertThat(VastWrapperCache.getTtlMillis("no-cache")).isEqualTo(0);
+        assertThat(VastWrapperCache.getTtlMillis("max-age=soon")).isEqualTo(0);
+    }
+}
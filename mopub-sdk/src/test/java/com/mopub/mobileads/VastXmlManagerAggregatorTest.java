@@ -30,7 +30,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Semaphore;
 
@@ -285,7 +287,7 @@ public class VastXmlManagerAggregatorTest {
             "    </Ad>" +
             "</VAST>";
 
-    private static final String NODE_OM_AD_VERIFICATION =
+    static final String NODE_OM_AD_VERIFICATION =
             "              <AdVerifications>" +
             "                <Verification vendor=\"iabtechlab.com-omid\">" +
             "                    <JavaScriptResource apiFramework=\"omid\" browserOptional=\"true\">" +
@@ -302,7 +304,7 @@ public class VastXmlManagerAggregatorTest {
             "                </Verification>" +
             "            </AdVerifications>";
 
-    private static final String NODE_OM_AD_VERIFICATION_EXT =
+    static final String NODE_OM_AD_VERIFICATION_EXT =
             "               <Extension type=\"AdVerifications\">" +
             "                    <AdVerifications>" +
             "                        <Verification vendor=\"iabtechlab.com-omid\">" +
@@ -382,6 +384,7 @@ public class VastXmlManagerAggregatorTest {
         context = Robolectric.buildActivity(Activity.class).create().get();
 
         Networking.setRequestQueueForTesting(mockRequestQueue);
+        VastWrapperCache.clear();
 
         semaphore = new Semaphore(0);
         vastXmlManagerAggregatorListener = mock(VastXmlManagerAggregatorListener.class);
@@ -448,6 +451,80 @@ public class VastXmlManagerAggregatorTest {
                 VastXmlManagerAggregator.MAX_TIMES_TO_FOLLOW_VAST_REDIRECT);
     }
 
+    @Test
+    public void evaluateVastXmlManager_withSiblingWrappers_shouldFetchThemTogether() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_NESTED_VAST_XML_STRING);
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_NESTED_VAST_XML_STRING);
+
+        VastVideoConfig vastVideoConfig = subject.evaluateVastXmlManager(
+                getSiblingWrappersXml("https://first/vast", "https://second/vast"),
+                new ArrayList<VastTracker>());
+
+        assertThat(vastVideoConfig.getNetworkMediaFileUrl())
+                .isEqualTo("https://s3.amazonaws.com/mopub-vast/tapad-video.mp4");
+        final List<VastXmlManagerAggregator.WrapperHop> wrapperHops = subject.getWrapperHops();
+        assertThat(wrapperHops).hasSize(1);
+        assertThat(wrapperHops.get(0).hop).isEqualTo(1);
+        assertThat(wrapperHops.get(0).url).isEqualTo("https://first/vast");
+        assertThat(wrapperHops.get(0).prefetched).isTrue();
+        assertThat(wrapperHops.get(0).cached).isFalse();
+    }
+
+    @Test
+    public void evaluateVastXmlManager_withSiblingWrappersToTheSameUrl_shouldFetchItOnce() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_INVALID_VAST_XML_STRING);
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_NESTED_VAST_XML_STRING);
+
+        VastVideoConfig vastVideoConfig = subject.evaluateVastXmlManager(
+                getSiblingWrappersXml("https://same/vast", "https://same/vast"),
+                new ArrayList<VastTracker>());
+
+        // Neither Ad finds a video in the one response
+        assertThat(vastVideoConfig).isNull();
+        assertThat(ShadowMoPubHttpUrlConnection.getPendingUrlConnections()).hasSize(1);
+        assertThat(subject.getWrapperHops()).hasSize(2);
+    }
+
+    @Test
+    public void evaluateVastXmlManager_withSingleWrapper_shouldNotPrefetch() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_NESTED_VAST_XML_STRING);
+
+        subject.evaluateVastXmlManager(TEST_VAST_XML_STRING, new ArrayList<VastTracker>());
+
+        assertThat(subject.getWrapperHops()).hasSize(1);
+        assertThat(subject.getWrapperHops().get(0).prefetched).isFalse();
+    }
+
+    @Test
+    public void evaluateVastXmlManager_withCacheableWrapperResponse_shouldNotFetchItAgain() throws Exception {
+        final Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put(VastWrapperCache.CACHE_CONTROL_HEADER, Collections.singletonList("max-age=60"));
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_NESTED_VAST_XML_STRING, headers);
+
+        assertNotNull(subject.evaluateVastXmlManager(TEST_VAST_XML_STRING,
+                new ArrayList<VastTracker>()));
+        VastVideoConfig vastVideoConfig = subject.evaluateVastXmlManager(TEST_VAST_XML_STRING,
+                new ArrayList<VastTracker>());
+
+        assertThat(vastVideoConfig.getNetworkMediaFileUrl())
+                .isEqualTo("https://s3.amazonaws.com/mopub-vast/tapad-video.mp4");
+        assertThat(subject.getWrapperHops()).hasSize(2);
+        assertThat(subject.getWrapperHops().get(0).cached).isFalse();
+        assertThat(subject.getWrapperHops().get(1).cached).isTrue();
+    }
+
+    @Test
+    public void evaluateVastXmlManager_withUncacheableWrapperResponse_shouldFetchItAgain() throws Exception {
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, TEST_NESTED_VAST_XML_STRING);
+
+        assertNotNull(subject.evaluateVastXmlManager(TEST_VAST_XML_STRING,
+                new ArrayList<VastTracker>()));
+        VastVideoConfig vastVideoConfig = subject.evaluateVastXmlManager(TEST_VAST_XML_STRING,
+                new ArrayList<VastTracker>());
+
+        assertThat(vastVideoConfig).isNull();
+    }
+
     @Test
     public void getBestMediaFileUrl_shouldReturnMediaFileUrl() {
         final VastMediaXmlManager mediaXmlManager = initializeMediaXmlManagerMock(300, 250, "video/mp4", "video_url");
@@ -1480,4 +1557,21 @@ public class VastXmlManagerAggregatorTest {
         return mockResourceXmlManager;
     }
 
+
+    private static String getSiblingWrappersXml(final String firstUrl, final String secondUrl) {
+        return "<VAST version='3.0'>" +
+                "    <Ad id='first'>" +
+                "        <Wrapper>" +
+                "            <VASTAdTagURI><![CDATA[" + firstUrl + "]]></VASTAdTagURI>" +
+                "            <Impression>https://first/impression</Impression>" +
+                "        </Wrapper>" +
+                "    </Ad>" +
+                "    <Ad id='second'>" +
+                "        <Wrapper>" +
+                "            <VASTAdTagURI><![CDATA[" + secondUrl + "]]></VASTAdTagURI>" +
+                "            <Impression>https://second/impression</Impression>" +
+                "        </Wrapper>" +
+                "    </Ad>" +
+                "</VAST>";
+    }
 }
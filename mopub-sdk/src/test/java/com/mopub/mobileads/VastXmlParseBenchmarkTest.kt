@@ -0,0 +1,111 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads
+
+import android.app.Activity
+
+import com.mopub.common.logging.MoPubLog
+import com.mopub.common.logging.MoPubLog.SdkLogEvent.CUSTOM
+import com.mopub.common.test.support.SdkTestRunner
+import com.mopub.common.util.test.support.ShadowMoPubHttpUrlConnection
+import com.mopub.network.MoPubRequestQueue
+import com.mopub.network.Networking
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.Mock
+import org.mockito.Mockito.mock
+import org.robolectric.Robolectric
+import org.robolectric.annotation.Config
+
+import java.lang.management.ManagementFactory
+
+/**
+ * Follows a wrapper, a second wrapper and then the inline ad, 50 times with the DOM based
+ * [VastXmlManager] and 50 times with [VastXmlPullParser], and logs the average time and bytes
+ * allocated per chain for each. Every chain still has to resolve to the inline media file. Only
+ * runs with -Pbenchmarks.
+ */
+@RunWith(SdkTestRunner::class)
+@Config(qualifiers = "w480dp-h800dp", shadows = [ShadowMoPubHttpUrlConnection::class])
+class VastXmlParseBenchmarkTest {
+    @Mock
+    private lateinit var mockRequestQueue: MoPubRequestQueue
+    private lateinit var subject: VastXmlManagerAggregator
+    private lateinit var domAggregator: VastXmlManagerAggregator
+
+    @Before
+    fun setUp() {
+        assumeTrue(java.lang.Boolean.getBoolean("mopub.benchmarks"))
+        val context = Robolectric.buildActivity(Activity::class.java).create().get()
+        Networking.setRequestQueueForTesting(mockRequestQueue)
+
+        val listener = mock(VastXmlManagerAggregator.VastXmlManagerAggregatorListener::class.java)
+        subject = VastXmlManagerAggregator(listener, SCREEN_WIDTH.toDouble() / SCREEN_HEIGHT,
+            SCREEN_WIDTH, context)
+        domAggregator = VastXmlManagerAggregator(listener, SCREEN_WIDTH.toDouble() / SCREEN_HEIGHT,
+            SCREEN_WIDTH, context)
+        domAggregator.setUseDomParser(true)
+    }
+
+    @Test
+    fun evaluateVastXmlManager_withWrapperChain() {
+        val dom = measure(WRAPPER_CHAIN_ROUNDS) { evaluateWrapperChain(domAggregator) }
+        val pull = measure(WRAPPER_CHAIN_ROUNDS) { evaluateWrapperChain(subject) }
+
+        report("3 document wrapper chain", "DOM", dom)
+        report("3 document wrapper chain", "pull parser", pull)
+    }
+
+    private fun evaluateWrapperChain(aggregator: VastXmlManagerAggregator) {
+        aggregator.setTimesFollowedVastRedirect(0)
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, VastXmlManagerAggregatorTest.TEST_VAST_XML_STRING)
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, VastXmlManagerAggregatorTest.TEST_NESTED_VAST_XML_STRING)
+
+        val vastVideoConfig = aggregator.evaluateVastXmlManager(
+            VastXmlManagerAggregatorTest.TEST_VAST_XML_STRING, ArrayList())
+
+        assertThat(vastVideoConfig!!.networkMediaFileUrl)
+            .isEqualTo("https://s3.amazonaws.com/mopub-vast/tapad-video.mp4")
+    }
+
+    private class Measurement(val averageMicros: Double, val averageBytes: Long?)
+
+    private inline fun measure(rounds: Int, run: () -> Unit): Measurement {
+        // One round to warm up
+        run()
+        val startBytes = allocatedBytes()
+        val start = System.nanoTime()
+        for (round in 0 until rounds) {
+            run()
+        }
+        val averageMicros = (System.nanoTime() - start) / 1000.0 / rounds
+        val averageBytes = allocatedBytes()?.let { it - startBytes!! }?.div(rounds)
+        return Measurement(averageMicros, averageBytes)
+    }
+
+    /**
+     * @return how many bytes this thread has allocated, or null if the JVM doesn't say.
+     */
+    private fun allocatedBytes(): Long? {
+        val threadMXBean = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        return threadMXBean?.getThreadAllocatedBytes(Thread.currentThread().id)
+    }
+
+    private fun report(case: String, parser: String, measurement: Measurement) {
+        val allocated = measurement.averageBytes?.let { "${it / 1024} KB allocated" } ?: "allocations unknown"
+        MoPubLog.log(CUSTOM,
+            "VAST $case, $parser: ${measurement.averageMicros.toLong()} us average, $allocated")
+    }
+
+    companion object {
+        private const val SCREEN_WIDTH = 800
+        private const val SCREEN_HEIGHT = 480
+        private const val WRAPPER_CHAIN_ROUNDS = 50
+    }
+}
@@ -0,0 +1,280 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads
+
+import android.app.Activity
+
+import com.mopub.common.test.support.SdkTestRunner
+import com.mopub.common.util.test.support.ShadowMoPubHttpUrlConnection
+import com.mopub.mobileads.test.support.VastUtils
+import com.mopub.network.MoPubRequestQueue
+import com.mopub.network.Networking
+
+import org.fest.assertions.api.Assertions.assertThat
+import org.json.JSONObject
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.Mock
+import org.mockito.Mockito.mock
+import org.robolectric.Robolectric
+import org.robolectric.annotation.Config
+
+/**
+ * Checks that [VastXmlManagerAggregator] builds the same [VastVideoConfig] from a document read by
+ * the pull parser as from one read by the DOM based [VastXmlManager]. The parser itself is tested
+ * in mopub-sdk-base, where it is visible.
+ */
+@RunWith(SdkTestRunner::class)
+@Config(qualifiers = "w480dp-h800dp", shadows = [ShadowMoPubHttpUrlConnection::class])
+class VastXmlParserParityTest {
+    @Mock
+    private lateinit var mockRequestQueue: MoPubRequestQueue
+    private lateinit var context: Activity
+    private lateinit var subject: VastXmlManagerAggregator
+    private lateinit var domAggregator: VastXmlManagerAggregator
+
+    @Before
+    fun setUp() {
+        context = Robolectric.buildActivity(Activity::class.java).create().get()
+        Networking.setRequestQueueForTesting(mockRequestQueue)
+
+        subject = createAggregator()
+        domAggregator = createAggregator().apply { setUseDomParser(true) }
+    }
+
+    @Test
+    fun parse_withInline_shouldMatchDomParser() {
+        assertSameConfig(VastXmlManagerAggregatorTest.TEST_NESTED_VAST_XML_STRING)
+    }
+
+    @Test
+    fun parse_withInlineWithoutCompanionAds_shouldMatchDomParser() {
+        assertSameConfig(VastXmlManagerAggregatorTest.TEST_NESTED_NO_COMPANION_VAST_XML_STRING)
+    }
+
+    @Test
+    fun parse_withWrapperToInline_shouldMatchDomParser() {
+        assertSameConfig(VastXmlManagerAggregatorTest.TEST_VAST_XML_STRING,
+            VastXmlManagerAggregatorTest.TEST_NESTED_VAST_XML_STRING)
+    }
+
+    @Test
+    fun parse_withWrapperToInlineWithoutCompanionAds_shouldMatchDomParser() {
+        assertSameConfig(VastXmlManagerAggregatorTest.TEST_VAST_XML_STRING,
+            VastXmlManagerAggregatorTest.TEST_NESTED_NO_COMPANION_VAST_XML_STRING)
+    }
+
+    @Test
+    fun parse_withTrackersVerificationsAndMoPubElements_shouldMatchDomParser() {
+        val vastVideoConfig = assertSameConfig(TEST_VAST_XML_STRING)!!
+
+        assertThat(vastVideoConfig.fractionalTrackers.map { it.trackingFraction })
+            .containsExactly(0.1f, 0.25f, 0.5f, 0.75f)
+        assertThat(vastVideoConfig.absoluteTrackers.map { it.trackingMilliseconds })
+            .containsExactly(0, 0, 5000)
+        assertThat(vastVideoConfig.viewabilityVendors).hasSize(2)
+        assertThat(vastVideoConfig.customCtaText).isEqualTo("Install")
+        assertThat(vastVideoConfig.customSkipText).isNull()
+        assertThat(VastUtils.vastTrackersToStrings(vastVideoConfig.impressionTrackers))
+            .containsOnly("https://impression", "https://mopub/imp1", "https://mopub/imp2")
+    }
+
+    @Test
+    fun parse_withInlineAdVerifications_shouldMatchDomParser() {
+        assertSameConfig(VastXmlManagerAggregatorTest.TEST_NESTED_NO_COMPANION_VAST_XML_STRING
+            .replace("<PLACEHOLDER2 />", VastXmlManagerAggregatorTest.NODE_OM_AD_VERIFICATION))
+    }
+
+    @Test
+    fun parse_withExtensionAdVerifications_shouldMatchDomParser() {
+        assertSameConfig(VastXmlManagerAggregatorTest.TEST_NESTED_NO_COMPANION_VAST_XML_STRING
+            .replace("<PLACEHOLDER1 />", VastXmlManagerAggregatorTest.NODE_OM_AD_VERIFICATION_EXT))
+    }
+
+    @Test
+    fun parse_withWrapperAdVerifications_shouldMatchDomParser() {
+        assertSameConfig(VastXmlManagerAggregatorTest.TEST_VAST_XML_STRING
+            .replace("<PLACEHOLDER2 />", VastXmlManagerAggregatorTest.NODE_OM_AD_VERIFICATION),
+            VastXmlManagerAggregatorTest.TEST_NESTED_VAST_XML_STRING)
+        assertSameConfig(VastXmlManagerAggregatorTest.TEST_VAST_XML_STRING
+            .replace("<PLACEHOLDER1 />", VastXmlManagerAggregatorTest.NODE_OM_AD_VERIFICATION_EXT),
+            VastXmlManagerAggregatorTest.TEST_NESTED_VAST_XML_STRING)
+    }
+
+    @Test
+    fun parse_withWrapperExtensionsAndCompanionWithoutResource_shouldMatchDomParser() {
+        val extensions = "<Extensions>" +
+                "<Extension type=\"MoPub\">" +
+                "<MoPubCtaText>custom CTA text</MoPubCtaText>" +
+                "<MoPubSkipText>skip</MoPubSkipText>" +
+                "<MoPubCloseIcon>https://closeIcon</MoPubCloseIcon>" +
+                "</Extension>" +
+                "</Extensions>"
+
+        assertSameConfig(
+            VastManagerTest.TEST_VAST_XML_STRING
+                .replace(VastManagerTest.EXTENSIONS_SNIPPET_PLACEHOLDER, extensions),
+            VastManagerTest.TEST_NESTED_VAST_XML_STRING
+                .replace(VastManagerTest.EXTENSIONS_SNIPPET_PLACEHOLDER, ""))
+    }
+
+    @Test
+    fun parse_withBadWrapperUrl_shouldMatchDomParser() {
+        assertThat(assertSameConfig(VastXmlManagerAggregatorTest.TEST_VAST_BAD_NEST_URL_XML_STRING))
+            .isNull()
+        assertThat(assertSameConfig(VastManagerTest.TEST_VAST_BAD_NEST_URL_XML_STRING)).isNull()
+    }
+
+    @Test
+    fun parse_withInvalidXml_shouldMatchDomParser() {
+        assertThat(assertSameConfig(VastXmlManagerAggregatorTest.TEST_INVALID_XML_STRING)).isNull()
+    }
+
+    @Test
+    fun parse_withWrapperToInvalidXml_shouldMatchDomParser() {
+        assertThat(assertSameConfig(VastXmlManagerAggregatorTest.TEST_VAST_XML_STRING,
+            VastXmlManagerAggregatorTest.TEST_INVALID_XML_STRING)).isNull()
+    }
+
+    @Test
+    fun parse_withNegativeSequenceNumber_shouldMatchDomParser() {
+        assertSameConfig(VastXmlManagerAggregatorTest.TEST_VAST_WITH_NEGATIVE_SEQUENCE_NUMBER_XML_STRING)
+    }
+
+    @Test
+    fun parse_withJustError_shouldMatchDomParser() {
+        assertThat(assertSameConfig(VastXmlManagerAggregatorTest.TEST_JUST_ERROR_XML_STRING)).isNull()
+    }
+
+    @Test
+    fun parse_withInvalidVast_shouldMatchDomParser() {
+        assertThat(assertSameConfig(VastXmlManagerAggregatorTest.TEST_INVALID_VAST_XML_STRING)).isNull()
+    }
+
+    private fun createAggregator() = VastXmlManagerAggregator(
+        mock(VastXmlManagerAggregator.VastXmlManagerAggregatorListener::class.java),
+        SCREEN_WIDTH.toDouble() / SCREEN_HEIGHT, SCREEN_WIDTH, context)
+
+    /**
+     * Evaluates [vastXml] with both parsers, answering wrapper requests with [wrapperResponses].
+     *
+     * @return the config the pull parser produced.
+     */
+    private fun assertSameConfig(vastXml: String, vararg wrapperResponses: String): VastVideoConfig? {
+        wrapperResponses.forEach { ShadowMoPubHttpUrlConnection.addPendingResponse(200, it) }
+        val expected = domAggregator.evaluateVastXmlManager(vastXml, ArrayList())
+        wrapperResponses.forEach { ShadowMoPubHttpUrlConnection.addPendingResponse(200, it) }
+        val actual = subject.evaluateVastXmlManager(vastXml, ArrayList())
+
+        if (expected == null || actual == null) {
+            assertThat(actual).isEqualTo(expected)
+            return actual
+        }
+
+        // Field by field, so a mismatch names the field instead of dumping both documents
+        val expectedJson = JSONObject(expected.toJsonString())
+        val actualJson = JSONObject(actual.toJsonString())
+        assertThat(actualJson.keys().asSequence().toSortedSet())
+            .isEqualTo(expectedJson.keys().asSequence().toSortedSet())
+        expectedJson.keys().forEach { key ->
+            assertThat(actualJson.opt(key)?.toString()).`as`(key)
+                .isEqualTo(expectedJson.opt(key)?.toString())
+        }
+        return actual
+    }
+
+    companion object {
+        // Landscape, since videos are always played in this orientation
+        private const val SCREEN_WIDTH = 800
+        private const val SCREEN_HEIGHT = 480
+
+        private const val TEST_VAST_XML_STRING = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<VAST version='3.0'>" +
+                "    <Ad id='1'>" +
+                "        <InLine>" +
+                "            <Impression><![CDATA[https://impression]]></Impression>" +
+                "            <Impression></Impression>" +
+                "            <Creatives>" +
+                "                <Creative>" +
+                "                    <Linear>" +
+                "                        <TrackingEvents>" +
+                "                            <Tracking event='start'>https://start</Tracking>" +
+                "                            <Tracking event='firstQuartile'>https://firstQuartile</Tracking>" +
+                "                            <Tracking event='midpoint'>https://midpoint</Tracking>" +
+                "                            <Tracking event='thirdQuartile'>https://thirdQuartile</Tracking>" +
+                "                            <Tracking event='progress' offset=' 10% '>https://progress10</Tracking>" +
+                "                            <Tracking event='progress' offset='00:00:05'>https://progress5s</Tracking>" +
+                "                            <Tracking event='progress' offset='-5%'>https://negative</Tracking>" +
+                "                            <Tracking event='creativeView'>https://creativeView</Tracking>" +
+                "                            <Tracking event='complete'>https://complete</Tracking>" +
+                "                            <Tracking event='pause'>https://pause</Tracking>" +
+                "                            <Tracking event='resume'>https://resume</Tracking>" +
+                "                            <Tracking event='close'>https://close</Tracking>" +
+                "                            <Tracking event='closeLinear'>https://closeLinear</Tracking>" +
+                "                            <Tracking event='skip'>https://skip</Tracking>" +
+                "                        </TrackingEvents>" +
+                "                        <VideoClicks>" +
+                "                            <ClickThrough><![CDATA[https://clickThrough]]></ClickThrough>" +
+                "                            <ClickTracking>https://click1</ClickTracking>" +
+                "                            <ClickTracking>https://click2</ClickTracking>" +
+                "                        </VideoClicks>" +
+                "                        <MediaFiles>" +
+                "                            <MediaFile minBitrate='300' maxBitrate='500' width='640' height='360' type='video/mp4'>" +
+                "                                <![CDATA[https://video360.mp4]]>" +
+                "                            </MediaFile>" +
+                "                            <MediaFile bitrate='800' width='1280' height='720' type='video/mp4'>" +
+                "                                <![CDATA[https://video720.mp4]]>" +
+                "                            </MediaFile>" +
+                "                        </MediaFiles>" +
+                "                    </Linear>" +
+                "                </Creative>" +
+                "                <Creative>" +
+                "                    <CompanionAds>" +
+                "                        <Companion width='300' height='250'>" +
+                "                            <IFrameResource><![CDATA[https://iframe]]></IFrameResource>" +
+                "                            <CompanionClickThrough>https://companionClickThrough</CompanionClickThrough>" +
+                "                            <CompanionClickTracking>https://companionClick</CompanionClickTracking>" +
+                "                            <TrackingEvents>" +
+                "                                <Tracking event='creativeView'>https://companionCreativeView</Tracking>" +
+                "                            </TrackingEvents>" +
+                "                        </Companion>" +
+                "                    </CompanionAds>" +
+                "                </Creative>" +
+                "            </Creatives>" +
+                "            <AdVerifications>" +
+                "                <Verification vendor='inline.com-omid'>" +
+                "                    <JavaScriptResource apiFramework='omid'><![CDATA[https://inline.com/omid.js]]></JavaScriptResource>" +
+                "                    <TrackingEvents>" +
+                "                        <Tracking event='verificationNotExecuted'><![CDATA[https://inline.com/notExecuted]]></Tracking>" +
+                "                    </TrackingEvents>" +
+                "                    <VerificationParameters><![CDATA[inline=1]]></VerificationParameters>" +
+                "                </Verification>" +
+                "                <Verification vendor='other'>" +
+                "                    <JavaScriptResource apiFramework='other'>https://other.com/other.js</JavaScriptResource>" +
+                "                </Verification>" +
+                "            </AdVerifications>" +
+                "            <Extensions>" +
+                "                <Extension type='AdVerifications'>" +
+                "                    <AdVerifications>" +
+                "                        <Verification vendor='extension.com-omid'>" +
+                "                            <JavaScriptResource apiFramework='omid'>https://extension.com/omid.js</JavaScriptResource>" +
+                "                        </Verification>" +
+                "                    </AdVerifications>" +
+                "                </Extension>" +
+                "            </Extensions>" +
+                "            <Error><![CDATA[https://error]]></Error>" +
+                "        </InLine>" +
+                "    </Ad>" +
+                "</VAST>" +
+                "<MP_TRACKING_URLS>" +
+                "    <MP_TRACKING_URL>https://mopub/imp1</MP_TRACKING_URL>" +
+                "    <MP_TRACKING_URL>https://mopub/imp2</MP_TRACKING_URL>" +
+                "</MP_TRACKING_URLS>" +
+                "<MoPubCtaText>Install</MoPubCtaText>" +
+                "<MoPubSkipText>Skip this ad</MoPubSkipText>" +
+                "<MoPubCloseIcon>https://closeIcon</MoPubCloseIcon>"
+    }
+}
@@ -0,0 +1,283 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.mobileads;
+
+import android.app.Activity;
+import android.content.Context;
+
+import com.mopub.common.VideoCacheService;
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.mobileads.VideoDownloader.VideoDownloaderListener;
+import com.mopub.mobileads.VideoDownloader.VideoDownloaderTask;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.Robolectric;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Downloads from a local HTTP server that can drop the connection partway through a response.
+ */
+@RunWith(SdkTestRunner.class)
+public class VideoDownloaderResumeTest {
+    private static final int VIDEO_SIZE = 256 * 1024;
+    private static final int DROP_AFTER_BYTES = 100 * 1024;
+
+    @Mock VideoDownloaderListener mockListener;
+    private StandInServer server;
+    private String videoUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = Robolectric.buildActivity(Activity.class).create().get();
+        VideoCacheService.initializeCache(context);
+        server = new StandInServer(createVideo(1));
+        server.start();
+        videoUrl = "http://127.0.0.1:" + server.getPort() + "/video.mp4";
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+        final File partialFile = VideoCacheService.getPartialFile(videoUrl);
+        if (partialFile != null) {
+            partialFile.delete();
+            new File(partialFile.getPath() + ".meta").delete();
+        }
+        ProgressiveVideoDownload.clearDownloads();
+        VideoDownloader.clearDownloaderTasks();
+        VideoCacheService.clearAndNullVideoCache();
+    }
+
+    @Test
+    public void doInBackground_withDroppedConnection_shouldResumeWithRangeRequest() {
+        server.dropAfterBytes = DROP_AFTER_BYTES;
+
+        assertThat(download()).isFalse();
+        final long partialLength = VideoCacheService.getPartialFile(videoUrl).length();
+        assertThat(partialLength).isGreaterThan(0);
+        assertThat(partialLength).isLessThanOrEqualTo(DROP_AFTER_BYTES);
+        assertThat(VideoCacheService.containsKey(videoUrl)).isFalse();
+
+        server.dropAfterBytes = -1;
+
+        assertThat(download()).isTrue();
+        assertThat(server.getLatestHeader("range")).isEqualTo("bytes=" + partialLength + "-");
+        assertThat(server.getLatestHeader("if-range")).isEqualTo("\"v1\"");
+        assertThat(server.getBodyBytesSent())
+                .isEqualTo(DROP_AFTER_BYTES + VIDEO_SIZE - partialLength);
+        assertThat(VideoCacheService.get(videoUrl)).isEqualTo(server.body);
+        assertThat(VideoCacheService.getPartialFile(videoUrl).exists()).isFalse();
+    }
+
+    @Test
+    public void doInBackground_withDroppedConnectionTwice_shouldResumeFromLatestOffset() {
+        server.dropAfterBytes = DROP_AFTER_BYTES;
+        assertThat(download()).isFalse();
+        final long firstPartialLength = VideoCacheService.getPartialFile(videoUrl).length();
+        assertThat(download()).isFalse();
+        final long partialLength = VideoCacheService.getPartialFile(videoUrl).length();
+        assertThat(partialLength).isGreaterThan(firstPartialLength);
+
+        server.dropAfterBytes = -1;
+
+        assertThat(download()).isTrue();
+        assertThat(server.getLatestHeader("range")).isEqualTo("bytes=" + partialLength + "-");
+        assertThat(VideoCacheService.get(videoUrl)).isEqualTo(server.body);
+    }
+
+    @Test
+    public void doInBackground_withChangedVideo_shouldDownloadWholeVideoAgain() {
+        server.dropAfterBytes = DROP_AFTER_BYTES;
+        assertThat(download()).isFalse();
+
+        server.dropAfterBytes = -1;
+        server.eTag = "\"v2\"";
+        server.body = createVideo(2);
+
+        assertThat(download()).isTrue();
+        assertThat(server.getLatestHeader("if-range")).isEqualTo("\"v1\"");
+        assertThat(VideoCacheService.get(videoUrl)).isEqualTo(server.body);
+    }
+
+    @Test
+    public void doInBackground_withoutValidator_shouldNotResume() {
+        server.eTag = null;
+        server.dropAfterBytes = DROP_AFTER_BYTES;
+
+        assertThat(download()).isFalse();
+        assertThat(VideoCacheService.getPartialFile(videoUrl).exists()).isFalse();
+
+        server.dropAfterBytes = -1;
+
+        assertThat(download()).isTrue();
+        assertThat(server.getLatestHeader("range")).isNull();
+        assertThat(VideoCacheService.get(videoUrl)).isEqualTo(server.body);
+    }
+
+    @Test
+    public void doInBackground_withRangeNotSatisfiable_shouldDiscardPartialFileAndStartOver() {
+        server.dropAfterBytes = DROP_AFTER_BYTES;
+        assertThat(download()).isFalse();
+        assertThat(VideoCacheService.getPartialFile(videoUrl).exists()).isTrue();
+
+        server.dropAfterBytes = -1;
+        server.rangeNotSatisfiable = true;
+
+        assertThat(download()).isFalse();
+        assertThat(server.getLatestHeader("range")).isNotNull();
+        assertThat(VideoCacheService.getPartialFile(videoUrl).exists()).isFalse();
+
+        server.rangeNotSatisfiable = false;
+
+        assertThat(download()).isTrue();
+        assertThat(server.getLatestHeader("range")).isNull();
+        assertThat(VideoCacheService.get(videoUrl)).isEqualTo(server.body);
+    }
+
+    private boolean download() {
+        return new VideoDownloaderTask(mockListener).doInBackground(videoUrl);
+    }
+
+    private static byte[] createVideo(final long seed) {
+        final byte[] video = new byte[VIDEO_SIZE];
+        new Random(seed).nextBytes(video);
+        return video;
+    }
+
+    /**
+     * Serves one video, answering {@code Range} requests when {@code If-Range} matches its ETag,
+     * or with 416 while {@code rangeNotSatisfiable} is set, and closes every connection after the
+     * response.
+     */
+    private static class StandInServer {
+        private final ServerSocket mServerSocket;
+        private final List<Map<String, String>> mRequestHeaders =
+                Collections.synchronizedList(new ArrayList<Map<String, String>>());
+        private long mBodyBytesSent;
+        volatile byte[] body;
+        volatile String eTag = "\"v1\"";
+        volatile int dropAfterBytes = -1;
+        volatile boolean rangeNotSatisfiable;
+
+        StandInServer(final byte[] body) throws IOException {
+            mServerSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+            this.body = body;
+        }
+
+        int getPort() {
+            return mServerSocket.getLocalPort();
+        }
+
+        String getLatestHeader(final String name) {
+            return mRequestHeaders.get(mRequestHeaders.size() - 1).get(name);
+        }
+
+        synchronized long getBodyBytesSent() {
+            return mBodyBytesSent;
+        }
+
+        void start() {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (true) {
+                        try (Socket socket = mServerSocket.accept()) {
+                            serve(socket);
+                        } catch (IOException e) {
+                            if (mServerSocket.isClosed()) {
+                                return;
+                            }
+                        }
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stop() throws IOException {
+            mServerSocket.close();
+        }
+
+        private void serve(final Socket socket) throws IOException {
+            final BufferedReader reader =
+                    new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            if (reader.readLine() == null) {
+                return;
+            }
+            final Map<String, String> headers = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                final int colon = line.indexOf(':');
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.US),
+                        line.substring(colon + 1).trim());
+            }
+            mRequestHeaders.add(headers);
+
+            final byte[] video = body;
+            final String range = headers.get("range");
+            final boolean partial = range != null && eTag != null
+                    && eTag.equals(headers.get("if-range"));
+            final int start = partial
+                    ? Integer.parseInt(range.substring("bytes=".length(), range.length() - 1))
+                    : 0;
+
+            final OutputStream output = socket.getOutputStream();
+            if (range != null && rangeNotSatisfiable) {
+                output.write(("HTTP/1.1 416 Range Not Satisfiable\r\n" +
+                        "Content-Range: bytes */" + video.length + "\r\n" +
+                        "Content-Length: 0\r\n" +
+                        "Connection: close\r\n\r\n").getBytes("US-ASCII"));
+                output.flush();
+                return;
+            }
+
+            final StringBuilder response = new StringBuilder();
+            if (partial) {
+                response.append("HTTP/1.1 206 Partial Content\r\n")
+                        .append("Content-Range: bytes ").append(start).append("-")
+                        .append(video.length - 1).append("/").append(video.length).append("\r\n");
+            } else {
+                response.append("HTTP/1.1 200 OK\r\n");
+            }
+            if (eTag != null) {
+                response.append("ETag: ").append(eTag).append("\r\n");
+            }
+            response.append("Content-Length: ").append(video.length - start).append("\r\n")
+                    .append("Connection: close\r\n\r\n");
+
+            output.write(response.toString().getBytes("US-ASCII"));
+            final int end = dropAfterBytes < 0
+                    ? video.length
+                    : Math.min(video.length, start + dropAfterBytes);
+            synchronized (this) {
+                mBodyBytesSent += end - start;
+            }
+            output.write(video, start, end - start);
+            output.flush();
+        }
+    }
+}
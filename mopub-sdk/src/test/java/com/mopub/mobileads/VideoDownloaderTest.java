@@ -47,6 +47,7 @@ public class VideoDownloaderTest {
     @After
     public void tearDown() {
         VideoDownloader.clearDownloaderTasks();
+        VideoDownloader.setProgressiveBufferBytes(0);
         VideoCacheService.clearAndNullVideoCache();
     }
 
@@ -148,6 +149,32 @@ public class VideoDownloaderTest {
                 .isEqualTo(expectedResponse.getBytes());
     }
 
+    @Test
+    public void doInBackground_withProgressiveBufferBytes_shouldUpdateCache_shouldRemovePartialDownload() throws Exception {
+        String expectedResponse = "response";
+        ShadowMoPubHttpUrlConnection.addPendingResponse(200, expectedResponse);
+        VideoDownloader.setProgressiveBufferBytes(4);
+        final VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(mockListener);
+
+        final Boolean result = videoDownloaderTask.doInBackground(expectedUrl1);
+
+        assertThat(result).isTrue();
+        assertThat(VideoCacheService.get(expectedUrl1))
+                .isEqualTo(expectedResponse.getBytes());
+        assertThat(ProgressiveVideoDownload.get(expectedUrl1)).isNull();
+        assertThat(VideoCacheService.getPartialFile(expectedUrl1).exists()).isFalse();
+    }
+
+    @Test
+    public void onProgressUpdate_shouldCallOnBuffered() {
+        VideoDownloaderTask videoDownloaderTask = new VideoDownloaderTask(mockListener);
+
+        videoDownloaderTask.onProgressUpdate();
+
+        verify(mockListener).onBuffered();
+        verify(mockListener, never()).onComplete(anyBoolean());
+    }
+
     @Test
     public void doInBackground_withNullArguments_shouldReturnFalse_shouldNotUpdateCache() throws Exception {
         ShadowMoPubHttpUrlConnection.addPendingResponse(200, "response");
@@ -260,6 +287,21 @@ public class VideoDownloaderTest {
         assertThat(VideoDownloader.getDownloaderTasks()).hasSize(0);
     }
 
+    @Test
+    public void getContentRangeStart_shouldReturnFirstBytePosition() {
+        assertThat(VideoDownloader.getContentRangeStart("bytes 100-999/1000")).isEqualTo(100);
+        assertThat(VideoDownloader.getContentRangeStart("bytes 100-999/*")).isEqualTo(100);
+        assertThat(VideoDownloader.getContentRangeStart("bytes */1000")).isEqualTo(-1);
+        assertThat(VideoDownloader.getContentRangeStart(null)).isEqualTo(-1);
+    }
+
+    @Test
+    public void getContentRangeLength_shouldReturnCompleteLength() {
+        assertThat(VideoDownloader.getContentRangeLength("bytes 100-999/1000")).isEqualTo(1000);
+        assertThat(VideoDownloader.getContentRangeLength("bytes 100-999/*")).isEqualTo(-1);
+        assertThat(VideoDownloader.getContentRangeLength("garbage")).isEqualTo(-1);
+    }
+
     private static String createLongString(int size) {
         return new String(new char[size]).replace("\0", "*");
     }
@@ -51,6 +51,7 @@ import com.mopub.common.util.Utils;
 import com.mopub.common.util.test.support.TestMethodBuilderFactory;
 import com.mopub.mobileads.test.support.MoPubShadowConnectivityManager;
 import com.mopub.mobileads.test.support.MoPubShadowTelephonyManager;
+import com.mopub.network.MoPubNetworkUtils;
 import com.mopub.network.PlayServicesUrlRewriter;
 import com.mopub.network.RequestRateTrackerTest;
 
@@ -209,6 +210,15 @@ public class WebViewAdUrlGeneratorTest {
         assertThat(adUrl).isEqualTo(expectedAdUrl);
     }
 
+    @Test
+    public void getRequestParams_withGeneratedUrl_shouldMatchUrlParams() {
+        String adUrl = generateMinimumUrlString();
+
+        assertThat(subject.getRequestParams(adUrl).toMap())
+                .isEqualTo(MoPubNetworkUtils.convertQueryToMap(adUrl));
+        assertThat(subject.getRequestParams(adUrl + "&other=1")).isNull();
+    }
+
     @Test
     public void generateAdUrl_withHttpsScheme() {
         String adUrl = generateMinimumUrlString();
@@ -134,4 +134,31 @@ public class WebViewCacheServiceTest {
         assertThat(configs.get(broadcastIdentifier).getController()).isEqualTo(mraidController);
         assertThat(configsResult.get(broadcastIdentifier + 1)).isNull();
     }
+
+    @Test
+    public void trimMemory_shouldDestroyOldestWebViews_shouldReportEstimatedBytes() {
+        WebViewCacheService.storeWebViewConfig(broadcastIdentifier, baseWebView,
+                baseAd, mraidController);
+        WebViewCacheService.storeWebViewConfig(broadcastIdentifier + 1, baseWebView,
+                baseAd, null);
+
+        final long bytesReleased = WebViewCacheService.trimMemory(0.5f);
+
+        assertThat(bytesReleased).isEqualTo(WebViewCacheService.ESTIMATED_WEB_VIEW_BYTES);
+        assertThat(WebViewCacheService.getWebViewConfigs().keySet()).containsOnly(broadcastIdentifier + 1);
+        verify(baseWebView).destroy();
+        verify(mraidController).destroy();
+    }
+
+    @Test
+    public void trimMemory_shouldCountStaleWebViews() {
+        WebViewCacheService.storeWebViewConfig(broadcastIdentifier, baseWebView,
+                baseAd, mraidController);
+        WebViewCacheService.getWebViewConfigs().get(broadcastIdentifier).getWeakBaseAd().clear();
+
+        final long bytesReleased = WebViewCacheService.trimMemory(0.25f);
+
+        assertThat(bytesReleased).isEqualTo(WebViewCacheService.ESTIMATED_WEB_VIEW_BYTES);
+        assertThat(WebViewCacheService.getWebViewConfigs()).isEmpty();
+    }
 }
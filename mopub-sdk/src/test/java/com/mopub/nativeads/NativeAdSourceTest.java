@@ -382,4 +382,28 @@ public class NativeAdSourceTest {
         assertThat(subject.getRetryTime()).isEqualTo(defaultRetryTime);
         verify(mockReplenishCacheHandler, never()).postDelayed(any(Runnable.class), anyLong());
     }
+
+    @Test
+    public void trimMemory_shouldDestroyOldestAds_shouldReportEstimatedBytes() {
+        final NativeAd oldestNativeAd = mock(NativeAd.class);
+        nativeAdCache.add(new TimestampWrapper<NativeAd>(oldestNativeAd));
+        nativeAdCache.add(new TimestampWrapper<NativeAd>(mMockNativeAd));
+
+        final long bytesReleased = subject.trimMemory(0.5f);
+
+        assertThat(bytesReleased).isEqualTo(NativeAdSource.ESTIMATED_NATIVE_AD_BYTES);
+        assertThat(nativeAdCache).hasSize(1);
+        assertThat(nativeAdCache.get(0).mInstance).isSameAs(mMockNativeAd);
+        verify(oldestNativeAd).destroy();
+        verify(mMockNativeAd, never()).destroy();
+    }
+
+    @Test
+    public void trimMemory_withLowFraction_shouldKeepSingleAd() {
+        nativeAdCache.add(new TimestampWrapper<NativeAd>(mMockNativeAd));
+
+        assertThat(subject.trimMemory(0.25f)).isEqualTo(0);
+
+        assertThat(nativeAdCache).hasSize(1);
+    }
 }
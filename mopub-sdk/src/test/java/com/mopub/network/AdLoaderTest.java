@@ -79,6 +79,7 @@ public class AdLoaderTest {
     @After
     public void teardown() {
         RequestRateTrackerTest.clearRequestRateTracker();
+        AdLoader.setWaterfallPrefetchEnabled(false);
     }
 
     @Test
@@ -305,7 +306,129 @@ public class AdLoaderTest {
         assertThat(subject.hasMoreAds()).isTrue();
     }
 
+    @Test
+    public void loadNextAd_withLastItemOfPage_withPrefetchDisabled_shouldNotRequestNextPage() throws Exception {
+        setMultiAdResponse(createMultiAdResponse("fail_url", "content_1"));
+
+        subject.loadNextAd(null);
+
+        verify(mockListener).onResponse(any(AdResponse.class));
+        verify(mockRequestQueue, never()).add(any(MultiAdRequest.class));
+    }
+
+    @Test
+    public void loadNextAd_withLastItemOfPage_withPrefetchEnabled_shouldRequestNextPage() throws Exception {
+        AdLoader.setWaterfallPrefetchEnabled(true);
+        setMultiAdResponse(createMultiAdResponse("fail_url", "content_1"));
+
+        subject.loadNextAd(null);
+
+        verify(mockListener).onResponse(any(AdResponse.class));
+        assertThat(getSentRequest().getOriginalUrl()).isEqualTo("fail_url");
+        assertThat(subject.isRunning()).isFalse();
+    }
+
+    @Test
+    public void loadNextAd_withPrefetchedPage_shouldDeliverFromItWithoutAnotherRequest() throws Exception {
+        AdLoader.setWaterfallPrefetchEnabled(true);
+        setMultiAdResponse(createMultiAdResponse("fail_url", "content_1"));
+        subject.loadNextAd(null);
+        final MultiAdRequest prefetchRequest = getSentRequest();
+        prefetchRequest.getMoPubListener().onResponse(createMultiAdResponse(null, "content_2"));
+
+        final MoPubRequest<?> request = subject.loadNextAd(UNSPECIFIED);
+
+        assertThat(request).isSameAs(prefetchRequest);
+        final ArgumentCaptor<AdResponse> captor = ArgumentCaptor.forClass(AdResponse.class);
+        verify(mockListener, times(2)).onResponse(captor.capture());
+        assertThat(captor.getAllValues().get(1).getStringBody()).isEqualTo("content_2");
+        verify(mockRequestQueue, times(1)).add(any(MultiAdRequest.class));
+        assertThat(subject.hasMoreAds()).isFalse();
+    }
+
+    @Test
+    public void loadNextAd_withPrefetchStillInFlight_shouldWaitForItWithoutAnotherRequest() throws Exception {
+        AdLoader.setWaterfallPrefetchEnabled(true);
+        setMultiAdResponse(createMultiAdResponse("fail_url", "content_1"));
+        subject.loadNextAd(null);
+        final MultiAdRequest prefetchRequest = getSentRequest();
+
+        final MoPubRequest<?> request = subject.loadNextAd(UNSPECIFIED);
+
+        assertThat(request).isSameAs(prefetchRequest);
+        assertThat(subject.isRunning()).isTrue();
+        verify(mockListener, times(1)).onResponse(any(AdResponse.class));
+
+        prefetchRequest.getMoPubListener().onResponse(createMultiAdResponse(null, "content_2"));
+
+        assertThat(subject.isRunning()).isFalse();
+        verify(mockListener, times(2)).onResponse(any(AdResponse.class));
+        verify(mockRequestQueue, times(1)).add(any(MultiAdRequest.class));
+    }
+
+    @Test
+    public void loadNextAd_withFailedPrefetch_shouldRequestNextPageAgain() throws Exception {
+        AdLoader.setWaterfallPrefetchEnabled(true);
+        setMultiAdResponse(createMultiAdResponse("fail_url", "content_1"));
+        subject.loadNextAd(null);
+        getSentRequest().getMoPubListener().onErrorResponse(
+                new MoPubNetworkError.Builder("timeout").build());
+
+        subject.loadNextAd(UNSPECIFIED);
+
+        verify(mockRequestQueue, times(2)).add(any(MultiAdRequest.class));
+        assertThat(subject.isRunning()).isTrue();
+        assertThat(subject.isFailed()).isFalse();
+        verify(mockListener, never()).onErrorResponse(any(MoPubNetworkError.class));
+    }
+
+    @Test
+    public void creativeDownloadSuccess_shouldCancelPrefetch() throws Exception {
+        AdLoader.setWaterfallPrefetchEnabled(true);
+        setMultiAdResponse(createMultiAdResponse("fail_url", "content_1"));
+        subject.loadNextAd(null);
+        final MultiAdRequest prefetchRequest = getSentRequest();
+
+        subject.creativeDownloadSuccess();
+
+        assertThat(prefetchRequest.isCanceled()).isTrue();
+        // a late response is ignored
+        prefetchRequest.getMoPubListener().onResponse(createMultiAdResponse(null, "content_2"));
+        verify(mockListener, times(1)).onResponse(any(AdResponse.class));
+    }
+
+    @Test
+    public void destroy_shouldCancelPrefetch() throws Exception {
+        AdLoader.setWaterfallPrefetchEnabled(true);
+        setMultiAdResponse(createMultiAdResponse("fail_url", "content_1"));
+        subject.loadNextAd(null);
+        final MultiAdRequest prefetchRequest = getSentRequest();
+
+        subject.destroy();
+
+        assertThat(prefetchRequest.isCanceled()).isTrue();
+        prefetchRequest.getMoPubListener().onResponse(createMultiAdResponse(null, "content_2"));
+        verify(mockListener, times(1)).onResponse(any(AdResponse.class));
+    }
+
     // -----------  utils  -----------
+    private MultiAdResponse createMultiAdResponse(final String failUrl, final String content) throws Exception {
+        final byte[] body = createResponseBody(failUrl,
+                new JSONObject[]{createAdResponseJson("trackingUrl", content)});
+        return new MultiAdResponse(activity, new MoPubNetworkResponse(200, body, headers),
+                AdFormat.BANNER, adUnitId);
+    }
+
+    private void setMultiAdResponse(final MultiAdResponse multiAdResponse) throws Exception {
+        getPrivateField("mMultiAdResponse").set(subject, multiAdResponse);
+    }
+
+    private MultiAdRequest getSentRequest() {
+        final ArgumentCaptor<MultiAdRequest> captor = ArgumentCaptor.forClass(MultiAdRequest.class);
+        verify(mockRequestQueue).add(captor.capture());
+        return captor.getValue();
+    }
+
     private static Field getPrivateField(final String name) throws NoSuchFieldException {
         Field declaredField = AdLoader.class.getDeclaredField(name);
         declaredField.setAccessible(true);
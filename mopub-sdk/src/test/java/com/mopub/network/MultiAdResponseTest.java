@@ -86,6 +86,7 @@ import android.app.Activity;
 
 import com.mopub.common.AdFormat;
 import com.mopub.common.AdType;
+import com.mopub.common.BrowserAgentManager;
 import com.mopub.common.Constants;
 import com.mopub.common.DataKeys;
 import com.mopub.common.ViewabilityManager;
@@ -110,11 +111,13 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.Robolectric;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import static com.mopub.common.BrowserAgentManager.BrowserAgent.IN_APP;
@@ -202,6 +205,7 @@ public class MultiAdResponseTest {
 
     @After
     public void teardown() {
+        MultiAdResponse.setStreamingParserEnabled(true);
         RequestRateTrackerTest.clearRequestRateTracker();
         Locale.setDefault(Locale.US);
     }
@@ -1437,6 +1441,153 @@ public class MultiAdResponseTest {
                 .isEqualTo(CreativeExperienceSettings.getDefaultSettings(REWARDED));
     }
 
+    @Test
+    public void constructor_shouldOnlyParseFirstAdResponse_andParseNextWhenReached() throws Exception {
+        BrowserAgentManager.resetBrowserAgent();
+        singleAdResponse.getJSONObject(ResponseHeader.METADATA.getKey())
+                .put(ResponseHeader.BROWSER_AGENT.getKey(), IN_APP.ordinal());
+        final JSONObject secondResponse = new JSONObject(singleAdResponse.toString());
+        secondResponse.getJSONObject(ResponseHeader.METADATA.getKey())
+                .put(ResponseHeader.BROWSER_AGENT.getKey(), NATIVE.ordinal());
+        final JSONObject jsonObject = createJsonBody(FAIL_URL, singleAdResponse);
+        jsonObject.getJSONArray(ResponseHeader.AD_RESPONSES.getKey()).put(secondResponse);
+        final MoPubNetworkResponse testResponse = new MoPubNetworkResponse(200,
+                jsonObject.toString().getBytes(), Collections.emptyMap());
+
+        final MultiAdResponse subject = new MultiAdResponse(activity, testResponse,
+                AdFormat.BANNER, adUnitId);
+
+        // Parsing an item applies its browser agent, so the second item must be untouched yet
+        assertThat(BrowserAgentManager.getBrowserAgent()).isEqualTo(IN_APP);
+        assertThat(subject.next().getBrowserAgent()).isEqualTo(IN_APP);
+        assertThat(BrowserAgentManager.getBrowserAgent()).isEqualTo(IN_APP);
+
+        assertThat(subject.hasNext()).isTrue();
+        assertThat(BrowserAgentManager.getBrowserAgent()).isEqualTo(NATIVE);
+        assertThat(subject.next().getBrowserAgent()).isEqualTo(NATIVE);
+        assertThat(subject.hasNext()).isFalse();
+        BrowserAgentManager.resetBrowserAgent();
+    }
+
+    @Test
+    public void next_withInvalidItemsBetweenValidOnes_shouldSkipInvalidItems() throws Exception {
+        final JSONObject secondResponse = new JSONObject(singleAdResponse.toString());
+        secondResponse.getJSONObject(ResponseHeader.METADATA.getKey())
+                .put(ResponseHeader.AD_GROUP_ID.getKey(), AD_GROUP_ID + "_2");
+        final JSONObject jsonObject = createJsonBody(FAIL_URL, singleAdResponse);
+        jsonObject.getJSONArray(ResponseHeader.AD_RESPONSES.getKey())
+                .put("invalid")
+                .put(new JSONObject().put(ResponseHeader.CONTENT.getKey(), "no metadata"))
+                .put(secondResponse)
+                .put(createClearAdResponse())
+                .put(singleAdResponse);
+        final MoPubNetworkResponse testResponse = new MoPubNetworkResponse(200,
+                jsonObject.toString().getBytes(), Collections.emptyMap());
+
+        final MultiAdResponse subject = new MultiAdResponse(activity, testResponse,
+                AdFormat.BANNER, adUnitId);
+
+        assertThat(subject.isWaterfallFinished()).isTrue();
+        assertThat(subject.next().getAdGroupId()).isEqualTo(AD_GROUP_ID);
+        assertThat(subject.next().getAdGroupId()).isEqualTo(AD_GROUP_ID + "_2");
+        assertThat(subject.hasNext()).isFalse();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void next_whenExhausted_shouldThrowNoSuchElementException() throws Exception {
+        final byte[] body = createResponseBody(FAIL_URL, singleAdResponse);
+        final MultiAdResponse subject = new MultiAdResponse(activity,
+                new MoPubNetworkResponse(200, body, Collections.emptyMap()), AdFormat.BANNER,
+                adUnitId);
+
+        subject.next();
+        subject.next();
+    }
+
+    @Test
+    public void constructor_withStreamingParser_shouldMatchStringParser() throws Exception {
+        for (final JSONObject body : createParserCorpus()) {
+            final byte[] bytes = body.toString().getBytes("UTF-8");
+
+            MultiAdResponse.setStreamingParserEnabled(false);
+            final List<AdResponse> expected = parseAll(bytes, AdFormat.BANNER);
+            MultiAdResponse.setStreamingParserEnabled(true);
+            final List<AdResponse> actual = parseAll(bytes, AdFormat.BANNER);
+
+            assertThat(actual.size()).isEqualTo(expected.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertAdResponsesEquivalent(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void constructor_withStreamingParser_withClearResponse_shouldThrowSameNoFill() throws Exception {
+        final byte[] body = createResponseBody(FAIL_URL, createClearAdResponse());
+        final MoPubNetworkResponse testResponse = new MoPubNetworkResponse(200, body,
+                Collections.emptyMap());
+
+        MultiAdResponse.setStreamingParserEnabled(true);
+        try {
+            new MultiAdResponse(activity, testResponse, AdFormat.BANNER, adUnitId);
+            assert false;
+        } catch (MoPubNetworkError error) {
+            assertThat(error.getReason()).isEqualTo(MoPubNetworkError.Reason.NO_FILL);
+            assertThat(error.getRefreshTimeMillis()).isEqualTo(REFRESH_TIME * 1000);
+        }
+    }
+
+    @Test
+    public void constructor_withStreamingParser_withNonUtf8Charset_shouldDecodeContent() throws Exception {
+        singleAdResponse.put(ResponseHeader.CONTENT.getKey(), "caf\u00e9");
+        final byte[] body = createJsonBody(FAIL_URL, singleAdResponse).toString()
+                .getBytes("ISO-8859-1");
+        final Map<String, String> headers = Collections.singletonMap("Content-Type",
+                "application/json; charset=ISO-8859-1");
+
+        MultiAdResponse.setStreamingParserEnabled(true);
+        final MultiAdResponse subject = new MultiAdResponse(activity,
+                new MoPubNetworkResponse(200, body, headers), AdFormat.BANNER, adUnitId);
+
+        assertThat(subject.next().getStringBody()).isEqualTo("caf\u00e9");
+    }
+
+    @Test
+    public void constructor_withStreamingParser_withFieldsAfterAdResponses_shouldReadThem() throws Exception {
+        final String body = "{\"" + ResponseHeader.AD_RESPONSES.getKey() + "\":["
+                + singleAdResponse + "],\"" + ResponseHeader.FAIL_URL.getKey() + "\":\""
+                + FAIL_URL + "\",\"" + ResponseHeader.REQUEST_ID.getKey() + "\":\""
+                + REQUEST_ID_VALUE + "\"}";
+
+        MultiAdResponse.setStreamingParserEnabled(true);
+        final MultiAdResponse subject = new MultiAdResponse(activity,
+                new MoPubNetworkResponse(200, body.getBytes("UTF-8"), Collections.emptyMap()),
+                AdFormat.BANNER, adUnitId);
+
+        assertThat(subject.getFailURL()).isEqualTo(FAIL_URL);
+        assertThat(subject.next().getRequestId()).isEqualTo(REQUEST_ID_VALUE);
+    }
+
+    @Test(expected = JSONException.class)
+    public void constructor_withStreamingParser_withoutAdResponses_shouldThrowJSONException() throws Exception {
+        final byte[] body = ("{\"" + ResponseHeader.FAIL_URL.getKey() + "\":\"" + FAIL_URL + "\"}")
+                .getBytes("UTF-8");
+
+        MultiAdResponse.setStreamingParserEnabled(true);
+        new MultiAdResponse(activity, new MoPubNetworkResponse(200, body, Collections.emptyMap()),
+                AdFormat.BANNER, adUnitId);
+    }
+
+    @Test(expected = JSONException.class)
+    public void constructor_withStreamingParser_withTruncatedBody_shouldThrowJSONException() throws Exception {
+        final String body = createJsonBody(FAIL_URL, singleAdResponse).toString();
+        final byte[] truncated = body.substring(0, body.length() / 2).getBytes();
+
+        MultiAdResponse.setStreamingParserEnabled(true);
+        new MultiAdResponse(activity, new MoPubNetworkResponse(200, truncated,
+                Collections.emptyMap()), AdFormat.BANNER, adUnitId);
+    }
+
     // Utility functions
     private static byte[] createResponseBody(String failURL, JSONObject adResponse) throws JSONException {
         return createJsonBody(failURL, adResponse).toString().getBytes();
@@ -1462,6 +1613,105 @@ public class MultiAdResponseTest {
         return jsonBody;
     }
 
+    private List<AdResponse> parseAll(final byte[] body, final AdFormat adFormat) throws Exception {
+        final MoPubNetworkResponse testResponse = new MoPubNetworkResponse(200, body,
+                Collections.emptyMap());
+        final MultiAdResponse subject = new MultiAdResponse(activity, testResponse, adFormat,
+                adUnitId);
+        final List<AdResponse> adResponses = new ArrayList<>();
+        while (subject.hasNext()) {
+            adResponses.add(subject.next());
+        }
+        return adResponses;
+    }
+
+    /**
+     * Bodies exercising the value types and header shapes the server sends: string and array
+     * trackers, numeric and string-encoded numbers, nested objects, nulls, escaped content, a
+     * static native JSON body and items that must be skipped.
+     */
+    private List<JSONObject> createParserCorpus() throws JSONException {
+        final List<JSONObject> corpus = new ArrayList<>();
+
+        corpus.add(createJsonBody(FAIL_URL, singleAdResponse));
+
+        final JSONObject withExtras = new JSONObject(singleAdResponse.toString());
+        final JSONObject extrasMetadata = withExtras.getJSONObject(ResponseHeader.METADATA.getKey());
+        extrasMetadata.put(ResponseHeader.CUSTOM_EVENT_DATA.getKey(), "{\"key\":\"value\"}");
+        extrasMetadata.put(ResponseHeader.IMPRESSION_DATA.getKey(), createImpressionData());
+        extrasMetadata.put(ResponseHeader.VIEWABILITY_VERIFICATION.getKey(),
+                createVieabilityVerificationJson());
+        extrasMetadata.put(ResponseHeader.REFRESH_TIME.getKey(), "30.5");
+        extrasMetadata.put(ResponseHeader.BROWSER_AGENT.getKey(), 1);
+        extrasMetadata.put(ResponseHeader.CLICK_TRACKING_URL.getKey(), CLICKTRACKING_URL);
+        extrasMetadata.put(ResponseHeader.NETWORK_TYPE.getKey(), JSONObject.NULL);
+        extrasMetadata.put(DataKeys.ADM_KEY, ADM_VALUE);
+        withExtras.put(ResponseHeader.CONTENT.getKey(),
+                "<html>\"quoted\" \\ \u2603 \n\t<script>var a = {};</script></html>");
+        final JSONObject withExtrasBody = createJsonBody(FAIL_URL, withExtras);
+        withExtrasBody.put(ResponseHeader.CREATIVE_EXPERIENCE_SETTINGS.getKey(),
+                CREATIVE_EXPERIENCE_SETTINGS_OBJECT);
+        withExtrasBody.put(ResponseHeader.REQUEST_ID.getKey(), REQUEST_ID_VALUE);
+        withExtrasBody.put(ResponseHeader.ADUNIT_FORMAT.getKey(), ADUNIT_FORMAT);
+        corpus.add(withExtrasBody);
+
+        final JSONObject nativeResponse = new JSONObject(singleAdResponse.toString());
+        nativeResponse.getJSONObject(ResponseHeader.METADATA.getKey())
+                .put(ResponseHeader.AD_TYPE.getKey(), AdType.STATIC_NATIVE)
+                .put(ResponseHeader.IMPRESSION_MIN_VISIBLE_PERCENT.getKey(), "50%")
+                .put(ResponseHeader.IMPRESSION_VISIBLE_MS.getKey(), "1000");
+        nativeResponse.put(ResponseHeader.CONTENT.getKey(),
+                "{\"title\":\"title\",\"imptracker\":[\"a\",\"b\"]}");
+        corpus.add(createJsonBody(FAIL_URL, nativeResponse));
+
+        final JSONObject multiple = createJsonBody("", singleAdResponse);
+        final JSONArray items = multiple.getJSONArray(ResponseHeader.AD_RESPONSES.getKey());
+        items.put("not an object");
+        items.put(new JSONObject().put(ResponseHeader.CONTENT.getKey(), "no metadata"));
+        items.put(withExtras);
+        items.put(createClearAdResponse());
+        items.put(nativeResponse);
+        addBackoffParameters(multiple, 0, "");
+        corpus.add(multiple);
+
+        return corpus;
+    }
+
+    private static void assertAdResponsesEquivalent(final AdResponse expected,
+            final AdResponse actual) {
+        assertThat(actual.getAdType()).isEqualTo(expected.getAdType());
+        assertThat(actual.getFullAdType()).isEqualTo(expected.getFullAdType());
+        assertThat(actual.getAdGroupId()).isEqualTo(expected.getAdGroupId());
+        assertThat(actual.getAdUnitId()).isEqualTo(expected.getAdUnitId());
+        assertThat(actual.getNetworkType()).isEqualTo(expected.getNetworkType());
+        assertThat(actual.getStringBody()).isEqualTo(expected.getStringBody());
+        assertThat(String.valueOf(actual.getJsonBody()))
+                .isEqualTo(String.valueOf(expected.getJsonBody()));
+        assertThat(actual.getRequestId()).isEqualTo(expected.getRequestId());
+        assertThat(actual.getWidth()).isEqualTo(expected.getWidth());
+        assertThat(actual.getHeight()).isEqualTo(expected.getHeight());
+        assertThat(actual.getRefreshTimeMillis()).isEqualTo(expected.getRefreshTimeMillis());
+        assertThat(actual.getAdTimeoutMillis(-1)).isEqualTo(expected.getAdTimeoutMillis(-1));
+        assertThat(actual.getDspCreativeId()).isEqualTo(expected.getDspCreativeId());
+        assertThat(actual.getBaseAdClassName()).isEqualTo(expected.getBaseAdClassName());
+        assertThat(actual.getBrowserAgent()).isEqualTo(expected.getBrowserAgent());
+        assertThat(actual.getClickTrackingUrls()).isEqualTo(expected.getClickTrackingUrls());
+        assertThat(actual.getImpressionTrackingUrls())
+                .isEqualTo(expected.getImpressionTrackingUrls());
+        assertThat(actual.getBeforeLoadUrls()).isEqualTo(expected.getBeforeLoadUrls());
+        assertThat(actual.getAfterLoadUrls()).isEqualTo(expected.getAfterLoadUrls());
+        assertThat(actual.getAfterLoadSuccessUrls()).isEqualTo(expected.getAfterLoadSuccessUrls());
+        assertThat(actual.getAfterLoadFailUrls()).isEqualTo(expected.getAfterLoadFailUrls());
+        assertThat(actual.getServerExtras()).isEqualTo(expected.getServerExtras());
+        assertThat(actual.getViewabilityVendors()).isEqualTo(expected.getViewabilityVendors());
+        assertThat(String.valueOf(actual.getImpressionData() == null ? null
+                : actual.getImpressionData().getJsonRepresentation()))
+                .isEqualTo(String.valueOf(expected.getImpressionData() == null ? null
+                        : expected.getImpressionData().getJsonRepresentation()));
+        assertThat(actual.getCreativeExperienceSettings())
+                .isEqualTo(expected.getCreativeExperienceSettings());
+    }
+
     //    {
     //        "metadata": {
     //          "x-adtype": "clear",
@@ -24,6 +24,8 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.robolectric.Robolectric;
 
+import java.util.Map;
+
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -75,6 +77,84 @@ public class PlayServicesUrlRewriterTest {
                 encodedIfa + "&dnt=0&tas=authorized&mid=" + encodedMoPubId);
     }
 
+    @Test
+    public void replaceIdentifiersWithTemplates_shouldUndoRewriteUrl() {
+        when(mockPersonalInfoManager.canCollectPersonalInformation()).thenReturn(true);
+        final String templateUrl =
+                "https://ads.mopub.com/m/imp?ad_id=abcece&ifa=mp_tmpl_advertising_id&mid=mp_tmpl_mopub_id";
+        final String rewrittenUrl = subject.rewriteUrl(templateUrl);
+
+        final String result = PlayServicesUrlRewriter.replaceIdentifiersWithTemplates(rewrittenUrl);
+
+        assertThat(rewrittenUrl).isNotEqualTo(templateUrl);
+        assertThat(result).isEqualTo(templateUrl);
+    }
+
+    @Test
+    public void replaceIdentifiersWithTemplates_withOtherEncodings_shouldReplaceDecodedValues() {
+        final AdvertisingId adId = ClientMetadata.getInstance().getMoPubIdentifier()
+                .getAdvertisingInfo();
+        final String mopubId = adId.getIdentifier(false);
+        // Every character percent-encoded, which Uri.encode would never produce
+        final StringBuilder encodedMoPubId = new StringBuilder();
+        for (final char c : mopubId.toCharArray()) {
+            encodedMoPubId.append(String.format("%%%02X", (int) c));
+        }
+
+        final String result = PlayServicesUrlRewriter.replaceIdentifiersWithTemplates(
+                "https://ads.mopub.com/m/imp?mid=" + encodedMoPubId + "&ifa="
+                        + adId.getIdentifier(true) + "#top");
+
+        assertThat(result).isEqualTo(
+                "https://ads.mopub.com/m/imp?mid=mp_tmpl_mopub_id&ifa=mp_tmpl_advertising_id#top");
+    }
+
+    @Test
+    public void replaceIdentifiersWithTemplates_shouldOnlyReplaceIdentifierParams() {
+        final String mopubId = ClientMetadata.getInstance().getMoPubIdentifier()
+                .getAdvertisingInfo().getIdentifier(false);
+        final String url = "https://ads.mopub.com/m/imp?id=" + mopubId + "&mid=other&r="
+                + Uri.encode("https://example.com/?mid=" + mopubId);
+
+        assertThat(PlayServicesUrlRewriter.replaceIdentifiersWithTemplates(url)).isEqualTo(url);
+    }
+
+    @Test
+    public void rewriteParams_shouldUseAdvertisingIdValue_withoutEncoding() {
+        when(mockPersonalInfoManager.canCollectPersonalInformation()).thenReturn(true);
+
+        AdvertisingId adId = ClientMetadata.getInstance().getMoPubIdentifier().getAdvertisingInfo();
+        MoPubRequestParams params = new MoPubRequestParams();
+        params.add("ad_id", "abcece");
+        params.add("ifa", PlayServicesUrlRewriter.IFA_TEMPLATE);
+        params.add("dnt", PlayServicesUrlRewriter.DO_NOT_TRACK_TEMPLATE);
+        params.add("tas", PlayServicesUrlRewriter.TAS_TEMPLATE);
+        params.add("mid", PlayServicesUrlRewriter.MOPUB_ID_TEMPLATE);
+
+        subject.rewriteParams(params);
+
+        Map<String, String> result = params.toMap();
+        assertThat(result.get("ad_id")).isEqualTo("abcece");
+        assertThat(result.get("ifa")).isEqualTo(adId.getIdentifier(true));
+        assertThat(result.get("dnt")).isEqualTo("0");
+        assertThat(result.get("tas")).isEqualTo("authorized");
+        assertThat(result.get("mid")).isEqualTo(adId.getIdentifier(false));
+    }
+
+    @Test
+    public void rewriteParams_whenCannotCollectPersonalInformation_shouldRemoveIfa() {
+        when(mockPersonalInfoManager.canCollectPersonalInformation()).thenReturn(false);
+
+        MoPubRequestParams params = new MoPubRequestParams();
+        params.add("ifa", PlayServicesUrlRewriter.IFA_TEMPLATE);
+        params.add("dnt", PlayServicesUrlRewriter.DO_NOT_TRACK_TEMPLATE);
+
+        subject.rewriteParams(params);
+
+        assertThat(params.toMap().containsKey("ifa")).isFalse();
+        assertThat(params.toMap().get("dnt")).isEqualTo("0");
+    }
+
     @Test
     public void rewriteUrl_noTemplates_shouldReturnIdentical() throws Exception {
         assertThat(subject.rewriteUrl("https://ads.mopub.com/m/ad")).isEqualTo("https://ads.mopub.com/m/ad");
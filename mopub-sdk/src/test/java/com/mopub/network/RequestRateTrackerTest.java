@@ -16,6 +16,7 @@ import org.junit.runner.RunWith;
 import org.robolectric.Robolectric;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.junit.Assert.assertNotNull;
@@ -203,6 +204,117 @@ public class RequestRateTrackerTest {
         assertThat(subject.isBlockedByRateLimit(AD_UNIT_1)).isFalse();
     }
 
+    @Test
+    public void tryAcquireRequest_withNoLimits_shouldAllowAndCount() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isTrue();
+        }
+
+        assertThat(subject.getAllowedRequestCount()).isEqualTo(100);
+    }
+
+    @Test
+    public void tryAcquireRequest_withServerBackoff_shouldBlockAndCount() {
+        subject.registerRateLimit(AD_UNIT_1, BACKOFF_TIME, REASON);
+
+        assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isFalse();
+        assertThat(subject.tryAcquireRequest(AD_UNIT_2)).isTrue();
+
+        assertThat(subject.getBlockedByBackoffCount()).isEqualTo(1);
+        assertThat(subject.getAllowedRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void tryAcquireRequest_withAdUnitLimit_shouldAllowBurstThenRefill() {
+        subject.setAdUnitRequestLimit(2, 1000);
+
+        assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isTrue();
+        assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isTrue();
+        assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isFalse();
+        assertThat(subject.tryAcquireRequest(AD_UNIT_2)).isTrue();
+        assertThat(subject.getBlockedByAdUnitLimitCount()).isEqualTo(1);
+
+        Robolectric.getForegroundThreadScheduler().advanceBy(1000, TimeUnit.MILLISECONDS);
+
+        assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isTrue();
+        assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isFalse();
+    }
+
+    @Test
+    public void tryAcquireRequest_withGlobalLimit_shouldLimitAllAdUnitsTogether() {
+        subject.setGlobalRequestLimit(2, 1000);
+
+        assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isTrue();
+        assertThat(subject.tryAcquireRequest(AD_UNIT_2)).isTrue();
+        assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isFalse();
+        assertThat(subject.tryAcquireRequest(AD_UNIT_2)).isFalse();
+
+        assertThat(subject.getBlockedByGlobalLimitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void tryAcquireRequest_whenBlockedByGlobalLimit_shouldNotUseAdUnitToken() {
+        subject.setAdUnitRequestLimit(2, 1000);
+        subject.setGlobalRequestLimit(1, 1000);
+
+        assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isTrue();
+        assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isFalse();
+        subject.setGlobalRequestLimit(0, 0);
+
+        assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isTrue();
+        assertThat(subject.tryAcquireRequest(AD_UNIT_1)).isFalse();
+    }
+
+    @Test
+    public void tryAcquireRequest_fromManyThreads_shouldAllowExactlyCapacity() throws Exception {
+        subject.setGlobalRequestLimit(50, TimeUnit.HOURS.toMillis(1));
+        final AtomicInteger allowed = new AtomicInteger();
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 100; j++) {
+                        if (subject.tryAcquireRequest(AD_UNIT_1)) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(allowed.get()).isEqualTo(50);
+        assertThat(subject.getBlockedByGlobalLimitCount()).isEqualTo(750);
+    }
+
+    @Test
+    public void tokenBucket_getAvailableTokens_shouldReflectAcquiresAndRefill() {
+        final RequestRateTracker.TokenBucket bucket = new RequestRateTracker.TokenBucket(3, 100);
+
+        assertThat(bucket.getAvailableTokens(1000)).isEqualTo(3);
+        bucket.tryAcquire(1000);
+        bucket.tryAcquire(1000);
+        assertThat(bucket.getAvailableTokens(1000)).isEqualTo(1);
+        assertThat(bucket.getAvailableTokens(1150)).isEqualTo(2);
+        assertThat(bucket.getAvailableTokens(1200)).isEqualTo(3);
+        assertThat(bucket.getAvailableTokens(5000)).isEqualTo(3);
+    }
+
+    @Test
+    public void getRefreshJitterMs_shouldStayWithinMax() {
+        assertThat(subject.getRefreshJitterMs()).isEqualTo(0);
+
+        subject.setMaxRefreshJitterMs(500);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(subject.getRefreshJitterMs()).isGreaterThanOrEqualTo(0).isLessThanOrEqualTo(500);
+        }
+    }
+
     /**
      * Utility functions
      */
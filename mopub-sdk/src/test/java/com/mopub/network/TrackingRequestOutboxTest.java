@@ -0,0 +1,389 @@
+// Copyright 2018-2021 Twitter, Inc.
+// Licensed under the MoPub SDK License Agreement
+// https://www.mopub.com/legal/sdk-license-agreement/
+
+package com.mopub.network;
+
+import android.app.Activity;
+import android.content.Context;
+
+import com.mopub.common.test.support.SdkTestRunner;
+import com.mopub.common.util.test.support.TestDateAndTime;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.robolectric.Robolectric;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static com.mopub.common.MoPubRequestMatcher.isUrl;
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(SdkTestRunner.class)
+public class TrackingRequestOutboxTest {
+    private static final String URL_1 = "https://tracker.example.com/imp?id=1";
+    private static final String URL_2 = "https://tracker.example.com/imp?id=2";
+    private static final String URL_3 = "https://tracker.example.com/imp?id=3";
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    @Mock private MoPubRequestQueue mockRequestQueue;
+    private Context context;
+    private File logFile;
+    private long now;
+
+    @Before
+    public void setUp() {
+        context = Robolectric.buildActivity(Activity.class).create().get();
+        Networking.setRequestQueueForTesting(mockRequestQueue);
+        logFile = new File(context.getFilesDir(), TrackingRequestOutbox.LOG_FILE_NAME);
+        now = 1000000L;
+        TestDateAndTime.getInstance().setNow(new Date(now));
+    }
+
+    @Test
+    public void enqueue_shouldSendRequestAndRecordItInLog() throws Exception {
+        final TrackingRequestOutbox subject = createOutbox(2);
+
+        subject.enqueue(URL_1, null);
+
+        verify(mockRequestQueue).add(argThat(isUrl(URL_1)));
+        assertThat(subject.getQueueDepth()).isEqualTo(1);
+        final List<String> lines = readLog();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).startsWith("+").endsWith(" " + now + " " + URL_1);
+        assertThat(lines.get(1)).isEqualTo(">" + lines.get(0).substring(1, lines.get(0).indexOf(' ')));
+    }
+
+    @Test
+    public void enqueue_withMoreRequestsThanConcurrencyLimit_shouldHoldBackUntilOneCompletes() {
+        final TrackingRequestOutbox subject = createOutbox(2);
+
+        subject.enqueue(URL_1, null);
+        subject.enqueue(URL_2, null);
+        subject.enqueue(URL_3, null);
+
+        verify(mockRequestQueue, times(2)).add(any(TrackingRequest.class));
+        verify(mockRequestQueue, never()).add(argThat(isUrl(URL_3)));
+        assertThat(subject.getQueueDepth()).isEqualTo(3);
+
+        getSentRequests().get(0).getMoPubListener().onResponse(URL_1);
+
+        verify(mockRequestQueue).add(argThat(isUrl(URL_3)));
+        assertThat(subject.getQueueDepth()).isEqualTo(2);
+        assertThat(subject.getDeliveredCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void enqueue_withPausedLooper_shouldSendBeaconsEnqueuedTogetherInOneDrain() throws Exception {
+        final TrackingRequestOutbox subject = createOutbox(2);
+        Robolectric.getForegroundThreadScheduler().pause();
+
+        subject.enqueue(URL_1, null);
+        subject.enqueue(URL_2, null);
+        subject.enqueue(URL_3, null);
+
+        verify(mockRequestQueue, never()).add(any(TrackingRequest.class));
+        assertThat(readLog()).hasSize(3);
+
+        Robolectric.getForegroundThreadScheduler().unPause();
+
+        verify(mockRequestQueue).add(argThat(isUrl(URL_1)));
+        verify(mockRequestQueue).add(argThat(isUrl(URL_2)));
+        verify(mockRequestQueue, never()).add(argThat(isUrl(URL_3)));
+        assertThat(subject.getQueueDepth()).isEqualTo(3);
+    }
+
+    @Test
+    public void onResponse_shouldNotifyListenerAndRecordDeliveryLatency() throws Exception {
+        final TrackingRequestOutbox subject = createOutbox(2);
+        final TrackingRequest.Listener listener = mock(TrackingRequest.Listener.class);
+        subject.enqueue(URL_1, listener);
+        subject.enqueue(URL_2, null);
+
+        TestDateAndTime.getInstance().setNow(new Date(now + 250));
+        getSentRequests().get(0).getMoPubListener().onResponse(URL_1);
+
+        verify(listener).onResponse(URL_1);
+        assertThat(subject.getQueueDepth()).isEqualTo(1);
+        assertThat(subject.getAverageDeliveryLatencyMs()).isEqualTo(250);
+        assertThat(subject.getMaxDeliveryLatencyMs()).isEqualTo(250);
+        final List<String> lines = readLog();
+        assertThat(lines).hasSize(5);
+        assertThat(lines.get(4)).startsWith("-");
+    }
+
+    @Test
+    public void onResponse_withLastOutstandingBeacon_shouldDeleteLog() throws Exception {
+        final TrackingRequestOutbox subject = createOutbox(2);
+        subject.enqueue(URL_1, null);
+        assertThat(logFile.exists()).isTrue();
+
+        getSentRequests().get(0).getMoPubListener().onResponse(URL_1);
+
+        assertThat(subject.getQueueDepth()).isEqualTo(0);
+        assertThat(logFile.exists()).isFalse();
+    }
+
+    @Test
+    public void onErrorResponse_withConnectionFailure_shouldRetryAfterBackoff() {
+        final TrackingRequestOutbox subject = createOutbox(2);
+        final TrackingRequest.Listener listener = mock(TrackingRequest.Listener.class);
+        subject.enqueue(URL_1, listener);
+
+        getSentRequests().get(0).getMoPubListener().onErrorResponse(createConnectionError());
+
+        verify(mockRequestQueue, times(1)).add(any(TrackingRequest.class));
+        Robolectric.getForegroundThreadScheduler().advanceBy(TrackingRequestOutbox.INITIAL_BACKOFF_MS);
+
+        verify(mockRequestQueue, times(2)).add(argThat(isUrl(URL_1)));
+        verify(listener, never()).onErrorResponse(any(MoPubNetworkError.class));
+        assertThat(subject.getQueueDepth()).isEqualTo(1);
+        assertThat(subject.getDroppedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void onErrorResponse_withTimeout_shouldDropAndNotifyListener() {
+        final TrackingRequestOutbox subject = createOutbox(2);
+        final TrackingRequest.Listener listener = mock(TrackingRequest.Listener.class);
+        subject.enqueue(URL_1, listener);
+        final MoPubNetworkError error = new MoPubNetworkError.Builder("timeout").build();
+
+        getSentRequests().get(0).getMoPubListener().onErrorResponse(error);
+        Robolectric.getForegroundThreadScheduler().advanceBy(TrackingRequestOutbox.MAX_BACKOFF_MS);
+
+        verify(mockRequestQueue, times(1)).add(any(TrackingRequest.class));
+        verify(listener).onErrorResponse(error);
+        assertThat(subject.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void onErrorResponse_withClientError_shouldDropAndNotifyListener() {
+        final TrackingRequestOutbox subject = createOutbox(2);
+        final TrackingRequest.Listener listener = mock(TrackingRequest.Listener.class);
+        subject.enqueue(URL_1, listener);
+        final MoPubNetworkError error = createErrorWithStatusCode(404);
+
+        getSentRequests().get(0).getMoPubListener().onErrorResponse(error);
+        Robolectric.getForegroundThreadScheduler().advanceBy(TrackingRequestOutbox.MAX_BACKOFF_MS);
+
+        verify(mockRequestQueue, times(1)).add(any(TrackingRequest.class));
+        verify(listener).onErrorResponse(error);
+        assertThat(subject.getQueueDepth()).isEqualTo(0);
+        assertThat(subject.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void onErrorResponse_afterMaxAttempts_shouldDrop() {
+        final TrackingRequestOutbox subject = createOutbox(2);
+        subject.enqueue(URL_1, null);
+
+        for (int i = 0; i < TrackingRequestOutbox.MAX_ATTEMPTS; i++) {
+            final List<TrackingRequest> requests = getSentRequests();
+            requests.get(requests.size() - 1).getMoPubListener().onErrorResponse(
+                    createConnectionError());
+            Robolectric.getForegroundThreadScheduler().advanceBy(TrackingRequestOutbox.MAX_BACKOFF_MS);
+        }
+
+        verify(mockRequestQueue, times(TrackingRequestOutbox.MAX_ATTEMPTS)).add(argThat(isUrl(URL_1)));
+        assertThat(subject.getQueueDepth()).isEqualTo(0);
+        assertThat(subject.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void constructor_withUnsentEntriesInLog_shouldSendThem() {
+        final TrackingRequestOutbox previous = createOutbox(1);
+        previous.enqueue(URL_1, null);
+        previous.enqueue(URL_2, null);
+        getSentRequests().get(0).getMoPubListener().onResponse(URL_1);
+        verify(mockRequestQueue).add(argThat(isUrl(URL_2)));
+        getSentRequests().get(1).getMoPubListener().onErrorResponse(createConnectionError());
+
+        // The process dies with URL_2 waiting to be retried
+        final TrackingRequestOutbox subject = createOutbox(2);
+
+        verify(mockRequestQueue, times(2)).add(argThat(isUrl(URL_2)));
+        verify(mockRequestQueue, times(1)).add(argThat(isUrl(URL_1)));
+        assertThat(subject.getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    public void constructor_withInFlightEntriesInLog_shouldDropThem() {
+        final TrackingRequestOutbox previous = createOutbox(1);
+        previous.enqueue(URL_1, null);
+        previous.enqueue(URL_2, null);
+        verify(mockRequestQueue).add(argThat(isUrl(URL_1)));
+
+        // The process dies with URL_1 in flight, so the endpoint may already have counted it
+        final TrackingRequestOutbox subject = createOutbox(2);
+
+        verify(mockRequestQueue, times(1)).add(argThat(isUrl(URL_1)));
+        verify(mockRequestQueue, times(1)).add(argThat(isUrl(URL_2)));
+        assertThat(subject.getQueueDepth()).isEqualTo(1);
+        assertThat(subject.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void constructor_shouldSendRestoredEntriesFromMainThread() {
+        final TrackingRequestOutbox previous = createOutbox(0);
+        previous.enqueue(URL_1, null);
+        Robolectric.getForegroundThreadScheduler().pause();
+
+        createOutbox(2);
+
+        verify(mockRequestQueue, never()).add(any(TrackingRequest.class));
+
+        Robolectric.getForegroundThreadScheduler().unPause();
+
+        verify(mockRequestQueue).add(argThat(isUrl(URL_1)));
+    }
+
+    @Test
+    public void constructor_withFinishedRecordsInLog_shouldRewriteLogWithOutstandingBeacons()
+            throws Exception {
+        final TrackingRequestOutbox previous = createOutbox(1);
+        previous.enqueue(URL_1, null);
+        previous.enqueue(URL_2, null);
+        previous.enqueue(URL_3, null);
+        getSentRequests().get(0).getMoPubListener().onResponse(URL_1);
+        getSentRequests().get(1).getMoPubListener().onErrorResponse(createConnectionError());
+        assertThat(readLog()).hasSize(7);
+
+        createOutbox(0);
+
+        final List<String> lines = readLog();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).endsWith(" " + URL_2);
+        assertThat(lines.get(1)).endsWith(" " + URL_3);
+    }
+
+    @Test
+    public void constructor_withExpiredEntriesInLog_shouldDropThem() {
+        final TrackingRequestOutbox previous = createOutbox(0);
+        previous.enqueue(URL_1, null);
+        TestDateAndTime.getInstance().setNow(new Date(now + TrackingRequestOutbox.MAX_AGE_MS + 1));
+
+        final TrackingRequestOutbox subject = createOutbox(2);
+
+        verify(mockRequestQueue, never()).add(any(TrackingRequest.class));
+        assertThat(subject.getQueueDepth()).isEqualTo(0);
+        assertThat(subject.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void constructor_withPartiallyWrittenRecord_shouldIgnoreIt() throws Exception {
+        final TrackingRequestOutbox previous = createOutbox(0);
+        previous.enqueue(URL_1, null);
+        final FileWriter writer = new FileWriter(logFile, true);
+        writer.write("+abc 12");
+        writer.close();
+
+        final TrackingRequestOutbox subject = createOutbox(2);
+
+        verify(mockRequestQueue).add(argThat(isUrl(URL_1)));
+        assertThat(subject.getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    public void clearForTesting_shouldDeleteLog() throws Exception {
+        TrackingRequestOutbox.setMaxConcurrentRequestsForTesting(0);
+        final FileWriter writer = new FileWriter(logFile);
+        writer.write("+abc " + now + " " + URL_1 + "\n");
+        writer.close();
+        TrackingRequestOutbox.getInstance(context);
+
+        TrackingRequestOutbox.clearForTesting();
+
+        assertThat(logFile.exists()).isFalse();
+    }
+
+    @Test
+    public void isRetryable_shouldOnlyRetryWhenRequestNeverReachedServer() {
+        assertThat(TrackingRequestOutbox.isRetryable(createConnectionError())).isTrue();
+        assertThat(TrackingRequestOutbox.isRetryable(
+                new MoPubNetworkError.Builder("no connection", new UnknownHostException())
+                        .reason(MoPubNetworkError.Reason.NO_CONNECTION)
+                        .build())).isTrue();
+        // The request may have been sent before the connection dropped
+        assertThat(TrackingRequestOutbox.isRetryable(
+                new MoPubNetworkError.Builder("no connection", new SocketException())
+                        .reason(MoPubNetworkError.Reason.NO_CONNECTION)
+                        .build())).isFalse();
+        assertThat(TrackingRequestOutbox.isRetryable(
+                new MoPubNetworkError.Builder("timeout", new SocketTimeoutException()).build()))
+                .isFalse();
+        assertThat(TrackingRequestOutbox.isRetryable(createErrorWithStatusCode(500))).isFalse();
+        assertThat(TrackingRequestOutbox.isRetryable(createErrorWithStatusCode(429))).isFalse();
+        assertThat(TrackingRequestOutbox.isRetryable(createErrorWithStatusCode(400))).isFalse();
+    }
+
+    @Test
+    public void getBackoffMs_shouldDoubleUpToMax() {
+        assertThat(TrackingRequestOutbox.getBackoffMs(1)).isEqualTo(TrackingRequestOutbox.INITIAL_BACKOFF_MS);
+        assertThat(TrackingRequestOutbox.getBackoffMs(2)).isEqualTo(2 * TrackingRequestOutbox.INITIAL_BACKOFF_MS);
+        assertThat(TrackingRequestOutbox.getBackoffMs(3)).isEqualTo(4 * TrackingRequestOutbox.INITIAL_BACKOFF_MS);
+        assertThat(TrackingRequestOutbox.getBackoffMs(100)).isEqualTo(TrackingRequestOutbox.MAX_BACKOFF_MS);
+    }
+
+    private TrackingRequestOutbox createOutbox(final int maxConcurrentRequests) {
+        return new TrackingRequestOutbox(context, logFile, DIRECT_EXECUTOR, maxConcurrentRequests);
+    }
+
+    private List<TrackingRequest> getSentRequests() {
+        final ArgumentCaptor<TrackingRequest> captor = ArgumentCaptor.forClass(TrackingRequest.class);
+        verify(mockRequestQueue, atLeastOnce()).add(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static MoPubNetworkError createConnectionError() {
+        return new MoPubNetworkError.Builder("no connection", new ConnectException())
+                .reason(MoPubNetworkError.Reason.NO_CONNECTION)
+                .build();
+    }
+
+    private static MoPubNetworkError createErrorWithStatusCode(final int statusCode) {
+        return new MoPubNetworkError.Builder("status " + statusCode)
+                .reason(MoPubNetworkError.Reason.TRACKING_FAILURE)
+                .networkResponse(new MoPubNetworkResponse(statusCode, new byte[0],
+                        Collections.<String, String>emptyMap()))
+                .build();
+    }
+
+    private List<String> readLog() throws Exception {
+        final List<String> lines = new ArrayList<>();
+        final BufferedReader reader = new BufferedReader(new FileReader(logFile));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        reader.close();
+        return lines;
+    }
+}